@@ -1,6 +1,5 @@
 package com.omstu.agriculturefield.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -8,23 +7,17 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Configuration
 public class ExternalServicesConfig {
 
-    @Value("${services.weather-service.url:http://localhost:8082}")
-    private String weatherServiceUrl;
-
-    @Value("${services.ml-service.url:http://localhost:8000}")
-    private String mlServiceUrl;
-
     @Bean("weatherWebClient")
-    public WebClient weatherWebClient() {
+    public WebClient weatherWebClient(WeatherServiceProperties weatherServiceProperties) {
         return WebClient.builder()
-                .baseUrl(weatherServiceUrl)
+                .baseUrl(weatherServiceProperties.getUrl())
                 .build();
     }
 
     @Bean("mlWebClient")
-    public WebClient mlWebClient() {
+    public WebClient mlWebClient(MlServiceProperties mlServiceProperties) {
         return WebClient.builder()
-                .baseUrl(mlServiceUrl)
+                .baseUrl(mlServiceProperties.getUrl())
                 .build();
     }
 }
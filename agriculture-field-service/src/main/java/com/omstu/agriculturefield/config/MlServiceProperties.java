@@ -0,0 +1,50 @@
+package com.omstu.agriculturefield.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Параметры обращения к ml-service (прогнозы урожайности и цен)
+ */
+@Component
+@ConfigurationProperties(prefix = "services.ml-service")
+@Getter
+@Setter
+public class MlServiceProperties {
+
+    private String url = "http://localhost:8000";
+
+    // Максимум позиций в одном пакетном запросе прогнозов
+    private int maxBatchSize = 200;
+
+    // Максимум одновременных запросов прогнозов (частей пакета) при построении одной рекомендации
+    private int maxConcurrentRequests = 4;
+
+    // Ожидание ответа на один запрос прогнозов; дольше — прогнозы его позиций считаются недоступными
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    // Кэш прогнозов
+    private PredictionCache predictionCache = new PredictionCache();
+
+    /**
+     * Параметры кэша прогнозов: ответ модели зависит только от признаков запроса,
+     * поэтому одинаковые запросы разных полей региона обслуживаются из кэша
+     */
+    @Getter
+    @Setter
+    public static class PredictionCache {
+
+        // Максимум записей в кэше каждого вида прогнозов
+        private long maxSize = 100_000;
+
+        // Время жизни записи
+        private Duration timeToLive = Duration.ofHours(6);
+
+        // Как часто сверяется версия моделей ml-service (новая версия сбрасывает кэш)
+        private Duration versionCheckInterval = Duration.ofMinutes(1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.omstu.agriculturefield.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Параметры пакетного построения рекомендаций по полям хозяйства
+ */
+@Component
+@ConfigurationProperties(prefix = "recommendations.batch")
+@Getter
+@Setter
+public class RecommendationProperties {
+
+    // Максимум полей в одном пакетном запросе
+    private int maxFields = 2000;
+
+    // Сколько ждать погоду других ячеек, чтобы запросить их урожайность одним пакетом
+    private Duration yieldBatchWindow = Duration.ofMillis(100);
+}
@@ -0,0 +1,24 @@
+package com.omstu.agriculturefield.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Параметры обращения к weather-service
+ */
+@Component
+@ConfigurationProperties(prefix = "services.weather-service")
+@Getter
+@Setter
+public class WeatherServiceProperties {
+
+    private String url = "http://localhost:8082";
+
+    // Шаг сетки погодной модели (в градусах): поля одной ячейки получают одну сезонную погоду
+    private double gridResolutionDegrees = 0.1;
+
+    // Максимум позиций в одном пакетном запросе сезонных метрик (ограничение weather-service)
+    private int seasonalBatchMaxItems = 500;
+}
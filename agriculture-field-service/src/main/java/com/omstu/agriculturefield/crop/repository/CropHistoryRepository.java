@@ -5,10 +5,15 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CropHistoryRepository extends JpaRepository<CropHistory, Long> {
 
     @Query("SELECT h FROM CropHistory h WHERE h.field.id = :fieldId ORDER BY h.plantingDate DESC")
     List<CropHistory> findByFieldIdOrderByPlantingDateDesc(@Param("fieldId") Long fieldId);
+
+    @Query("SELECT h FROM CropHistory h JOIN FETCH h.field JOIN FETCH h.cropType LEFT JOIN FETCH h.cropVariety "
+            + "WHERE h.field.id IN :fieldIds ORDER BY h.plantingDate DESC")
+    List<CropHistory> findByFieldIdInOrderByPlantingDateDesc(@Param("fieldIds") Collection<Long> fieldIds);
 }
@@ -0,0 +1,159 @@
+package com.omstu.agriculturefield.rotation.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ограниченный in-memory кэш прогнозов ml-service.
+ *
+ * - ключ — нормализованный запрос прогноза: ответ модели зависит только от его признаков
+ * - вытеснение по числу записей и времени жизни
+ * - при смене версии модели (по ответам ml-service) записи ее прогнозов сбрасываются
+ * - попадания, промахи и вытеснения публикуются в Micrometer как метрики cache.*
+ *   с тегами cache=ml.prediction.price и cache=ml.prediction.yield
+ */
+@Component
+@Slf4j
+public class MlPredictionCache {
+
+    // Точность, до которой округляются числовые признаки ключа (и отправляемого в модель запроса)
+    private static final double FEATURE_SCALE = 1000.0;
+
+    private final ModelPredictions<PricePredictionRequest> prices;
+    private final ModelPredictions<YieldPredictionRequest> yields;
+
+    public MlPredictionCache(MlServiceProperties properties, MeterRegistry meterRegistry) {
+        MlServiceProperties.PredictionCache settings = properties.getPredictionCache();
+        this.prices = new ModelPredictions<>("ml.prediction.price", settings, meterRegistry);
+        this.yields = new ModelPredictions<>("ml.prediction.yield", settings, meterRegistry);
+
+        log.info("ML prediction cache initialized: maxSize={}, ttl={}",
+                settings.getMaxSize(), settings.getTimeToLive());
+    }
+
+    public ModelPredictions<PricePredictionRequest> prices() {
+        return prices;
+    }
+
+    public ModelPredictions<YieldPredictionRequest> yields() {
+        return yields;
+    }
+
+    /**
+     * Приводит запрос цены к виду ключа кэша
+     */
+    public static PricePredictionRequest normalize(PricePredictionRequest request) {
+        return new PricePredictionRequest(
+                strip(request.city()),
+                strip(request.region()),
+                strip(request.crop()),
+                request.month(),
+                request.dayOfYear(),
+                request.year()
+        );
+    }
+
+    /**
+     * Приводит запрос урожайности к виду ключа кэша: числовые признаки округляются,
+     * чтобы погодные агрегаты, отличающиеся только ошибкой округления, давали один ключ
+     */
+    public static YieldPredictionRequest normalize(YieldPredictionRequest request) {
+        return new YieldPredictionRequest(
+                strip(request.region()),
+                strip(request.crop()),
+                round(request.precipOctMar()),
+                round(request.minTempWinter()),
+                round(request.precipAprMay()),
+                round(request.tempSumAprMay()),
+                request.frostRiskSpring(),
+                round(request.precipJunJul()),
+                round(request.tempSumJunJul()),
+                request.heatStressJunJul(),
+                round(request.gtkJunJul()),
+                round(request.precipAugSep()),
+                round(request.tempSumAugSep()),
+                request.heatStressAugSep(),
+                round(request.gtkAprSep()),
+                round(request.tempSumAprSep()),
+                request.totalHeatStressDays()
+        );
+    }
+
+    private static String strip(String value) {
+        return value != null ? value.strip() : null;
+    }
+
+    private static Double round(Double value) {
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            return value;
+        }
+        // Math.round также сводит -0.0 к 0.0
+        return Math.round(value * FEATURE_SCALE) / FEATURE_SCALE;
+    }
+
+    /**
+     * Прогнозы одной модели и версия модели, которой они получены
+     */
+    public static final class ModelPredictions<K> {
+
+        private final String name;
+        private final Cache<K, Double> cache;
+        private final AtomicReference<String> modelVersion = new AtomicReference<>();
+        private final Counter flushes;
+
+        private ModelPredictions(String name, MlServiceProperties.PredictionCache settings,
+                                 MeterRegistry meterRegistry) {
+            this.name = name;
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(settings.getMaxSize())
+                    .expireAfterWrite(settings.getTimeToLive())
+                    .recordStats()
+                    .build();
+            this.flushes = Counter.builder("ml.prediction.cache.flushes")
+                    .description("Сбросы кэша прогнозов из-за смены версии модели")
+                    .tag("cache", name)
+                    .register(meterRegistry);
+
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        }
+
+        public Double get(K key) {
+            return cache.getIfPresent(key);
+        }
+
+        /**
+         * Сохраняет прогноз; позиции, которые модель не оценила, не кэшируются
+         */
+        public void put(K key, Double prediction) {
+            if (prediction != null) {
+                cache.put(key, prediction);
+            }
+        }
+
+        /**
+         * Сбрасывает кэш, если ml-service сообщил версию модели, отличную от прежней
+         */
+        public void observeVersion(String version) {
+            if (version == null) {
+                return;
+            }
+            String previous = modelVersion.getAndSet(version);
+            if (previous != null && !previous.equals(version)) {
+                log.info("Model version of {} changed from {} to {}, flushing {} cached predictions",
+                        name, previous, version, cache.estimatedSize());
+                cache.invalidateAll();
+                flushes.increment();
+            }
+        }
+    }
+}
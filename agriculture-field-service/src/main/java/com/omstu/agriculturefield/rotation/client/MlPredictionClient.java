@@ -0,0 +1,186 @@
+package com.omstu.agriculturefield.rotation.client;
+
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.rotation.dto.ModelVersionResponse;
+import com.omstu.agriculturefield.rotation.dto.PredictionBatchRequest;
+import com.omstu.agriculturefield.rotation.dto.PredictionBatchResponse;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionResponse;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Клиент пакетных прогнозов ml-service: все позиции отправляются одним запросом
+ * (частями не больше maxBatchSize), модель оценивает их одним вызовом.
+ * Запросы нормализуются; прогнозы из кэша и повторяющиеся позиции в ml-service не отправляются.
+ * Результат — список прогнозов в порядке запросов; null — прогноз позиции недоступен.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MlPredictionClient {
+
+    private static final ParameterizedTypeReference<PredictionBatchResponse<PricePredictionResponse>> PRICE_BATCH =
+            new ParameterizedTypeReference<>() {};
+
+    private static final ParameterizedTypeReference<PredictionBatchResponse<YieldPredictionResponse>> YIELD_BATCH =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient mlWebClient;
+    private final MlServiceProperties properties;
+    private final MlPredictionCache cache;
+
+    private final AtomicReference<Instant> nextVersionCheck = new AtomicReference<>(Instant.MIN);
+
+    public Mono<List<Double>> predictPrices(List<PricePredictionRequest> requests) {
+        return predict("/predict/batch",
+                requests.stream().map(MlPredictionCache::normalize).toList(),
+                cache.prices(), PRICE_BATCH, PricePredictionResponse::predictedPrice);
+    }
+
+    public Mono<List<Double>> predictYields(List<YieldPredictionRequest> requests) {
+        return predict("/predict/yield/batch",
+                requests.stream().map(MlPredictionCache::normalize).toList(),
+                cache.yields(), YIELD_BATCH, YieldPredictionResponse::predictedYield);
+    }
+
+    private <T, R> Mono<List<Double>> predict(
+            String uri, List<T> requests, MlPredictionCache.ModelPredictions<T> cached,
+            ParameterizedTypeReference<PredictionBatchResponse<R>> responseType,
+            Function<R, Double> value
+    ) {
+        if (requests.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return Mono.defer(this::checkModelVersions).then(Mono.defer(() -> {
+            Double[] predictions = new Double[requests.size()];
+
+            // Позиции без прогноза в кэше; одинаковые запросы отправляются в модель один раз
+            Map<T, List<Integer>> missing = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                T request = requests.get(i);
+                Double hit = missing.containsKey(request) ? null : cached.get(request);
+                if (hit != null) {
+                    predictions[i] = hit;
+                } else {
+                    missing.computeIfAbsent(request, key -> new ArrayList<>()).add(i);
+                }
+            }
+
+            if (missing.isEmpty()) {
+                return Mono.just(Arrays.asList(predictions));
+            }
+
+            List<T> toFetch = new ArrayList<>(missing.keySet());
+            return fetch(uri, toFetch, cached, responseType, value)
+                    .map(fetched -> {
+                        for (int j = 0; j < toFetch.size(); j++) {
+                            T request = toFetch.get(j);
+                            Double prediction = fetched.get(j);
+                            cached.put(request, prediction);
+                            missing.get(request).forEach(position -> predictions[position] = prediction);
+                        }
+                        return Arrays.asList(predictions);
+                    });
+        }));
+    }
+
+    private <T, R> Mono<List<Double>> fetch(
+            String uri, List<T> requests, MlPredictionCache.ModelPredictions<T> cached,
+            ParameterizedTypeReference<PredictionBatchResponse<R>> responseType,
+            Function<R, Double> value
+    ) {
+        return Flux.fromIterable(partition(requests, properties.getMaxBatchSize()))
+                .flatMapSequential(chunk -> predictChunk(uri, chunk, cached, responseType, value),
+                        properties.getMaxConcurrentRequests())
+                .collectList()
+                .map(chunks -> {
+                    List<Double> predictions = new ArrayList<>(requests.size());
+                    chunks.forEach(predictions::addAll);
+                    return predictions;
+                });
+    }
+
+    private <T, R> Mono<List<Double>> predictChunk(
+            String uri, List<T> chunk, MlPredictionCache.ModelPredictions<T> cached,
+            ParameterizedTypeReference<PredictionBatchResponse<R>> responseType,
+            Function<R, Double> value
+    ) {
+        return mlWebClient.post()
+                .uri(uri)
+                .bodyValue(new PredictionBatchRequest<>(chunk))
+                .retrieve()
+                .bodyToMono(responseType)
+                .map(response -> {
+                    if (response.predictions() == null || response.predictions().size() != chunk.size()) {
+                        throw new IllegalStateException(response.error() != null
+                                ? response.error()
+                                : "Unexpected batch response size");
+                    }
+                    // Прогнозы новой версии модели не смешиваются в кэше с прогнозами прежней
+                    cached.observeVersion(response.modelVersion());
+                    return response.predictions().stream()
+                            .map(p -> p != null ? value.apply(p) : null)
+                            .toList();
+                })
+                .timeout(properties.getRequestTimeout())
+                .onErrorResume(e -> {
+                    log.warn("Failed to fetch {} predictions from {}: {}", chunk.size(), uri, e.getMessage());
+                    return Mono.just(Collections.nCopies(chunk.size(), null));
+                });
+    }
+
+    /**
+     * Не чаще versionCheckInterval сверяет версии моделей ml-service: при смене версии кэш
+     * сбрасывается, даже если все прогнозы рекомендаций отдаются из него и пакетных запросов нет
+     */
+    private Mono<Void> checkModelVersions() {
+        Instant now = Instant.now();
+        Instant next = nextVersionCheck.get();
+        if (now.isBefore(next) || !nextVersionCheck.compareAndSet(
+                next, now.plus(properties.getPredictionCache().getVersionCheckInterval()))) {
+            return Mono.empty();
+        }
+
+        return mlWebClient.get()
+                .uri("/model/version")
+                .retrieve()
+                .bodyToMono(ModelVersionResponse.class)
+                .timeout(properties.getRequestTimeout())
+                .doOnNext(versions -> {
+                    cache.prices().observeVersion(versions.priceModel());
+                    cache.yields().observeVersion(versions.yieldModel());
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to check ML model versions: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += size) {
+            chunks.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return chunks;
+    }
+}
@@ -1,14 +1,22 @@
 package com.omstu.agriculturefield.rotation.controller;
 
+import com.omstu.agriculturefield.rotation.dto.BatchRecommendationRequest;
 import com.omstu.agriculturefield.rotation.dto.CropRecommendationResponse;
+import com.omstu.agriculturefield.rotation.dto.FieldRecommendationResult;
 import com.omstu.agriculturefield.rotation.service.RotationRecommendationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.time.Year;
 
@@ -29,4 +37,31 @@ public class RotationRecommendationController {
         log.info("Fetching crop recommendations for fieldId={}, targetYear={}", fieldId, targetYear);
         return rotationRecommendationService.getRecommendations(fieldId, targetYear);
     }
+
+    /**
+     * Рекомендации для множества полей хозяйства за один вызов.
+     *
+     * Ответ — поток NDJSON: по строке на каждое поле в порядке готовности,
+     * ошибка поля возвращается в поле error и не прерывает остальные.
+     *
+     * Пример тела запроса: {"fieldIds": [1, 2, 3], "year": 2026}; без fieldIds — все поля
+     */
+    @PostMapping(value = "/recommendations/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<FieldRecommendationResult> getRecommendationsBatch(@RequestBody BatchRecommendationRequest request) {
+        int targetYear = request.year() != null ? request.year() : Year.now().getValue() + 1;
+        log.info("Fetching batch crop recommendations for {} fields, targetYear={}",
+                request.fieldIds() != null && !request.fieldIds().isEmpty() ? request.fieldIds().size() : "all",
+                targetYear);
+        return rotationRecommendationService.getRecommendationsBatch(request.fieldIds(), targetYear)
+                .doOnError(e -> log.error("Batch crop recommendations failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Обработчик ошибок валидации
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleValidationException(IllegalArgumentException e) {
+        log.warn("Validation error: {}", e.getMessage());
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
@@ -0,0 +1,8 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+import java.util.List;
+
+public record BatchRecommendationRequest(
+        List<Long> fieldIds, // Пусто — все поля
+        Integer year
+) {}
@@ -0,0 +1,18 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+/**
+ * Результат одного поля пакетного запроса: рекомендации либо текст ошибки
+ */
+public record FieldRecommendationResult(
+        Long fieldId,
+        CropRecommendationResponse recommendation,
+        String error
+) {
+    public static FieldRecommendationResult success(CropRecommendationResponse recommendation) {
+        return new FieldRecommendationResult(recommendation.fieldId(), recommendation, null);
+    }
+
+    public static FieldRecommendationResult failure(Long fieldId, String error) {
+        return new FieldRecommendationResult(fieldId, null, error);
+    }
+}
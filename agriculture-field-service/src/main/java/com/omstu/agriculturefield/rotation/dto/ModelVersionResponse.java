@@ -0,0 +1,8 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record ModelVersionResponse(
+        @JsonProperty("price") String priceModel,
+        @JsonProperty("yield") String yieldModel
+) {}
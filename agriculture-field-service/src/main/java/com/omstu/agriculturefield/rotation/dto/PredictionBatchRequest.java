@@ -0,0 +1,7 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+import java.util.List;
+
+public record PredictionBatchRequest<T>(
+        List<T> items
+) {}
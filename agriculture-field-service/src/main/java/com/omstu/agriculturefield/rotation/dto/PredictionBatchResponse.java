@@ -0,0 +1,16 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Ответ пакетного прогноза: predictions в порядке позиций запроса
+ * (у позиции, которую модель не смогла оценить, значение прогноза пустое),
+ * либо error, если пакет не обработан целиком. modelVersion — версия модели, давшей прогнозы.
+ */
+public record PredictionBatchResponse<T>(
+        List<T> predictions,
+        String error,
+        @JsonProperty("model_version") String modelVersion
+) {}
@@ -0,0 +1,12 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record PricePredictionRequest(
+        String city,
+        String region,
+        String crop,
+        Integer month,
+        @JsonProperty("day_of_year") Integer dayOfYear,
+        Integer year
+) {}
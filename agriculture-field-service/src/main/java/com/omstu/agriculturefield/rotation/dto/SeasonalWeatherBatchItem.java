@@ -0,0 +1,8 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+public record SeasonalWeatherBatchItem(
+        String id,
+        Double lat,
+        Double lon,
+        Integer year
+) {}
@@ -0,0 +1,8 @@
+package com.omstu.agriculturefield.rotation.dto;
+
+public record SeasonalWeatherBatchResult(
+        String id,
+        Integer year,
+        SeasonalWeatherDto metrics,
+        String error
+) {}
@@ -0,0 +1,92 @@
+package com.omstu.agriculturefield.rotation.matrix;
+
+import com.omstu.agriculturefield.rotation.model.CropRotationRule;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Неизменяемая плотная матрица правил севооборота «предшественник × последователь».
+ * Культуры из правил нумеруются порядковыми номерами (по возрастанию id),
+ * правило пары хранится в ячейке [предшественник * size + последователь].
+ */
+public final class RotationRuleMatrix {
+
+    public static final int UNKNOWN_CROP = -1;
+
+    private final Map<Long, Integer> ordinals;
+    private final Rule[] rules;
+    private final int size;
+
+    private RotationRuleMatrix(Map<Long, Integer> ordinals, Rule[] rules) {
+        this.ordinals = ordinals;
+        this.rules = rules;
+        this.size = ordinals.size();
+    }
+
+    /**
+     * Строит матрицу по правилам; у правил должны быть загружены культуры.
+     * Если для пары культур задано несколько правил (в таблице пара уникальна), действует
+     * первое из списка, как при прежнем поиске правила перебором; остальные игнорируются.
+     */
+    public static RotationRuleMatrix of(List<CropRotationRule> rules) {
+        long[] cropIds = rules.stream()
+                .flatMap(rule -> Stream.of(
+                        rule.getPredecessorCrop().getId(), rule.getSuccessorCrop().getId()))
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        Map<Long, Integer> ordinals = new HashMap<>();
+        for (int i = 0; i < cropIds.length; i++) {
+            ordinals.put(cropIds[i], i);
+        }
+
+        Rule[] cells = new Rule[cropIds.length * cropIds.length];
+        for (CropRotationRule rule : rules) {
+            int predecessor = ordinals.get(rule.getPredecessorCrop().getId());
+            int successor = ordinals.get(rule.getSuccessorCrop().getId());
+            int cell = predecessor * cropIds.length + successor;
+            if (cells[cell] != null) {
+                continue;
+            }
+            cells[cell] = new Rule(
+                    !Boolean.FALSE.equals(rule.getAllowed()),
+                    rule.getMinGapYears() != null ? rule.getMinGapYears() : 0,
+                    rule.getReason()
+            );
+        }
+
+        return new RotationRuleMatrix(Map.copyOf(ordinals), cells);
+    }
+
+    /**
+     * Порядковый номер культуры или UNKNOWN_CROP, если для нее нет правил
+     */
+    public int ordinal(Long cropTypeId) {
+        return ordinals.getOrDefault(cropTypeId, UNKNOWN_CROP);
+    }
+
+    /**
+     * Правило пары по порядковым номерам культур или null, если правила нет
+     */
+    public Rule find(int predecessor, int successor) {
+        if (predecessor == UNKNOWN_CROP || successor == UNKNOWN_CROP) {
+            return null;
+        }
+        return rules[predecessor * size + successor];
+    }
+
+    public int cropCount() {
+        return size;
+    }
+
+    /**
+     * Правило пары культур: допустимость посева сразу после предшественника,
+     * минимальный перерыв (лет) и обоснование
+     */
+    public record Rule(boolean allowed, int minGapYears, String reason) {}
+}
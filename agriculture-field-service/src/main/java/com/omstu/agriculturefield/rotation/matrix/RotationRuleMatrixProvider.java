@@ -0,0 +1,62 @@
+package com.omstu.agriculturefield.rotation.matrix;
+
+import com.omstu.agriculturefield.rotation.repository.CropRotationRuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Текущая матрица правил севооборота.
+ *
+ * - загружается одним запросом при первом обращении
+ * - после изменения правил строится заново и подменяется целиком: проверки видят
+ *   либо прежнюю, либо новую матрицу, без обращений к БД
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RotationRuleMatrixProvider {
+
+    private final CropRotationRuleRepository cropRotationRuleRepository;
+
+    private volatile RotationRuleMatrix matrix;
+
+    public RotationRuleMatrix current() {
+        RotationRuleMatrix current = matrix;
+        if (current == null) {
+            synchronized (this) {
+                current = matrix;
+                if (current == null) {
+                    current = rebuild();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Перестраивает матрицу после фиксации текущей транзакции (без транзакции — сразу),
+     * чтобы откаченное изменение правил в нее не попало
+     */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild();
+            }
+        });
+    }
+
+    private synchronized RotationRuleMatrix rebuild() {
+        RotationRuleMatrix rebuilt = RotationRuleMatrix.of(cropRotationRuleRepository.findAllWithCrops());
+        matrix = rebuilt;
+        log.info("Crop rotation rule matrix built: {} crops", rebuilt.cropCount());
+        return rebuilt;
+    }
+}
@@ -14,4 +14,7 @@ public interface CropRotationRuleRepository extends JpaRepository<CropRotationRu
 
     @Query("SELECT r FROM CropRotationRule r WHERE r.predecessorCrop.id = :predecessorCropId AND r.allowed = true")
     List<CropRotationRule> findAllowedByPredecessorCropId(@Param("predecessorCropId") Long predecessorCropId);
+
+    @Query("SELECT r FROM CropRotationRule r JOIN FETCH r.predecessorCrop JOIN FETCH r.successorCrop")
+    List<CropRotationRule> findAllWithCrops();
 }
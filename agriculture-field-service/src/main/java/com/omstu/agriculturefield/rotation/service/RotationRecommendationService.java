@@ -1,8 +1,17 @@
 package com.omstu.agriculturefield.rotation.service;
 
 import com.omstu.agriculturefield.rotation.dto.CropRecommendationResponse;
+import com.omstu.agriculturefield.rotation.dto.FieldRecommendationResult;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 public interface RotationRecommendationService {
 
     CropRecommendationResponse getRecommendations(Long fieldId, Integer targetYear);
+
+    /**
+     * Рекомендации для множества полей (пустой список — все поля) в порядке готовности
+     */
+    Flux<FieldRecommendationResult> getRecommendationsBatch(List<Long> fieldIds, Integer targetYear);
 }
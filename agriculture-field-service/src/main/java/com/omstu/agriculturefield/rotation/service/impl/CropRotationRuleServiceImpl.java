@@ -5,6 +5,7 @@ import com.omstu.agriculturefield.crop.repository.CropTypeRepository;
 import com.omstu.agriculturefield.rotation.dto.CropRotationRuleRequest;
 import com.omstu.agriculturefield.rotation.dto.CropRotationRuleResponse;
 import com.omstu.agriculturefield.rotation.mapper.CropRotationRuleMapper;
+import com.omstu.agriculturefield.rotation.matrix.RotationRuleMatrixProvider;
 import com.omstu.agriculturefield.rotation.model.CropRotationRule;
 import com.omstu.agriculturefield.rotation.repository.CropRotationRuleRepository;
 import com.omstu.agriculturefield.rotation.service.CropRotationRuleService;
@@ -24,6 +25,7 @@ public class CropRotationRuleServiceImpl implements CropRotationRuleService {
     private final CropRotationRuleRepository cropRotationRuleRepository;
     private final CropRotationRuleMapper cropRotationRuleMapper;
     private final CropTypeRepository cropTypeRepository;
+    private final RotationRuleMatrixProvider ruleMatrixProvider;
 
     @Override
     @Transactional(readOnly = true)
@@ -55,6 +57,7 @@ public class CropRotationRuleServiceImpl implements CropRotationRuleService {
         rule.setSuccessorCrop(successor);
 
         CropRotationRule saved = cropRotationRuleRepository.save(rule);
+        ruleMatrixProvider.rebuildAfterCommit();
         log.info("Created crop rotation rule with id: {}", saved.getId());
         return cropRotationRuleMapper.toResponse(saved);
     }
@@ -77,6 +80,7 @@ public class CropRotationRuleServiceImpl implements CropRotationRuleService {
         existing.setReason(request.reason());
 
         CropRotationRule updated = cropRotationRuleRepository.save(existing);
+        ruleMatrixProvider.rebuildAfterCommit();
         log.info("Updated crop rotation rule with id: {}", updated.getId());
         return cropRotationRuleMapper.toResponse(updated);
     }
@@ -87,6 +91,7 @@ public class CropRotationRuleServiceImpl implements CropRotationRuleService {
         CropRotationRule rule = cropRotationRuleRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Crop rotation rule not found with id: " + id));
         cropRotationRuleRepository.delete(rule);
+        ruleMatrixProvider.rebuildAfterCommit();
         log.info("Deleted crop rotation rule with id: {}", id);
     }
 
@@ -1,36 +1,53 @@
 package com.omstu.agriculturefield.rotation.service.impl;
 
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.config.RecommendationProperties;
+import com.omstu.agriculturefield.config.WeatherServiceProperties;
 import com.omstu.agriculturefield.crop.model.CropHistory;
 import com.omstu.agriculturefield.crop.model.CropType;
 import com.omstu.agriculturefield.crop.repository.CropHistoryRepository;
 import com.omstu.agriculturefield.crop.repository.CropTypeRepository;
 import com.omstu.agriculturefield.field.model.AgriculturalField;
 import com.omstu.agriculturefield.field.repository.AgriculturalFieldRepository;
+import com.omstu.agriculturefield.rotation.client.MlPredictionClient;
 import com.omstu.agriculturefield.rotation.dto.CropRecommendationItem;
 import com.omstu.agriculturefield.rotation.dto.CropRecommendationResponse;
-import com.omstu.agriculturefield.rotation.dto.PricePredictionResponse;
+import com.omstu.agriculturefield.rotation.dto.FieldRecommendationResult;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherBatchItem;
+import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherBatchResult;
 import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherDto;
 import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
-import com.omstu.agriculturefield.rotation.dto.YieldPredictionResponse;
-import com.omstu.agriculturefield.rotation.model.CropRotationRule;
-import com.omstu.agriculturefield.rotation.repository.CropRotationRuleRepository;
+import com.omstu.agriculturefield.rotation.matrix.RotationRuleMatrix;
+import com.omstu.agriculturefield.rotation.matrix.RotationRuleMatrixProvider;
 import com.omstu.agriculturefield.rotation.service.RotationRecommendationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.locationtech.jts.geom.Point;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -51,14 +68,15 @@ public class RotationRecommendationServiceImpl implements RotationRecommendation
     private final AgriculturalFieldRepository fieldRepository;
     private final CropHistoryRepository cropHistoryRepository;
     private final CropTypeRepository cropTypeRepository;
-    private final CropRotationRuleRepository cropRotationRuleRepository;
+    private final RotationRuleMatrixProvider ruleMatrixProvider;
+    private final MlPredictionClient mlPredictionClient;
+    private final MlServiceProperties mlServiceProperties;
+    private final WeatherServiceProperties weatherServiceProperties;
+    private final RecommendationProperties recommendationProperties;
 
     @Qualifier("weatherWebClient")
     private final WebClient weatherWebClient;
 
-    @Qualifier("mlWebClient")
-    private final WebClient mlWebClient;
-
     @Override
     @Transactional(readOnly = true)
     public CropRecommendationResponse getRecommendations(Long fieldId, Integer targetYear) {
@@ -69,18 +87,218 @@ public class RotationRecommendationServiceImpl implements RotationRecommendation
 
         List<CropHistory> history = cropHistoryRepository.findByFieldIdOrderByPlantingDateDesc(fieldId);
 
-        SeasonalWeatherDto weather = fetchSeasonalWeather(field, targetYear);
-
         List<CropType> allCropTypes = cropTypeRepository.findAll();
 
-        CropType lastCrop = history.isEmpty() ? null : history.get(0).getCropType();
+        RotationRuleMatrix ruleMatrix = ruleMatrixProvider.current();
+
+        CropPredictions predictions = fetchPredictions(field, allCropTypes, targetYear);
+
+        return buildResponse(field, history, allCropTypes, ruleMatrix, predictions, targetYear);
+    }
+
+    /**
+     * Пакетное построение рекомендаций:
+     *
+     * - поля, история посевов и культуры загружаются тремя запросами на весь пакет
+     * - поля группируются по ячейкам погодной сетки, сезонная погода каждой ячейки
+     *   запрашивается один раз пакетным запросом к weather-service
+     * - цены запрашиваются одним пакетом на все регионы, урожайность — пакетами по ячейкам
+     *   по мере поступления погоды
+     * - результаты полей отдаются по мере готовности; поле без погоды или прогнозов
+     *   получает рекомендации без них, как и одиночный запрос
+     */
+    @Override
+    public Flux<FieldRecommendationResult> getRecommendationsBatch(List<Long> fieldIds, Integer targetYear) {
+        boolean allFields = fieldIds == null || fieldIds.isEmpty();
+        int maxFields = recommendationProperties.getMaxFields();
+        if (!allFields && fieldIds.size() > maxFields) {
+            throw new IllegalArgumentException(
+                    "Too many fields in batch: " + fieldIds.size() + " (max " + maxFields + ")");
+        }
+
+        List<AgriculturalField> fields = allFields ? fieldRepository.findAll() : fieldRepository.findAllById(fieldIds);
+        if (fields.size() > maxFields) {
+            throw new IllegalArgumentException(
+                    "Too many fields in batch: " + fields.size() + " (max " + maxFields + ")");
+        }
+        log.info("Building batch recommendations for {} fields, targetYear={}", fields.size(), targetYear);
+
+        Set<Long> foundIds = fields.stream().map(AgriculturalField::getId).collect(Collectors.toSet());
+        List<FieldRecommendationResult> rejected = new ArrayList<>();
+        if (!allFields) {
+            fieldIds.stream()
+                    .distinct()
+                    .filter(id -> !foundIds.contains(id))
+                    .forEach(id -> rejected.add(FieldRecommendationResult.failure(id, "Field not found with id: " + id)));
+        }
+
+        Map<Long, List<CropHistory>> histories = foundIds.isEmpty()
+                ? Map.of()
+                : cropHistoryRepository.findByFieldIdInOrderByPlantingDateDesc(foundIds).stream()
+                        .collect(Collectors.groupingBy(h -> h.getField().getId()));
+
+        List<CropType> cropTypes = cropTypeRepository.findAll();
+        RotationRuleMatrix ruleMatrix = ruleMatrixProvider.current();
+
+        // Поля одной ячейки сетки получают одну сезонную погоду и одни прогнозы урожайности
+        Map<WeatherCell, List<AgriculturalField>> fieldsByCell = new LinkedHashMap<>();
+        for (AgriculturalField field : fields) {
+            if (field.getGeom() == null) {
+                rejected.add(FieldRecommendationResult.failure(field.getId(), "Field has no geometry"));
+                continue;
+            }
+            Point centroid = field.getGeom().getCentroid();
+            WeatherCell cell = WeatherCell.snap(
+                    centroid.getY(), centroid.getX(), weatherServiceProperties.getGridResolutionDegrees());
+            fieldsByCell.computeIfAbsent(cell, key -> new ArrayList<>()).add(field);
+        }
+
+        BatchContext context = new BatchContext(fieldsByCell, histories, cropTypes, ruleMatrix, targetYear);
+
+        Mono<Map<String, List<Double>>> prices = predictRegionPrices(fieldsByCell.keySet(), cropTypes, targetYear).cache();
+
+        // Погода ячеек, пришедшая почти одновременно, уходит за урожайностью одним пакетом
+        int cellsPerYieldBatch = Math.max(1, mlServiceProperties.getMaxBatchSize() / Math.max(1, cropTypes.size()));
+
+        // Без fairBackpressure пакет, готовый по окну, пока все запросы урожайности заняты медленной моделью,
+        // завершает поток OverflowException и обрывает ответ на середине
+        Flux<FieldRecommendationResult> scored = fetchSeasonalWeatherBatch(
+                new ArrayList<>(fieldsByCell.keySet()), targetYear - 1)
+                .bufferTimeout(cellsPerYieldBatch, recommendationProperties.getYieldBatchWindow(), true)
+                .flatMap(batch -> predictCellYields(batch, cropTypes)
+                                .zipWith(prices, (yields, regionPrices) -> score(context, batch, yields, regionPrices))
+                                .flatMapIterable(results -> results),
+                        mlServiceProperties.getMaxConcurrentRequests());
+
+        // Цены от погоды не зависят: их запрос уходит сразу, параллельно с запросом погоды
+        return Flux.fromIterable(rejected)
+                .concatWith(Flux.merge(prices.then(Mono.<FieldRecommendationResult>empty()), scored));
+    }
+
+    private List<FieldRecommendationResult> score(BatchContext context, List<CellWeather> batch,
+                                                  Map<WeatherCell, List<Double>> yields,
+                                                  Map<String, List<Double>> regionPrices) {
+        List<Double> noYields = Collections.nCopies(context.cropTypes().size(), null);
+
+        List<FieldRecommendationResult> results = new ArrayList<>();
+        for (CellWeather cellWeather : batch) {
+            CropPredictions predictions = CropPredictions.of(context.cropTypes(),
+                    yields.getOrDefault(cellWeather.cell(), noYields),
+                    regionPrices.get(resolveRegionName(cellWeather.cell())));
+
+            for (AgriculturalField field : context.fieldsByCell().get(cellWeather.cell())) {
+                try {
+                    results.add(FieldRecommendationResult.success(buildResponse(
+                            field, context.histories().getOrDefault(field.getId(), List.of()),
+                            context.cropTypes(), context.ruleMatrix(), predictions, context.targetYear())));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to build recommendations for field {}: {}", field.getId(), e.getMessage());
+                    results.add(FieldRecommendationResult.failure(field.getId(), e.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Цены всех культур по регионам ячеек одним пакетом; список по региону выровнен по порядку культур
+     */
+    private Mono<Map<String, List<Double>>> predictRegionPrices(Set<WeatherCell> cells, List<CropType> cropTypes,
+                                                                Integer targetYear) {
+        List<String> regions = cells.stream().map(this::resolveRegionName).distinct().toList();
+        List<PricePredictionRequest> requests = regions.stream()
+                .flatMap(region -> cropTypes.stream().map(cropType -> priceRequest(region, cropType, targetYear)))
+                .toList();
+
+        return mlPredictionClient.predictPrices(requests)
+                .map(predictions -> {
+                    Map<String, List<Double>> byRegion = new HashMap<>();
+                    for (int i = 0; i < regions.size(); i++) {
+                        byRegion.put(regions.get(i),
+                                predictions.subList(i * cropTypes.size(), (i + 1) * cropTypes.size()));
+                    }
+                    return byRegion;
+                });
+    }
+
+    /**
+     * Урожайность всех культур для ячеек с полученной погодой одним пакетом
+     */
+    private Mono<Map<WeatherCell, List<Double>>> predictCellYields(List<CellWeather> batch, List<CropType> cropTypes) {
+        List<CellWeather> withWeather = batch.stream().filter(cellWeather -> cellWeather.weather() != null).toList();
+        if (withWeather.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<YieldPredictionRequest> requests = withWeather.stream()
+                .flatMap(cellWeather -> cropTypes.stream().map(cropType -> yieldRequest(
+                        resolveRegionName(cellWeather.cell()), cropType, cellWeather.weather())))
+                .toList();
+
+        return mlPredictionClient.predictYields(requests)
+                .map(predictions -> {
+                    Map<WeatherCell, List<Double>> byCell = new HashMap<>();
+                    for (int i = 0; i < withWeather.size(); i++) {
+                        byCell.put(withWeather.get(i).cell(),
+                                predictions.subList(i * cropTypes.size(), (i + 1) * cropTypes.size()));
+                    }
+                    return byCell;
+                });
+    }
+
+    /**
+     * Сезонная погода ячеек пакетными запросами к weather-service в порядке готовности.
+     * Ячейка, по которой погода не получена, отдается без нее.
+     */
+    private Flux<CellWeather> fetchSeasonalWeatherBatch(List<WeatherCell> cells, int harvestYear) {
+        Map<String, WeatherCell> cellsById = cells.stream()
+                .collect(Collectors.toMap(WeatherCell::id, cell -> cell));
+        Set<String> received = ConcurrentHashMap.newKeySet();
+
+        int chunkSize = weatherServiceProperties.getSeasonalBatchMaxItems();
+        List<List<WeatherCell>> chunks = new ArrayList<>();
+        for (int from = 0; from < cells.size(); from += chunkSize) {
+            chunks.add(cells.subList(from, Math.min(from + chunkSize, cells.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> weatherWebClient.post()
+                        .uri("/api/agro-data/seasonal/batch")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .bodyValue(chunk.stream()
+                                .map(cell -> new SeasonalWeatherBatchItem(
+                                        cell.id(), cell.latitude(), cell.longitude(), harvestYear))
+                                .toList())
+                        .retrieve()
+                        .bodyToFlux(SeasonalWeatherBatchResult.class)
+                        .onErrorResume(e -> {
+                            log.warn("Failed to fetch seasonal weather for {} cells: {}", chunk.size(), e.getMessage());
+                            return Flux.empty();
+                        }))
+                .mapNotNull(result -> {
+                    WeatherCell cell = cellsById.get(result.id());
+                    if (cell == null || !received.add(result.id())) {
+                        return null;
+                    }
+                    if (result.error() != null) {
+                        log.warn("Failed to fetch seasonal weather for cell {}: {}", cell.id(), result.error());
+                    }
+                    return new CellWeather(cell, result.metrics());
+                })
+                .concatWith(Flux.defer(() -> Flux.fromIterable(cells)
+                        .filter(cell -> !received.contains(cell.id()))
+                        .map(cell -> new CellWeather(cell, null))));
+    }
 
+    private CropRecommendationResponse buildResponse(AgriculturalField field, List<CropHistory> history,
+                                                     List<CropType> allCropTypes, RotationRuleMatrix ruleMatrix,
+                                                     CropPredictions predictions, Integer targetYear) {
         List<CropRecommendationItem> items = new ArrayList<>();
         for (CropType cropType : allCropTypes) {
-            RotationViolation violation = checkRotationViolation(lastCrop, cropType, history, targetYear);
+            RotationViolation violation = checkRotationViolation(ruleMatrix, cropType, history, targetYear);
 
-            Double predictedYield = fetchPredictedYield(field, cropType, weather);
-            Double predictedPrice = fetchPredictedPrice(field, cropType, targetYear);
+            Double predictedYield = predictions.yields().get(cropType.getId());
+            Double predictedPrice = predictions.prices().get(cropType.getId());
 
             double estimatedProfit = 0.0;
             if (predictedYield != null && predictedPrice != null) {
@@ -102,40 +320,56 @@ public class RotationRecommendationServiceImpl implements RotationRecommendation
 
         List<CropRecommendationItem> ranked = rankItems(items);
 
-        return new CropRecommendationResponse(fieldId, field.getFieldName(), targetYear, ranked);
+        return new CropRecommendationResponse(field.getId(), field.getFieldName(), targetYear, ranked);
     }
 
-    private SeasonalWeatherDto fetchSeasonalWeather(AgriculturalField field, Integer targetYear) {
+    /**
+     * Запрашивает прогнозы урожайности и цен по всем культурам двумя пакетными запросами.
+     * Цены от погоды не зависят и запрашиваются сразу, урожайность — как только получена сезонная погода.
+     * Прогноз, который не удалось получить, остается пустым только у своей культуры.
+     */
+    private CropPredictions fetchPredictions(AgriculturalField field, List<CropType> cropTypes, Integer targetYear) {
+        Point centroid = field.getGeom().getCentroid();
+        String region = resolveRegionName(centroid.getY(), centroid.getX());
+
+        Mono<List<Double>> prices = mlPredictionClient.predictPrices(cropTypes.stream()
+                .map(cropType -> priceRequest(region, cropType, targetYear))
+                .toList());
+
+        Mono<List<Double>> yields = fetchSeasonalWeather(field, targetYear)
+                .flatMap(weather -> mlPredictionClient.predictYields(cropTypes.stream()
+                        .map(cropType -> yieldRequest(region, cropType, weather))
+                        .toList()))
+                .defaultIfEmpty(Collections.nCopies(cropTypes.size(), null));
+
+        Tuple2<List<Double>, List<Double>> received = Mono.zip(yields, prices).block();
+
+        return CropPredictions.of(cropTypes, received.getT1(), received.getT2());
+    }
+
+    private Mono<SeasonalWeatherDto> fetchSeasonalWeather(AgriculturalField field, Integer targetYear) {
         Point centroid = field.getGeom().getCentroid();
         double lat = centroid.getY();
         double lon = centroid.getX();
         int harvestYear = targetYear - 1;
 
-        try {
-            return weatherWebClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/agro-data/seasonal")
-                            .queryParam("lat", lat)
-                            .queryParam("lon", lon)
-                            .queryParam("year", harvestYear)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(SeasonalWeatherDto.class)
-                    .block();
-        } catch (Exception e) {
-            log.warn("Failed to fetch seasonal weather for field {}: {}", field.getId(), e.getMessage());
-            return null;
-        }
+        return weatherWebClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/agro-data/seasonal")
+                        .queryParam("lat", lat)
+                        .queryParam("lon", lon)
+                        .queryParam("year", harvestYear)
+                        .build())
+                .retrieve()
+                .bodyToMono(SeasonalWeatherDto.class)
+                .onErrorResume(e -> {
+                    log.warn("Failed to fetch seasonal weather for field {}: {}", field.getId(), e.getMessage());
+                    return Mono.empty();
+                });
     }
 
-    private Double fetchPredictedYield(AgriculturalField field, CropType cropType, SeasonalWeatherDto weather) {
-        if (weather == null) {
-            return null;
-        }
-        Point centroid = field.getGeom().getCentroid();
-        String region = resolveRegionName(centroid.getY(), centroid.getX());
-
-        YieldPredictionRequest request = new YieldPredictionRequest(
+    private YieldPredictionRequest yieldRequest(String region, CropType cropType, SeasonalWeatherDto weather) {
+        return new YieldPredictionRequest(
                 region,
                 cropType.getName(),
                 weather.precipOctMar(),
@@ -154,74 +388,45 @@ public class RotationRecommendationServiceImpl implements RotationRecommendation
                 weather.tempSumAprSep(),
                 weather.totalHeatStressDays()
         );
-
-        try {
-            YieldPredictionResponse response = mlWebClient.post()
-                    .uri("/predict/yield")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(YieldPredictionResponse.class)
-                    .block();
-            return response != null ? response.predictedYield() : null;
-        } catch (Exception e) {
-            log.warn("Failed to fetch yield prediction for crop {}: {}", cropType.getName(), e.getMessage());
-            return null;
-        }
     }
 
-    private Double fetchPredictedPrice(AgriculturalField field, CropType cropType, Integer targetYear) {
-        Point centroid = field.getGeom().getCentroid();
-        String region = resolveRegionName(centroid.getY(), centroid.getX());
-
-        try {
-            PricePredictionResponse response = mlWebClient.post()
-                    .uri("/predict")
-                    .bodyValue(Map.of(
-                            "city", region,
-                            "region", region,
-                            "crop", cropType.getName(),
-                            "month", 7,
-                            "day_of_year", 180,
-                            "year", targetYear
-                    ))
-                    .retrieve()
-                    .bodyToMono(PricePredictionResponse.class)
-                    .block();
-            return response != null ? response.predictedPrice() : null;
-        } catch (Exception e) {
-            log.warn("Failed to fetch price prediction for crop {}: {}", cropType.getName(), e.getMessage());
-            return null;
-        }
+    private PricePredictionRequest priceRequest(String region, CropType cropType, Integer targetYear) {
+        return new PricePredictionRequest(region, region, cropType.getName(), 7, 180, targetYear);
     }
 
-    private RotationViolation checkRotationViolation(CropType lastCrop, CropType candidate,
+    /**
+     * Проверяет культуру по правилам севооборота для всех предшественников из истории поля:
+     * запрещенная после предшественника культура недопустима, пока с его посева
+     * не прошло minGapYears полных сезонов (сразу после него — в любом случае)
+     */
+    private RotationViolation checkRotationViolation(RotationRuleMatrix ruleMatrix, CropType candidate,
                                                       List<CropHistory> history, Integer targetYear) {
-        if (lastCrop == null) {
-            return null;
-        }
+        int successor = ruleMatrix.ordinal(candidate.getId());
 
-        List<CropRotationRule> rules = cropRotationRuleRepository.findByPredecessorCropId(lastCrop.getId());
+        int yearsWithSameCrop = 0;
+        for (CropHistory h : history) {
+            CropType predecessor = h.getCropType();
+            int plantYear = toLocalDate(h.getPlantingDate()).getYear();
 
-        Optional<CropRotationRule> matchingRule = rules.stream()
-                .filter(r -> r.getSuccessorCrop().getId().equals(candidate.getId()))
-                .findFirst();
+            if (predecessor.getId().equals(candidate.getId()) && targetYear - plantYear <= 4) {
+                yearsWithSameCrop++;
+            }
 
-        if (matchingRule.isPresent()) {
-            CropRotationRule rule = matchingRule.get();
-            if (Boolean.FALSE.equals(rule.getAllowed())) {
-                return new RotationViolation(rule.getReason() != null
-                        ? rule.getReason()
-                        : "Запрещено правилами севооборота после " + lastCrop.getName());
+            // Полных сезонов между посевом предшественника и целевым годом
+            int gapYears = targetYear - plantYear - 1;
+            if (gapYears < 0) {
+                continue;
             }
-        }
 
-        int yearsWithSameCrop = 0;
-        for (CropHistory h : history) {
-            if (h.getCropType().getId().equals(candidate.getId())) {
-                int plantYear = toLocalDate(h.getPlantingDate()).getYear();
-                if (targetYear - plantYear <= 4) {
-                    yearsWithSameCrop++;
-                }
+            RotationRuleMatrix.Rule rule = ruleMatrix.find(ruleMatrix.ordinal(predecessor.getId()), successor);
+            if (rule != null && !rule.allowed() && gapYears < Math.max(rule.minGapYears(), 1)) {
+                String reason = rule.reason() != null
+                        ? rule.reason()
+                        : "Запрещено правилами севооборота после " + predecessor.getName();
+                return new RotationViolation(gapYears == 0
+                        ? reason
+                        : String.format("%s Перерыв после культуры «%s» — %d г., требуется не менее %d г.",
+                                reason, predecessor.getName(), gapYears, rule.minGapYears()));
             }
         }
 
@@ -262,10 +467,63 @@ public class RotationRecommendationServiceImpl implements RotationRecommendation
         return "Омская область";
     }
 
+    private String resolveRegionName(WeatherCell cell) {
+        return resolveRegionName(cell.latitude(), cell.longitude());
+    }
+
     private LocalDate toLocalDate(Date date) {
         if (date == null) return LocalDate.now();
+        if (date instanceof java.sql.Date sqlDate) return sqlDate.toLocalDate();
         return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
     }
 
     private record RotationViolation(String reason) {}
+
+    /**
+     * Узел погодной сетки, к которому привязывается центроид поля (как GridCell в weather-service)
+     */
+    private record WeatherCell(double latitude, double longitude) {
+
+        static WeatherCell snap(double lat, double lon, double resolution) {
+            return new WeatherCell(snapValue(lat, resolution), snapValue(lon, resolution));
+        }
+
+        private static double snapValue(double value, double resolution) {
+            double snapped = resolution > 0 ? Math.round(value / resolution) * resolution : value;
+            return BigDecimal.valueOf(snapped).setScale(4, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        String id() {
+            return latitude + "," + longitude;
+        }
+    }
+
+    private record CellWeather(WeatherCell cell, SeasonalWeatherDto weather) {}
+
+    /**
+     * Данные пакета, загруженные до запросов к внешним сервисам
+     */
+    private record BatchContext(
+            Map<WeatherCell, List<AgriculturalField>> fieldsByCell,
+            Map<Long, List<CropHistory>> histories,
+            List<CropType> cropTypes,
+            RotationRuleMatrix ruleMatrix,
+            Integer targetYear
+    ) {}
+
+    private record CropPredictions(Map<Long, Double> yields, Map<Long, Double> prices) {
+
+        /**
+         * Прогнозы по спискам, выровненным по порядку культур
+         */
+        static CropPredictions of(List<CropType> cropTypes, List<Double> yields, List<Double> prices) {
+            CropPredictions predictions = new CropPredictions(new HashMap<>(), new HashMap<>());
+            for (int i = 0; i < cropTypes.size(); i++) {
+                Long cropTypeId = cropTypes.get(i).getId();
+                predictions.yields().put(cropTypeId, yields.get(i));
+                predictions.prices().put(cropTypeId, prices.get(i));
+            }
+            return predictions;
+        }
+    }
 }
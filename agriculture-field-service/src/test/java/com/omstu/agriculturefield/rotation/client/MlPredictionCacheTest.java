@@ -0,0 +1,64 @@
+package com.omstu.agriculturefield.rotation.client;
+
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MlPredictionCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MlPredictionCache cache = new MlPredictionCache(new MlServiceProperties(), registry);
+
+    @Test
+    void normalizedRequestsDifferingOnlyByRoundingShareKey() {
+        YieldPredictionRequest first = MlPredictionCache.normalize(yieldRequest(120.0001, -0.0));
+        YieldPredictionRequest second = MlPredictionCache.normalize(yieldRequest(119.9996, 0.0));
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.precipOctMar()).isEqualTo(120.0);
+        assertThat(first.minTempWinter()).isEqualTo(0.0);
+        assertThat(MlPredictionCache.normalize(yieldRequest(120.0006, 0.0)).precipOctMar()).isEqualTo(120.001);
+        assertThat(MlPredictionCache.normalize(yieldRequest(Double.NaN, null)).precipOctMar()).isNaN();
+
+        PricePredictionRequest price = new PricePredictionRequest(" Омск", "Омская область ", "Рапс\n", 5, 130, 2025);
+        assertThat(MlPredictionCache.normalize(price))
+                .isEqualTo(new PricePredictionRequest("Омск", "Омская область", "Рапс", 5, 130, 2025));
+    }
+
+    @Test
+    void onlyChangedVersionFlushesPredictions() {
+        MlPredictionCache.ModelPredictions<YieldPredictionRequest> yields = cache.yields();
+        YieldPredictionRequest key = yieldRequest(120.0, -18.0);
+        yields.put(key, 2.4);
+
+        // Первая сообщенная версия, отсутствие версии и та же версия кэш не сбрасывают
+        yields.observeVersion("2025.1");
+        yields.observeVersion(null);
+        yields.observeVersion("2025.1");
+        assertThat(yields.get(key)).isEqualTo(2.4);
+
+        yields.observeVersion("2025.2");
+        assertThat(yields.get(key)).isNull();
+        assertThat(registry.get("ml.prediction.cache.flushes").tag("cache", "ml.prediction.yield").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void missingPredictionIsNotStored() {
+        PricePredictionRequest key = new PricePredictionRequest("Омск", "Омская область", "Рапс", 5, 130, 2025);
+        cache.prices().put(key, null);
+        assertThat(cache.prices().get(key)).isNull();
+
+        cache.prices().put(key, 31_500.0);
+        assertThat(cache.prices().get(key)).isEqualTo(31_500.0);
+    }
+
+    private static YieldPredictionRequest yieldRequest(double precipOctMar, Double minTempWinter) {
+        return new YieldPredictionRequest("Омская область", "Пшеница яровая", precipOctMar, minTempWinter, 45.0,
+                600.0, false, 120.0, 1500.0, 2, 1.1, 90.0, 1200.0, 1, 1.0, 3300.0, 3);
+    }
+}
@@ -0,0 +1,320 @@
+package com.omstu.agriculturefield.rotation.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MlPredictionClientTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final BodyInserter.Context WRITERS = new BodyInserter.Context() {
+        @Override
+        public List<HttpMessageWriter<?>> messageWriters() {
+            return ExchangeStrategies.withDefaults().messageWriters();
+        }
+
+        @Override
+        public Optional<ServerHttpRequest> serverRequest() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Map<String, Object> hints() {
+            return Map.of();
+        }
+    };
+
+    private final MlServiceProperties properties = new MlServiceProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // Пакетные запросы к ml-service в порядке поступления
+    private final List<Batch> batches = new CopyOnWriteArrayList<>();
+
+    // Ответ ml-service на пакет; по умолчанию прогноз позиции — ее месяц (цены) или осадки (урожайность)
+    private Function<Batch, Mono<ClientResponse>> batchResponder = batch -> json(predictions(batch, null));
+
+    // Ответ на проверку версий моделей; по умолчанию ml-service ее не поддерживает
+    private Supplier<Mono<ClientResponse>> versionResponder =
+            () -> Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+    private final AtomicInteger versionChecks = new AtomicInteger();
+
+    @Test
+    void emptyRequestDoesNotCallService() {
+        assertThat(client().predictPrices(List.of()).block(TIMEOUT)).isEmpty();
+        assertThat(batches).isEmpty();
+    }
+
+    @Test
+    void duplicatePositionsAreSentOnce() {
+        // Четвертая позиция совпадает с первой после нормализации
+        PricePredictionRequest padded = new PricePredictionRequest(" Омск ", "Омская область", "Рапс", 1, 15, 2025);
+
+        List<Double> predictions = client().predictPrices(
+                List.of(price(1), price(2), price(1), padded, price(3), price(2))).block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(1.0, 2.0, 1.0, 1.0, 3.0, 2.0);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0).months()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void chunksAreReassembledInRequestOrder() {
+        properties.setMaxBatchSize(2);
+        // Первая часть отвечает последней
+        batchResponder = batch -> json(predictions(batch, null))
+                .delayElement(Duration.ofMillis(batch.months().contains(1) ? 300 : 0));
+
+        List<Double> predictions = client().predictPrices(
+                IntStream.rangeClosed(1, 5).mapToObj(MlPredictionClientTest::price).toList()).block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(1.0, 2.0, 3.0, 4.0, 5.0);
+        assertThat(batches).extracting(Batch::months).containsExactlyInAnyOrder(
+                List.of(1, 2), List.of(3, 4), List.of(5));
+    }
+
+    @Test
+    void failedChunksBecomeMissingPredictions() {
+        properties.setMaxBatchSize(2);
+        batchResponder = batch -> {
+            if (batch.months().contains(3)) {
+                return Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build());
+            }
+            if (batch.months().contains(5)) {
+                return json(Map.of("error", "model is not loaded"));
+            }
+            if (batch.months().contains(7)) {
+                // Прогнозов меньше, чем позиций
+                return json(Map.of("predictions", List.of(Map.of("predicted_price", 7.0))));
+            }
+            return json(predictions(batch, null));
+        };
+
+        List<Double> predictions = client().predictPrices(
+                IntStream.rangeClosed(1, 8).mapToObj(MlPredictionClientTest::price).toList()).block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(1.0, 2.0, null, null, null, null, null, null);
+    }
+
+    @Test
+    void slowChunkTimesOutWithoutDelayingOthers() {
+        properties.setMaxBatchSize(1);
+        properties.setRequestTimeout(Duration.ofMillis(200));
+        batchResponder = batch -> batch.months().contains(2)
+                ? Mono.never()
+                : json(predictions(batch, null));
+
+        List<Double> predictions = client().predictPrices(List.of(price(1), price(2), price(3))).block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(1.0, null, 3.0);
+    }
+
+    @Test
+    void unratedPositionIsMissing() {
+        batchResponder = batch -> json(Map.of("predictions", Arrays.asList(
+                Map.of("predicted_price", 1.0), null, Map.of())));
+
+        assertThat(client().predictPrices(List.of(price(1), price(2), price(3))).block(TIMEOUT))
+                .containsExactly(1.0, null, null);
+    }
+
+    @Test
+    void yieldsUseYieldEndpoint() {
+        List<Double> predictions = client().predictYields(List.of(yieldRequest(120.0), yieldRequest(80.0)))
+                .block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(120.0, 80.0);
+        assertThat(batches).extracting(Batch::path).containsExactly("/predict/yield/batch");
+    }
+
+    @Test
+    void cachedPredictionsAreMixedWithFetchedOnes() {
+        MlPredictionClient client = client();
+        client.predictPrices(List.of(price(1), price(2))).block(TIMEOUT);
+
+        List<Double> predictions = client.predictPrices(
+                List.of(price(2), price(3), price(1), price(4), price(3))).block(TIMEOUT);
+
+        assertThat(predictions).containsExactly(2.0, 3.0, 1.0, 4.0, 3.0);
+        assertThat(batches).extracting(Batch::months).containsExactly(List.of(1, 2), List.of(3, 4));
+        assertThat(cacheGets("ml.prediction.price", "hit")).isEqualTo(2);
+        assertThat(cacheGets("ml.prediction.price", "miss")).isEqualTo(4);
+    }
+
+    @Test
+    void missingPredictionsAreNotCached() {
+        MlPredictionClient client = client();
+        batchResponder = batch -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        assertThat(client.predictPrices(List.of(price(1))).block(TIMEOUT)).containsExactly((Double) null);
+
+        batchResponder = batch -> json(predictions(batch, null));
+        assertThat(client.predictPrices(List.of(price(1))).block(TIMEOUT)).containsExactly(1.0);
+        assertThat(batches).hasSize(2);
+    }
+
+    @Test
+    void newModelVersionInBatchResponseFlushesCache() {
+        MlPredictionClient client = client();
+        batchResponder = batch -> json(predictions(batch, "v1"));
+        client.predictPrices(List.of(price(1), price(2))).block(TIMEOUT);
+        client.predictPrices(List.of(price(1))).block(TIMEOUT);
+        assertThat(batches).hasSize(1);
+
+        // Прогноз новой версии сбрасывает прогнозы прежней
+        batchResponder = batch -> json(predictions(batch, "v2"));
+        client.predictPrices(List.of(price(3))).block(TIMEOUT);
+        client.predictPrices(List.of(price(1), price(3))).block(TIMEOUT);
+
+        assertThat(batches).extracting(Batch::months).containsExactly(List.of(1, 2), List.of(3), List.of(1));
+        assertThat(flushes("ml.prediction.price")).isEqualTo(1);
+        assertThat(flushes("ml.prediction.yield")).isZero();
+    }
+
+    @Test
+    void versionCheckFlushesCacheWithoutBatchRequests() {
+        properties.getPredictionCache().setVersionCheckInterval(Duration.ZERO);
+        MlPredictionClient client = client();
+        versionResponder = () -> json(Map.of("price", "v1", "yield", "y1"));
+        client.predictPrices(List.of(price(1))).block(TIMEOUT);
+        client.predictYields(List.of(yieldRequest(100.0))).block(TIMEOUT);
+        client.predictPrices(List.of(price(1))).block(TIMEOUT);
+        assertThat(batches).hasSize(2);
+
+        // Все позиции есть в кэше, но сменившаяся версия модели цен сбрасывает только ее прогнозы
+        versionResponder = () -> json(Map.of("price", "v2", "yield", "y1"));
+        client.predictPrices(List.of(price(1))).block(TIMEOUT);
+        client.predictYields(List.of(yieldRequest(100.0))).block(TIMEOUT);
+
+        assertThat(batches).extracting(Batch::path).containsExactly(
+                "/predict/batch", "/predict/yield/batch", "/predict/batch");
+        assertThat(flushes("ml.prediction.price")).isEqualTo(1);
+        assertThat(flushes("ml.prediction.yield")).isZero();
+    }
+
+    @Test
+    void versionIsCheckedAtMostOncePerInterval() {
+        MlPredictionClient client = client();
+        versionResponder = () -> json(Map.of("price", "v1", "yield", "y1"));
+
+        for (int i = 0; i < 3; i++) {
+            client.predictPrices(List.of(price(i + 1))).block(TIMEOUT);
+        }
+
+        assertThat(versionChecks).hasValue(1);
+        assertThat(batches).hasSize(3);
+    }
+
+    private MlPredictionClient client() {
+        return client(new MlPredictionCache(properties, registry));
+    }
+
+    private MlPredictionClient client(MlPredictionCache cache) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://ml-service")
+                .exchangeFunction(this::exchange)
+                .build();
+        return new MlPredictionClient(webClient, properties, cache);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request) {
+        String path = request.url().getPath();
+        if (path.equals("/model/version")) {
+            versionChecks.incrementAndGet();
+            return versionResponder.get();
+        }
+
+        MockClientHttpRequest body = new MockClientHttpRequest(request.method(), request.url());
+        return request.body().insert(body, WRITERS)
+                .then(Mono.defer(body::getBodyAsString))
+                .map(content -> new Batch(path, readItems(content)))
+                .flatMap(batch -> {
+                    batches.add(batch);
+                    return batchResponder.apply(batch);
+                });
+    }
+
+    private double cacheGets(String cache, String result) {
+        return registry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    private double flushes(String cache) {
+        return registry.get("ml.prediction.cache.flushes").tag("cache", cache).counter().count();
+    }
+
+    private static Map<String, Object> predictions(Batch batch, String modelVersion) {
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (Map<String, Object> item : batch.items()) {
+            predictions.add(item.containsKey("month")
+                    ? Map.of("predicted_price", ((Number) item.get("month")).doubleValue())
+                    : Map.of("predicted_yield", ((Number) item.get("precip_oct_mar")).doubleValue()));
+        }
+        return modelVersion != null
+                ? Map.of("predictions", predictions, "model_version", modelVersion)
+                : Map.of("predictions", predictions);
+    }
+
+    private static Mono<ClientResponse> json(Object body) {
+        try {
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .body(JSON.writeValueAsString(body))
+                    .build());
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+    }
+
+    private static List<Map<String, Object>> readItems(String content) {
+        try {
+            Map<String, List<Map<String, Object>>> request = JSON.readValue(content, new TypeReference<>() {});
+            return request.get("items");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PricePredictionRequest price(int month) {
+        return new PricePredictionRequest("Омск", "Омская область", "Рапс", month, 15, 2025);
+    }
+
+    private static YieldPredictionRequest yieldRequest(double precipOctMar) {
+        return new YieldPredictionRequest("Омская область", "Пшеница яровая", precipOctMar, -18.0, 45.0,
+                600.0, false, 120.0, 1500.0, 2, 1.1, 90.0, 1200.0, 1, 1.0, 3300.0, 3);
+    }
+
+    private record Batch(String path, List<Map<String, Object>> items) {
+        List<Integer> months() {
+            return items.stream().map(item -> (Integer) item.get("month")).toList();
+        }
+    }
+}
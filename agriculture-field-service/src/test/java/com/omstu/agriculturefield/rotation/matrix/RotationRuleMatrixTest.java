@@ -0,0 +1,82 @@
+package com.omstu.agriculturefield.rotation.matrix;
+
+import com.omstu.agriculturefield.crop.model.CropType;
+import com.omstu.agriculturefield.rotation.model.CropRotationRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RotationRuleMatrixTest {
+
+    private static final CropType WHEAT = cropType(10L);
+    private static final CropType PEA = cropType(3L);
+    private static final CropType RAPESEED = cropType(7L);
+
+    @Test
+    void cropsAreNumberedByIdAndPairsAreDirected() {
+        RotationRuleMatrix matrix = RotationRuleMatrix.of(List.of(
+                rule(WHEAT, RAPESEED, false, 2, "После пшеницы рапс не сеют"),
+                rule(PEA, WHEAT, true, null, null)));
+
+        assertThat(matrix.cropCount()).isEqualTo(3);
+        assertThat(matrix.ordinal(PEA.getId())).isZero();
+        assertThat(matrix.ordinal(RAPESEED.getId())).isEqualTo(1);
+        assertThat(matrix.ordinal(WHEAT.getId())).isEqualTo(2);
+
+        assertThat(find(matrix, WHEAT, RAPESEED))
+                .isEqualTo(new RotationRuleMatrix.Rule(false, 2, "После пшеницы рапс не сеют"));
+        assertThat(find(matrix, RAPESEED, WHEAT)).isNull();
+        assertThat(find(matrix, PEA, WHEAT)).isEqualTo(new RotationRuleMatrix.Rule(true, 0, null));
+    }
+
+    @Test
+    void missingAllowedFlagMeansAllowed() {
+        RotationRuleMatrix matrix = RotationRuleMatrix.of(List.of(rule(PEA, PEA, null, 4, null)));
+
+        assertThat(find(matrix, PEA, PEA).allowed()).isTrue();
+        assertThat(find(matrix, PEA, PEA).minGapYears()).isEqualTo(4);
+    }
+
+    @Test
+    void firstRuleOfDuplicatePairWins() {
+        RotationRuleMatrix matrix = RotationRuleMatrix.of(List.of(
+                rule(WHEAT, WHEAT, false, 1, "first"),
+                rule(WHEAT, PEA, true, 0, null),
+                rule(WHEAT, WHEAT, true, 0, "second")));
+
+        assertThat(find(matrix, WHEAT, WHEAT)).isEqualTo(new RotationRuleMatrix.Rule(false, 1, "first"));
+    }
+
+    @Test
+    void unknownCropHasNoRules() {
+        RotationRuleMatrix matrix = RotationRuleMatrix.of(List.of(rule(WHEAT, PEA, false, 1, null)));
+
+        assertThat(matrix.ordinal(99L)).isEqualTo(RotationRuleMatrix.UNKNOWN_CROP);
+        assertThat(matrix.find(RotationRuleMatrix.UNKNOWN_CROP, matrix.ordinal(PEA.getId()))).isNull();
+        assertThat(matrix.find(matrix.ordinal(WHEAT.getId()), RotationRuleMatrix.UNKNOWN_CROP)).isNull();
+        assertThat(RotationRuleMatrix.of(List.of()).cropCount()).isZero();
+    }
+
+    private static RotationRuleMatrix.Rule find(RotationRuleMatrix matrix, CropType predecessor, CropType successor) {
+        return matrix.find(matrix.ordinal(predecessor.getId()), matrix.ordinal(successor.getId()));
+    }
+
+    private static CropRotationRule rule(CropType predecessor, CropType successor,
+                                         Boolean allowed, Integer minGapYears, String reason) {
+        CropRotationRule rule = new CropRotationRule();
+        rule.setPredecessorCrop(predecessor);
+        rule.setSuccessorCrop(successor);
+        rule.setAllowed(allowed);
+        rule.setMinGapYears(minGapYears);
+        rule.setReason(reason);
+        return rule;
+    }
+
+    private static CropType cropType(Long id) {
+        CropType cropType = new CropType();
+        cropType.setId(id);
+        return cropType;
+    }
+}
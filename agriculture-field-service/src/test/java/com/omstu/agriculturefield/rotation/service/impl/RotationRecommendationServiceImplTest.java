@@ -0,0 +1,441 @@
+package com.omstu.agriculturefield.rotation.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.omstu.agriculturefield.config.MlServiceProperties;
+import com.omstu.agriculturefield.config.RecommendationProperties;
+import com.omstu.agriculturefield.config.WeatherServiceProperties;
+import com.omstu.agriculturefield.crop.model.CropHistory;
+import com.omstu.agriculturefield.crop.model.CropType;
+import com.omstu.agriculturefield.crop.repository.CropHistoryRepository;
+import com.omstu.agriculturefield.crop.repository.CropTypeRepository;
+import com.omstu.agriculturefield.field.model.AgriculturalField;
+import com.omstu.agriculturefield.field.repository.AgriculturalFieldRepository;
+import com.omstu.agriculturefield.rotation.client.MlPredictionClient;
+import com.omstu.agriculturefield.rotation.dto.CropRecommendationItem;
+import com.omstu.agriculturefield.rotation.dto.FieldRecommendationResult;
+import com.omstu.agriculturefield.rotation.dto.PricePredictionRequest;
+import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherBatchItem;
+import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherBatchResult;
+import com.omstu.agriculturefield.rotation.dto.SeasonalWeatherDto;
+import com.omstu.agriculturefield.rotation.dto.YieldPredictionRequest;
+import com.omstu.agriculturefield.rotation.matrix.RotationRuleMatrix;
+import com.omstu.agriculturefield.rotation.matrix.RotationRuleMatrixProvider;
+import com.omstu.agriculturefield.rotation.model.CropRotationRule;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RotationRecommendationServiceImplTest {
+
+    private static final int TARGET_YEAR = 2026;
+    private static final GeometryFactory GEOMETRY = new GeometryFactory();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Порядок культур не совпадает с порядком id и имен: прогнозы должны сопоставляться по позиции
+    private static final List<CropType> CROP_TYPES = List.of(
+            cropType(3L, "Рапс"), cropType(1L, "Пшеница яровая"), cropType(2L, "Горох"));
+    private static final CropType RAPESEED = CROP_TYPES.get(0);
+    private static final CropType WHEAT = CROP_TYPES.get(1);
+    private static final CropType PEA = CROP_TYPES.get(2);
+    private static final Map<String, Double> PRICES = Map.of(
+            "Рапс", 30000.0, "Пшеница яровая", 15000.0, "Горох", 20000.0);
+    private static final Map<String, Double> BASE_YIELDS = Map.of(
+            "Рапс", 1000.0, "Пшеница яровая", 2000.0, "Горох", 3000.0);
+
+    private HttpServer weatherService;
+    // Ячейки, запрошенные у weather-service, по порядку запросов
+    private final ConcurrentLinkedQueue<SeasonalWeatherBatchItem> weatherRequests = new ConcurrentLinkedQueue<>();
+    // Ячейки, которых нет в ответе, и ячейки, по которым weather-service вернул ошибку
+    private final Set<String> missingWeather = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedWeather = ConcurrentHashMap.newKeySet();
+
+    private final AgriculturalFieldRepository fieldRepository = mock(AgriculturalFieldRepository.class);
+    private final CropHistoryRepository cropHistoryRepository = mock(CropHistoryRepository.class);
+    private final CropTypeRepository cropTypeRepository = mock(CropTypeRepository.class);
+    private final RotationRuleMatrixProvider ruleMatrixProvider = mock(RotationRuleMatrixProvider.class);
+    private final MlPredictionClient mlPredictionClient = mock(MlPredictionClient.class);
+
+    private final MlServiceProperties mlProperties = new MlServiceProperties();
+    private final WeatherServiceProperties weatherProperties = new WeatherServiceProperties();
+    private final RecommendationProperties recommendationProperties = new RecommendationProperties();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        weatherService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        weatherService.setExecutor(Executors.newCachedThreadPool());
+        weatherService.createContext("/api/agro-data/seasonal/batch", exchange -> {
+            List<SeasonalWeatherBatchItem> items = JSON.readValue(
+                    exchange.getRequestBody(), new TypeReference<List<SeasonalWeatherBatchItem>>() {});
+            weatherRequests.addAll(items);
+
+            StringBuilder body = new StringBuilder();
+            for (SeasonalWeatherBatchItem item : items) {
+                SeasonalWeatherBatchResult result = weatherResult(item);
+                if (result != null) {
+                    body.append(JSON.writeValueAsString(result)).append('\n');
+                }
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        weatherService.start();
+
+        when(cropTypeRepository.findAll()).thenReturn(CROP_TYPES);
+        when(cropHistoryRepository.findByFieldIdInOrderByPlantingDateDesc(anyCollection())).thenReturn(List.of());
+        when(ruleMatrixProvider.current()).thenReturn(RotationRuleMatrix.of(List.of()));
+        when(mlPredictionClient.predictPrices(anyList())).thenAnswer(invocation -> Mono.just(
+                invocation.<List<PricePredictionRequest>>getArgument(0).stream()
+                        .map(request -> PRICES.get(request.crop()))
+                        .toList()));
+        when(mlPredictionClient.predictYields(anyList())).thenAnswer(invocation -> Mono.just(
+                yields(invocation.getArgument(0))));
+    }
+
+    @AfterEach
+    void stopWeatherService() {
+        weatherService.stop(0);
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndFieldsWithoutGeometry() {
+        AgriculturalField withoutGeometry = field(2L, 55.0, 73.0);
+        withoutGeometry.setGeom(null);
+        List<Long> ids = List.of(1L, 2L, 99L, 99L);
+        when(fieldRepository.findAllById(ids)).thenReturn(List.of(field(1L, 55.0, 73.0), withoutGeometry));
+
+        Map<Long, FieldRecommendationResult> results = byField(batch(ids));
+
+        assertThat(results).containsOnlyKeys(1L, 2L, 99L);
+        assertThat(results.get(99L).error()).isEqualTo("Field not found with id: 99");
+        assertThat(results.get(99L).recommendation()).isNull();
+        assertThat(results.get(2L).error()).isEqualTo("Field has no geometry");
+        assertThat(results.get(1L).error()).isNull();
+        assertThat(results.get(1L).recommendation().recommendations()).hasSize(CROP_TYPES.size());
+        // Отклоненные поля погоду не запрашивают
+        assertThat(weatherRequests).extracting(SeasonalWeatherBatchItem::id).containsExactly("55.0,73.0");
+    }
+
+    @Test
+    void requestsWeatherAndYieldsOncePerGridCell() {
+        when(fieldRepository.findAll()).thenReturn(List.of(
+                field(1L, 55.01, 73.01), field(2L, 54.98, 72.97),
+                field(3L, 55.32, 73.0), field(4L, 55.29, 72.96)));
+
+        Map<Long, FieldRecommendationResult> results = byField(batch(List.of()));
+
+        assertThat(results).containsOnlyKeys(1L, 2L, 3L, 4L);
+        assertThat(weatherRequests).extracting(SeasonalWeatherBatchItem::id)
+                .containsExactlyInAnyOrder("55.0,73.0", "55.3,73.0");
+        assertThat(weatherRequests).allSatisfy(item -> assertThat(item.year()).isEqualTo(TARGET_YEAR - 1));
+
+        // Урожайность каждой ячейки запрашивается один раз — по позиции на культуру
+        assertThat(yieldRequests()).hasSize(2 * CROP_TYPES.size());
+        assertThat(yieldRequests()).extracting(YieldPredictionRequest::precipOctMar)
+                .containsOnly(55.0, 55.3);
+        // Цены — одним запросом на все регионы
+        verify(mlPredictionClient, times(1)).predictPrices(anyList());
+
+        // Поля одной ячейки получают одни прогнозы
+        assertThat(predictions(results.get(1L))).isEqualTo(predictions(results.get(2L)));
+        assertThat(predictions(results.get(3L))).isEqualTo(predictions(results.get(4L)));
+        assertThat(predictions(results.get(1L))).isNotEqualTo(predictions(results.get(3L)));
+    }
+
+    @Test
+    void cellWithoutWeatherStillGetsResultWithoutYields() {
+        missingWeather.add("55.3,73.0");
+        failedWeather.add("55.6,73.0");
+        when(fieldRepository.findAll()).thenReturn(List.of(
+                field(1L, 55.0, 73.0), field(2L, 55.3, 73.0), field(3L, 55.6, 73.0)));
+
+        Map<Long, FieldRecommendationResult> results = byField(batch(List.of()));
+
+        assertThat(results).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(results.values()).allSatisfy(result -> assertThat(result.error()).isNull());
+        assertThat(results.get(1L).recommendation().recommendations())
+                .allSatisfy(item -> assertThat(item.predictedYieldCentnersPerHa()).isNotNull());
+        for (Long fieldId : List.of(2L, 3L)) {
+            assertThat(results.get(fieldId).recommendation().recommendations()).allSatisfy(item -> {
+                assertThat(item.predictedYieldCentnersPerHa()).isNull();
+                assertThat(item.predictedPriceRubPerTon()).isEqualTo(PRICES.get(item.cropTypeName()));
+                assertThat(item.estimatedProfitRubPerHa()).isZero();
+            });
+        }
+        // Ячейки без погоды в модель урожайности не отправляются
+        assertThat(yieldRequests()).extracting(YieldPredictionRequest::precipOctMar).containsOnly(55.0);
+    }
+
+    @Test
+    void alignsPricesAndYieldsWithCropTypeOrder() {
+        when(fieldRepository.findAll()).thenReturn(List.of(field(1L, 55.0, 73.0), field(2L, 55.3, 73.0)));
+
+        Map<Long, FieldRecommendationResult> results = byField(batch(List.of()));
+
+        Map<Long, Double> cellLatitudes = Map.of(1L, 55.0, 2L, 55.3);
+        cellLatitudes.forEach((fieldId, cellLatitude) -> {
+            assertThat(results.get(fieldId).recommendation().recommendations())
+                    .extracting(CropRecommendationItem::cropTypeId)
+                    .containsExactlyInAnyOrder(1L, 2L, 3L);
+            assertThat(results.get(fieldId).recommendation().recommendations()).allSatisfy(item -> {
+                assertThat(item.predictedPriceRubPerTon()).isEqualTo(PRICES.get(item.cropTypeName()));
+                assertThat(item.predictedYieldCentnersPerHa())
+                        .isEqualTo(expectedYield(item.cropTypeName(), cellLatitude));
+            });
+        });
+    }
+
+    @Test
+    void enforcesMaxFields() {
+        recommendationProperties.setMaxFields(2);
+
+        assertThatThrownBy(() -> service().getRecommendationsBatch(List.of(1L, 2L, 3L), TARGET_YEAR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Too many fields in batch: 3 (max 2)");
+        verifyNoInteractions(fieldRepository);
+
+        // Без списка полей ограничение проверяется по числу полей хозяйства
+        when(fieldRepository.findAll()).thenReturn(List.of(
+                field(1L, 55.0, 73.0), field(2L, 55.0, 73.0), field(3L, 55.0, 73.0)));
+        assertThatThrownBy(() -> service().getRecommendationsBatch(null, TARGET_YEAR))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Too many fields in batch: 3 (max 2)");
+
+        List<Long> ids = List.of(1L, 2L);
+        when(fieldRepository.findAllById(ids)).thenReturn(List.of(field(1L, 55.0, 73.0), field(2L, 55.0, 73.0)));
+        assertThat(batch(ids)).hasSize(2);
+    }
+
+    @Test
+    void keepsStreamingWhenYieldModelIsSlowerThanBatchWindow() {
+        // Погода приходит по одной ячейке, окно короче ответа модели, запросы урожайности по одному:
+        // пакеты готовы намного чаще, чем их забирают
+        weatherProperties.setSeasonalBatchMaxItems(1);
+        recommendationProperties.setYieldBatchWindow(Duration.ofMillis(5));
+        mlProperties.setMaxConcurrentRequests(1);
+        mlProperties.setMaxBatchSize(4 * CROP_TYPES.size());
+        when(mlPredictionClient.predictYields(anyList())).thenAnswer(invocation -> Mono.delay(Duration.ofMillis(50))
+                .thenReturn(yields(invocation.getArgument(0))));
+
+        List<AgriculturalField> fields = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            fields.add(field(i + 1L, 54.0 + i * 0.1, 73.0));
+        }
+        when(fieldRepository.findAll()).thenReturn(fields);
+
+        List<FieldRecommendationResult> results = batch(List.of());
+
+        assertThat(results).hasSize(fields.size());
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.error()).isNull();
+            assertThat(result.recommendation().recommendations())
+                    .allSatisfy(item -> assertThat(item.predictedYieldCentnersPerHa()).isNotNull());
+        });
+    }
+
+    @Test
+    void forbiddenSuccessorIsCheckedAgainstEveryPredecessor() {
+        // Рапс после рапса запрещен на 3 сезона; после пшеницы разрешен, и minGapYears такого правила не действует
+        List<CropRotationRule> rules = List.of(
+                rule(RAPESEED, RAPESEED, false, 3, "Рапс после рапса запрещен."),
+                rule(WHEAT, RAPESEED, true, 4, null));
+
+        Map<Long, Map<String, CropRecommendationItem>> results = recommend(rules,
+                planted(1L, WHEAT, 2025), planted(1L, RAPESEED, 2023),
+                planted(2L, WHEAT, 2025), planted(2L, RAPESEED, 2022),
+                planted(3L, WHEAT, 2025));
+
+        // Последняя культура поля 1 — пшеница, но рапс 2023 года отделяют от целевого года только 2 сезона
+        CropRecommendationItem rapeseed = results.get(1L).get("Рапс");
+        assertThat(rapeseed.rotationCompliant()).isFalse();
+        assertThat(rapeseed.rotationViolationReason()).isEqualTo(
+                "Рапс после рапса запрещен. Перерыв после культуры «Рапс» — 2 г., требуется не менее 3 г.");
+        assertThat(results.get(2L).get("Рапс").rotationCompliant()).isTrue();
+        assertThat(results.get(3L).get("Рапс").rotationCompliant()).isTrue();
+    }
+
+    @Test
+    void forbiddenRuleWithoutGapForbidsOnlyImmediateSuccession() {
+        List<CropRotationRule> rules = List.of(rule(PEA, WHEAT, false, null, null));
+
+        Map<Long, Map<String, CropRecommendationItem>> results = recommend(rules,
+                planted(1L, PEA, 2025), planted(2L, PEA, 2024));
+
+        CropRecommendationItem wheat = results.get(1L).get("Пшеница яровая");
+        assertThat(wheat.rotationCompliant()).isFalse();
+        assertThat(wheat.rotationViolationReason()).isEqualTo("Запрещено правилами севооборота после Горох");
+        assertThat(results.get(2L).get("Пшеница яровая").rotationCompliant()).isTrue();
+    }
+
+    @Test
+    void cropRepeatedTwiceWithinFourYearsViolatesRotation() {
+        Map<Long, Map<String, CropRecommendationItem>> results = recommend(List.of(),
+                planted(1L, PEA, 2024), planted(1L, PEA, 2022),
+                planted(2L, PEA, 2024), planted(2L, PEA, 2021));
+
+        CropRecommendationItem pea = results.get(1L).get("Горох");
+        assertThat(pea.rotationCompliant()).isFalse();
+        assertThat(pea.rotationViolationReason())
+                .isEqualTo("Культура повторяется более 2 лет подряд — риск накопления болезней");
+        // Посев 2021 года старше четырех лет до целевого и не учитывается
+        assertThat(results.get(2L).get("Горох").rotationCompliant()).isTrue();
+        assertThat(results.get(1L).get("Рапс").rotationCompliant()).isTrue();
+    }
+
+    /**
+     * Рекомендации пакетного запроса по полям из истории: id поля → культура → рекомендация
+     */
+    private Map<Long, Map<String, CropRecommendationItem>> recommend(List<CropRotationRule> rules,
+                                                                     CropHistory... history) {
+        List<Long> ids = Arrays.stream(history).map(h -> h.getField().getId()).distinct().toList();
+        when(ruleMatrixProvider.current()).thenReturn(RotationRuleMatrix.of(rules));
+        when(fieldRepository.findAllById(ids))
+                .thenReturn(ids.stream().map(id -> field(id, 55.0, 73.0)).toList());
+        when(cropHistoryRepository.findByFieldIdInOrderByPlantingDateDesc(anyCollection()))
+                .thenReturn(List.of(history));
+
+        return byField(batch(ids)).values().stream().collect(Collectors.toMap(
+                FieldRecommendationResult::fieldId,
+                result -> result.recommendation().recommendations().stream()
+                        .collect(Collectors.toMap(CropRecommendationItem::cropTypeName, item -> item))));
+    }
+
+    private List<FieldRecommendationResult> batch(List<Long> fieldIds) {
+        return service().getRecommendationsBatch(fieldIds, TARGET_YEAR)
+                .collectList()
+                .block(Duration.ofSeconds(20));
+    }
+
+    private List<YieldPredictionRequest> yieldRequests() {
+        ArgumentCaptor<List<YieldPredictionRequest>> captor = ArgumentCaptor.captor();
+        verify(mlPredictionClient, atLeastOnce()).predictYields(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private static Map<Long, FieldRecommendationResult> byField(List<FieldRecommendationResult> results) {
+        assertThat(results).extracting(FieldRecommendationResult::fieldId).doesNotHaveDuplicates();
+        return results.stream().collect(Collectors.toMap(FieldRecommendationResult::fieldId, result -> result));
+    }
+
+    /**
+     * Прогнозы рекомендации по культурам: id культуры → (урожайность, цена)
+     */
+    private static Map<Long, List<Double>> predictions(FieldRecommendationResult result) {
+        return result.recommendation().recommendations().stream()
+                .collect(Collectors.toMap(CropRecommendationItem::cropTypeId, item -> Arrays.asList(
+                        item.predictedYieldCentnersPerHa(), item.predictedPriceRubPerTon())));
+    }
+
+    private RotationRecommendationServiceImpl service() {
+        return new RotationRecommendationServiceImpl(
+                fieldRepository, cropHistoryRepository, cropTypeRepository, ruleMatrixProvider,
+                mlPredictionClient, mlProperties, weatherProperties, recommendationProperties,
+                WebClient.create("http://localhost:" + weatherService.getAddress().getPort()));
+    }
+
+    /**
+     * Ответ weather-service по ячейке; null — ячейка в ответ не попала
+     */
+    private SeasonalWeatherBatchResult weatherResult(SeasonalWeatherBatchItem item) {
+        if (missingWeather.contains(item.id())) {
+            return null;
+        }
+        if (failedWeather.contains(item.id())) {
+            return new SeasonalWeatherBatchResult(item.id(), item.year(), null, "Upstream unavailable");
+        }
+        return new SeasonalWeatherBatchResult(item.id(), item.year(), weather(item.lat()), null);
+    }
+
+    /**
+     * Урожайность зависит и от культуры, и от погоды ячейки (precipOctMar — широта ячейки)
+     */
+    private static List<Double> yields(List<YieldPredictionRequest> requests) {
+        return requests.stream()
+                .map(request -> expectedYield(request.crop(), request.precipOctMar()))
+                .toList();
+    }
+
+    private static Double expectedYield(String crop, double cellLatitude) {
+        return BASE_YIELDS.get(crop) + cellLatitude;
+    }
+
+    private static SeasonalWeatherDto weather(double precipOctMar) {
+        return new SeasonalWeatherDto(TARGET_YEAR - 1, precipOctMar, -20.0, 40.0, 300.0, false, 1.0,
+                120.0, 900.0, 3, 0, 18.0, 1.1, 80.0, 700.0, 1, 0.9, 1.0, 1900.0, 4, -2.0, 12);
+    }
+
+    private static AgriculturalField field(Long id, double lat, double lon) {
+        double d = 0.001;
+        Polygon square = GEOMETRY.createPolygon(new Coordinate[]{
+                new Coordinate(lon - d, lat - d), new Coordinate(lon + d, lat - d),
+                new Coordinate(lon + d, lat + d), new Coordinate(lon - d, lat + d),
+                new Coordinate(lon - d, lat - d)});
+        AgriculturalField field = new AgriculturalField();
+        field.setId(id);
+        field.setFieldName("Поле " + id);
+        field.setGeom(square);
+        return field;
+    }
+
+    private static CropHistory planted(Long fieldId, CropType cropType, int year) {
+        CropHistory history = new CropHistory();
+        history.setField(field(fieldId, 55.0, 73.0));
+        history.setCropType(cropType);
+        history.setPlantingDate(java.sql.Date.valueOf(LocalDate.of(year, 5, 15)));
+        return history;
+    }
+
+    private static CropRotationRule rule(CropType predecessor, CropType successor,
+                                         Boolean allowed, Integer minGapYears, String reason) {
+        CropRotationRule rule = new CropRotationRule();
+        rule.setPredecessorCrop(predecessor);
+        rule.setSuccessorCrop(successor);
+        rule.setAllowed(allowed);
+        rule.setMinGapYears(minGapYears);
+        rule.setReason(reason);
+        return rule;
+    }
+
+    private static CropType cropType(Long id, String name) {
+        CropType cropType = new CropType();
+        cropType.setId(id);
+        cropType.setName(name);
+        return cropType;
+    }
+}
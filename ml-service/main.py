@@ -1,5 +1,7 @@
 from fastapi import FastAPI
 from pydantic import BaseModel
+from typing import List
+import hashlib
 import joblib
 import pandas as pd
 
@@ -11,6 +13,28 @@ le_city = joblib.load('city_encoder.pkl')
 le_region = joblib.load('region_encoder.pkl')
 le_crop = joblib.load('crop_encoder.pkl')
 
+
+def _model_version(path):
+    # Версия модели — хэш файла: клиенты сбрасывают кэш прогнозов, когда она меняется
+    with open(path, 'rb') as f:
+        return hashlib.sha256(f.read()).hexdigest()[:12]
+
+
+PRICE_MODEL_VERSION = _model_version('price_model.pkl')
+
+
+def _label_index(encoder):
+    # Код метки совпадает с ее позицией в classes_ (как в LabelEncoder.transform),
+    # но неизвестная метка дает None вместо исключения на весь пакет
+    return {label: code for code, label in enumerate(encoder.classes_)}
+
+
+_city_index = _label_index(le_city)
+_region_index = _label_index(le_region)
+_crop_index = _label_index(le_crop)
+
+PRICE_FEATURES = ['City_Code', 'Region_Code', 'Crop_Code', 'Month', 'DayOfYear', 'Year']
+
 # Описываем, какие данные мы ждем от Java
 class PredictionRequest(BaseModel):
     city: str
@@ -20,25 +44,52 @@ class PredictionRequest(BaseModel):
     day_of_year: int
     year: int
 
+class PredictionBatchRequest(BaseModel):
+    items: List[PredictionRequest]
+
+
+def _price_row(request):
+    # Превращаем текст в коды, которые понимает модель; None — город, регион или культура неизвестны
+    city_code = _city_index.get(request.city)
+    region_code = _region_index.get(request.region)
+    crop_code = _crop_index.get(request.crop)
+    if city_code is None or region_code is None or crop_code is None:
+        return None
+    return [city_code, region_code, crop_code, request.month, request.day_of_year, request.year]
+
+
+def _predict_rows(predictor, rows, columns, key, error):
+    # Все известные модели строки предсказываются одним вызовом predict, ответы — в порядке запроса
+    valid = [row for row in rows if row is not None]
+    predictions = iter(predictor.predict(pd.DataFrame(valid, columns=columns))) if valid else iter(())
+    return [
+        {key: round(float(next(predictions)), 2)} if row is not None else {"error": error}
+        for row in rows
+    ]
+
+
 @app.post("/predict")
 def predict_price(request: PredictionRequest):
-    # Превращаем текст в коды, которые понимает модель
-    try:
-        city_code = le_city.transform([request.city])[0]
-        region_code = le_region.transform([request.region])[0]
-        crop_code = le_crop.transform([request.crop])[0]
-    except ValueError:
+    row = _price_row(request)
+    if row is None:
         return {"error": "Unknown city, region or crop"}
 
     # Формируем вектор для предсказания
-    features = pd.DataFrame([[city_code, region_code, crop_code, request.month, request.day_of_year, request.year]],
-                            columns=['City_Code', 'Region_Code', 'Crop_Code', 'Month', 'DayOfYear', 'Year'])
+    features = pd.DataFrame([row], columns=PRICE_FEATURES)
 
     prediction = model.predict(features)[0]
 
     return {"predicted_price": round(float(prediction), 2)}
 
 
+@app.post("/predict/batch")
+def predict_price_batch(request: PredictionBatchRequest):
+    rows = [_price_row(item) for item in request.items]
+    return {"predictions": _predict_rows(model, rows, PRICE_FEATURES,
+                                         "predicted_price", "Unknown city, region or crop"),
+            "model_version": PRICE_MODEL_VERSION}
+
+
 
 import os
 from typing import Optional
@@ -47,10 +98,27 @@ _yield_model = None
 _yield_le_region = None
 _yield_le_crop = None
 
+_yield_region_index = {}
+_yield_crop_index = {}
+_yield_model_version = None
+
 if os.path.exists('yield_model.pkl'):
     _yield_model = joblib.load('yield_model.pkl')
     _yield_le_region = joblib.load('yield_region_encoder.pkl')
     _yield_le_crop = joblib.load('yield_crop_encoder.pkl')
+    _yield_region_index = _label_index(_yield_le_region)
+    _yield_crop_index = _label_index(_yield_le_crop)
+    _yield_model_version = _model_version('yield_model.pkl')
+
+YIELD_FEATURES = [
+    "region_encoded", "crop_encoded",
+    "precip_oct_mar", "min_temp_winter",
+    "precip_apr_may", "temp_sum_apr_may", "frost_risk_spring",
+    "precip_jun_jul", "temp_sum_jun_jul", "heat_stress_jun_jul", "gtk_jun_jul",
+    "precip_aug_sep", "temp_sum_aug_sep", "heat_stress_aug_sep",
+    "gtk_apr_sep", "temp_sum_apr_sep", "total_heat_stress_days",
+    "min_temp_vegetation"
+]
 
 
 class YieldPredictionRequest(BaseModel):
@@ -74,17 +142,16 @@ class YieldPredictionRequest(BaseModel):
     min_temp_vegetation: Optional[float] = None
 
 
-@app.post("/predict/yield")
-def predict_yield(request: YieldPredictionRequest):
-    if _yield_model is None:
-        return {"error": "Yield model not loaded. Run train_yield.py first."}
-    try:
-        region_code = _yield_le_region.transform([request.region])[0]
-        crop_code = _yield_le_crop.transform([request.crop])[0]
-    except ValueError as e:
-        return {"error": f"Unknown region or crop: {e}"}
+class YieldPredictionBatchRequest(BaseModel):
+    items: List[YieldPredictionRequest]
+
 
-    features = pd.DataFrame([[
+def _yield_row(request):
+    region_code = _yield_region_index.get(request.region)
+    crop_code = _yield_crop_index.get(request.crop)
+    if region_code is None or crop_code is None:
+        return None
+    return [
         region_code, crop_code,
         request.precip_oct_mar, request.min_temp_winter,
         request.precip_apr_may, request.temp_sum_apr_may,
@@ -95,19 +162,37 @@ def predict_yield(request: YieldPredictionRequest):
         request.heat_stress_aug_sep,
         request.gtk_apr_sep, request.temp_sum_apr_sep,
         request.total_heat_stress_days, request.min_temp_vegetation
-    ]], columns=[
-        "region_encoded", "crop_encoded",
-        "precip_oct_mar", "min_temp_winter",
-        "precip_apr_may", "temp_sum_apr_may", "frost_risk_spring",
-        "precip_jun_jul", "temp_sum_jun_jul", "heat_stress_jun_jul", "gtk_jun_jul",
-        "precip_aug_sep", "temp_sum_aug_sep", "heat_stress_aug_sep",
-        "gtk_apr_sep", "temp_sum_apr_sep", "total_heat_stress_days",
-        "min_temp_vegetation"
-    ])
+    ]
+
+
+@app.post("/predict/yield")
+def predict_yield(request: YieldPredictionRequest):
+    if _yield_model is None:
+        return {"error": "Yield model not loaded. Run train_yield.py first."}
+    row = _yield_row(request)
+    if row is None:
+        return {"error": f"Unknown region or crop: {request.region}, {request.crop}"}
+
+    features = pd.DataFrame([row], columns=YIELD_FEATURES)
 
     prediction = _yield_model.predict(features)[0]
     return {"predicted_yield": round(float(prediction), 2)}
 
+
+@app.post("/predict/yield/batch")
+def predict_yield_batch(request: YieldPredictionBatchRequest):
+    if _yield_model is None:
+        return {"error": "Yield model not loaded. Run train_yield.py first."}
+    rows = [_yield_row(item) for item in request.items]
+    return {"predictions": _predict_rows(_yield_model, rows, YIELD_FEATURES,
+                                         "predicted_yield", "Unknown region or crop"),
+            "model_version": _yield_model_version}
+
+
+@app.get("/model/version")
+def model_version():
+    return {"price": PRICE_MODEL_VERSION, "yield": _yield_model_version}
+
 if __name__ == "__main__":
     import uvicorn
     uvicorn.run(app, host="0.0.0.0", port=8000)
\ No newline at end of file
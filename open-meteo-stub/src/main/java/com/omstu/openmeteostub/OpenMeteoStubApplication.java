@@ -0,0 +1,13 @@
+package com.omstu.openmeteostub;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class OpenMeteoStubApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(OpenMeteoStubApplication.class, args);
+    }
+
+}
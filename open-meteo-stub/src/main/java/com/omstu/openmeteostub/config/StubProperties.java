@@ -0,0 +1,60 @@
+package com.omstu.openmeteostub.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Параметры заглушки Open-Meteo: источник ответов, задержки и внедрение сбоев
+ */
+@Component
+@ConfigurationProperties(prefix = "stub")
+@Getter
+@Setter
+public class StubProperties {
+
+    // Каталог записанных ответов Open-Meteo; пусто — все ответы синтетические
+    private String replayDir;
+
+    // Зерно синтетических рядов: одинаковый запрос при одном зерне дает одинаковый ответ
+    private long seed = 42;
+
+    private Latency latency = new Latency();
+
+    private Faults faults = new Faults();
+
+    /**
+     * Задержка ответа: base плюс равномерно распределенная добавка до jitter
+     */
+    @Getter
+    @Setter
+    public static class Latency {
+
+        private Duration base = Duration.ofMillis(80);
+
+        private Duration jitter = Duration.ofMillis(40);
+    }
+
+    /**
+     * Внедрение сбоев. Доли — от 0 до 1; при заданном seed последовательность сбоев воспроизводима.
+     */
+    @Getter
+    @Setter
+    public static class Faults {
+
+        // Доля ответов с кодом errorStatus
+        private double errorRate = 0.0;
+
+        private int errorStatus = 503;
+
+        // Доля ответов, задержанных на stallDuration (проверка таймаутов и автомата отключения)
+        private double stallRate = 0.0;
+
+        private Duration stallDuration = Duration.ofSeconds(15);
+
+        private long seed = 7;
+    }
+}
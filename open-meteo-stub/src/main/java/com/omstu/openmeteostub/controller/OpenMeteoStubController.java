@@ -0,0 +1,168 @@
+package com.omstu.openmeteostub.controller;
+
+import com.omstu.openmeteostub.service.FaultInjector;
+import com.omstu.openmeteostub.service.ReplayStore;
+import com.omstu.openmeteostub.service.SyntheticWeatherGenerator;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Заглушка эндпоинтов Open-Meteo /v1/forecast и /v1/archive.
+ * Принимает те же параметры, что и API (в том числе списки координат через запятую),
+ * отвечает записанным ответом, если он есть, иначе синтетическими рядами.
+ * Счетчики запросов — GET /stub/stats.
+ */
+@RestController
+public class OpenMeteoStubController {
+
+    private static final int MAX_FORECAST_DAYS = 16;
+
+    private final SyntheticWeatherGenerator generator;
+    private final ReplayStore replayStore;
+    private final FaultInjector faultInjector;
+
+    private final Map<String, AtomicLong> stats = new LinkedHashMap<>();
+
+    public OpenMeteoStubController(SyntheticWeatherGenerator generator, ReplayStore replayStore,
+                                   FaultInjector faultInjector) {
+        this.generator = generator;
+        this.replayStore = replayStore;
+        this.faultInjector = faultInjector;
+        for (String name : List.of("forecast.requests", "archive.requests", "locations", "replayed",
+                "injected.errors", "injected.stalls", "rejected")) {
+            stats.put(name, new AtomicLong());
+        }
+    }
+
+    @GetMapping("/v1/forecast")
+    public Mono<ResponseEntity<byte[]>> forecast(@RequestParam MultiValueMap<String, String> query) {
+        stats.get("forecast.requests").incrementAndGet();
+        int days;
+        try {
+            days = Integer.parseInt(query.getFirst("forecast_days") != null ? query.getFirst("forecast_days") : "7");
+        } catch (NumberFormatException e) {
+            return badRequest("Invalid forecast_days");
+        }
+        if (days < 1 || days > MAX_FORECAST_DAYS) {
+            return badRequest("forecast_days must be between 1 and " + MAX_FORECAST_DAYS);
+        }
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return respond("forecast", query, today, today.plusDays(days - 1L));
+    }
+
+    @GetMapping("/v1/archive")
+    public Mono<ResponseEntity<byte[]>> archive(@RequestParam MultiValueMap<String, String> query) {
+        stats.get("archive.requests").incrementAndGet();
+        LocalDate start;
+        LocalDate end;
+        try {
+            start = LocalDate.parse(query.getFirst("start_date"));
+            end = LocalDate.parse(query.getFirst("end_date"));
+        } catch (NullPointerException | DateTimeParseException e) {
+            return badRequest("start_date and end_date are required in yyyy-MM-dd format");
+        }
+        if (end.isBefore(start)) {
+            return badRequest("end_date must not be before start_date");
+        }
+        return respond("archive", query, start, end);
+    }
+
+    @GetMapping("/stub/stats")
+    public Map<String, Long> stats() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        stats.forEach((name, counter) -> snapshot.put(name, counter.get()));
+        return snapshot;
+    }
+
+    private Mono<ResponseEntity<byte[]>> respond(String endpoint, MultiValueMap<String, String> query,
+                                                 LocalDate start, LocalDate end) {
+        List<SyntheticWeatherGenerator.Location> locations;
+        try {
+            locations = locations(query.getFirst("latitude"), query.getFirst("longitude"));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e.getMessage());
+        }
+        stats.get("locations").addAndGet(locations.size());
+
+        FaultInjector.Decision decision = faultInjector.next();
+        if (decision.fault() == FaultInjector.Fault.ERROR) {
+            stats.get("injected.errors").incrementAndGet();
+            return Mono.delay(decision.delay())
+                    .thenReturn(error(faultInjector.errorStatus(), "Injected failure"));
+        }
+        if (decision.fault() == FaultInjector.Fault.STALL) {
+            stats.get("injected.stalls").incrementAndGet();
+        }
+
+        Mono<byte[]> body = Mono.fromCallable(() -> replayStore.find(endpoint, query)
+                        .map(recorded -> {
+                            stats.get("replayed").incrementAndGet();
+                            return recorded;
+                        })
+                        .orElseGet(() -> generator.generate(locations, split(query.getFirst("hourly")),
+                                split(query.getFirst("daily")), start, end)))
+                .subscribeOn(Schedulers.boundedElastic());
+
+        return Mono.delay(decision.delay())
+                .then(body)
+                .map(bytes -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(bytes));
+    }
+
+    private static List<SyntheticWeatherGenerator.Location> locations(String latitudes, String longitudes) {
+        if (latitudes == null || longitudes == null) {
+            throw new IllegalArgumentException("latitude and longitude are required");
+        }
+        String[] lat = latitudes.split(",");
+        String[] lon = longitudes.split(",");
+        if (lat.length != lon.length) {
+            throw new IllegalArgumentException("Parameter 'latitude' and 'longitude' must have the same number of elements");
+        }
+        List<SyntheticWeatherGenerator.Location> locations = new ArrayList<>(lat.length);
+        for (int i = 0; i < lat.length; i++) {
+            try {
+                locations.add(new SyntheticWeatherGenerator.Location(
+                        Double.parseDouble(lat[i].trim()), Double.parseDouble(lon[i].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid coordinate: " + lat[i] + "," + lon[i]);
+            }
+        }
+        return locations;
+    }
+
+    private static List<String> split(String variables) {
+        if (variables == null || variables.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(variables.split(",")).map(String::trim).filter(name -> !name.isEmpty()).toList();
+    }
+
+    private Mono<ResponseEntity<byte[]>> badRequest(String reason) {
+        stats.get("rejected").incrementAndGet();
+        return Mono.just(error(400, reason));
+    }
+
+    // Тело ошибки в формате Open-Meteo
+    private static ResponseEntity<byte[]> error(int status, String reason) {
+        String body = "{\"error\":true,\"reason\":\"" + reason.replace("\"", "'") + "\"}";
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,275 @@
+package com.omstu.openmeteostub.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Нагрузочный прогон эндпоинтов /api/agro-data weather-service (замкнутый цикл: concurrency
+ * виртуальных потоков, каждый отправляет следующий запрос сразу после ответа на предыдущий).
+ *
+ * Запуск (weather-service с профилем stub, заглушка на 8090):
+ * java -cp open-meteo-stub/target/classes com.omstu.openmeteostub.load.LoadDriver \
+ * --target=http://localhost:8082 --stub=http://localhost:8090 --duration=60s --concurrency=32
+ *
+ * Параметры: target, stub (необязательно: печатает число запросов к заглушке за прогон), duration,
+ * warmup (запросы прогрева не учитываются), concurrency, cells (число различных точек),
+ * seed, mix (веса сценариев, например metrics:4,seasonal:2,forecast:2,forecast-window:1,monthly:1).
+ * При одинаковых seed, cells и mix последовательность запросов каждого потока одна и та же.
+ */
+public final class LoadDriver {
+
+    private static final String DEFAULT_MIX = "metrics:4,seasonal:2,forecast:2,forecast-window:1,monthly:1";
+    private static final Pattern STAT = Pattern.compile("\"([^\"]+)\":(\\d+)");
+
+    // Поля Омской области
+    private static final double MIN_LAT = 54.0;
+    private static final double MAX_LAT = 57.0;
+    private static final double MIN_LON = 71.0;
+    private static final double MAX_LON = 76.0;
+
+    private LoadDriver() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    private record Scenario(String name, int weight) {
+    }
+
+    private record Cell(double lat, double lon) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String target = options.getOrDefault("target", "http://localhost:8082");
+        String stub = options.get("stub");
+        Duration duration = duration(options.getOrDefault("duration", "60s"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        int cellCount = Integer.parseInt(options.getOrDefault("cells", "200"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<Scenario> mix = mix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        Random cellRandom = new Random(seed);
+        List<Cell> cells = new ArrayList<>(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            cells.add(new Cell(MIN_LAT + cellRandom.nextDouble() * (MAX_LAT - MIN_LAT),
+                    MIN_LON + cellRandom.nextDouble() * (MAX_LON - MIN_LON)));
+        }
+
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        mix.forEach(scenario -> recorders.put(scenario.name(), new Recorder()));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        System.out.printf("Load: %s, %d workers, %d cells, warmup %s, measure %s, mix %s%n",
+                target, concurrency, cellCount, warmup, duration, options.getOrDefault("mix", DEFAULT_MIX));
+
+        Map<String, Long> stubBefore = stub != null ? stubStats(client, stub) : Map.of();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < concurrency; w++) {
+                Random random = new Random(seed * 31 + w);
+                workers.submit(() -> {
+                    while (System.nanoTime() < stopAt) {
+                        Scenario scenario = pick(mix, random);
+                        Cell cell = cells.get(random.nextInt(cells.size()));
+                        URI uri = URI.create(target + path(scenario.name(), cell, random));
+                        long started = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                    HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (started >= measureFrom && finished <= stopAt) {
+                            recorders.get(scenario.name()).record(finished - started, ok);
+                        }
+                    }
+                    return null;
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(duration.plus(warmup).toSeconds() + 120, TimeUnit.SECONDS);
+        }
+
+        report(recorders, duration);
+
+        if (stub != null) {
+            Map<String, Long> stubAfter = stubStats(client, stub);
+            System.out.println();
+            System.out.println("Stub (upstream) requests during run:");
+            stubAfter.forEach((name, value) ->
+                    System.out.printf("  %-18s %d%n", name, value - stubBefore.getOrDefault(name, 0L)));
+        }
+    }
+
+    private static String path(String scenario, Cell cell, Random random) {
+        String point = String.format(Locale.ROOT, "lat=%.4f&lon=%.4f", cell.lat(), cell.lon());
+        int year = 2018 + random.nextInt(6);
+        return switch (scenario) {
+            case "metrics" -> "/api/agro-data/metrics?" + point
+                    + "&start_date=" + year + "-05-01&end_date=" + year + "-09-30";
+            case "seasonal" -> "/api/agro-data/seasonal?" + point + "&year=" + year;
+            case "forecast" -> "/api/agro-data/forecast?" + point + "&days=7";
+            case "forecast-window" -> "/api/agro-data/forecast-window?" + point + "&days=14";
+            case "monthly" -> "/api/agro-data/monthly?" + point
+                    + "&start_date=" + year + "-01-01&end_date=" + year + "-12-31";
+            default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        };
+    }
+
+    private static void report(Map<String, Recorder> recorders, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.println();
+        System.out.printf("%-16s %9s %7s %9s %9s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+
+        Recorder total = new Recorder();
+        recorders.forEach((name, recorder) -> {
+            print(name, recorder, seconds);
+            total.addAll(recorder);
+        });
+        print("total", total, seconds);
+    }
+
+    private static void print(String name, Recorder recorder, double seconds) {
+        long[] latencies = recorder.sorted();
+        System.out.printf(Locale.ROOT, "%-16s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, latencies.length, recorder.errors(), latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static Scenario pick(List<Scenario> mix, Random random) {
+        int total = mix.stream().mapToInt(Scenario::weight).sum();
+        int roll = random.nextInt(total);
+        for (Scenario scenario : mix) {
+            roll -= scenario.weight();
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private static List<Scenario> mix(String spec) {
+        List<Scenario> mix = Arrays.stream(spec.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .map(item -> {
+                    String[] parts = item.split(":");
+                    return new Scenario(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+                })
+                .filter(scenario -> scenario.weight() > 0)
+                .toList();
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Scenario mix is empty");
+        }
+        return mix;
+    }
+
+    private static Map<String, Long> stubStats(HttpClient client, String stub) throws Exception {
+        String body = client.send(HttpRequest.newBuilder(URI.create(stub + "/stub/stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        Matcher matcher = STAT.matcher(body);
+        while (matcher.find()) {
+            stats.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+        }
+        return stats;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    // 60s, 500ms, 2m
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    /**
+     * Задержки одного сценария (нс) и число ошибок
+     */
+    private static final class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+
+        synchronized void addAll(Recorder other) {
+            long[] values = other.sorted();
+            for (long value : values) {
+                record(value, true);
+            }
+            errors += other.errors();
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.omstu.openmeteostub.service;
+
+import com.omstu.openmeteostub.config.StubProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Задержки и сбои ответов заглушки. Последовательность решений задается зерном,
+ * поэтому при одинаковом порядке запросов сбои повторяются от прогона к прогону.
+ */
+@Component
+@Slf4j
+public class FaultInjector {
+
+    public enum Fault {
+        NONE, ERROR, STALL
+    }
+
+    /**
+     * Решение для одного ответа
+     *
+     * @param fault вид сбоя
+     * @param delay задержка перед ответом
+     */
+    public record Decision(Fault fault, Duration delay) {
+    }
+
+    private final StubProperties.Latency latency;
+    private final StubProperties.Faults faults;
+    private final Random random;
+
+    public FaultInjector(StubProperties properties) {
+        this.latency = properties.getLatency();
+        this.faults = properties.getFaults();
+        this.random = new Random(faults.getSeed());
+
+        log.info("Stub latency {} + up to {}, error rate {} (status {}), stall rate {} ({})",
+                latency.getBase(), latency.getJitter(), faults.getErrorRate(), faults.getErrorStatus(),
+                faults.getStallRate(), faults.getStallDuration());
+    }
+
+    public synchronized Decision next() {
+        double roll = random.nextDouble();
+        long jitterNanos = latency.getJitter().toNanos();
+        Duration delay = latency.getBase()
+                .plusNanos(jitterNanos > 0 ? (long) (random.nextDouble() * jitterNanos) : 0);
+
+        if (roll < faults.getErrorRate()) {
+            return new Decision(Fault.ERROR, delay);
+        }
+        if (roll < faults.getErrorRate() + faults.getStallRate()) {
+            return new Decision(Fault.STALL, faults.getStallDuration());
+        }
+        return new Decision(Fault.NONE, delay);
+    }
+
+    public int errorStatus() {
+        return faults.getErrorStatus();
+    }
+}
@@ -0,0 +1,83 @@
+package com.omstu.openmeteostub.service;
+
+import com.omstu.openmeteostub.config.StubProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Записанные ответы Open-Meteo для воспроизведения.
+ *
+ * Файл ищется по пути {replayDir}/{endpoint}/{ключ}.json, где ключ — SHA-256 канонической строки запроса
+ * (параметры по алфавиту). Ключ промаха печатается в лог на уровне DEBUG, поэтому ответ для нужного
+ * запроса weather-service можно записать так:
+ * curl "https://archive-api.open-meteo.com/v1/archive?{запрос}" > {replayDir}/archive/{ключ}.json
+ */
+@Component
+@Slf4j
+public class ReplayStore {
+
+    // null — воспроизведение выключено
+    private final Path directory;
+
+    public ReplayStore(StubProperties properties) {
+        String replayDir = properties.getReplayDir();
+        this.directory = replayDir == null || replayDir.isBlank() ? null : Path.of(replayDir);
+        if (directory != null) {
+            log.info("Replaying recorded Open-Meteo responses from {}", directory.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Записанный ответ на запрос, если он есть
+     */
+    public Optional<byte[]> find(String endpoint, MultiValueMap<String, String> query) {
+        if (directory == null) {
+            return Optional.empty();
+        }
+        String canonical = canonical(query);
+        Path file = directory.resolve(endpoint).resolve(key(canonical) + ".json");
+        if (!Files.isRegularFile(file)) {
+            log.debug("No recorded response {} for {}?{}", file, endpoint, canonical);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read recorded response " + file, e);
+        }
+    }
+
+    static String canonical(MultiValueMap<String, String> query) {
+        StringBuilder canonical = new StringBuilder();
+        new TreeMap<>(query).forEach((name, values) -> {
+            for (String value : values) {
+                if (!canonical.isEmpty()) {
+                    canonical.append('&');
+                }
+                canonical.append(name).append('=').append(value);
+            }
+        });
+        return canonical.toString();
+    }
+
+    static String key(String canonical) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.omstu.openmeteostub.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.omstu.openmeteostub.config.StubProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Синтетические ряды в формате ответа Open-Meteo.
+ *
+ * Значения детерминированы: зависят только от зерна, координат (с точностью до 0.01°) и часа,
+ * поэтому один и тот же запрос всегда дает один и тот же ответ, а дневные агрегаты
+ * согласованы с почасовыми рядами. Годовой и суточный ход примерно соответствуют югу Западной Сибири.
+ */
+@Component
+public class SyntheticWeatherGenerator {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    private final long seed;
+
+    public SyntheticWeatherGenerator(StubProperties properties) {
+        this.seed = properties.getSeed();
+    }
+
+    public record Location(double latitude, double longitude) {
+    }
+
+    /**
+     * Ответ за период: один объект для одной точки, массив — для списка координат
+     *
+     * @param hourly почасовые переменные (пустой список — без блока hourly)
+     * @param daily  дневные переменные (пустой список — без блока daily)
+     */
+    public byte[] generate(List<Location> locations, List<String> hourly, List<String> daily,
+                           LocalDate startDate, LocalDate endDate) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            if (locations.size() > 1) {
+                json.writeStartArray();
+            }
+            for (Location location : locations) {
+                writeLocation(json, location, hourly, daily, startDate, endDate);
+            }
+            if (locations.size() > 1) {
+                json.writeEndArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeLocation(JsonGenerator json, Location location, List<String> hourly, List<String> daily,
+                               LocalDate startDate, LocalDate endDate) throws IOException {
+        long cell = cellKey(location);
+        long firstHour = startDate.toEpochDay() * 24;
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1);
+
+        json.writeStartObject();
+        json.writeNumberField("latitude", location.latitude());
+        json.writeNumberField("longitude", location.longitude());
+        json.writeNumberField("elevation", Math.round(120 + 60 * noise(cell, 0, 0)));
+        json.writeNumberField("generationtime_ms", 0.1);
+        json.writeNumberField("utc_offset_seconds", 0);
+        json.writeStringField("timezone", "GMT");
+
+        if (!hourly.isEmpty()) {
+            json.writeObjectFieldStart("hourly");
+            json.writeArrayFieldStart("time");
+            for (int h = 0; h < days * 24; h++) {
+                json.writeString(LocalDateTime.ofEpochSecond((firstHour + h) * 3600, 0, ZoneOffset.UTC)
+                        .format(HOUR_FORMAT));
+            }
+            json.writeEndArray();
+            for (String variable : hourly) {
+                json.writeArrayFieldStart(variable);
+                for (int h = 0; h < days * 24; h++) {
+                    writeValue(json, hourlyValue(variable, hourState(location, cell, firstHour + h)));
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+
+        if (!daily.isEmpty()) {
+            json.writeObjectFieldStart("daily");
+            json.writeArrayFieldStart("time");
+            for (int d = 0; d < days; d++) {
+                json.writeString(startDate.plusDays(d).toString());
+            }
+            json.writeEndArray();
+            HourState[][] hours = new HourState[days][24];
+            for (int d = 0; d < days; d++) {
+                for (int h = 0; h < 24; h++) {
+                    hours[d][h] = hourState(location, cell, firstHour + d * 24L + h);
+                }
+            }
+            for (String variable : daily) {
+                json.writeArrayFieldStart(variable);
+                for (int d = 0; d < days; d++) {
+                    writeValue(json, dailyValue(variable, hours[d]));
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+
+        json.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator json, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            json.writeNull();
+        } else {
+            json.writeNumber(Math.round(value * 100) / 100.0);
+        }
+    }
+
+    /**
+     * Состояние атмосферы в один час; из него выводятся все почасовые и дневные переменные
+     */
+    private record HourState(int dayOfYear, int hourOfDay, double temperature, double humidity,
+                             double precipitation, double wind, double windDirection, double radiation,
+                             double sunshine, double seasonal, double diurnal) {
+    }
+
+    private HourState hourState(Location location, long cell, long epochHour) {
+        long epochDay = Math.floorDiv(epochHour, 24);
+        int hourOfDay = (int) Math.floorMod(epochHour, 24);
+        int dayOfYear = LocalDate.ofEpochDay(epochDay).getDayOfYear();
+
+        // Годовой ход: минимум в середине января, максимум в середине июля; севернее — холоднее
+        double seasonal = 1.5 - 0.6 * (location.latitude() - 55) - 19 * Math.cos(2 * Math.PI * (dayOfYear - 15) / 365.0);
+        double dayAnomaly = 4 * noise(cell, epochDay, 1);
+        double diurnal = -Math.cos(2 * Math.PI * (hourOfDay - 3) / 24.0);
+        double temperature = seasonal + dayAnomaly + 5 * diurnal + 0.8 * noise(cell, epochHour, 2);
+
+        // Около трети дней с осадками, в такой день дождь идет не каждый час
+        boolean wetDay = noise(cell, epochDay, 3) > 0.35;
+        double precipitation = wetDay && noise(cell, epochHour, 4) > 0.2
+                ? 0.1 + 1.5 * Math.abs(noise(cell, epochHour, 5)) : 0;
+
+        double humidity = clamp(70 - 18 * diurnal + (wetDay ? 15 : 0) + 8 * noise(cell, epochHour, 6), 15, 100);
+        double wind = 2.5 + 2 * Math.abs(noise(cell, epochDay, 7)) + 1.5 * Math.abs(noise(cell, epochHour, 8));
+        double windDirection = Math.floorMod((long) (225 + 90 * noise(cell, epochDay, 9)), 360);
+
+        // Солнце: долгота дня и высота зависят от сезона, облачность — от осадков
+        double dayLength = 12 + 5 * -Math.cos(2 * Math.PI * (dayOfYear + 10) / 365.0);
+        double fromNoon = Math.abs(hourOfDay + 0.5 - 12);
+        double elevation = fromNoon < dayLength / 2 ? Math.cos(Math.PI * fromNoon / dayLength) : 0;
+        double clearness = wetDay ? 0.35 : 0.75 + 0.2 * noise(cell, epochDay, 10);
+        double peak = 450 + 400 * -Math.cos(2 * Math.PI * (dayOfYear + 10) / 365.0);
+        double radiation = Math.max(0, peak * elevation * clearness);
+        double sunshine = elevation > 0 ? clamp(3600 * (clearness - 0.2) / 0.75, 0, 3600) : 0;
+
+        return new HourState(dayOfYear, hourOfDay, temperature, humidity, precipitation, wind,
+                windDirection, radiation, sunshine, seasonal + dayAnomaly, diurnal);
+    }
+
+    private double hourlyValue(String variable, HourState s) {
+        return switch (variable) {
+            case "temperature_2m" -> s.temperature();
+            case "dew_point_2m" -> s.temperature() - (100 - s.humidity()) / 5;
+            case "relative_humidity_2m" -> s.humidity();
+            case "surface_pressure" -> 1000 + 8 * Math.sin(s.dayOfYear() / 3.0);
+            case "precipitation" -> s.precipitation();
+            case "rain" -> s.temperature() > 0 ? s.precipitation() : 0;
+            case "snowfall" -> s.temperature() <= 0 ? s.precipitation() * 0.7 : 0;
+            case "precipitation_probability" -> s.precipitation() > 0 ? 70 : 10;
+            case "wind_speed_10m" -> s.wind();
+            case "wind_direction_10m" -> s.windDirection();
+            case "wind_gusts_10m" -> s.wind() * 1.7;
+            case "sunshine_duration" -> s.sunshine();
+            case "shortwave_radiation" -> s.radiation();
+            case "uv_index" -> s.radiation() / 100;
+            case "soil_temperature_0cm" -> soilTemperature(s, 0);
+            case "soil_temperature_6cm" -> soilTemperature(s, 6);
+            case "soil_temperature_18cm" -> soilTemperature(s, 18);
+            case "soil_temperature_54cm" -> soilTemperature(s, 54);
+            case "soil_moisture_0_to_1cm" -> soilMoisture(s, 0.5);
+            case "soil_moisture_1_to_3cm" -> soilMoisture(s, 2);
+            case "soil_moisture_3_to_9cm" -> soilMoisture(s, 6);
+            case "soil_moisture_9_to_27cm" -> soilMoisture(s, 18);
+            case "soil_moisture_27_to_81cm" -> soilMoisture(s, 54);
+            default -> Double.NaN;
+        };
+    }
+
+    private double dailyValue(String variable, HourState[] day) {
+        return switch (variable) {
+            case "temperature_2m_max" -> max(day, HourState::temperature);
+            case "temperature_2m_min" -> min(day, HourState::temperature);
+            case "temperature_2m_mean" -> sum(day, HourState::temperature) / day.length;
+            case "relative_humidity_2m_max" -> max(day, HourState::humidity);
+            case "relative_humidity_2m_min" -> min(day, HourState::humidity);
+            case "relative_humidity_2m_mean" -> sum(day, HourState::humidity) / day.length;
+            case "precipitation_sum", "rain_sum" -> sum(day, HourState::precipitation);
+            case "wind_speed_10m_max" -> max(day, HourState::wind);
+            case "wind_gusts_10m_max" -> max(day, HourState::wind) * 1.7;
+            case "shortwave_radiation_sum" -> sum(day, HourState::radiation) * 3600 / 1_000_000;
+            case "sunshine_duration" -> sum(day, HourState::sunshine);
+            case "et0_fao_evapotranspiration" -> {
+                // Упрощенная формула Харгривса по суточной радиации
+                double tMax = max(day, HourState::temperature);
+                double tMin = min(day, HourState::temperature);
+                double radiation = sum(day, HourState::radiation) * 3600 / 1_000_000;
+                yield Math.max(0, 0.0023 * ((tMax + tMin) / 2 + 17.8) * Math.sqrt(tMax - tMin) * radiation / 2.45);
+            }
+            default -> Double.NaN;
+        };
+    }
+
+    // Почва сглаживает суточный ход с глубиной
+    private static double soilTemperature(HourState s, int depthCm) {
+        return s.seasonal() + 5 * s.diurnal() * Math.exp(-depthCm / 8.0);
+    }
+
+    private static double soilMoisture(HourState s, double depthCm) {
+        double drying = 0.08 * Math.sin(2 * Math.PI * (s.dayOfYear() - 100) / 365.0);
+        double wetting = s.precipitation() > 0 ? 0.04 * Math.exp(-depthCm / 10) : 0;
+        return clamp(0.3 - drying * Math.exp(-depthCm / 40) + wetting, 0.05, 0.5);
+    }
+
+    private interface Field {
+        double of(HourState state);
+    }
+
+    private static double max(HourState[] day, Field field) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (HourState state : day) {
+            max = Math.max(max, field.of(state));
+        }
+        return max;
+    }
+
+    private static double min(HourState[] day, Field field) {
+        double min = Double.POSITIVE_INFINITY;
+        for (HourState state : day) {
+            min = Math.min(min, field.of(state));
+        }
+        return min;
+    }
+
+    private static double sum(HourState[] day, Field field) {
+        double sum = 0;
+        for (HourState state : day) {
+            sum += field.of(state);
+        }
+        return sum;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long cellKey(Location location) {
+        return Math.round(location.latitude() * 100) * 100_003L + Math.round(location.longitude() * 100);
+    }
+
+    /**
+     * Детерминированный шум в [-1, 1) по ячейке, моменту и номеру канала (финализатор SplitMix64)
+     */
+    private double noise(long cell, long time, int channel) {
+        long z = seed ^ (cell * 0x9E3779B97F4A7C15L) ^ (time * 0xC2B2AE3D27D4EB4FL) ^ ((long) channel << 56);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-52 - 1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.omstu.openmeteostub;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class OpenMeteoStubApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.omstu.weatherbenchmarks;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.AgrometricalData;
+import com.omstu.weatherservice.dto.Daily;
+import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.mapper.DailyMapper;
+import com.omstu.weatherservice.mapper.OpenMeteoMapper;
+import com.omstu.weatherservice.mapper.WeatherSeriesMapper;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.cache.ForecastCache;
+import com.omstu.weatherservice.service.cache.InFlightRequestRegistry;
+import com.omstu.weatherservice.service.cache.PrefixIndexCache;
+import com.omstu.weatherservice.service.impl.AgrometricalDataServiceImpl;
+import com.omstu.weatherservice.service.impl.OpenMeteoService;
+import com.omstu.weatherservice.service.monitoring.UpstreamMetrics;
+import com.omstu.weatherservice.service.ratelimit.UpstreamRateLimiter;
+import com.omstu.weatherservice.service.utils.DateUtils;
+import com.omstu.weatherservice.validation.DateValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет метрик и мапперы на архивных дневных рядах за 1, 5 и 10 сезонов.
+ * Ответы «по частям» нарезаны по три месяца, как их загружает OpenMeteoService для длинных периодов.
+ * calculateSeasonalMetrics считает все сезоны ряда за одну операцию, Open-Meteo заменен готовыми рядами.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveBenchmark {
+
+    @Param({"1", "5", "10"})
+    int years;
+
+    private WeatherSeries series;
+    private List<Daily> dailyChunks;
+    private List<OpenMeteoResponse> responseChunks;
+    private AgrometricalDataServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        series = BenchmarkPayloads.archive(years);
+
+        WeatherSeriesMapper mapper = WeatherSeriesMapper.INSTANCE;
+        List<DateUtils.DateRange> ranges = DateUtils.splitByThreeMonths(
+                BenchmarkPayloads.archiveStart(years), BenchmarkPayloads.archiveEnd());
+        List<WeatherSeries> chunks = ranges.stream()
+                .map(range -> slice(series, range.startDate(), range.endDate()))
+                .toList();
+        dailyChunks = chunks.stream().map(chunk -> mapper.toDaily(chunk.daily())).toList();
+        responseChunks = chunks.stream().map(mapper::toResponse).toList();
+
+        Map<String, WeatherSeries> seasons = new HashMap<>();
+        for (int year = BenchmarkPayloads.LAST_SEASON - years + 1; year <= BenchmarkPayloads.LAST_SEASON; year++) {
+            LocalDate start = LocalDate.of(year - 1, 10, 1);
+            seasons.put(start.toString(), slice(series, start, LocalDate.of(year, 9, 30)));
+        }
+
+        WeatherApiProperties properties = new WeatherApiProperties();
+        properties.setForecastBaseUrl("http://localhost");
+        properties.setHistoricalBaseUrl("http://localhost");
+        properties.getMultiLocation().setEnabled(false);
+        properties.getRateLimit().setEnabled(false);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        service = new AgrometricalDataServiceImpl(
+                new FixedSeriesOpenMeteoService(properties, registry, seasons),
+                new PrefixIndexCache(properties, registry),
+                new DateValidator(properties),
+                properties);
+    }
+
+    @Benchmark
+    public AgrometricalData calculateMetricsFromSeries() {
+        return service.calculateMetricsFromSeries(series);
+    }
+
+    @Benchmark
+    public void calculateSeasonalMetrics(Blackhole blackhole) {
+        for (int year = BenchmarkPayloads.LAST_SEASON - years + 1; year <= BenchmarkPayloads.LAST_SEASON; year++) {
+            blackhole.consume(service.calculateSeasonalMetrics(
+                    BenchmarkPayloads.CELL.latitude(), BenchmarkPayloads.CELL.longitude(), year).block());
+        }
+    }
+
+    @Benchmark
+    public Daily combineDailyList() {
+        return DailyMapper.INSTANCE.combineDailyList(dailyChunks, null);
+    }
+
+    @Benchmark
+    public OpenMeteoResponse combineResponses() {
+        return OpenMeteoMapper.INSTANCE.combineResponses(responseChunks);
+    }
+
+    private static WeatherSeries slice(WeatherSeries series, LocalDate start, LocalDate end) {
+        DailySeries daily = series.daily();
+        DailySeries part = daily.slice(
+                daily.lowerBound((int) start.toEpochDay()), daily.lowerBound((int) end.toEpochDay() + 1));
+        return new WeatherSeries(series.latitude(), series.longitude(), series.elevation(),
+                null, part, series.gridCell(), null, false);
+    }
+
+    /**
+     * OpenMeteoService без обращения к API: отдает заранее нарезанный сезон по дате начала периода
+     */
+    private static final class FixedSeriesOpenMeteoService extends OpenMeteoService {
+
+        private final Map<String, WeatherSeries> seasons;
+
+        FixedSeriesOpenMeteoService(WeatherApiProperties properties, MeterRegistry registry,
+                                    Map<String, WeatherSeries> seasons) {
+            super(WebClient.builder(), new DateValidator(properties), properties, null,
+                    new ForecastCache(properties, registry), new InFlightRequestRegistry(registry),
+                    new UpstreamMetrics(registry), new UpstreamRateLimiter(properties, registry), registry);
+            this.seasons = seasons;
+        }
+
+        @Override
+        public Mono<WeatherSeries> getWeather(Double lat, Double lon, WeatherRequestType type,
+                                              Integer days, String startDate, String endDate) {
+            return Mono.just(seasons.get(startDate));
+        }
+    }
+}
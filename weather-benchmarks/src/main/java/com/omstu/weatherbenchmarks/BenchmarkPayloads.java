@@ -0,0 +1,146 @@
+package com.omstu.weatherbenchmarks;
+
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import com.omstu.weatherservice.series.HourlySeries;
+import com.omstu.weatherservice.series.HourlyVariable;
+import com.omstu.weatherservice.series.SoilRollup;
+import com.omstu.weatherservice.series.WeatherSeries;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Детерминированные ряды для бенчмарков: по составу переменных и объему совпадают
+ * с ответами Open-Meteo (архив — только дневные данные, прогноз — почасовые и дневные).
+ */
+final class BenchmarkPayloads {
+
+    static final GridCell CELL = new GridCell(54.9, 73.4);
+
+    // Последний сезон архивных рядов: октябрь 2022 — сентябрь 2023
+    static final int LAST_SEASON = 2023;
+
+    static final int FORECAST_DAYS = 16;
+
+    private static final long SEED = 42;
+
+    private BenchmarkPayloads() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static LocalDate archiveStart(int years) {
+        return LocalDate.of(LAST_SEASON - years, 10, 1);
+    }
+
+    static LocalDate archiveEnd() {
+        return LocalDate.of(LAST_SEASON, 9, 30);
+    }
+
+    /**
+     * Архив за years сезонов (октябрь — сентябрь), как его отдает WeatherArchiveService
+     */
+    static WeatherSeries archive(int years) {
+        DailySeries daily = daily(archiveStart(years), archiveEnd(), new Random(SEED));
+        return new WeatherSeries(CELL.latitude(), CELL.longitude(), 95.0, null, daily, CELL, null, false);
+    }
+
+    /**
+     * Прогноз на 16 дней: почасовой ряд и дневной с почвенными средними
+     */
+    static WeatherSeries forecast() {
+        LocalDate start = LocalDate.of(LAST_SEASON, 6, 1);
+        Random random = new Random(SEED);
+        HourlySeries hourly = hourly(start, FORECAST_DAYS, random);
+        DailySeries daily = daily(start, start.plusDays(FORECAST_DAYS - 1), random);
+        return new WeatherSeries(CELL.latitude(), CELL.longitude(), 95.0,
+                hourly, SoilRollup.rollup(hourly, daily), CELL, null, false);
+    }
+
+    private static DailySeries daily(LocalDate start, LocalDate end, Random random) {
+        int days = (int) (end.toEpochDay() - start.toEpochDay() + 1);
+        int[] time = new int[days];
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        for (DailyVariable variable : DailyVariable.values()) {
+            // Почвенных дневных агрегатов в ответе API нет
+            if (variable.apiName() != null) {
+                columns[variable.ordinal()] = new double[days];
+            }
+        }
+
+        for (int d = 0; d < days; d++) {
+            LocalDate date = start.plusDays(d);
+            time[d] = (int) date.toEpochDay();
+            double mean = seasonal(date.getDayOfYear()) + 4 * random.nextGaussian();
+            double range = 6 + 4 * random.nextDouble();
+            boolean wet = random.nextDouble() < 0.3;
+
+            for (DailyVariable variable : DailyVariable.values()) {
+                double[] column = columns[variable.ordinal()];
+                if (column == null) {
+                    continue;
+                }
+                column[d] = switch (variable) {
+                    case TEMPERATURE_MAX -> mean + range / 2;
+                    case TEMPERATURE_MIN -> mean - range / 2;
+                    case TEMPERATURE_MEAN -> mean;
+                    case RELATIVE_HUMIDITY_MEAN -> wet ? 85 : 60 + 10 * random.nextDouble();
+                    case RELATIVE_HUMIDITY_MIN -> wet ? 65 : 35 + 10 * random.nextDouble();
+                    case PRECIPITATION_SUM -> wet ? 12 * random.nextDouble() : 0;
+                    case REFERENCE_EVAPOTRANSPIRATION -> Math.max(0, 0.2 * mean + random.nextDouble());
+                    case WIND_SPEED_MAX -> 8 + 10 * random.nextDouble();
+                    case WIND_GUSTS_MAX -> 15 + 20 * random.nextDouble();
+                    case SHORTWAVE_RADIATION_SUM -> Math.max(1, 14 + mean / 2 + 3 * random.nextGaussian());
+                    case SUNSHINE_DURATION -> wet ? 3600 * random.nextDouble() : 30_000 + 10_000 * random.nextDouble();
+                    default -> Double.NaN;
+                };
+            }
+        }
+        return new DailySeries(time, columns);
+    }
+
+    private static HourlySeries hourly(LocalDate start, int days, Random random) {
+        int hours = days * 24;
+        int[] time = new int[hours];
+        double[][] columns = new double[HourlySeries.VARIABLE_COUNT][];
+        for (HourlyVariable variable : HourlyVariable.values()) {
+            columns[variable.ordinal()] = new double[hours];
+        }
+
+        for (int h = 0; h < hours; h++) {
+            LocalDate date = start.plusDays(h / 24);
+            time[h] = (int) (start.toEpochDay() * 24 + h);
+            double diurnal = -Math.cos(2 * Math.PI * ((h % 24) - 3) / 24.0);
+            double temperature = seasonal(date.getDayOfYear()) + 5 * diurnal + random.nextGaussian();
+            double precipitation = random.nextDouble() < 0.1 ? 2 * random.nextDouble() : 0;
+
+            for (HourlyVariable variable : HourlyVariable.values()) {
+                columns[variable.ordinal()][h] = switch (variable) {
+                    case TEMPERATURE -> temperature;
+                    case RELATIVE_HUMIDITY -> 70 - 15 * diurnal;
+                    case DEW_POINT -> temperature - 6;
+                    case SURFACE_PRESSURE -> 1000 + 5 * random.nextDouble();
+                    case PRECIPITATION, RAIN -> precipitation;
+                    case SNOWFALL -> 0;
+                    case PRECIPITATION_PROBABILITY -> precipitation > 0 ? 70 : 10;
+                    case WIND_SPEED -> 3 + 3 * random.nextDouble();
+                    case WIND_GUSTS -> 6 + 6 * random.nextDouble();
+                    case WIND_DIRECTION -> 360 * random.nextDouble();
+                    case SHORTWAVE_RADIATION -> Math.max(0, 700 * diurnal);
+                    case UV_INDEX -> Math.max(0, 7 * diurnal);
+                    case SUNSHINE_DURATION -> diurnal > 0 ? 3600 : 0;
+                    case SOIL_TEMPERATURE_0CM, SOIL_TEMPERATURE_6CM -> temperature - 1;
+                    case SOIL_TEMPERATURE_18CM, SOIL_TEMPERATURE_54CM -> temperature - 3;
+                    default -> 0.25 + 0.05 * random.nextDouble();
+                };
+            }
+        }
+        return new HourlySeries(time, columns);
+    }
+
+    // Годовой ход температуры юга Западной Сибири
+    private static double seasonal(int dayOfYear) {
+        return 1.5 - 19 * Math.cos(2 * Math.PI * (dayOfYear - 15) / 365.0);
+    }
+}
@@ -0,0 +1,37 @@
+package com.omstu.weatherbenchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Запуск всех бенчмарков с профилировщиком GC: кроме ops/s печатаются gc.alloc.rate
+ * и gc.alloc.rate.norm (байт на операцию), по которым видны лишние упаковки и копирования.
+ *
+ * mvn -pl weather-benchmarks -am package -DskipTests
+ * java -jar weather-benchmarks/target/benchmarks.jar [регулярное выражение имен бенчмарков]
+ *
+ * Для отдельных опций JMH: java -cp weather-benchmarks/target/benchmarks.jar org.openjdk.jmh.Main -prof gc ...
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include(BenchmarkRunner.class.getPackageName() + ".*");
+        }
+        for (String include : args) {
+            options.include(include);
+        }
+        Options built = options
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,47 @@
+package com.omstu.weatherbenchmarks;
+
+import com.omstu.weatherservice.service.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбиение длинного периода на трехмесячные части (1, 5 и 10 сезонов)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    @Param({"1", "5", "10"})
+    int years;
+
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setUp() {
+        start = BenchmarkPayloads.archiveStart(years);
+        end = BenchmarkPayloads.archiveEnd();
+    }
+
+    @Benchmark
+    public List<DateUtils.DateRange> splitByThreeMonths() {
+        return DateUtils.splitByThreeMonths(start, end);
+    }
+}
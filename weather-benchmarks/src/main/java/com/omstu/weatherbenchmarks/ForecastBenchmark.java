@@ -0,0 +1,66 @@
+package com.omstu.weatherbenchmarks;
+
+import com.omstu.weatherservice.dto.Daily;
+import com.omstu.weatherservice.dto.Hourly;
+import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.mapper.DailyMapper;
+import com.omstu.weatherservice.mapper.HourlyMapper;
+import com.omstu.weatherservice.mapper.OpenMeteoMapper;
+import com.omstu.weatherservice.mapper.WeatherSeriesMapper;
+import com.omstu.weatherservice.series.WeatherSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Мапперы на 16-дневном прогнозе: 384 часа по 23 почасовым переменным плюс дневной ряд.
+ * combineDailyList дополнительно считает суточные почвенные средние по почасовым данным.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecastBenchmark {
+
+    private List<Hourly> hourly;
+    private List<Daily> daily;
+    private List<OpenMeteoResponse> responses;
+
+    @Setup
+    public void setUp() {
+        WeatherSeries forecast = BenchmarkPayloads.forecast();
+        WeatherSeriesMapper mapper = WeatherSeriesMapper.INSTANCE;
+        OpenMeteoResponse response = mapper.toResponse(forecast);
+
+        hourly = List.of(response.hourly());
+        daily = List.of(response.daily());
+        responses = List.of(response);
+    }
+
+    @Benchmark
+    public Hourly combineHourlyList() {
+        return HourlyMapper.INSTANCE.combineHourlyList(hourly);
+    }
+
+    @Benchmark
+    public Daily combineDailyList() {
+        return DailyMapper.INSTANCE.combineDailyList(daily, hourly);
+    }
+
+    @Benchmark
+    public OpenMeteoResponse combineResponses() {
+        return OpenMeteoMapper.INSTANCE.combineResponses(responses);
+    }
+}
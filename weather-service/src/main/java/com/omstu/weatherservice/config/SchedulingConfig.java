@@ -0,0 +1,12 @@
+package com.omstu.weatherservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Плановые задачи сервиса (ночная догрузка архива)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
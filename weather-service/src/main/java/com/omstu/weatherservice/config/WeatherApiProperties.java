@@ -5,7 +5,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Конфигурация параметров для Open-Meteo API
@@ -18,6 +20,7 @@ public class WeatherApiProperties {
 
     private String forecastBaseUrl;
     private String historicalBaseUrl;
+    // Лимит буферизации тел ответов кодеками WebClient (данные Open-Meteo разбираются потоково и его не касаются)
     private int maxInMemorySize;
 
     // Минимальная дата для исторических данных (API ограничение)
@@ -29,8 +32,173 @@ public class WeatherApiProperties {
     // Порог для разбиения на несколько запросов (в месяцах)
     private int longPeriodThresholdMonths;
 
+    // Шаг сетки модели Open-Meteo (в градусах), к которому привязываются координаты запросов
+    private double gridResolutionDegrees = 0.1;
+
+    // Число частей длинного периода, загружаемых параллельно
+    private int chunkConcurrency = 4;
+
+    // Повторные попытки загрузки одной части и начальная пауза между ними
+    private int chunkRetryAttempts = 2;
+    private Duration chunkRetryBackoff = Duration.ofMillis(500);
+
+    // Пропуски в архиве, разделенные не более чем этим числом дней, догружаются одним запросом
+    private int archiveGapMergeDays = 31;
+
+    // Пакетный расчет сезонных метрик: ячейки, загружаемые одновременно, и предел числа позиций в запросе
+    private int seasonalBatchConcurrency = 4;
+    private int seasonalBatchMaxItems = 500;
+
+    // Кэш прогнозов
+    private ForecastCache forecastCache = new ForecastCache();
+
+    // Кэш префиксных индексов по ячейкам
+    private PrefixIndexCache prefixIndexCache = new PrefixIndexCache();
+
+    // Объединение запросов архива по разным ячейкам
+    private MultiLocation multiLocation = new MultiLocation();
+
+    // Ограничение частоты запросов к Open-Meteo
+    private RateLimit rateLimit = new RateLimit();
+
+    // Автомат отключения запросов к недоступному Open-Meteo
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    // Плановая догрузка архива по активным ячейкам
+    private Ingest ingest = new Ingest();
+
     public LocalDate getMaxHistoricalDate() {
         return LocalDate.now().minusDays(historicalDataLagDays);
     }
-}
 
+    /**
+     * Параметры in-memory кэша прогнозов.
+     * Прогноз Open-Meteo меняется только после нового прогона модели,
+     * поэтому записи живут до ближайшей публикации следующего прогона.
+     */
+    @Getter
+    @Setter
+    public static class ForecastCache {
+
+        // Максимальный суммарный вес записей (число значений временных рядов)
+        private long maxWeight = 5_000_000;
+
+        // Часы запуска прогонов модели (UTC)
+        private List<Integer> modelRunHoursUtc = List.of(0, 6, 12, 18);
+
+        // Задержка между запуском прогона и появлением данных в API
+        private Duration publicationDelay = Duration.ofHours(4);
+
+        // Сколько хранится последний загруженный прогноз ячейки на случай недоступности API
+        private Duration staleRetention = Duration.ofHours(24);
+
+        // Максимальный суммарный вес устаревших копий
+        private long staleMaxWeight = 5_000_000;
+
+        // Сколько ждать API, прежде чем отдать устаревшую копию (загрузка продолжается в фоне)
+        private Duration staleServeAfter = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Параметры in-memory кэша префиксных индексов дневных рядов
+     */
+    @Getter
+    @Setter
+    public static class PrefixIndexCache {
+
+        // Максимальный суммарный вес записей (число значений префиксных массивов)
+        private long maxWeight = 20_000_000;
+
+        // Запись удаляется, если к ней не обращались дольше этого времени
+        private Duration expireAfterAccess = Duration.ofHours(6);
+    }
+
+    /**
+     * Параметры объединения запросов архива: одновременные фоновые загрузки одного периода
+     * для разных ячеек отправляются в Open-Meteo одним запросом со списком координат
+     */
+    @Getter
+    @Setter
+    public static class MultiLocation {
+
+        private boolean enabled = true;
+
+        // Максимум ячеек в одном запросе (ограничено длиной URL)
+        private int maxLocations = 50;
+
+        // Сколько ждать другие ячейки перед отправкой запроса
+        private Duration batchWindow = Duration.ofMillis(50);
+
+        // Предельное ожидание загрузки в составе общего запроса, включая очередь ограничителя частоты
+        private Duration fetchTimeout = Duration.ofMinutes(2);
+    }
+
+    /**
+     * Параметры ограничителя запросов к Open-Meteo (token bucket с интерактивной и фоновой полосами)
+     */
+    @Getter
+    @Setter
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        // Средняя частота запросов и допустимый всплеск
+        private double requestsPerSecond = 8.0;
+        private int burst = 10;
+
+        // Максимум ожидающих запросов в каждой полосе
+        private int maxQueued = 500;
+
+        // Сколько интерактивных запросов подряд может пройти, пока ждет фоновый
+        private int interactiveWeight = 4;
+    }
+
+    /**
+     * Параметры автомата отключения (circuit breaker) запросов к Open-Meteo.
+     * Отдельный автомат на каждый хост API (прогноз и архив).
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+
+        // Число последних запросов, по которым считается доля ошибок
+        private int slidingWindowSize = 20;
+
+        // Минимум запросов в окне, прежде чем автомат может разомкнуться
+        private int minimumCalls = 10;
+
+        // Доля ошибок (в процентах), при которой автомат размыкается
+        private int failureRateThreshold = 50;
+
+        // Сколько автомат остается разомкнутым перед пробным запросом
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        // Ожидание заголовков ответа; дольше — запрос считается ошибкой
+        private Duration callTimeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Параметры ночной догрузки архива: новые опубликованные дни активных ячеек
+     * загружаются заранее, чтобы пользовательские запросы обслуживались из БД
+     */
+    @Getter
+    @Setter
+    public static class Ingest {
+
+        private boolean enabled = true;
+
+        // Расписание запуска (UTC)
+        private String cron = "0 30 2 * * *";
+
+        // Активной считается ячейка, запрошенная пользователем за последние activeDays дней
+        private int activeDays = 30;
+
+        // Максимальная глубина ночной догрузки ячейки (дней до последнего дня архива)
+        private int backfillDays = 30;
+
+        // Ячейки, загружаемые одновременно (одинаковые периоды объединяются в запросы со списком координат)
+        private int concurrency = 50;
+    }
+}
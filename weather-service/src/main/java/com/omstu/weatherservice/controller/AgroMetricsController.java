@@ -1,15 +1,27 @@
 package com.omstu.weatherservice.controller;
 
+import com.omstu.weatherservice.dto.AggregationPeriod;
 import com.omstu.weatherservice.dto.AgrometricalData;
+import com.omstu.weatherservice.dto.ForecastWindowResponse;
+import com.omstu.weatherservice.dto.PeriodAggregatesResponse;
 import com.omstu.weatherservice.dto.SeasonalAgrometricsResponse;
+import com.omstu.weatherservice.dto.SeasonalBatchItem;
+import com.omstu.weatherservice.dto.SeasonalBatchResult;
+import com.omstu.weatherservice.dto.WindowMetricsRequest;
+import com.omstu.weatherservice.dto.WindowMetricsResponse;
+import com.omstu.weatherservice.dto.WindowSumsResponse;
 import com.omstu.weatherservice.service.AgroMetricsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * REST контроллер для работы с агрометеорологическими данными
  * Предоставляет эндпоинты для расчета агрометрик на основе исторических данных и прогнозов
@@ -43,11 +55,11 @@ public class AgroMetricsController {
                 lat, lon, startDate, endDate);
 
         return agroMetricsService.calculateHistoricalMetrics(lat, lon, startDate, endDate)
-                .map(ResponseEntity::ok)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Historical agro metrics request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Historical agro metrics request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
@@ -70,11 +82,38 @@ public class AgroMetricsController {
                 lat, lon, days);
 
         return agroMetricsService.calculateForecastMetrics(lat, lon, days)
-                .map(ResponseEntity::ok)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Forecast agro metrics request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Forecast agro metrics request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
+                });
+    }
+
+    /**
+     * Получить сводку почасового прогноза на 7 и 14 дней для оценки риска болезней:
+     * средняя/максимальная/минимальная температура, влажность и ветер за 7 дней, осадки за 7 и 14 дней.
+     *
+     * @param lat  широта
+     * @param lon  долгота
+     * @param days горизонт прогноза (по умолчанию 14, макс. 16); окна сводки фиксированы,
+     *             поэтому меньший горизонт повышается до 14 дней
+     * @return сводка прогноза
+     */
+    @GetMapping("/forecast-window")
+    public Mono<ResponseEntity<ForecastWindowResponse>> getForecastWindow(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam(defaultValue = "14") Integer days
+    ) {
+        log.info("Received forecast window request: lat={}, lon={}, days={}", lat, lon, days);
+
+        return agroMetricsService.calculateForecastWindow(lat, lon, days)
+                .as(WeatherResponses::ok)
+                .doOnSuccess(response -> log.info("Forecast window request completed successfully"))
+                .onErrorResume(e -> {
+                    log.error("Forecast window request failed: {}", e.getMessage());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
@@ -105,11 +144,11 @@ public class AgroMetricsController {
 
         // Используем один прошлый год
         return agroMetricsService.calculateAveragedMetrics(lat, lon, cropStartDate, durationDays, 1)
-                .map(ResponseEntity::ok)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Next season agro metrics request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Next season agro metrics request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
@@ -143,11 +182,11 @@ public class AgroMetricsController {
                 lat, lon, cropStartDate, durationDays, yearsCount);
 
         return agroMetricsService.calculateAveragedMetrics(lat, lon, cropStartDate, durationDays, yearsCount)
-                .map(ResponseEntity::ok)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Averaged next season metrics request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Averaged next season metrics request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
@@ -177,11 +216,156 @@ public class AgroMetricsController {
         log.info("Received seasonal agro metrics request: lat={}, lon={}, year={}", lat, lon, year);
 
         return agroMetricsService.calculateSeasonalMetrics(lat, lon, year)
-                .map(ResponseEntity::ok)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Seasonal agro metrics request completed successfully for year {}", year))
                 .onErrorResume(e -> {
                     log.error("Seasonal agro metrics request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
+                });
+    }
+
+    /**
+     * Получить сезонные агрометрики для множества полей за один вызов.
+     *
+     * Поля, попадающие в одну ячейку сетки за один год, считаются одним запросом к архиву.
+     * Ответ — поток NDJSON: по строке на каждую позицию в порядке готовности, ошибка позиции
+     * возвращается в поле error и не прерывает остальные.
+     *
+     * Пример тела запроса:
+     * [{"id": "field-1", "lat": 54.98, "lon": 73.37, "year": 2024},
+     *  {"id": "field-2", "lat": 54.99, "lon": 73.36, "year": 2024}]
+     *
+     * @param items позиции (не более 500)
+     * @return поток результатов по позициям
+     */
+    @PostMapping(value = "/seasonal/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SeasonalBatchResult> getSeasonalMetricsBatch(@RequestBody List<SeasonalBatchItem> items) {
+        log.info("Received seasonal agro metrics batch request: items={}", items != null ? items.size() : 0);
+
+        return agroMetricsService.calculateSeasonalMetricsBatch(items)
+                .doOnError(e -> log.error("Seasonal agro metrics batch request failed: {}", e.getMessage()));
+    }
+
+    /**
+     * Получить агрометрики по произвольным интервалам дат.
+     *
+     * Позволяет агроному задать периоды под конкретную культуру (например, кущение, выход в трубку,
+     * налив зерна). Все интервалы считаются за один проход по данным общего периода.
+     *
+     * Пример тела запроса:
+     * {"lat": 54.98, "lon": 73.37, "windows": [
+     *   {"name": "tillering", "startDate": "2024-05-20", "endDate": "2024-06-10"},
+     *   {"name": "grainFill", "startDate": "2024-07-05", "endDate": "2024-08-05"}]}
+     *
+     * @param request точка и интервалы (не более 24, названия уникальны)
+     * @return метрики по каждому интервалу в порядке запроса
+     */
+    @PostMapping("/windows")
+    public Mono<ResponseEntity<WindowMetricsResponse>> getWindowMetrics(@RequestBody WindowMetricsRequest request) {
+        log.info("Received custom windows agro metrics request: lat={}, lon={}, windows={}",
+                request.lat(), request.lon(), request.windows() != null ? request.windows().size() : 0);
+
+        return agroMetricsService.calculateWindowMetrics(request.lat(), request.lon(), request.windows())
+                .as(WeatherResponses::ok)
+                .doOnSuccess(response -> log.info("Custom windows agro metrics request completed successfully"))
+                .onErrorResume(e -> {
+                    log.error("Custom windows agro metrics request failed: {}", e.getMessage());
+                    return Mono.just(WeatherResponses.failure(e));
+                });
+    }
+
+    /**
+     * Получить суммы, из которых складывается ГТК, по множеству интервалов за один вызов.
+     *
+     * Суммы берутся из префиксного индекса ячейки, поэтому число интервалов почти не влияет на время ответа.
+     * Тело запроса такое же, как у /windows.
+     *
+     * @param request точка и интервалы (не более 24, названия уникальны)
+     * @return осадки, эффективные температуры, ГТК и дни жары по каждому интервалу
+     */
+    @PostMapping("/window-sums")
+    public Mono<ResponseEntity<WindowSumsResponse>> getWindowSums(@RequestBody WindowMetricsRequest request) {
+        log.info("Received window sums request: lat={}, lon={}, windows={}",
+                request.lat(), request.lon(), request.windows() != null ? request.windows().size() : 0);
+
+        return agroMetricsService.calculateWindowSums(request.lat(), request.lon(), request.windows())
+                .as(WeatherResponses::ok)
+                .doOnSuccess(response -> log.info("Window sums request completed successfully"))
+                .onErrorResume(e -> {
+                    log.error("Window sums request failed: {}", e.getMessage());
+                    return Mono.just(WeatherResponses.failure(e));
+                });
+    }
+
+    /**
+     * Получить суммы ГТК по календарным неделям периода (понедельник — воскресенье)
+     *
+     * @param lat       широта
+     * @param lon       долгота
+     * @param startDate начальная дата периода (формат: yyyy-MM-dd)
+     * @param endDate   конечная дата периода (формат: yyyy-MM-dd)
+     * @return суммы по неделям
+     */
+    @GetMapping("/weekly")
+    public Mono<ResponseEntity<PeriodAggregatesResponse>> getWeeklyAggregates(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam("start_date") String startDate,
+            @RequestParam("end_date") String endDate
+    ) {
+        return getAggregates(lat, lon, startDate, endDate, AggregationPeriod.WEEK);
+    }
+
+    /**
+     * Получить суммы ГТК по декадам периода (1–10, 11–20, 21–конец месяца)
+     *
+     * @param lat       широта
+     * @param lon       долгота
+     * @param startDate начальная дата периода (формат: yyyy-MM-dd)
+     * @param endDate   конечная дата периода (формат: yyyy-MM-dd)
+     * @return суммы по декадам
+     */
+    @GetMapping("/dekads")
+    public Mono<ResponseEntity<PeriodAggregatesResponse>> getDekadAggregates(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam("start_date") String startDate,
+            @RequestParam("end_date") String endDate
+    ) {
+        return getAggregates(lat, lon, startDate, endDate, AggregationPeriod.DEKAD);
+    }
+
+    /**
+     * Получить суммы ГТК по месяцам периода
+     *
+     * @param lat       широта
+     * @param lon       долгота
+     * @param startDate начальная дата периода (формат: yyyy-MM-dd)
+     * @param endDate   конечная дата периода (формат: yyyy-MM-dd)
+     * @return суммы по месяцам
+     */
+    @GetMapping("/monthly")
+    public Mono<ResponseEntity<PeriodAggregatesResponse>> getMonthlyAggregates(
+            @RequestParam Double lat,
+            @RequestParam Double lon,
+            @RequestParam("start_date") String startDate,
+            @RequestParam("end_date") String endDate
+    ) {
+        return getAggregates(lat, lon, startDate, endDate, AggregationPeriod.MONTH);
+    }
+
+    private Mono<ResponseEntity<PeriodAggregatesResponse>> getAggregates(
+            Double lat, Double lon, String startDate, String endDate, AggregationPeriod period
+    ) {
+        log.info("Received {} aggregates request: lat={}, lon={}, period={} to {}",
+                period, lat, lon, startDate, endDate);
+
+        return agroMetricsService.calculatePeriodAggregates(lat, lon, startDate, endDate, period)
+                .as(WeatherResponses::ok)
+                .doOnSuccess(response -> log.info("{} aggregates request completed successfully", period))
+                .onErrorResume(e -> {
+                    log.error("{} aggregates request failed: {}", period, e.getMessage());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
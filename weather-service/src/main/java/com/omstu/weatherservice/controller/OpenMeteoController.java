@@ -2,6 +2,7 @@ package com.omstu.weatherservice.controller;
 
 import com.omstu.weatherservice.dto.OpenMeteoResponse;
 import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.mapper.WeatherSeriesMapper;
 import com.omstu.weatherservice.service.impl.OpenMeteoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import reactor.core.publisher.Mono;
 public class OpenMeteoController {
 
     private final OpenMeteoService openMeteoService;
+    private final WeatherSeriesMapper weatherSeriesMapper;
 
     /**
      * Получить прогноз погоды на указанное количество дней
@@ -37,11 +39,12 @@ public class OpenMeteoController {
         log.info("Received forecast request: lat={}, lon={}, days={}", lat, lon, days);
 
         return openMeteoService.getWeather(lat, lon, WeatherRequestType.FORECAST, days, null, null)
-                .map(ResponseEntity::ok)
+                .map(weatherSeriesMapper::toResponse)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Forecast request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Forecast request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
@@ -66,11 +69,12 @@ public class OpenMeteoController {
                 lat, lon, startDate, endDate);
 
         return openMeteoService.getWeather(lat, lon, WeatherRequestType.HISTORIC, null, startDate, endDate)
-                .map(ResponseEntity::ok)
+                .map(weatherSeriesMapper::toResponse)
+                .as(WeatherResponses::ok)
                 .doOnSuccess(response -> log.info("Historical data request completed successfully"))
                 .onErrorResume(e -> {
                     log.error("Historical data request failed: {}", e.getMessage());
-                    return Mono.just(ResponseEntity.badRequest().build());
+                    return Mono.just(WeatherResponses.failure(e));
                 });
     }
 
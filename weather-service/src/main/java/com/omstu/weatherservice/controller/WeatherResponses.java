@@ -0,0 +1,61 @@
+package com.omstu.weatherservice.controller;
+
+import com.omstu.weatherservice.service.ratelimit.UpstreamOverloadedException;
+import com.omstu.weatherservice.service.resilience.StalenessMarker;
+import com.omstu.weatherservice.service.resilience.UpstreamUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+/**
+ * Общие ответы контроллеров погодных данных.
+ *
+ * Ответ, собранный из устаревших данных (Open-Meteo недоступен), помечается заголовками
+ * X-Weather-Stale: true и Warning: 110; при недоступном API и отсутствии устаревших данных — 503.
+ * При переполненной очереди ограничителя частоты — тоже 503, с Retry-After: перегружен сервис, а не клиент.
+ */
+final class WeatherResponses {
+
+    static final String STALE_HEADER = "X-Weather-Stale";
+
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private WeatherResponses() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * 200 с телом; StalenessMarker в контексте Reactor собирает признак устаревших данных
+     */
+    static <T> Mono<ResponseEntity<T>> ok(Mono<T> body) {
+        return Mono.defer(() -> {
+            StalenessMarker marker = new StalenessMarker();
+            return body
+                    .map(value -> marker.isStale()
+                            ? ResponseEntity.ok()
+                                    .header(STALE_HEADER, "true")
+                                    .header(HttpHeaders.WARNING, STALE_WARNING)
+                                    .body(value)
+                            : ResponseEntity.ok(value))
+                    .contextWrite(marker::writeTo);
+        });
+    }
+
+    /**
+     * 503 при разомкнутом автомате отключения или переполненной очереди ограничителя, иначе 400
+     */
+    static <T> ResponseEntity<T> failure(Throwable error) {
+        if (error instanceof UpstreamUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (error instanceof UpstreamOverloadedException overloaded) {
+            // Retry-After в целых секундах, не меньше одной
+            long seconds = Math.max(1, (overloaded.getRetryAfter().toMillis() + 999) / 1000);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                    .build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+}
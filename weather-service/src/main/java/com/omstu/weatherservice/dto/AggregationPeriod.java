@@ -0,0 +1,10 @@
+package com.omstu.weatherservice.dto;
+
+/**
+ * Шаг сводки агрометрик по периоду
+ */
+public enum AggregationPeriod {
+    WEEK,
+    DEKAD,
+    MONTH
+}
@@ -9,5 +9,12 @@ public record AgrometricalData(
         String stressLevel,
         Double avgTemp,
         Integer extremeHeatDays,
-        Integer longestDryPeriod
-) {}
+        Integer longestDryPeriod,
+        GridCell gridCell
+) {
+
+    public AgrometricalData withGridCell(GridCell cell) {
+        return new AgrometricalData(gtk, sumPrecipitation, sumEffectiveTemp, heatStressDays, minTempRecord,
+                stressLevel, avgTemp, extremeHeatDays, longestDryPeriod, cell);
+    }
+}
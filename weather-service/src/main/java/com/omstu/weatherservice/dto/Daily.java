@@ -50,6 +50,14 @@ public record Daily(
         List<Double> soilTemperature6cmMean,
 
         // Влажность почвы
-        List<Double> soilMoisture0to1cmMean
+        List<Double> soilMoisture0to1cmMean,
+
+        // Глубокие слои почвы (суточные средние по почасовым данным)
+        List<Double> soilTemperature18cmMean,
+        List<Double> soilTemperature54cmMean,
+        List<Double> soilMoisture1to3cmMean,
+        List<Double> soilMoisture3to9cmMean,
+        List<Double> soilMoisture9to27cmMean,
+        List<Double> soilMoisture27to81cmMean
 ) {
 }
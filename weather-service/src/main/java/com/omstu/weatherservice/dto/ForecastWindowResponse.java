@@ -0,0 +1,19 @@
+package com.omstu.weatherservice.dto;
+
+/**
+ * Сводка почасового прогноза на ближайшие 7 и 14 дней (для оценки риска болезней).
+ * Поле равно null, если в прогнозе нет значений соответствующей переменной.
+ */
+public record ForecastWindowResponse(
+        Double tempMean7d,       // Средняя температура воздуха за 7 дней (°C)
+        Double tempMax7d,        // Максимальная температура за 7 дней (°C)
+        Double tempMin7d,        // Минимальная температура за 7 дней (°C)
+        Double humidity7d,       // Средняя относительная влажность за 7 дней (%)
+        Double precip7d,         // Сумма осадков за 7 дней (мм)
+        Double precip14d,        // Сумма осадков за 14 дней (мм)
+        Double windSpeedMean7d,  // Средняя скорость ветра на 10 м за 7 дней (км/ч)
+
+        // Узел сетки, по которому считался прогноз
+        GridCell gridCell
+) {
+}
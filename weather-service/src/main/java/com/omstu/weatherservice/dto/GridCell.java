@@ -0,0 +1,38 @@
+package com.omstu.weatherservice.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Узел сетки погодной модели Open-Meteo.
+ * Соседние поля, попадающие в одну ячейку модели, получают одинаковые координаты,
+ * поэтому делят один запрос к API, одну запись кэша и один архив.
+ */
+public record GridCell(double latitude, double longitude) {
+
+    private static final int KEY_SCALE = 4;
+
+    /**
+     * Привязывает координаты к ближайшему узлу сетки с заданным шагом
+     *
+     * @param lat        широта
+     * @param lon        долгота
+     * @param resolution шаг сетки в градусах
+     * @return узел сетки
+     * @throws IllegalArgumentException если координаты не заданы
+     */
+    public static GridCell snap(Double lat, Double lon, double resolution) {
+        if (lat == null || lon == null) {
+            throw new IllegalArgumentException("Latitude and longitude are required");
+        }
+        return new GridCell(snapValue(lat, resolution), snapValue(lon, resolution));
+    }
+
+    private static double snapValue(double value, double resolution) {
+        double snapped = resolution > 0 ? Math.round(value / resolution) * resolution : value;
+        // Убираем погрешность умножения, чтобы ключ был стабильным (например, 54.900000000000006)
+        return BigDecimal.valueOf(snapped)
+                .setScale(KEY_SCALE, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+}
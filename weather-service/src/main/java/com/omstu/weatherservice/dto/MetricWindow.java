@@ -0,0 +1,13 @@
+package com.omstu.weatherservice.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Именованный интервал дат, по которому считаются агрометрики (например, фаза развития культуры)
+ *
+ * @param name      название интервала, уникальное в пределах запроса
+ * @param startDate первый день интервала
+ * @param endDate   последний день интервала (включительно)
+ */
+public record MetricWindow(String name, LocalDate startDate, LocalDate endDate) {
+}
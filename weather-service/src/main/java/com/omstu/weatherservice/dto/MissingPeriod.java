@@ -0,0 +1,9 @@
+package com.omstu.weatherservice.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Интервал, данные за который не удалось получить от Open-Meteo
+ */
+public record MissingPeriod(LocalDate startDate, LocalDate endDate, String reason) {
+}
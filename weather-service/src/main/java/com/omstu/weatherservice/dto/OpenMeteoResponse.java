@@ -1,8 +1,14 @@
 package com.omstu.weatherservice.dto;
 
+import java.util.List;
+
 public record OpenMeteoResponse(
         Double latitude, Double longitude, Double elevation,
-        Hourly hourly, Daily daily
+        Hourly hourly, Daily daily,
+        // Узел сетки, к которому привязан запрос (заполняется сервисом, в ответе API его нет)
+        GridCell gridCell,
+        // Интервалы, которые не удалось загрузить (ответ неполный, если список не пуст)
+        List<MissingPeriod> missingPeriods
 ) {
 
 }
@@ -0,0 +1,14 @@
+package com.omstu.weatherservice.dto;
+
+import java.util.List;
+
+/**
+ * Сводка по неделям, декадам или месяцам периода
+ */
+public record PeriodAggregatesResponse(
+        AggregationPeriod period,
+        List<WindowSums> aggregates,
+        // Узел сетки, по которому считались суммы
+        GridCell gridCell
+) {
+}
@@ -45,7 +45,10 @@ public record SeasonalAgrometricsResponse(
         Double tempSumAprSep,      // Полная сумма эффективных температур
         Integer totalHeatStressDays, // Общее число дней жары (>30°C)
         Double minTempVegetation,  // Минимальная температура за вегетацию
-        Integer longestDryPeriod   // Макс серия дней без осадков (<1 мм) за Apr-Sep
+        Integer longestDryPeriod,  // Макс серия дней без осадков (<1 мм) за Apr-Sep
+
+        // Узел сетки, по которому считались метрики
+        GridCell gridCell
 ) {
     public SeasonalAgrometricsResponse {
         // Округляем все Double поля до 2 знаков
@@ -0,0 +1,14 @@
+package com.omstu.weatherservice.dto;
+
+/**
+ * Позиция пакетного запроса сезонных метрик
+ */
+public record SeasonalBatchItem(
+        // Идентификатор позиции у клиента (например, id поля), возвращается в ответе
+        String id,
+        Double lat,
+        Double lon,
+        // Год урожая
+        Integer year
+) {
+}
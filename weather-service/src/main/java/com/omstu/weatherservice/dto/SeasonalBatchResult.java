@@ -0,0 +1,19 @@
+package com.omstu.weatherservice.dto;
+
+/**
+ * Результат одной позиции пакетного запроса: метрики либо текст ошибки
+ */
+public record SeasonalBatchResult(
+        String id,
+        Integer year,
+        SeasonalAgrometricsResponse metrics,
+        String error
+) {
+    public static SeasonalBatchResult success(SeasonalBatchItem item, SeasonalAgrometricsResponse metrics) {
+        return new SeasonalBatchResult(item.id(), item.year(), metrics, null);
+    }
+
+    public static SeasonalBatchResult failure(SeasonalBatchItem item, String error) {
+        return new SeasonalBatchResult(item.id(), item.year(), null, error);
+    }
+}
@@ -0,0 +1,13 @@
+package com.omstu.weatherservice.dto;
+
+import java.util.List;
+
+/**
+ * Запрос агрометрик по произвольному набору интервалов для одной точки
+ */
+public record WindowMetricsRequest(
+        Double lat,
+        Double lon,
+        List<MetricWindow> windows
+) {
+}
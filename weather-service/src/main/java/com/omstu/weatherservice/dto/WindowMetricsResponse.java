@@ -0,0 +1,13 @@
+package com.omstu.weatherservice.dto;
+
+import java.util.Map;
+
+/**
+ * Агрометрики по интервалам запроса (в порядке запроса, ключ — название интервала)
+ */
+public record WindowMetricsResponse(
+        Map<String, AgrometricalData> windows,
+        // Узел сетки, по которому считались метрики
+        GridCell gridCell
+) {
+}
@@ -0,0 +1,20 @@
+package com.omstu.weatherservice.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Суммы и счетчики за интервал, из которых складывается ГТК
+ */
+public record WindowSums(
+        LocalDate startDate,
+        LocalDate endDate,
+        Integer daysWithData,          // Дни интервала, по которым есть температура
+        Double sumPrecipitation,       // Сумма осадков за все дни (мм)
+        Double sumActivePrecipitation, // Осадки за дни с T > 10°C (числитель ГТК)
+        Double sumEffectiveTemp,       // Сумма температур > 10°C (знаменатель ГТК)
+        Double gtk,                    // ГТК за интервал
+        Integer heatStressDays,        // Дни с T > 30°C
+        Integer extremeHeatDays,       // Дни с T > 35°C
+        Double avgTemp                 // Средняя суточная температура
+) {
+}
@@ -0,0 +1,13 @@
+package com.omstu.weatherservice.dto;
+
+import java.util.Map;
+
+/**
+ * Суммы по интервалам запроса (в порядке запроса, ключ — название интервала)
+ */
+public record WindowSumsResponse(
+        Map<String, WindowSums> windows,
+        // Узел сетки, по которому считались суммы
+        GridCell gridCell
+) {
+}
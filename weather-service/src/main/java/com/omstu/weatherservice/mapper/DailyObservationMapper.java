@@ -0,0 +1,85 @@
+package com.omstu.weatherservice.mapper;
+
+import com.omstu.weatherservice.model.DailyObservation;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import org.mapstruct.Mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Преобразование дневных данных Open-Meteo в строки архива и обратно
+ */
+@Mapper(componentModel = "spring")
+public interface DailyObservationMapper {
+
+    default List<DailyObservation> toObservations(DailySeries daily) {
+        if (daily == null) {
+            return List.of();
+        }
+
+        List<DailyObservation> observations = new ArrayList<>(daily.size());
+        for (int i = 0; i < daily.size(); i++) {
+            DailyObservation observation = new DailyObservation();
+            observation.setObservationDate(daily.dateAt(i));
+            observation.setTemperatureMax(valueAt(daily, DailyVariable.TEMPERATURE_MAX, i));
+            observation.setTemperatureMin(valueAt(daily, DailyVariable.TEMPERATURE_MIN, i));
+            observation.setTemperatureMean(valueAt(daily, DailyVariable.TEMPERATURE_MEAN, i));
+            observation.setRelativeHumidityMean(valueAt(daily, DailyVariable.RELATIVE_HUMIDITY_MEAN, i));
+            observation.setRelativeHumidityMin(valueAt(daily, DailyVariable.RELATIVE_HUMIDITY_MIN, i));
+            observation.setPrecipitationSum(valueAt(daily, DailyVariable.PRECIPITATION_SUM, i));
+            observation.setReferenceEvapotranspiration(
+                    valueAt(daily, DailyVariable.REFERENCE_EVAPOTRANSPIRATION, i));
+            observation.setWindSpeedMax(valueAt(daily, DailyVariable.WIND_SPEED_MAX, i));
+            observation.setWindGustsMax(valueAt(daily, DailyVariable.WIND_GUSTS_MAX, i));
+            observation.setShortwaveRadiationSum(valueAt(daily, DailyVariable.SHORTWAVE_RADIATION_SUM, i));
+
+            Double sunshine = valueAt(daily, DailyVariable.SUNSHINE_DURATION, i);
+            observation.setSunshineDuration(sunshine != null ? (int) Math.round(sunshine) : null);
+            observations.add(observation);
+        }
+        return observations;
+    }
+
+    default DailySeries toDailySeries(List<DailyObservation> observations) {
+        int size = observations.size();
+        int[] epochDays = new int[size];
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+
+        // Почвенные параметры в архиве не хранятся (как и в одиночном историческом запросе)
+        for (DailyVariable variable : DailyVariable.values()) {
+            if (variable.apiName() != null) {
+                columns[variable.ordinal()] = new double[size];
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            DailyObservation observation = observations.get(i);
+            epochDays[i] = (int) observation.getObservationDate().toEpochDay();
+            set(columns, DailyVariable.TEMPERATURE_MAX, i, observation.getTemperatureMax());
+            set(columns, DailyVariable.TEMPERATURE_MIN, i, observation.getTemperatureMin());
+            set(columns, DailyVariable.TEMPERATURE_MEAN, i, observation.getTemperatureMean());
+            set(columns, DailyVariable.RELATIVE_HUMIDITY_MEAN, i, observation.getRelativeHumidityMean());
+            set(columns, DailyVariable.RELATIVE_HUMIDITY_MIN, i, observation.getRelativeHumidityMin());
+            set(columns, DailyVariable.PRECIPITATION_SUM, i, observation.getPrecipitationSum());
+            set(columns, DailyVariable.REFERENCE_EVAPOTRANSPIRATION, i,
+                    observation.getReferenceEvapotranspiration());
+            set(columns, DailyVariable.WIND_SPEED_MAX, i, observation.getWindSpeedMax());
+            set(columns, DailyVariable.WIND_GUSTS_MAX, i, observation.getWindGustsMax());
+            set(columns, DailyVariable.SHORTWAVE_RADIATION_SUM, i, observation.getShortwaveRadiationSum());
+            set(columns, DailyVariable.SUNSHINE_DURATION, i, observation.getSunshineDuration());
+        }
+
+        return new DailySeries(epochDays, columns);
+    }
+
+    private Double valueAt(DailySeries daily, DailyVariable variable, int index) {
+        double value = daily.value(variable, index);
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private void set(double[][] columns, DailyVariable variable, int index, Number value) {
+        columns[variable.ordinal()][index] = value != null ? value.doubleValue() : Double.NaN;
+    }
+}
@@ -37,7 +37,9 @@ public interface OpenMeteoMapper {
                 first.longitude(),
                 first.elevation(),
                 combinedHourly,
-                combinedDaily
+                combinedDaily,
+                first.gridCell(),
+                null
         );
     }
 
@@ -47,5 +49,7 @@ public interface OpenMeteoMapper {
     @Mapping(target = "elevation", source = "elevation")
     @Mapping(target = "hourly", source = "hourly")
     @Mapping(target = "daily", source = "daily")
+    @Mapping(target = "gridCell", source = "gridCell")
+    @Mapping(target = "missingPeriods", source = "missingPeriods")
     OpenMeteoResponse mapResponse(OpenMeteoResponse response);
 }
\ No newline at end of file
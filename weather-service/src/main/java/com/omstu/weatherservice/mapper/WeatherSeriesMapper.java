@@ -0,0 +1,245 @@
+package com.omstu.weatherservice.mapper;
+
+import com.omstu.weatherservice.dto.Daily;
+import com.omstu.weatherservice.dto.Hourly;
+import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import com.omstu.weatherservice.series.HourlySeries;
+import com.omstu.weatherservice.series.HourlyVariable;
+import com.omstu.weatherservice.series.TimeAxis;
+import com.omstu.weatherservice.series.WeatherSeries;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Преобразование между публичными DTO Open-Meteo и внутренними колоночными рядами.
+ * Пропуск (null) в DTO соответствует NaN в ряду.
+ */
+@Mapper(componentModel = "spring")
+public interface WeatherSeriesMapper {
+
+    WeatherSeriesMapper INSTANCE = Mappers.getMapper(WeatherSeriesMapper.class);
+
+    default WeatherSeries toSeries(OpenMeteoResponse response) {
+        return new WeatherSeries(
+                response.latitude(),
+                response.longitude(),
+                response.elevation(),
+                toHourlySeries(response.hourly()),
+                toDailySeries(response.daily()),
+                response.gridCell(),
+                response.missingPeriods(),
+                false
+        );
+    }
+
+    default OpenMeteoResponse toResponse(WeatherSeries series) {
+        return new OpenMeteoResponse(
+                series.latitude(),
+                series.longitude(),
+                series.elevation(),
+                toHourly(series.hourly()),
+                toDaily(series.daily()),
+                series.gridCell(),
+                series.missingPeriods()
+        );
+    }
+
+    default DailySeries toDailySeries(Daily daily) {
+        if (daily == null || daily.time() == null) {
+            return null;
+        }
+
+        int size = daily.time().size();
+        int[] epochDays = new int[size];
+        for (int i = 0; i < size; i++) {
+            epochDays[i] = TimeAxis.parseEpochDay(daily.time().get(i));
+        }
+
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.TEMPERATURE_MAX.ordinal()] = toColumn(daily.temperatureMax(), size);
+        columns[DailyVariable.TEMPERATURE_MIN.ordinal()] = toColumn(daily.temperatureMin(), size);
+        columns[DailyVariable.TEMPERATURE_MEAN.ordinal()] = toColumn(daily.temperatureMean(), size);
+        columns[DailyVariable.RELATIVE_HUMIDITY_MEAN.ordinal()] = toColumn(daily.relativeHumidityMean(), size);
+        columns[DailyVariable.RELATIVE_HUMIDITY_MIN.ordinal()] = toColumn(daily.relativeHumidityMin(), size);
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = toColumn(daily.precipitationSum(), size);
+        columns[DailyVariable.REFERENCE_EVAPOTRANSPIRATION.ordinal()] =
+                toColumn(daily.referenceEvapotranspiration(), size);
+        columns[DailyVariable.WIND_SPEED_MAX.ordinal()] = toColumn(daily.windSpeedMax(), size);
+        columns[DailyVariable.WIND_GUSTS_MAX.ordinal()] = toColumn(daily.windGustsMax(), size);
+        columns[DailyVariable.SHORTWAVE_RADIATION_SUM.ordinal()] = toColumn(daily.shortwaveRadiationSum(), size);
+        columns[DailyVariable.SUNSHINE_DURATION.ordinal()] = toColumn(daily.sunshineDuration(), size);
+        columns[DailyVariable.SOIL_TEMPERATURE_0CM_MEAN.ordinal()] =
+                toColumn(daily.soilTemperature0cmMean(), size);
+        columns[DailyVariable.SOIL_TEMPERATURE_6CM_MEAN.ordinal()] =
+                toColumn(daily.soilTemperature6cmMean(), size);
+        columns[DailyVariable.SOIL_MOISTURE_0_TO_1CM_MEAN.ordinal()] =
+                toColumn(daily.soilMoisture0to1cmMean(), size);
+        columns[DailyVariable.SOIL_TEMPERATURE_18CM_MEAN.ordinal()] =
+                toColumn(daily.soilTemperature18cmMean(), size);
+        columns[DailyVariable.SOIL_TEMPERATURE_54CM_MEAN.ordinal()] =
+                toColumn(daily.soilTemperature54cmMean(), size);
+        columns[DailyVariable.SOIL_MOISTURE_1_TO_3CM_MEAN.ordinal()] =
+                toColumn(daily.soilMoisture1to3cmMean(), size);
+        columns[DailyVariable.SOIL_MOISTURE_3_TO_9CM_MEAN.ordinal()] =
+                toColumn(daily.soilMoisture3to9cmMean(), size);
+        columns[DailyVariable.SOIL_MOISTURE_9_TO_27CM_MEAN.ordinal()] =
+                toColumn(daily.soilMoisture9to27cmMean(), size);
+        columns[DailyVariable.SOIL_MOISTURE_27_TO_81CM_MEAN.ordinal()] =
+                toColumn(daily.soilMoisture27to81cmMean(), size);
+
+        return new DailySeries(epochDays, columns);
+    }
+
+    default HourlySeries toHourlySeries(Hourly hourly) {
+        if (hourly == null || hourly.time() == null) {
+            return null;
+        }
+
+        int size = hourly.time().size();
+        int[] epochHours = new int[size];
+        for (int i = 0; i < size; i++) {
+            epochHours[i] = TimeAxis.parseEpochHour(hourly.time().get(i));
+        }
+
+        double[][] columns = new double[HourlySeries.VARIABLE_COUNT][];
+        columns[HourlyVariable.TEMPERATURE.ordinal()] = toColumn(hourly.temperature(), size);
+        columns[HourlyVariable.RELATIVE_HUMIDITY.ordinal()] = toColumn(hourly.relativeHumidity(), size);
+        columns[HourlyVariable.DEW_POINT.ordinal()] = toColumn(hourly.dewPoint(), size);
+        columns[HourlyVariable.SURFACE_PRESSURE.ordinal()] = toColumn(hourly.surfacePressure(), size);
+        columns[HourlyVariable.PRECIPITATION.ordinal()] = toColumn(hourly.precipitation(), size);
+        columns[HourlyVariable.RAIN.ordinal()] = toColumn(hourly.rain(), size);
+        columns[HourlyVariable.SNOWFALL.ordinal()] = toColumn(hourly.snowfall(), size);
+        columns[HourlyVariable.PRECIPITATION_PROBABILITY.ordinal()] =
+                toColumn(hourly.precipitationProbability(), size);
+        columns[HourlyVariable.WIND_SPEED.ordinal()] = toColumn(hourly.windSpeed(), size);
+        columns[HourlyVariable.WIND_GUSTS.ordinal()] = toColumn(hourly.windGusts(), size);
+        columns[HourlyVariable.WIND_DIRECTION.ordinal()] = toColumn(hourly.windDirection(), size);
+        columns[HourlyVariable.SHORTWAVE_RADIATION.ordinal()] = toColumn(hourly.shortwaveRadiation(), size);
+        columns[HourlyVariable.UV_INDEX.ordinal()] = toColumn(hourly.uvIndex(), size);
+        columns[HourlyVariable.SUNSHINE_DURATION.ordinal()] = toColumn(hourly.sunshineDuration(), size);
+        columns[HourlyVariable.SOIL_TEMPERATURE_0CM.ordinal()] = toColumn(hourly.soilTemperature0cm(), size);
+        columns[HourlyVariable.SOIL_TEMPERATURE_6CM.ordinal()] = toColumn(hourly.soilTemperature6cm(), size);
+        columns[HourlyVariable.SOIL_TEMPERATURE_18CM.ordinal()] = toColumn(hourly.soilTemperature18cm(), size);
+        columns[HourlyVariable.SOIL_TEMPERATURE_54CM.ordinal()] = toColumn(hourly.soilTemperature54cm(), size);
+        columns[HourlyVariable.SOIL_MOISTURE_0_TO_1CM.ordinal()] = toColumn(hourly.soilMoisture0To1Cm(), size);
+        columns[HourlyVariable.SOIL_MOISTURE_1_TO_3CM.ordinal()] = toColumn(hourly.soilMoisture1To3Cm(), size);
+        columns[HourlyVariable.SOIL_MOISTURE_3_TO_9CM.ordinal()] = toColumn(hourly.soilMoisture3To9Cm(), size);
+        columns[HourlyVariable.SOIL_MOISTURE_9_TO_27CM.ordinal()] = toColumn(hourly.soilMoisture9To27Cm(), size);
+        columns[HourlyVariable.SOIL_MOISTURE_27_TO_81CM.ordinal()] =
+                toColumn(hourly.soilMoisture27To81Cm(), size);
+
+        return new HourlySeries(epochHours, columns);
+    }
+
+    default Daily toDaily(DailySeries series) {
+        if (series == null) {
+            return null;
+        }
+
+        List<String> time = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            time.add(TimeAxis.formatEpochDay(series.timeAt(i)));
+        }
+
+        return new Daily(
+                time,
+                toDoubles(series.column(DailyVariable.TEMPERATURE_MAX)),
+                toDoubles(series.column(DailyVariable.TEMPERATURE_MIN)),
+                toDoubles(series.column(DailyVariable.TEMPERATURE_MEAN)),
+                toDoubles(series.column(DailyVariable.RELATIVE_HUMIDITY_MEAN)),
+                toDoubles(series.column(DailyVariable.RELATIVE_HUMIDITY_MIN)),
+                toDoubles(series.column(DailyVariable.PRECIPITATION_SUM)),
+                toDoubles(series.column(DailyVariable.REFERENCE_EVAPOTRANSPIRATION)),
+                toDoubles(series.column(DailyVariable.WIND_SPEED_MAX)),
+                toDoubles(series.column(DailyVariable.WIND_GUSTS_MAX)),
+                toDoubles(series.column(DailyVariable.SHORTWAVE_RADIATION_SUM)),
+                toIntegers(series.column(DailyVariable.SUNSHINE_DURATION)),
+                toDoubles(series.column(DailyVariable.SOIL_TEMPERATURE_0CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_TEMPERATURE_6CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_MOISTURE_0_TO_1CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_TEMPERATURE_18CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_TEMPERATURE_54CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_MOISTURE_1_TO_3CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_MOISTURE_3_TO_9CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_MOISTURE_9_TO_27CM_MEAN)),
+                toDoubles(series.column(DailyVariable.SOIL_MOISTURE_27_TO_81CM_MEAN))
+        );
+    }
+
+    default Hourly toHourly(HourlySeries series) {
+        if (series == null) {
+            return null;
+        }
+
+        List<String> time = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            time.add(TimeAxis.formatEpochHour(series.timeAt(i)));
+        }
+
+        return new Hourly(
+                time,
+                toDoubles(series.column(HourlyVariable.TEMPERATURE)),
+                toDoubles(series.column(HourlyVariable.RELATIVE_HUMIDITY)),
+                toDoubles(series.column(HourlyVariable.DEW_POINT)),
+                toDoubles(series.column(HourlyVariable.SURFACE_PRESSURE)),
+                toDoubles(series.column(HourlyVariable.PRECIPITATION)),
+                toDoubles(series.column(HourlyVariable.RAIN)),
+                toDoubles(series.column(HourlyVariable.SNOWFALL)),
+                toDoubles(series.column(HourlyVariable.PRECIPITATION_PROBABILITY)),
+                toDoubles(series.column(HourlyVariable.WIND_SPEED)),
+                toDoubles(series.column(HourlyVariable.WIND_GUSTS)),
+                toIntegers(series.column(HourlyVariable.WIND_DIRECTION)),
+                toDoubles(series.column(HourlyVariable.SHORTWAVE_RADIATION)),
+                toDoubles(series.column(HourlyVariable.UV_INDEX)),
+                toIntegers(series.column(HourlyVariable.SUNSHINE_DURATION)),
+                toDoubles(series.column(HourlyVariable.SOIL_TEMPERATURE_0CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_TEMPERATURE_6CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_TEMPERATURE_18CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_TEMPERATURE_54CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_MOISTURE_0_TO_1CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_MOISTURE_1_TO_3CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_MOISTURE_3_TO_9CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_MOISTURE_9_TO_27CM)),
+                toDoubles(series.column(HourlyVariable.SOIL_MOISTURE_27_TO_81CM))
+        );
+    }
+
+    private double[] toColumn(List<? extends Number> values, int size) {
+        if (values == null) {
+            return null;
+        }
+        double[] column = new double[size];
+        for (int i = 0; i < size; i++) {
+            Number value = i < values.size() ? values.get(i) : null;
+            column[i] = value != null ? value.doubleValue() : Double.NaN;
+        }
+        return column;
+    }
+
+    private List<Double> toDoubles(double[] column) {
+        if (column == null) {
+            return null;
+        }
+        List<Double> values = new ArrayList<>(column.length);
+        for (double value : column) {
+            values.add(Double.isNaN(value) ? null : value);
+        }
+        return values;
+    }
+
+    private List<Integer> toIntegers(double[] column) {
+        if (column == null) {
+            return null;
+        }
+        List<Integer> values = new ArrayList<>(column.length);
+        for (double value : column) {
+            values.add(Double.isNaN(value) ? null : (int) Math.round(value));
+        }
+        return values;
+    }
+}
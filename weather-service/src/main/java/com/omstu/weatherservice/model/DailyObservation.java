@@ -0,0 +1,66 @@
+package com.omstu.weatherservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Архивное дневное наблюдение Open-Meteo для ячейки сетки
+ */
+@Entity
+@Table(name = "weather_daily_observations")
+@Data
+@ToString(exclude = "cell")
+public class DailyObservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_observation_seq")
+    @SequenceGenerator(name = "daily_observation_seq",
+            sequenceName = "weather_daily_observations_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cell_id", nullable = false)
+    private WeatherGridCell cell;
+
+    @Column(name = "obs_date", nullable = false)
+    private LocalDate observationDate;
+
+    // Температура воздуха
+    private Double temperatureMax;
+
+    private Double temperatureMin;
+
+    private Double temperatureMean;
+
+    // Влажность воздуха
+    private Double relativeHumidityMean;
+
+    private Double relativeHumidityMin;
+
+    // Осадки
+    private Double precipitationSum;
+
+    private Double referenceEvapotranspiration;
+
+    // Ветер
+    private Double windSpeedMax;
+
+    private Double windGustsMax;
+
+    // Солнце
+    private Double shortwaveRadiationSum;
+
+    private Integer sunshineDuration;
+}
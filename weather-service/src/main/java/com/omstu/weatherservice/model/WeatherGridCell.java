@@ -0,0 +1,42 @@
+package com.omstu.weatherservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Ячейка сетки Open-Meteo, для которой накапливается архив дневных наблюдений
+ */
+@Entity
+@Table(name = "weather_grid_cells")
+@Data
+public class WeatherGridCell {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cell_lat", nullable = false)
+    private Double cellLat; // Ключ ячейки (нормализованные координаты запроса)
+
+    @Column(name = "cell_lon", nullable = false)
+    private Double cellLon;
+
+    private Double latitude; // Координаты узла сетки из ответа Open-Meteo
+
+    private Double longitude;
+
+    private Double elevation;
+
+    @Column(name = "last_requested_on")
+    private LocalDate lastRequestedOn; // День последнего пользовательского запроса (активность ячейки)
+
+    @Column(name = "archived_through")
+    private LocalDate archivedThrough; // Водяной знак плановой догрузки архива
+}
@@ -0,0 +1,22 @@
+package com.omstu.weatherservice.repository;
+
+import com.omstu.weatherservice.model.DailyObservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyObservationRepository
+        extends JpaRepository<DailyObservation, Long>, DailyObservationRepositoryCustom {
+
+    @Query("SELECT o FROM DailyObservation o WHERE o.cell.id = :cellId " +
+            "AND o.observationDate BETWEEN :startDate AND :endDate ORDER BY o.observationDate")
+    List<DailyObservation> findByCellIdAndPeriod(@Param("cellId") Long cellId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT MAX(o.observationDate) FROM DailyObservation o WHERE o.cell.id = :cellId")
+    LocalDate findLatestObservationDate(@Param("cellId") Long cellId);
+}
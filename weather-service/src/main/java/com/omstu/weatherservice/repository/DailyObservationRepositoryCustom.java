@@ -0,0 +1,20 @@
+package com.omstu.weatherservice.repository;
+
+import com.omstu.weatherservice.model.DailyObservation;
+
+import java.util.List;
+
+/**
+ * Вставка наблюдений, которую нельзя выразить через JpaRepository
+ */
+public interface DailyObservationRepositoryCustom {
+
+    /**
+     * Вставляет наблюдения пакетом; дни ячейки, уже сохраненные параллельным запросом,
+     * пропускаются (ON CONFLICT DO NOTHING), остальные сохраняются
+     *
+     * @param observations наблюдения с заполненной ячейкой
+     * @return число вставленных наблюдений
+     */
+    int insertIgnoringDuplicates(List<DailyObservation> observations);
+}
@@ -0,0 +1,68 @@
+package com.omstu.weatherservice.repository;
+
+import com.omstu.weatherservice.model.DailyObservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Пакетная вставка наблюдений через JDBC. id берется из значения столбца по умолчанию:
+ * каждая строка расходует целый шаг последовательности (allocationSize), для BIGINT это не ограничение.
+ */
+@RequiredArgsConstructor
+class DailyObservationRepositoryCustomImpl implements DailyObservationRepositoryCustom {
+
+    // Совпадает с spring.jpa.properties.hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO weather_daily_observations (
+                cell_id, obs_date,
+                temperature_max, temperature_min, temperature_mean,
+                relative_humidity_mean, relative_humidity_min,
+                precipitation_sum, reference_evapotranspiration,
+                wind_speed_max, wind_gusts_max,
+                shortwave_radiation_sum, sunshine_duration
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (cell_id, obs_date) DO NOTHING
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertIgnoringDuplicates(List<DailyObservation> observations) {
+        if (observations.isEmpty()) {
+            return 0;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, observations, BATCH_SIZE, this::bind);
+
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Драйвер может не сообщить число строк (SUCCESS_NO_INFO) — считаем строку вставленной
+                inserted += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    private void bind(PreparedStatement statement, DailyObservation observation) throws SQLException {
+        statement.setLong(1, observation.getCell().getId());
+        statement.setObject(2, observation.getObservationDate());
+        statement.setObject(3, observation.getTemperatureMax(), Types.DOUBLE);
+        statement.setObject(4, observation.getTemperatureMin(), Types.DOUBLE);
+        statement.setObject(5, observation.getTemperatureMean(), Types.DOUBLE);
+        statement.setObject(6, observation.getRelativeHumidityMean(), Types.DOUBLE);
+        statement.setObject(7, observation.getRelativeHumidityMin(), Types.DOUBLE);
+        statement.setObject(8, observation.getPrecipitationSum(), Types.DOUBLE);
+        statement.setObject(9, observation.getReferenceEvapotranspiration(), Types.DOUBLE);
+        statement.setObject(10, observation.getWindSpeedMax(), Types.DOUBLE);
+        statement.setObject(11, observation.getWindGustsMax(), Types.DOUBLE);
+        statement.setObject(12, observation.getShortwaveRadiationSum(), Types.DOUBLE);
+        statement.setObject(13, observation.getSunshineDuration(), Types.INTEGER);
+    }
+}
@@ -0,0 +1,29 @@
+package com.omstu.weatherservice.repository;
+
+import com.omstu.weatherservice.model.WeatherGridCell;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface WeatherGridCellRepository extends JpaRepository<WeatherGridCell, Long> {
+
+    Optional<WeatherGridCell> findByCellLatAndCellLon(Double cellLat, Double cellLon);
+
+    List<WeatherGridCell> findByLastRequestedOnGreaterThanEqual(LocalDate since);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WeatherGridCell c SET c.lastRequestedOn = :date WHERE c.id = :id")
+    void markRequested(@Param("id") Long id, @Param("date") LocalDate date);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WeatherGridCell c SET c.archivedThrough = :date WHERE c.id = :id")
+    void updateArchivedThrough(@Param("id") Long id, @Param("date") LocalDate date);
+}
@@ -0,0 +1,60 @@
+package com.omstu.weatherservice.series;
+
+import java.util.Arrays;
+
+/**
+ * Растущие примитивные буферы для сборки колонок при потоковом разборе
+ */
+final class ColumnBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private ColumnBuffer() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    static final class Doubles {
+
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int size;
+
+        void add(double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Колонка длины length: лишние значения отбрасываются, недостающие заполняются NaN
+         */
+        double[] toArray(int length) {
+            double[] result = Arrays.copyOf(values, length);
+            if (size < length) {
+                Arrays.fill(result, size, length, Double.NaN);
+            }
+            return result;
+        }
+    }
+
+    static final class Ints {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
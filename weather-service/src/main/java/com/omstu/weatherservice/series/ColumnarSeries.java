@@ -0,0 +1,164 @@
+package com.omstu.weatherservice.series;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Колоночный временной ряд: целочисленная ось времени и по одному массиву double на переменную.
+ *
+ * - отсутствующее значение хранится как NaN
+ * - отсутствующая переменная (не запрашивалась) хранится как null-колонка
+ * - ось времени отсортирована по возрастанию
+ *
+ * Массивы не копируются при чтении: ряд считается неизменяемым, изменять возвращаемые массивы нельзя.
+ *
+ * @param <V> перечисление переменных
+ * @param <S> конкретный тип ряда
+ */
+public abstract class ColumnarSeries<V extends Enum<V>, S extends ColumnarSeries<V, S>> {
+
+    private final int[] time;
+    private final double[][] columns;
+
+    protected ColumnarSeries(int[] time, double[][] columns, int variableCount) {
+        if (columns.length != variableCount) {
+            throw new IllegalArgumentException(
+                    "Expected " + variableCount + " columns, got " + columns.length);
+        }
+        for (double[] column : columns) {
+            if (column != null && column.length != time.length) {
+                throw new IllegalArgumentException(
+                        "Column length " + column.length + " does not match time axis length " + time.length);
+            }
+        }
+        this.time = time;
+        this.columns = columns;
+    }
+
+    protected abstract S create(int[] time, double[][] columns);
+
+    public int size() {
+        return time.length;
+    }
+
+    public boolean isEmpty() {
+        return time.length == 0;
+    }
+
+    /**
+     * Значение оси времени в позиции index
+     */
+    public int timeAt(int index) {
+        return time[index];
+    }
+
+    /**
+     * Ось времени (общий массив, не изменять)
+     */
+    public int[] times() {
+        return time;
+    }
+
+    public boolean has(V variable) {
+        return columns[variable.ordinal()] != null;
+    }
+
+    /**
+     * Колонка переменной (общий массив, не изменять) или null, если переменная не запрашивалась
+     */
+    public double[] column(V variable) {
+        return columns[variable.ordinal()];
+    }
+
+    /**
+     * Значение переменной в позиции index, NaN если значения или переменной нет
+     */
+    public double value(V variable, int index) {
+        double[] column = columns[variable.ordinal()];
+        return column != null ? column[index] : Double.NaN;
+    }
+
+    /**
+     * Первая позиция, время которой не меньше t (size(), если таких нет)
+     */
+    public int lowerBound(int t) {
+        int low = 0;
+        int high = time.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (time[mid] < t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Первая позиция, время которой больше t (size(), если таких нет)
+     */
+    public int upperBound(int t) {
+        int low = 0;
+        int high = time.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (time[mid] <= t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Копия позиций [from, to)
+     */
+    public S slice(int from, int to) {
+        double[][] sliced = new double[columns.length][];
+        for (int v = 0; v < columns.length; v++) {
+            if (columns[v] != null) {
+                sliced[v] = Arrays.copyOfRange(columns[v], from, to);
+            }
+        }
+        return create(Arrays.copyOfRange(time, from, to), sliced);
+    }
+
+    /**
+     * Склеивает ряды в порядке списка. Колонка, которой нет в части рядов, дополняется NaN.
+     */
+    protected static <S extends ColumnarSeries<?, S>> S concat(
+            List<S> parts, int variableCount, BiFunction<int[], double[][], S> factory
+    ) {
+        int total = 0;
+        for (S part : parts) {
+            total += part.size();
+        }
+
+        int[] time = new int[total];
+        double[][] columns = new double[variableCount][];
+        int offset = 0;
+        for (ColumnarSeries<?, ?> part : parts) {
+            int size = part.size();
+            System.arraycopy(part.time, 0, time, offset, size);
+            for (int v = 0; v < variableCount; v++) {
+                double[] source = part.columns[v];
+                if (source == null) {
+                    if (columns[v] != null) {
+                        Arrays.fill(columns[v], offset, offset + size, Double.NaN);
+                    }
+                    continue;
+                }
+                if (columns[v] == null) {
+                    columns[v] = new double[total];
+                    Arrays.fill(columns[v], 0, offset, Double.NaN);
+                }
+                System.arraycopy(source, 0, columns[v], offset, size);
+            }
+            offset += size;
+        }
+        return factory.apply(time, columns);
+    }
+}
@@ -0,0 +1,49 @@
+package com.omstu.weatherservice.series;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Дневной ряд: ось времени — номер дня от эпохи (LocalDate.toEpochDay)
+ */
+public final class DailySeries extends ColumnarSeries<DailyVariable, DailySeries> {
+
+    public static final int VARIABLE_COUNT = DailyVariable.values().length;
+
+    private static final DailySeries EMPTY = new DailySeries(new int[0], new double[VARIABLE_COUNT][]);
+
+    public DailySeries(int[] epochDays, double[][] columns) {
+        super(epochDays, columns, VARIABLE_COUNT);
+    }
+
+    public static DailySeries empty() {
+        return EMPTY;
+    }
+
+    public static DailySeries concat(List<DailySeries> parts) {
+        return concat(parts, VARIABLE_COUNT, DailySeries::new);
+    }
+
+    @Override
+    protected DailySeries create(int[] time, double[][] columns) {
+        return new DailySeries(time, columns);
+    }
+
+    public LocalDate dateAt(int index) {
+        return LocalDate.ofEpochDay(timeAt(index));
+    }
+
+    /**
+     * Первая позиция с датой не раньше date
+     */
+    public int indexFrom(LocalDate date) {
+        return lowerBound((int) date.toEpochDay());
+    }
+
+    /**
+     * Позиция, следующая за последним днем не позже date
+     */
+    public int indexTo(LocalDate date) {
+        return upperBound((int) date.toEpochDay());
+    }
+}
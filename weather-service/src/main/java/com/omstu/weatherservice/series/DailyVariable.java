@@ -0,0 +1,53 @@
+package com.omstu.weatherservice.series;
+
+/**
+ * Дневные переменные, хранимые в {@link DailySeries}.
+ * Порядок констант задает порядок колонок.
+ */
+public enum DailyVariable {
+
+    // Температура воздуха
+    TEMPERATURE_MAX("temperature_2m_max"),
+    TEMPERATURE_MIN("temperature_2m_min"),
+    TEMPERATURE_MEAN("temperature_2m_mean"),
+
+    // Влажность воздуха
+    RELATIVE_HUMIDITY_MEAN("relative_humidity_2m_mean"),
+    RELATIVE_HUMIDITY_MIN("relative_humidity_2m_min"),
+
+    // Осадки
+    PRECIPITATION_SUM("precipitation_sum"),
+    REFERENCE_EVAPOTRANSPIRATION("et0_fao_evapotranspiration"),
+
+    // Ветер
+    WIND_SPEED_MAX("wind_speed_10m_max"),
+    WIND_GUSTS_MAX("wind_gusts_10m_max"),
+
+    // Солнце
+    SHORTWAVE_RADIATION_SUM("shortwave_radiation_sum"),
+    SUNSHINE_DURATION("sunshine_duration"),
+
+    // Почва: в API дневных агрегатов нет, считаются по почасовым рядам
+    SOIL_TEMPERATURE_0CM_MEAN(null),
+    SOIL_TEMPERATURE_6CM_MEAN(null),
+    SOIL_MOISTURE_0_TO_1CM_MEAN(null),
+    SOIL_TEMPERATURE_18CM_MEAN(null),
+    SOIL_TEMPERATURE_54CM_MEAN(null),
+    SOIL_MOISTURE_1_TO_3CM_MEAN(null),
+    SOIL_MOISTURE_3_TO_9CM_MEAN(null),
+    SOIL_MOISTURE_9_TO_27CM_MEAN(null),
+    SOIL_MOISTURE_27_TO_81CM_MEAN(null);
+
+    private final String apiName;
+
+    DailyVariable(String apiName) {
+        this.apiName = apiName;
+    }
+
+    /**
+     * Имя переменной в API Open-Meteo (null для вычисляемых переменных)
+     */
+    public String apiName() {
+        return apiName;
+    }
+}
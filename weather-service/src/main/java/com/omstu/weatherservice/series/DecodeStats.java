@@ -0,0 +1,24 @@
+package com.omstu.weatherservice.series;
+
+/**
+ * Статистика разбора одного ответа Open-Meteo
+ *
+ * @param bytes       размер тела ответа
+ * @param decodeNanos время разбора (сумма по всем буферам)
+ * @param totalNanos  время от подписки до конца разбора; разница с decodeNanos — ожидание сети
+ */
+public record DecodeStats(long bytes, long decodeNanos, long totalNanos) {
+
+    public long networkNanos() {
+        return Math.max(0, totalNanos - decodeNanos);
+    }
+
+    /**
+     * Получатель статистики. Передается через контекст Reactor по ключу Listener.class,
+     * поэтому стратегии запросов о нем не знают.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onDecoded(DecodeStats stats);
+    }
+}
@@ -0,0 +1,37 @@
+package com.omstu.weatherservice.series;
+
+import java.util.List;
+
+/**
+ * Почасовой ряд: ось времени — номер часа от эпохи в локальном времени точки (день * 24 + час)
+ */
+public final class HourlySeries extends ColumnarSeries<HourlyVariable, HourlySeries> {
+
+    public static final int VARIABLE_COUNT = HourlyVariable.values().length;
+
+    private static final HourlySeries EMPTY = new HourlySeries(new int[0], new double[VARIABLE_COUNT][]);
+
+    public HourlySeries(int[] epochHours, double[][] columns) {
+        super(epochHours, columns, VARIABLE_COUNT);
+    }
+
+    public static HourlySeries empty() {
+        return EMPTY;
+    }
+
+    public static HourlySeries concat(List<HourlySeries> parts) {
+        return concat(parts, VARIABLE_COUNT, HourlySeries::new);
+    }
+
+    @Override
+    protected HourlySeries create(int[] time, double[][] columns) {
+        return new HourlySeries(time, columns);
+    }
+
+    /**
+     * Номер дня, к которому относится позиция index
+     */
+    public int epochDayAt(int index) {
+        return Math.floorDiv(timeAt(index), 24);
+    }
+}
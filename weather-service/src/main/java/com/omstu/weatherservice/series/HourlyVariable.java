@@ -0,0 +1,56 @@
+package com.omstu.weatherservice.series;
+
+/**
+ * Почасовые переменные, хранимые в {@link HourlySeries}.
+ * Порядок констант задает порядок колонок.
+ */
+public enum HourlyVariable {
+
+    // Температура и влажность воздуха
+    TEMPERATURE("temperature_2m"),
+    RELATIVE_HUMIDITY("relative_humidity_2m"),
+    DEW_POINT("dew_point_2m"),
+    SURFACE_PRESSURE("surface_pressure"),
+
+    // Осадки
+    PRECIPITATION("precipitation"),
+    RAIN("rain"),
+    SNOWFALL("snowfall"),
+    PRECIPITATION_PROBABILITY("precipitation_probability"),
+
+    // Ветер
+    WIND_SPEED("wind_speed_10m"),
+    WIND_GUSTS("wind_gusts_10m"),
+    WIND_DIRECTION("wind_direction_10m"),
+
+    // Солнце
+    SHORTWAVE_RADIATION("shortwave_radiation"),
+    UV_INDEX("uv_index"),
+    SUNSHINE_DURATION("sunshine_duration"),
+
+    // Температура почвы
+    SOIL_TEMPERATURE_0CM("soil_temperature_0cm"),
+    SOIL_TEMPERATURE_6CM("soil_temperature_6cm"),
+    SOIL_TEMPERATURE_18CM("soil_temperature_18cm"),
+    SOIL_TEMPERATURE_54CM("soil_temperature_54cm"),
+
+    // Влажность почвы
+    SOIL_MOISTURE_0_TO_1CM("soil_moisture_0_to_1cm"),
+    SOIL_MOISTURE_1_TO_3CM("soil_moisture_1_to_3cm"),
+    SOIL_MOISTURE_3_TO_9CM("soil_moisture_3_to_9cm"),
+    SOIL_MOISTURE_9_TO_27CM("soil_moisture_9_to_27cm"),
+    SOIL_MOISTURE_27_TO_81CM("soil_moisture_27_to_81cm");
+
+    private final String apiName;
+
+    HourlyVariable(String apiName) {
+        this.apiName = apiName;
+    }
+
+    /**
+     * Имя переменной в API Open-Meteo
+     */
+    public String apiName() {
+        return apiName;
+    }
+}
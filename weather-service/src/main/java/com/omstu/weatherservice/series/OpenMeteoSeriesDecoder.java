@@ -0,0 +1,381 @@
+package com.omstu.weatherservice.series;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Потоковый разбор ответа Open-Meteo прямо в колоночные ряды.
+ *
+ * Тело ответа разбирается неблокирующим парсером Jackson по мере прихода DataBuffer:
+ * значения массивов daily/hourly сразу пишутся в примитивные буферы, каждый DataBuffer
+ * освобождается после разбора. Ответ целиком в памяти не держится, поэтому
+ * длина запрашиваемого периода не ограничена лимитом кодека WebClient.
+ *
+ * На запрос с несколькими координатами Open-Meteo отвечает массивом объектов —
+ * он разбирается тем же проходом в список рядов в порядке координат запроса.
+ */
+public final class OpenMeteoSeriesDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Map<String, Integer> DAILY_COLUMNS = new HashMap<>();
+    private static final Map<String, Integer> HOURLY_COLUMNS = new HashMap<>();
+
+    static {
+        for (DailyVariable variable : DailyVariable.values()) {
+            if (variable.apiName() != null) {
+                DAILY_COLUMNS.put(variable.apiName(), variable.ordinal());
+            }
+        }
+        for (HourlyVariable variable : HourlyVariable.values()) {
+            HOURLY_COLUMNS.put(variable.apiName(), variable.ordinal());
+        }
+    }
+
+    // Цель текущего массива внутри секции
+    private static final int TIME_COLUMN = -1;
+    private static final int NO_COLUMN = -2;
+
+    private OpenMeteoSeriesDecoder() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Разбирает тело ответа Open-Meteo
+     *
+     * @param body поток буферов тела ответа
+     * @return ряды ответа (без узла сетки и пропусков — их заполняет сервис)
+     */
+    public static Mono<WeatherSeries> decode(Flux<DataBuffer> body) {
+        return decodeAll(body).map(responses -> {
+            if (responses.size() != 1) {
+                throw new DecodingException("Expected single Open-Meteo response, got " + responses.size());
+            }
+            return responses.get(0);
+        });
+    }
+
+    /**
+     * Разбирает тело ответа Open-Meteo на запрос по нескольким координатам
+     *
+     * @param body поток буферов тела ответа (массив объектов или один объект)
+     * @return ряды по каждой точке в порядке ответа
+     */
+    public static Mono<List<WeatherSeries>> decodeAll(Flux<DataBuffer> body) {
+        return Mono.deferContextual(context -> {
+            DecodeStats.Listener listener = context.getOrDefault(DecodeStats.Listener.class, null);
+            long subscribedAt = System.nanoTime();
+            StreamState state = new StreamState();
+            return body
+                    .doOnNext(buffer -> {
+                        try {
+                            state.feed(buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(state::finish))
+                    .doOnSuccess(responses -> {
+                        if (listener != null) {
+                            listener.onDecoded(new DecodeStats(
+                                    state.bytes, state.decodeNanos, System.nanoTime() - subscribedAt));
+                        }
+                    })
+                    .doFinally(signal -> state.close());
+        });
+    }
+
+    /**
+     * Состояние разбора одного ответа
+     */
+    private static final class StreamState {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+
+        private int depth;
+        // Глубина пропускаемого значения, -1 если ничего не пропускается
+        private int skipDepth = -1;
+        private boolean started;
+        // Глубина объекта ответа: 0 для одиночного ответа, 1 для массива ответов
+        private int base;
+
+        private final List<WeatherSeries> responses = new ArrayList<>();
+
+        // Для DecodeStats
+        private long bytes;
+        private long decodeNanos;
+
+        private String topField;
+        private SectionBuilder section;
+        private int column = NO_COLUMN;
+        private boolean inArray;
+
+        private Double latitude;
+        private Double longitude;
+        private Double elevation;
+        private SectionBuilder hourly;
+        private SectionBuilder daily;
+
+        StreamState() {
+            try {
+                this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create JSON parser", e);
+            }
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        void feed(DataBuffer buffer) {
+            long begin = System.nanoTime();
+            byte[] chunk = new byte[buffer.readableByteCount()];
+            buffer.read(chunk);
+            bytes += chunk.length;
+            try {
+                feeder.feedInput(chunk, 0, chunk.length);
+                drain();
+            } catch (IOException e) {
+                throw new DecodingException("Failed to parse Open-Meteo response: " + e.getMessage(), e);
+            } finally {
+                decodeNanos += System.nanoTime() - begin;
+            }
+        }
+
+        List<WeatherSeries> finish() {
+            long begin = System.nanoTime();
+            try {
+                feeder.endOfInput();
+                drain();
+            } catch (IOException e) {
+                throw new DecodingException("Failed to parse Open-Meteo response: " + e.getMessage(), e);
+            } finally {
+                decodeNanos += System.nanoTime() - begin;
+            }
+            if (!started || depth != 0) {
+                throw new DecodingException("Incomplete Open-Meteo response");
+            }
+            return responses;
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // парсер без внешних ресурсов
+            }
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        }
+
+        private void handle(JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> onStart(token);
+                case END_OBJECT, END_ARRAY -> onEnd();
+                case FIELD_NAME -> onField();
+                default -> onValue(token);
+            }
+        }
+
+        private void onStart(JsonToken token) {
+            depth++;
+            if (depth == 1) {
+                started = true;
+                if (token == JsonToken.START_ARRAY) {
+                    base = 1;
+                } else {
+                    beginResponse();
+                }
+                return;
+            }
+            if (skipDepth >= 0) {
+                return;
+            }
+
+            int level = depth - base;
+            if (level == 1) {
+                if (token == JsonToken.START_OBJECT) {
+                    beginResponse();
+                } else {
+                    skipDepth = depth;
+                }
+                return;
+            }
+            if (level == 2 && token == JsonToken.START_OBJECT && section == null) {
+                if ("hourly".equals(topField)) {
+                    hourly = section = SectionBuilder.hourly();
+                    return;
+                }
+                if ("daily".equals(topField)) {
+                    daily = section = SectionBuilder.daily();
+                    return;
+                }
+            }
+            if (level == 3 && token == JsonToken.START_ARRAY && section != null && column != NO_COLUMN) {
+                inArray = true;
+                return;
+            }
+            skipDepth = depth;
+        }
+
+        private void onEnd() {
+            if (skipDepth == depth) {
+                skipDepth = -1;
+            } else if (skipDepth < 0) {
+                int level = depth - base;
+                if (level == 3 && inArray) {
+                    inArray = false;
+                    column = NO_COLUMN;
+                } else if (level == 2 && section != null) {
+                    section = null;
+                } else if (level == 1) {
+                    completeResponse();
+                }
+            }
+            depth--;
+        }
+
+        private void beginResponse() {
+            topField = null;
+            latitude = null;
+            longitude = null;
+            elevation = null;
+            hourly = null;
+            daily = null;
+        }
+
+        private void completeResponse() {
+            HourlySeries hourlySeries = hourly != null ? hourly.buildHourly() : null;
+            DailySeries dailySeries = daily != null ? daily.buildDaily() : null;
+            responses.add(new WeatherSeries(
+                    latitude, longitude, elevation,
+                    hourlySeries,
+                    // Почвенных дневных агрегатов в API нет — считаем их по почасовым рядам
+                    SoilRollup.rollup(hourlySeries, dailySeries),
+                    null,
+                    null,
+                    false
+            ));
+        }
+
+        private void onField() throws IOException {
+            if (skipDepth >= 0) {
+                return;
+            }
+            int level = depth - base;
+            if (level == 1) {
+                topField = parser.currentName();
+            } else if (level == 2 && section != null) {
+                column = section.columnOf(parser.currentName());
+            }
+        }
+
+        private void onValue(JsonToken token) throws IOException {
+            if (skipDepth >= 0) {
+                return;
+            }
+            int level = depth - base;
+            if (inArray && level == 3) {
+                section.append(column, token, parser);
+            } else if (level == 1 && topField != null && token.isNumeric()) {
+                switch (topField) {
+                    case "latitude" -> latitude = parser.getDoubleValue();
+                    case "longitude" -> longitude = parser.getDoubleValue();
+                    case "elevation" -> elevation = parser.getDoubleValue();
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Буферы одной секции (daily или hourly)
+     */
+    private static final class SectionBuilder {
+
+        private final Map<String, Integer> columnsByName;
+        private final ToIntFunction<CharSequence> timeParser;
+        private final ColumnBuffer.Ints time = new ColumnBuffer.Ints();
+        private final ColumnBuffer.Doubles[] columns;
+
+        private SectionBuilder(Map<String, Integer> columnsByName, ToIntFunction<CharSequence> timeParser,
+                               int variableCount) {
+            this.columnsByName = columnsByName;
+            this.timeParser = timeParser;
+            this.columns = new ColumnBuffer.Doubles[variableCount];
+        }
+
+        static SectionBuilder daily() {
+            return new SectionBuilder(DAILY_COLUMNS, TimeAxis::parseEpochDay, DailySeries.VARIABLE_COUNT);
+        }
+
+        static SectionBuilder hourly() {
+            return new SectionBuilder(HOURLY_COLUMNS, TimeAxis::parseEpochHour, HourlySeries.VARIABLE_COUNT);
+        }
+
+        int columnOf(String name) {
+            if ("time".equals(name)) {
+                return TIME_COLUMN;
+            }
+            Integer index = columnsByName.get(name);
+            if (index == null) {
+                return NO_COLUMN;
+            }
+            if (columns[index] == null) {
+                columns[index] = new ColumnBuffer.Doubles();
+            }
+            return index;
+        }
+
+        void append(int column, JsonToken token, JsonParser parser) throws IOException {
+            if (column == TIME_COLUMN) {
+                if (token != JsonToken.VALUE_STRING) {
+                    throw new DecodingException("Unexpected time value: " + token);
+                }
+                time.add(timeParser.applyAsInt(CharBuffer.wrap(
+                        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())));
+                return;
+            }
+            columns[column].add(token.isNumeric() ? parser.getDoubleValue() : Double.NaN);
+        }
+
+        DailySeries buildDaily() {
+            return new DailySeries(time.toArray(), buildColumns());
+        }
+
+        HourlySeries buildHourly() {
+            return new HourlySeries(time.toArray(), buildColumns());
+        }
+
+        private double[][] buildColumns() {
+            double[][] result = new double[columns.length][];
+            for (int v = 0; v < columns.length; v++) {
+                if (columns[v] != null) {
+                    result[v] = columns[v].toArray(time.size());
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.omstu.weatherservice.series;
+
+/**
+ * Суточные средние почвенных параметров по почасовому ряду.
+ *
+ * Часы сопоставляются дням дневного ряда по номеру дня (обе оси отсортированы), суммы и число
+ * значений копятся прямо в массивах по позициям дней — без строковых ключей и промежуточных списков.
+ * День без почасовых значений получает NaN.
+ */
+public final class SoilRollup {
+
+    private static final HourlyVariable[] SOURCES = {
+            HourlyVariable.SOIL_TEMPERATURE_0CM,
+            HourlyVariable.SOIL_TEMPERATURE_6CM,
+            HourlyVariable.SOIL_TEMPERATURE_18CM,
+            HourlyVariable.SOIL_TEMPERATURE_54CM,
+            HourlyVariable.SOIL_MOISTURE_0_TO_1CM,
+            HourlyVariable.SOIL_MOISTURE_1_TO_3CM,
+            HourlyVariable.SOIL_MOISTURE_3_TO_9CM,
+            HourlyVariable.SOIL_MOISTURE_9_TO_27CM,
+            HourlyVariable.SOIL_MOISTURE_27_TO_81CM
+    };
+
+    private static final DailyVariable[] TARGETS = {
+            DailyVariable.SOIL_TEMPERATURE_0CM_MEAN,
+            DailyVariable.SOIL_TEMPERATURE_6CM_MEAN,
+            DailyVariable.SOIL_TEMPERATURE_18CM_MEAN,
+            DailyVariable.SOIL_TEMPERATURE_54CM_MEAN,
+            DailyVariable.SOIL_MOISTURE_0_TO_1CM_MEAN,
+            DailyVariable.SOIL_MOISTURE_1_TO_3CM_MEAN,
+            DailyVariable.SOIL_MOISTURE_3_TO_9CM_MEAN,
+            DailyVariable.SOIL_MOISTURE_9_TO_27CM_MEAN,
+            DailyVariable.SOIL_MOISTURE_27_TO_81CM_MEAN
+    };
+
+    private SoilRollup() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Дневной ряд с суточными средними почвенных параметров
+     *
+     * @param hourly почасовой ряд (null — почвенные колонки не меняются)
+     * @param daily  дневной ряд
+     * @return новый дневной ряд; колонки остальных переменных общие с исходным
+     */
+    public static DailySeries rollup(HourlySeries hourly, DailySeries daily) {
+        if (daily == null || hourly == null) {
+            return daily;
+        }
+
+        int days = daily.size();
+        double[][] hourlyColumns = new double[SOURCES.length][];
+        double[][] sums = new double[SOURCES.length][];
+        int[][] counts = new int[SOURCES.length][];
+        boolean any = false;
+        for (int v = 0; v < SOURCES.length; v++) {
+            hourlyColumns[v] = hourly.column(SOURCES[v]);
+            if (hourlyColumns[v] != null) {
+                sums[v] = new double[days];
+                counts[v] = new int[days];
+                any = true;
+            }
+        }
+        if (!any) {
+            return daily;
+        }
+
+        int d = 0;
+        for (int i = 0; i < hourly.size() && d < days; i++) {
+            int day = hourly.epochDayAt(i);
+            while (d < days && daily.timeAt(d) < day) {
+                d++;
+            }
+            if (d == days || daily.timeAt(d) != day) {
+                continue;
+            }
+            for (int v = 0; v < SOURCES.length; v++) {
+                double[] source = hourlyColumns[v];
+                if (source != null && !Double.isNaN(source[i])) {
+                    sums[v][d] += source[i];
+                    counts[v][d]++;
+                }
+            }
+        }
+
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        for (DailyVariable variable : DailyVariable.values()) {
+            columns[variable.ordinal()] = daily.column(variable);
+        }
+        for (int v = 0; v < SOURCES.length; v++) {
+            if (sums[v] == null) {
+                continue;
+            }
+            double[] means = new double[days];
+            for (int k = 0; k < days; k++) {
+                means[k] = counts[v][k] > 0 ? sums[v][k] / counts[v][k] : Double.NaN;
+            }
+            columns[TARGETS[v].ordinal()] = means;
+        }
+        return new DailySeries(daily.times(), columns);
+    }
+}
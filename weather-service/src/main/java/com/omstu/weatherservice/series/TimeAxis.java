@@ -0,0 +1,58 @@
+package com.omstu.weatherservice.series;
+
+import java.time.LocalDate;
+
+/**
+ * Преобразование меток времени Open-Meteo ("yyyy-MM-dd", "yyyy-MM-ddTHH:mm") в целочисленную ось и обратно.
+ * Разбор идет по символам, без создания промежуточных строк.
+ */
+public final class TimeAxis {
+
+    private TimeAxis() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * "yyyy-MM-dd" (допускается продолжение "THH:mm") → номер дня от эпохи
+     */
+    public static int parseEpochDay(CharSequence text) {
+        if (text.length() < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + text);
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    /**
+     * "yyyy-MM-ddTHH:mm" → номер часа от эпохи (минуты отбрасываются)
+     */
+    public static int parseEpochHour(CharSequence text) {
+        if (text.length() < 13 || text.charAt(10) != 'T') {
+            throw new IllegalArgumentException("Invalid date-time: " + text);
+        }
+        return parseEpochDay(text) * 24 + digits(text, 11, 13);
+    }
+
+    public static String formatEpochDay(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    public static String formatEpochHour(int epochHour) {
+        int hour = Math.floorMod(epochHour, 24);
+        return formatEpochDay(Math.floorDiv(epochHour, 24)) + (hour < 10 ? "T0" : "T") + hour + ":00";
+    }
+
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid date: " + text);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.omstu.weatherservice.series;
+
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.MissingPeriod;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Внутреннее представление ответа Open-Meteo.
+ * Весь конвейер сервиса (стратегии, архив, кэши, расчет метрик) работает с ним;
+ * в публичные DTO оно преобразуется только в контроллерах.
+ *
+ * @param hourly         почасовой ряд (null, если не запрашивался)
+ * @param daily          дневной ряд (null, если не запрашивался)
+ * @param gridCell       узел сетки, к которому привязан запрос
+ * @param missingPeriods интервалы, которые не удалось загрузить (null, если ответ полный)
+ * @param stale          ряд собран из устаревших данных, потому что Open-Meteo недоступен
+ */
+public record WeatherSeries(
+        Double latitude, Double longitude, Double elevation,
+        HourlySeries hourly, DailySeries daily,
+        GridCell gridCell,
+        List<MissingPeriod> missingPeriods,
+        boolean stale
+) {
+
+    public WeatherSeries withGridCell(GridCell cell) {
+        return new WeatherSeries(latitude, longitude, elevation, hourly, daily, cell, missingPeriods, stale);
+    }
+
+    public WeatherSeries withMissingPeriods(List<MissingPeriod> periods) {
+        return new WeatherSeries(latitude, longitude, elevation, hourly, daily, gridCell, periods, stale);
+    }
+
+    public WeatherSeries asStale() {
+        return new WeatherSeries(latitude, longitude, elevation, hourly, daily, gridCell, missingPeriods, true);
+    }
+
+    /**
+     * Склеивает ответы по соседним периодам в порядке списка; координаты берутся из первого
+     */
+    public static WeatherSeries concat(List<WeatherSeries> parts) {
+        if (parts == null || parts.isEmpty()) {
+            throw new IllegalStateException("No successful responses received");
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+
+        WeatherSeries first = parts.get(0);
+
+        List<HourlySeries> hourly = parts.stream().map(WeatherSeries::hourly).filter(Objects::nonNull).toList();
+        List<DailySeries> daily = parts.stream().map(WeatherSeries::daily).filter(Objects::nonNull).toList();
+
+        return new WeatherSeries(
+                first.latitude(),
+                first.longitude(),
+                first.elevation(),
+                hourly.isEmpty() ? null : HourlySeries.concat(hourly),
+                daily.isEmpty() ? null : DailySeries.concat(daily),
+                first.gridCell(),
+                null,
+                parts.stream().anyMatch(WeatherSeries::stale)
+        );
+    }
+}
@@ -1,9 +1,20 @@
 package com.omstu.weatherservice.service;
 
+import com.omstu.weatherservice.dto.AggregationPeriod;
 import com.omstu.weatherservice.dto.AgrometricalData;
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.dto.ForecastWindowResponse;
+import com.omstu.weatherservice.dto.MetricWindow;
+import com.omstu.weatherservice.dto.PeriodAggregatesResponse;
+import com.omstu.weatherservice.dto.SeasonalBatchItem;
+import com.omstu.weatherservice.dto.SeasonalBatchResult;
+import com.omstu.weatherservice.dto.WindowMetricsResponse;
+import com.omstu.weatherservice.dto.WindowSumsResponse;
+import com.omstu.weatherservice.series.WeatherSeries;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * Сервис для расчета агрометеорологических показателей
  */
@@ -31,12 +42,12 @@ public interface AgroMetricsService {
     Mono<AgrometricalData> calculateForecastMetrics(Double lat, Double lon, Integer days);
 
     /**
-     * Рассчитывает метрики из готового ответа Open-Meteo
+     * Рассчитывает метрики из уже загруженных погодных рядов
      *
-     * @param response ответ от Open-Meteo API
+     * @param series погодные ряды Open-Meteo
      * @return агрометеорологические данные
      */
-    AgrometricalData calculateMetricsFromResponse(OpenMeteoResponse response);
+    AgrometricalData calculateMetricsFromSeries(WeatherSeries series);
 
     /**
      * Рассчитывает усредненные агрометрики за несколько лет для более точного прогноза
@@ -76,5 +87,60 @@ public interface AgroMetricsService {
      */
     Mono<com.omstu.weatherservice.dto.SeasonalAgrometricsResponse> calculateSeasonalMetrics(
             Double lat, Double lon, Integer year);
-}
 
+    /**
+     * Рассчитать сезонные метрики для множества позиций за один вызов.
+     * Позиции с одинаковыми узлом сетки и годом считаются одним вызовом calculateSeasonalMetrics,
+     * ячейки загружаются с ограниченным параллелизмом, результаты отдаются по мере готовности.
+     *
+     * @param items позиции (id, координаты, год урожая)
+     * @return результат по каждой позиции; ошибка позиции не прерывает остальные
+     */
+    Flux<SeasonalBatchResult> calculateSeasonalMetricsBatch(List<SeasonalBatchItem> items);
+
+    /**
+     * Сводка почасового прогноза на 7 и 14 дней: температура, влажность, осадки, ветер.
+     * Используется закэшированный прогноз ячейки, если он есть.
+     *
+     * @param lat  широта
+     * @param lon  долгота
+     * @param days горизонт запрашиваемого прогноза (макс. 16; меньше 14 дней не запрашивается)
+     * @return сводка прогноза
+     */
+    Mono<ForecastWindowResponse> calculateForecastWindow(Double lat, Double lon, Integer days);
+
+    /**
+     * Рассчитывает агрометрики по произвольному набору интервалов (например, фазам развития культуры).
+     * Данные загружаются одним запросом за общий период, все интервалы считаются за один проход.
+     *
+     * @param lat     широта
+     * @param lon     долгота
+     * @param windows именованные интервалы дат (не более 24, названия уникальны)
+     * @return метрики по каждому интервалу
+     */
+    Mono<WindowMetricsResponse> calculateWindowMetrics(Double lat, Double lon, List<MetricWindow> windows);
+
+    /**
+     * Рассчитывает суммы ГТК (осадки, эффективные температуры, дни жары) по множеству интервалов.
+     * Используется префиксный индекс ячейки: каждый интервал считается за постоянное время.
+     *
+     * @param lat     широта
+     * @param lon     долгота
+     * @param windows именованные интервалы дат (не более 24, названия уникальны)
+     * @return суммы по каждому интервалу
+     */
+    Mono<WindowSumsResponse> calculateWindowSums(Double lat, Double lon, List<MetricWindow> windows);
+
+    /**
+     * Сводка сумм ГТК по неделям, декадам или месяцам периода
+     *
+     * @param lat       широта
+     * @param lon       долгота
+     * @param startDate начальная дата периода (формат: yyyy-MM-dd)
+     * @param endDate   конечная дата периода (формат: yyyy-MM-dd)
+     * @param period    шаг сводки
+     * @return суммы по каждому шагу периода
+     */
+    Mono<PeriodAggregatesResponse> calculatePeriodAggregates(
+            Double lat, Double lon, String startDate, String endDate, AggregationPeriod period);
+}
@@ -0,0 +1,35 @@
+package com.omstu.weatherservice.service;
+
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.WeatherSeries;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.function.BiFunction;
+
+/**
+ * Локальный архив дневных наблюдений Open-Meteo.
+ * Прошедшие дни не меняются, поэтому каждый день ячейки запрашивается у API только один раз.
+ */
+public interface WeatherArchiveService {
+
+    /**
+     * Ключ контекста Reactor, которым помечены запросы плановой догрузки архива:
+     * они не продлевают активность ячейки
+     */
+    String INGEST_CONTEXT_KEY = "weather.archive.ingest";
+
+    /**
+     * Возвращает дневные данные за период: то, что есть в архиве, отдается из БД,
+     * недостающие интервалы догружаются через upstreamFetcher и сохраняются.
+     *
+     * @param cell            ячейка сетки
+     * @param startDate       начальная дата периода
+     * @param endDate         конечная дата периода
+     * @param upstreamFetcher загрузка интервала (начало, конец) из Open-Meteo
+     * @return дневные данные за весь период
+     */
+    Mono<WeatherSeries> getDailyHistory(
+            GridCell cell, LocalDate startDate, LocalDate endDate,
+            BiFunction<LocalDate, LocalDate, Mono<WeatherSeries>> upstreamFetcher);
+}
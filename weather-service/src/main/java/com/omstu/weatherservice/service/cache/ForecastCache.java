@@ -0,0 +1,190 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.HourlySeries;
+import com.omstu.weatherservice.series.WeatherSeries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный in-memory кэш прогнозов Open-Meteo.
+ *
+ * - запись живет до публикации следующего прогона модели (расписание из настроек)
+ * - вытеснение по суммарному весу записей (число значений временных рядов)
+ * - запрос короткого горизонта обслуживается началом закэшированного более длинного прогноза той же ячейки
+ * - попадания, промахи и вытеснения публикуются в Micrometer как метрики cache.* с тегом cache=weather.forecast
+ * - последний загруженный прогноз ячейки хранится дольше (staleRetention): если после истечения записи
+ *   API не ответил за staleServeAfter или ответил ошибкой, отдается эта копия с отметкой stale,
+ *   а загрузка продолжается в фоне и обновляет кэш (stale-while-revalidate)
+ */
+@Component
+@Slf4j
+public class ForecastCache {
+
+    private static final String CACHE_NAME = "weather.forecast";
+    private static final String STALE_CACHE_NAME = "weather.forecast.stale";
+
+    // Максимальный горизонт прогноза Open-Meteo
+    private static final int MAX_FORECAST_DAYS = 16;
+
+    private final Cache<ForecastCacheKey, WeatherSeries> cache;
+    private final Cache<ForecastCacheKey, WeatherSeries> staleCopies;
+    private final Duration staleServeAfter;
+    private final List<Integer> modelRunHoursUtc;
+    private final Duration publicationDelay;
+
+    public ForecastCache(WeatherApiProperties properties, MeterRegistry meterRegistry) {
+        WeatherApiProperties.ForecastCache settings = properties.getForecastCache();
+        this.modelRunHoursUtc = settings.getModelRunHoursUtc().stream().sorted().toList();
+        this.publicationDelay = settings.getPublicationDelay();
+        this.staleServeAfter = settings.getStaleServeAfter();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxWeight())
+                .weigher((ForecastCacheKey key, WeatherSeries value) -> weigh(value))
+                .expireAfter(new ModelRunExpiry())
+                .recordStats()
+                .build();
+
+        this.staleCopies = Caffeine.newBuilder()
+                .maximumWeight(settings.getStaleMaxWeight())
+                .weigher((ForecastCacheKey key, WeatherSeries value) -> weigh(value))
+                .expireAfterWrite(settings.getStaleRetention())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, staleCopies, STALE_CACHE_NAME);
+
+        log.info("Forecast cache initialized: maxWeight={}, model runs at {} UTC, publication delay {}",
+                settings.getMaxWeight(), modelRunHoursUtc, publicationDelay);
+    }
+
+    /**
+     * Возвращает прогноз из кэша или загружает его и сохраняет до следующего прогона модели
+     *
+     * @param key    ключ прогноза
+     * @param loader загрузка прогноза из API
+     * @return прогноз
+     */
+    public Mono<WeatherSeries> getOrLoad(ForecastCacheKey key, Supplier<Mono<WeatherSeries>> loader) {
+        WeatherSeries cached = cache.getIfPresent(key);
+        if (cached != null) {
+            log.debug("Forecast cache hit for {}", key.cell());
+            return Mono.just(cached);
+        }
+
+        // Прогноз на больший срок того же прогона начинается с тех же дней — берем его начало
+        for (int days = key.forecastDays() + 1; days <= MAX_FORECAST_DAYS; days++) {
+            // asMap().get не учитывается в статистике промахов
+            WeatherSeries longer = cache.asMap().get(new ForecastCacheKey(key.cell(), days, key.variables()));
+            if (longer != null) {
+                log.debug("Forecast cache hit for {} via {}-day forecast", key.cell(), days);
+                return Mono.just(truncate(longer, key.forecastDays()));
+            }
+        }
+
+        Mono<WeatherSeries> load = loader.get()
+                .doOnNext(response -> {
+                    cache.put(key, response);
+                    staleCopies.put(key, response);
+                });
+
+        WeatherSeries stale = staleCopies.getIfPresent(key);
+        if (stale == null) {
+            return load;
+        }
+
+        // cache() не отменяет загрузку, когда ожидание прерывается таймаутом: она завершится в фоне
+        Mono<WeatherSeries> refresh = load.cache();
+        return refresh
+                .timeout(staleServeAfter)
+                .onErrorResume(e -> {
+                    log.warn("Serving stale forecast for {}: {}", key.cell(), e.getMessage());
+                    return Mono.just(stale.asStale());
+                });
+    }
+
+    /**
+     * Первые days дней прогноза
+     */
+    private static WeatherSeries truncate(WeatherSeries series, int days) {
+        HourlySeries hourly = series.hourly();
+        DailySeries daily = series.daily();
+        return new WeatherSeries(
+                series.latitude(), series.longitude(), series.elevation(),
+                hourly != null && !hourly.isEmpty()
+                        ? hourly.slice(0, hourly.lowerBound(hourly.timeAt(0) + days * 24)) : hourly,
+                daily != null && !daily.isEmpty()
+                        ? daily.slice(0, daily.lowerBound(daily.timeAt(0) + days)) : daily,
+                series.gridCell(),
+                series.missingPeriods(),
+                series.stale()
+        );
+    }
+
+    /**
+     * Момент, когда в API появится прогноз следующего прогона модели
+     */
+    Instant nextPublicationAfter(Instant now) {
+        LocalDate today = now.atZone(ZoneOffset.UTC).toLocalDate();
+        for (int dayOffset = -1; dayOffset <= 1; dayOffset++) {
+            LocalDate day = today.plusDays(dayOffset);
+            for (Integer hour : modelRunHoursUtc) {
+                Instant published = day.atTime(hour, 0).toInstant(ZoneOffset.UTC).plus(publicationDelay);
+                if (published.isAfter(now)) {
+                    return published;
+                }
+            }
+        }
+        // Пустое расписание: не держим запись дольше суток
+        return now.plus(Duration.ofDays(1));
+    }
+
+    // Вес — число значений рядов (колонки плюс ось времени)
+    private static int weigh(WeatherSeries series) {
+        long weight = 1;
+        if (series.hourly() != null) {
+            weight += (long) series.hourly().size() * (HourlySeries.VARIABLE_COUNT + 1);
+        }
+        if (series.daily() != null) {
+            weight += (long) series.daily().size() * (DailySeries.VARIABLE_COUNT + 1);
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private class ModelRunExpiry implements Expiry<ForecastCacheKey, WeatherSeries> {
+
+        @Override
+        public long expireAfterCreate(ForecastCacheKey key, WeatherSeries value, long currentTime) {
+            Instant now = Instant.now();
+            return Duration.between(now, nextPublicationAfter(now)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(ForecastCacheKey key, WeatherSeries value,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ForecastCacheKey key, WeatherSeries value,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.omstu.weatherservice.dto.GridCell;
+
+/**
+ * Ключ кэша прогнозов: узел сетки, горизонт прогноза и набор запрашиваемых переменных
+ */
+public record ForecastCacheKey(GridCell cell, int forecastDays, String variables) {
+}
@@ -0,0 +1,86 @@
+package com.omstu.weatherservice.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Реестр выполняющихся запросов (single-flight).
+ * Одновременные вызовы с одинаковым ключом подписываются на один общий Mono
+ * вместо того, чтобы открывать собственный запрос к Open-Meteo.
+ * Запись удаляется, как только запрос завершился, поэтому результаты здесь не кэшируются.
+ * Если все присоединившиеся вызовы отменены, запрос к источнику отменяется и запись тоже удаляется.
+ */
+@Component
+@Slf4j
+public class InFlightRequestRegistry {
+
+    private final Map<Object, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaderCounter;
+    private final Counter coalescedCounter;
+
+    public InFlightRequestRegistry(MeterRegistry meterRegistry) {
+        this.leaderCounter = Counter.builder("weather.requests.singleflight")
+                .description("Запросы, выполненные к источнику данных")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("weather.requests.singleflight")
+                .description("Запросы, присоединившиеся к уже выполняющемуся")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("weather.requests.inflight", inFlight, Map::size)
+                .description("Число выполняющихся уникальных запросов")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает общий Mono для ключа: если такой запрос уже выполняется — присоединяется к нему,
+     * иначе запускает loader
+     *
+     * @param key    ключ запроса
+     * @param loader запуск запроса
+     * @return результат запроса
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> join(Object key, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            Mono<T> existing = (Mono<T>) inFlight.get(key);
+            if (existing != null) {
+                return coalesce(key, existing);
+            }
+
+            AtomicReference<Mono<T>> self = new AtomicReference<>();
+            // replay + refCount: общий результат для всех участников, а отмена последнего из них
+            // отменяет загрузку (cache() продолжал бы ее без подписчиков, удерживая запись)
+            Mono<T> shared = Mono.defer(loader)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .flux()
+                    .replay(1)
+                    .refCount()
+                    .next();
+            self.set(shared);
+
+            Mono<T> winner = (Mono<T>) inFlight.putIfAbsent(key, shared);
+            if (winner != null) {
+                return coalesce(key, winner);
+            }
+
+            leaderCounter.increment();
+            return shared;
+        });
+    }
+
+    private <T> Mono<T> coalesce(Object key, Mono<T> shared) {
+        coalescedCounter.increment();
+        log.debug("Joined in-flight request {}", key);
+        return shared;
+    }
+}
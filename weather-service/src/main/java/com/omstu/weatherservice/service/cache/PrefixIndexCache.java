@@ -0,0 +1,74 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.service.metrics.DailyPrefixIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * In-memory кэш префиксных индексов по ячейкам сетки.
+ *
+ * - прошедшие дни не меняются, поэтому запись живет, пока к ней обращаются
+ * - вытеснение по суммарному весу (число значений префиксных массивов)
+ * - метрики публикуются в Micrometer как cache.* с тегом cache=weather.prefix-index
+ */
+@Component
+@Slf4j
+public class PrefixIndexCache {
+
+    private static final String CACHE_NAME = "weather.prefix-index";
+
+    private final Cache<PrefixIndexKey, DailyPrefixIndex> cache;
+
+    public PrefixIndexCache(WeatherApiProperties properties, MeterRegistry meterRegistry) {
+        WeatherApiProperties.PrefixIndexCache settings = properties.getPrefixIndexCache();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxWeight())
+                .weigher((PrefixIndexKey key, DailyPrefixIndex value) -> value.weight())
+                .expireAfterAccess(settings.getExpireAfterAccess())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        log.info("Prefix index cache initialized: maxWeight={}, expireAfterAccess={}",
+                settings.getMaxWeight(), settings.getExpireAfterAccess());
+    }
+
+    /**
+     * Возвращает индекс из кэша или строит его. Индекс по неполным данным отдается, но не кэшируется,
+     * чтобы недостающие дни догрузились при следующем обращении
+     *
+     * @param key    ячейка и период
+     * @param loader построение индекса
+     * @return индекс
+     */
+    public Mono<DailyPrefixIndex> getOrLoad(PrefixIndexKey key, Supplier<Mono<LoadedIndex>> loader) {
+        DailyPrefixIndex cached = cache.getIfPresent(key);
+        if (cached != null) {
+            log.debug("Prefix index cache hit for {}", key);
+            return Mono.just(cached);
+        }
+        return loader.get()
+                .doOnNext(loaded -> {
+                    if (loaded.complete()) {
+                        cache.put(key, loaded.index());
+                    }
+                })
+                .map(LoadedIndex::index);
+    }
+
+    /**
+     * Построенный индекс; неполный (часть периода не загрузилась) в кэш не попадает
+     */
+    public record LoadedIndex(DailyPrefixIndex index, boolean complete) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.omstu.weatherservice.dto.GridCell;
+
+import java.time.LocalDate;
+
+/**
+ * Ключ кэша префиксных индексов: узел сетки и покрываемый период
+ */
+public record PrefixIndexKey(GridCell cell, LocalDate firstDate, LocalDate lastDate) {
+}
@@ -0,0 +1,36 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.service.WeatherArchiveService;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import reactor.util.context.ContextView;
+
+/**
+ * Ключ запроса погодных данных для объединения одновременных одинаковых запросов.
+ *
+ * Общая загрузка выполняется в контексте Reactor первого вызова, поэтому в ключ входят значения
+ * контекста, от которых она зависит: полоса ограничителя и признак плановой догрузки архива.
+ * Интерактивный запрос не присоединяется к фоновой загрузке той же ячейки и не наследует
+ * ее полосу, окно объединения ячеек и пропуск отметки активности.
+ */
+public record WeatherRequestKey(
+        GridCell cell, WeatherRequestType type,
+        Integer days, String startDate, String endDate,
+        RequestPriority priority, boolean ingest
+) {
+
+    public static WeatherRequestKey forecast(GridCell cell, Integer days, ContextView context) {
+        return new WeatherRequestKey(cell, WeatherRequestType.FORECAST, days, null, null,
+                RequestPriority.from(context), isIngest(context));
+    }
+
+    public static WeatherRequestKey historical(GridCell cell, String startDate, String endDate, ContextView context) {
+        return new WeatherRequestKey(cell, WeatherRequestType.HISTORIC, null, startDate, endDate,
+                RequestPriority.from(context), isIngest(context));
+    }
+
+    private static boolean isIngest(ContextView context) {
+        return context.hasKey(WeatherArchiveService.INGEST_CONTEXT_KEY);
+    }
+}
@@ -1,18 +1,42 @@
 package com.omstu.weatherservice.service.impl;
 
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.AggregationPeriod;
 import com.omstu.weatherservice.dto.AgrometricalData;
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.dto.ForecastWindowResponse;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.MetricWindow;
+import com.omstu.weatherservice.dto.PeriodAggregatesResponse;
 import com.omstu.weatherservice.dto.SeasonalAgrometricsResponse;
+import com.omstu.weatherservice.dto.SeasonalBatchItem;
+import com.omstu.weatherservice.dto.SeasonalBatchResult;
 import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.dto.WindowMetricsResponse;
+import com.omstu.weatherservice.dto.WindowSums;
+import com.omstu.weatherservice.dto.WindowSumsResponse;
+import com.omstu.weatherservice.series.WeatherSeries;
 import com.omstu.weatherservice.service.AgroMetricsService;
+import com.omstu.weatherservice.service.cache.PrefixIndexCache;
+import com.omstu.weatherservice.service.cache.PrefixIndexKey;
+import com.omstu.weatherservice.service.metrics.DailyPrefixIndex;
+import com.omstu.weatherservice.service.metrics.ForecastWindowAggregator;
+import com.omstu.weatherservice.service.metrics.WindowMetricsEngine;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.utils.DateUtils;
+import com.omstu.weatherservice.validation.DateValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Реализация сервиса для расчета агрометеорологических показателей
@@ -23,12 +47,18 @@ import java.util.List;
 public class AgrometricalDataServiceImpl implements AgroMetricsService {
 
     private final OpenMeteoService openMeteoService;
+    private final PrefixIndexCache prefixIndexCache;
+    private final DateValidator dateValidator;
+    private final WeatherApiProperties properties;
 
-    private static final double ACTIVE_TEMP_THRESHOLD = 10.0;
-    private static final double HEAT_STRESS_THRESHOLD = 30.0;
-    private static final double EXTREME_HEAT_THRESHOLD = 35.0;
-    private static final double GTK_MULTIPLIER = 10.0;
-    private static final double DRY_DAY_THRESHOLD = 1.0;
+    private static final String OCT_MAR = "octMar";
+    private static final String APR_MAY = "aprMay";
+    private static final String JUN_JUL = "junJul";
+    private static final String AUG_SEP = "augSep";
+    private static final String APR_SEP = "aprSep";
+
+    // Максимум интервалов в одном запросе произвольных интервалов
+    private static final int MAX_CUSTOM_WINDOWS = 24;
 
     @Override
     public Mono<AgrometricalData> calculateHistoricalMetrics(
@@ -38,7 +68,7 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
                 startDate, endDate, lat, lon);
 
         return openMeteoService.getWeather(lat, lon, WeatherRequestType.HISTORIC, null, startDate, endDate)
-                .map(this::calculateMetricsFromResponse)
+                .map(this::calculateMetricsFromSeries)
                 .doOnSuccess(metrics -> log.info("Historical metrics calculated: GTK={}", metrics.gtk()))
                 .doOnError(e -> log.error("Failed to calculate historical metrics: {}", e.getMessage()));
     }
@@ -48,127 +78,32 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
         log.info("Calculating forecast agro metrics for {} days at location: lat={}, lon={}", days, lat, lon);
 
         return openMeteoService.getWeather(lat, lon, WeatherRequestType.FORECAST, days, null, null)
-                .map(this::calculateMetricsFromResponse)
+                .map(this::calculateMetricsFromSeries)
                 .doOnSuccess(metrics -> log.info("Forecast metrics calculated: GTK={}", metrics.gtk()))
                 .doOnError(e -> log.error("Failed to calculate forecast metrics: {}", e.getMessage()));
     }
 
     @Override
-    public AgrometricalData calculateMetricsFromResponse(OpenMeteoResponse response) {
-        if (response.daily() == null) {
-            return createEmptyMetrics();
-        }
-
-        List<Double> temperatures = response.daily().temperatureMax();
-        List<Double> precipitations = response.daily().precipitationSum();
-        List<Double> tempMean = response.daily().temperatureMean();
-
-        if (temperatures == null || temperatures.isEmpty()) {
-            return createEmptyMetrics();
-        }
-
-        return computeMetrics(temperatures, precipitations, tempMean);
-    }
-
-    /**
-     * Вычисляет метрики для подмножества дней, отфильтрованных по диапазону дат.
-     */
-    private AgrometricalData computeMetricsForPeriod(
-            OpenMeteoResponse response, LocalDate from, LocalDate to
-    ) {
-        if (response.daily() == null || response.daily().time() == null) {
-            return createEmptyMetrics();
-        }
-
-        List<String> times = response.daily().time();
-        List<Double> tempMax = response.daily().temperatureMax();
-        List<Double> precip = response.daily().precipitationSum();
-        List<Double> tempMean = response.daily().temperatureMean();
-
-        List<Double> filteredTemp = new ArrayList<>();
-        List<Double> filteredPrecip = new ArrayList<>();
-        List<Double> filteredMean = new ArrayList<>();
-
-        for (int i = 0; i < times.size(); i++) {
-            LocalDate date = LocalDate.parse(times.get(i));
-            if (!date.isBefore(from) && !date.isAfter(to)) {
-                filteredTemp.add(tempMax != null && i < tempMax.size() ? tempMax.get(i) : null);
-                filteredPrecip.add(precip != null && i < precip.size() ? precip.get(i) : null);
-                filteredMean.add(tempMean != null && i < tempMean.size() ? tempMean.get(i) : null);
-            }
-        }
-
-        return computeMetrics(filteredTemp, filteredPrecip, filteredMean);
+    public Mono<ForecastWindowResponse> calculateForecastWindow(Double lat, Double lon, Integer days) {
+        // Окна сводки фиксированы (7 и 14 дней): с более коротким горизонтом под теми же именами
+        // вернулись бы неполные суммы, поэтому прогноз всегда берется не короче 14 дней
+        // (некорректное значение уходит в валидацию как есть)
+        Integer horizon = days != null && days > 0
+                ? Math.max(days, ForecastWindowAggregator.LONG_WINDOW_DAYS)
+                : days;
+        log.info("Calculating forecast window for {} days at location: lat={}, lon={}", horizon, lat, lon);
+
+        return openMeteoService.getWeather(lat, lon, WeatherRequestType.FORECAST, horizon, null, null)
+                .map(series -> ForecastWindowAggregator.aggregate(series.hourly(), series.gridCell()))
+                .doOnError(e -> log.error("Failed to calculate forecast window: {}", e.getMessage()));
     }
 
-    private AgrometricalData computeMetrics(
-            List<Double> temperatures, List<Double> precipitations, List<Double> tempMean
-    ) {
-        double sumEffectiveTemp = 0.0;
-        double sumPrecipitation = 0.0;
-        double sumAllPrecip = 0.0;
-        int heatStressDays = 0;
-        int extremeHeatDays = 0;
-        double minTemp = Double.MAX_VALUE;
-        double sumMeanTemp = 0.0;
-        int meanTempCount = 0;
-
-        // For longest dry period
-        int currentDryStreak = 0;
-        int longestDryPeriod = 0;
-
-        for (int i = 0; i < temperatures.size(); i++) {
-            Double tempVal = temperatures.get(i);
-            if (tempVal == null) continue;
-            double temp = tempVal;
-
-            double rain = (precipitations != null && i < precipitations.size() && precipitations.get(i) != null)
-                    ? precipitations.get(i) : 0.0;
-
-            sumAllPrecip += rain;
-
-            if (temp < minTemp) minTemp = temp;
-            if (temp > HEAT_STRESS_THRESHOLD) heatStressDays++;
-            if (temp > EXTREME_HEAT_THRESHOLD) extremeHeatDays++;
-
-            if (temp > ACTIVE_TEMP_THRESHOLD) {
-                sumEffectiveTemp += temp;
-                sumPrecipitation += rain;
-            }
-
-            // Mean temp
-            if (tempMean != null && i < tempMean.size() && tempMean.get(i) != null) {
-                sumMeanTemp += tempMean.get(i);
-                meanTempCount++;
-            }
-
-            // Dry streak
-            if (rain < DRY_DAY_THRESHOLD) {
-                currentDryStreak++;
-                if (currentDryStreak > longestDryPeriod) longestDryPeriod = currentDryStreak;
-            } else {
-                currentDryStreak = 0;
-            }
-        }
-
-        double gtk = calculateGtk(sumPrecipitation, sumEffectiveTemp);
-        String stressLevel = interpretGtk(gtk);
-        double avgTemp = meanTempCount > 0 ? sumMeanTemp / meanTempCount : 0.0;
-        if (minTemp == Double.MAX_VALUE) minTemp = 0.0;
-
-        return new AgrometricalData(
-                gtk, sumAllPrecip, sumEffectiveTemp,
-                heatStressDays, minTemp, stressLevel,
-                avgTemp, extremeHeatDays, longestDryPeriod
-        );
-    }
-
-    private double calculateGtk(double sumPrecipitation, double sumEffectiveTemp) {
-        if (sumEffectiveTemp <= 0) return 0.0;
-        return (sumPrecipitation * GTK_MULTIPLIER) / sumEffectiveTemp;
+    @Override
+    public AgrometricalData calculateMetricsFromSeries(WeatherSeries series) {
+        return WindowMetricsEngine.computeAll(series.daily()).withGridCell(series.gridCell());
     }
 
-     @Override
+    @Override
     public Mono<AgrometricalData> calculateAveragedMetrics(
             Double lat, Double lon, String cropStartDate, Integer durationDays, Integer yearsCount) {
 
@@ -191,27 +126,50 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
         try {
             int month = Integer.parseInt(parts[0]);
             int day = Integer.parseInt(parts[1]);
-            int currentYear = java.time.LocalDate.now().getYear();
-
-            // Получаем данные за несколько лет и усредняем
-            return reactor.core.publisher.Flux.range(0, yearsCount)
-                    .flatMap(offset -> {
-                        int referenceYear = currentYear - 1 - offset;
-                        java.time.LocalDate startDate = java.time.LocalDate.of(referenceYear, month, day);
-                        java.time.LocalDate endDate = startDate.plusDays(durationDays);
-
-                        log.debug("Fetching data for year {} (period: {} to {})",
-                                referenceYear, startDate, endDate);
-
-                        return calculateHistoricalMetrics(
-                                lat, lon, startDate.toString(), endDate.toString())
-                                .onErrorResume(e -> {
-                                    log.warn("Failed to fetch data for year {}: {}",
-                                            referenceYear, e.getMessage());
-                                    return Mono.empty();
-                                });
+            int currentYear = LocalDate.now().getYear();
+
+            // Интервалы по годам; годы вне доступного архива пропускаются, как и раньше
+            List<MetricWindow> windows = new ArrayList<>();
+            for (int offset = 0; offset < yearsCount; offset++) {
+                int referenceYear = currentYear - 1 - offset;
+                LocalDate startDate = LocalDate.of(referenceYear, month, day);
+                LocalDate endDate = startDate.plusDays(durationDays);
+                if (startDate.isBefore(properties.getMinHistoricalDate())
+                        || endDate.isAfter(properties.getMaxHistoricalDate())) {
+                    log.warn("Skipping year {}: period {} to {} is outside the archive",
+                            referenceYear, startDate, endDate);
+                    continue;
+                }
+                windows.add(new MetricWindow(String.valueOf(referenceYear), startDate, endDate));
+            }
+            if (windows.isEmpty()) {
+                return Mono.error(new RuntimeException("No historical data available"));
+            }
+
+            // Один непрерывный запрос за объединение интервалов (длинный период грузится частями),
+            // затем все годы считаются за один проход по ряду
+            LocalDate spanStart = windows.stream().map(MetricWindow::startDate).min(LocalDate::compareTo).orElseThrow();
+            LocalDate spanEnd = windows.stream().map(MetricWindow::endDate).max(LocalDate::compareTo).orElseThrow();
+
+            log.debug("Fetching {} to {} for {} reference years", spanStart, spanEnd, windows.size());
+
+            return openMeteoService.getWeather(lat, lon, WeatherRequestType.HISTORIC, null,
+                            spanStart.toString(), spanEnd.toString())
+                    .map(series -> {
+                        Map<String, AgrometricalData> byYear = WindowMetricsEngine.compute(series.daily(), windows);
+                        List<AgrometricalData> metricsList = new ArrayList<>();
+                        for (MetricWindow window : windows) {
+                            // Год, за который в ряду нет ни одного дня (например, не загрузилась часть периода)
+                            if (series.daily() == null
+                                    || series.daily().indexFrom(window.startDate())
+                                    >= series.daily().indexTo(window.endDate())) {
+                                log.warn("No data for year {}", window.name());
+                                continue;
+                            }
+                            metricsList.add(byYear.get(window.name()).withGridCell(series.gridCell()));
+                        }
+                        return metricsList;
                     })
-                    .collectList()
                     .map(metricsList -> {
                         if (metricsList.isEmpty()) {
                             log.error("No data retrieved for any year");
@@ -255,7 +213,8 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
                                 stressLevel,
                                 0.0,
                                 0,
-                                0
+                                0,
+                                metricsList.get(0).gridCell()
                         );
                     })
                     .doOnError(e -> log.error("Failed to calculate averaged metrics: {}", e.getMessage()));
@@ -268,16 +227,7 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
 
     @Override
     public String interpretGtk(double gtk) {
-        if (gtk == 0.0) return "Нет данных (T < 10°C)";
-        if (gtk < 0.6) return "Очень сильная засуха";
-        if (gtk < 1.0) return "Засушливо";
-        if (gtk < 1.3) return "Оптимальное увлажнение";
-        if (gtk < 1.6) return "Избыточное увлажнение";
-        return "Переувлажнение / Риск гниения";
-    }
-
-    private AgrometricalData createEmptyMetrics() {
-        return new AgrometricalData(0.0, 0.0, 0.0, 0, 0.0, "Нет данных", 0.0, 0, 0);
+        return WindowMetricsEngine.interpretGtk(gtk);
     }
 
     @Override
@@ -297,20 +247,14 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
 
         return openMeteoService.getWeather(lat, lon, WeatherRequestType.HISTORIC, null, startDate, endDate)
                 .map(response -> {
-                    LocalDate octStart  = LocalDate.of(year - 1, 10, 1);
-                    LocalDate marEnd    = LocalDate.of(year, 3, 31);
-                    LocalDate aprStart  = LocalDate.of(year, 4, 1);
-                    LocalDate mayEnd    = LocalDate.of(year, 5, 31);
-                    LocalDate junStart  = LocalDate.of(year, 6, 1);
-                    LocalDate julEnd    = LocalDate.of(year, 7, 31);
-                    LocalDate augStart  = LocalDate.of(year, 8, 1);
-                    LocalDate sepEnd    = LocalDate.of(year, 9, 30);
-
-                    AgrometricalData octMar = computeMetricsForPeriod(response, octStart, marEnd);
-                    AgrometricalData aprMay = computeMetricsForPeriod(response, aprStart, mayEnd);
-                    AgrometricalData junJul = computeMetricsForPeriod(response, junStart, julEnd);
-                    AgrometricalData augSep = computeMetricsForPeriod(response, augStart, sepEnd);
-                    AgrometricalData aprSep = computeMetricsForPeriod(response, aprStart, sepEnd);
+                    Map<String, AgrometricalData> windows =
+                            WindowMetricsEngine.compute(response.daily(), seasonalWindows(year));
+
+                    AgrometricalData octMar = windows.get(OCT_MAR);
+                    AgrometricalData aprMay = windows.get(APR_MAY);
+                    AgrometricalData junJul = windows.get(JUN_JUL);
+                    AgrometricalData augSep = windows.get(AUG_SEP);
+                    AgrometricalData aprSep = windows.get(APR_SEP);
 
                     log.info("Seasonal metrics assembled for year {}: GTK(Apr-Sep)={}, precip(Oct-Mar)={}mm",
                             year, aprSep.gtk(), octMar.sumPrecipitation());
@@ -337,10 +281,196 @@ public class AgrometricalDataServiceImpl implements AgroMetricsService {
                             aprSep.sumEffectiveTemp(),
                             aprSep.heatStressDays(),
                             aprSep.minTempRecord(),
-                            aprSep.longestDryPeriod()
+                            aprSep.longestDryPeriod(),
+                            response.gridCell()
                     );
                 })
                 .doOnSuccess(result -> log.info("Seasonal metrics calculated successfully for year {}", year))
                 .doOnError(e -> log.error("Failed to calculate seasonal metrics: {}", e.getMessage()));
     }
+
+    @Override
+    public Flux<SeasonalBatchResult> calculateSeasonalMetricsBatch(List<SeasonalBatchItem> items) {
+        validateBatch(items);
+
+        // Поля в одной ячейке сетки за один год получают одинаковые метрики — считаем их один раз
+        Map<SeasonalBatchKey, List<SeasonalBatchItem>> groups = new LinkedHashMap<>();
+        List<SeasonalBatchResult> rejected = new ArrayList<>();
+        for (SeasonalBatchItem item : items) {
+            try {
+                GridCell cell = GridCell.snap(item.lat(), item.lon(), properties.getGridResolutionDegrees());
+                if (item.year() == null) {
+                    throw new IllegalArgumentException("Year is required");
+                }
+                groups.computeIfAbsent(new SeasonalBatchKey(cell, item.year()), key -> new ArrayList<>()).add(item);
+            } catch (IllegalArgumentException e) {
+                rejected.add(SeasonalBatchResult.failure(item, e.getMessage()));
+            }
+        }
+
+        log.info("Calculating seasonal metrics batch: {} items in {} cell-year groups, {} rejected",
+                items.size(), groups.size(), rejected.size());
+
+        Flux<SeasonalBatchResult> computed = Flux.fromIterable(groups.entrySet())
+                .flatMap(group -> {
+                    SeasonalBatchKey key = group.getKey();
+                    List<SeasonalBatchItem> members = group.getValue();
+                    return Mono.defer(() -> calculateSeasonalMetrics(
+                                    key.cell().latitude(), key.cell().longitude(), key.year()))
+                            .map(metrics -> members.stream()
+                                    .map(item -> SeasonalBatchResult.success(item, metrics))
+                                    .toList())
+                            .onErrorResume(e -> Mono.just(members.stream()
+                                    .map(item -> SeasonalBatchResult.failure(item, e.getMessage()))
+                                    .toList()))
+                            .flatMapIterable(results -> results);
+                }, Math.max(1, properties.getSeasonalBatchConcurrency()));
+
+        // Пакет — фоновая нагрузка: интерактивные запросы к Open-Meteo обслуживаются в первую очередь
+        return Flux.fromIterable(rejected)
+                .concatWith(computed.contextWrite(RequestPriority.BACKGROUND::writeTo))
+                .doOnComplete(() -> log.info("Seasonal metrics batch completed: {} items", items.size()));
+    }
+
+    /**
+     * Ключ группы пакетного запроса: узел сетки и год урожая
+     */
+    private record SeasonalBatchKey(GridCell cell, int year) {
+    }
+
+    private void validateBatch(List<SeasonalBatchItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        if (items.size() > properties.getSeasonalBatchMaxItems()) {
+            throw new IllegalArgumentException(
+                    "No more than " + properties.getSeasonalBatchMaxItems() + " items per request");
+        }
+    }
+
+    /**
+     * Сезонные интервалы года урожая: октябрь прошлого года — сентябрь текущего
+     */
+    private static List<MetricWindow> seasonalWindows(int year) {
+        return List.of(
+                new MetricWindow(OCT_MAR, LocalDate.of(year - 1, 10, 1), LocalDate.of(year, 3, 31)),
+                new MetricWindow(APR_MAY, LocalDate.of(year, 4, 1), LocalDate.of(year, 5, 31)),
+                new MetricWindow(JUN_JUL, LocalDate.of(year, 6, 1), LocalDate.of(year, 7, 31)),
+                new MetricWindow(AUG_SEP, LocalDate.of(year, 8, 1), LocalDate.of(year, 9, 30)),
+                new MetricWindow(APR_SEP, LocalDate.of(year, 4, 1), LocalDate.of(year, 9, 30))
+        );
+    }
+
+    @Override
+    public Mono<WindowMetricsResponse> calculateWindowMetrics(Double lat, Double lon, List<MetricWindow> windows) {
+        validateWindows(windows);
+
+        LocalDate start = windows.stream().map(MetricWindow::startDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate end = windows.stream().map(MetricWindow::endDate).max(LocalDate::compareTo).orElseThrow();
+
+        log.info("Calculating metrics for {} custom windows ({} to {}) at location: lat={}, lon={}",
+                windows.size(), start, end, lat, lon);
+
+        return openMeteoService.getWeather(lat, lon, WeatherRequestType.HISTORIC, null,
+                        start.toString(), end.toString())
+                .map(series -> new WindowMetricsResponse(
+                        WindowMetricsEngine.compute(series.daily(), windows), series.gridCell()))
+                .doOnError(e -> log.error("Failed to calculate window metrics: {}", e.getMessage()));
+    }
+
+    @Override
+    public Mono<WindowSumsResponse> calculateWindowSums(Double lat, Double lon, List<MetricWindow> windows) {
+        validateWindows(windows);
+
+        LocalDate start = windows.stream().map(MetricWindow::startDate).min(LocalDate::compareTo).orElseThrow();
+        LocalDate end = windows.stream().map(MetricWindow::endDate).max(LocalDate::compareTo).orElseThrow();
+        GridCell cell = GridCell.snap(lat, lon, properties.getGridResolutionDegrees());
+
+        log.info("Calculating sums for {} windows ({} to {}) at grid cell {}", windows.size(), start, end, cell);
+
+        return loadPrefixIndex(cell, start, end)
+                .map(index -> {
+                    Map<String, WindowSums> sums = new LinkedHashMap<>();
+                    for (MetricWindow window : windows) {
+                        sums.put(window.name(), index.sums(window.startDate(), window.endDate()));
+                    }
+                    return new WindowSumsResponse(sums, cell);
+                })
+                .doOnError(e -> log.error("Failed to calculate window sums: {}", e.getMessage()));
+    }
+
+    @Override
+    public Mono<PeriodAggregatesResponse> calculatePeriodAggregates(
+            Double lat, Double lon, String startDate, String endDate, AggregationPeriod period
+    ) {
+        dateValidator.validateHistoricalPeriod(startDate, endDate);
+
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        GridCell cell = GridCell.snap(lat, lon, properties.getGridResolutionDegrees());
+
+        List<DateUtils.DateRange> ranges = switch (period) {
+            case WEEK -> DateUtils.splitByWeeks(start, end);
+            case DEKAD -> DateUtils.splitByDekads(start, end);
+            case MONTH -> DateUtils.splitByMonths(start, end);
+        };
+
+        log.info("Calculating {} aggregates ({} periods, {} to {}) at grid cell {}",
+                period, ranges.size(), start, end, cell);
+
+        return loadPrefixIndex(cell, start, end)
+                .map(index -> new PeriodAggregatesResponse(
+                        period,
+                        ranges.stream().map(range -> index.sums(range.startDate(), range.endDate())).toList(),
+                        cell))
+                .doOnError(e -> log.error("Failed to calculate {} aggregates: {}", period, e.getMessage()));
+    }
+
+    /**
+     * Префиксный индекс ячейки, покрывающий период [start, end].
+     * Индекс строится на целые календарные годы, чтобы разные запросы по ячейке попадали в одну запись кэша.
+     */
+    private Mono<DailyPrefixIndex> loadPrefixIndex(GridCell cell, LocalDate start, LocalDate end) {
+        dateValidator.validateHistoricalPeriod(start.toString(), end.toString());
+
+        LocalDate yearStart = LocalDate.of(start.getYear(), 1, 1);
+        LocalDate yearEnd = LocalDate.of(end.getYear(), 12, 31);
+        LocalDate first = yearStart.isBefore(properties.getMinHistoricalDate())
+                ? properties.getMinHistoricalDate() : yearStart;
+        LocalDate last = yearEnd.isAfter(properties.getMaxHistoricalDate())
+                ? properties.getMaxHistoricalDate() : yearEnd;
+
+        return prefixIndexCache.getOrLoad(new PrefixIndexKey(cell, first, last), () ->
+                openMeteoService.getWeather(cell.latitude(), cell.longitude(), WeatherRequestType.HISTORIC,
+                                null, first.toString(), last.toString())
+                        .map(series -> new PrefixIndexCache.LoadedIndex(
+                                DailyPrefixIndex.build(series.daily(), first, last),
+                                !series.stale()
+                                        && (series.missingPeriods() == null || series.missingPeriods().isEmpty()))));
+    }
+
+    private void validateWindows(List<MetricWindow> windows) {
+        if (windows == null || windows.isEmpty()) {
+            throw new IllegalArgumentException("At least one window is required");
+        }
+        if (windows.size() > MAX_CUSTOM_WINDOWS) {
+            throw new IllegalArgumentException("No more than " + MAX_CUSTOM_WINDOWS + " windows per request");
+        }
+
+        Set<String> names = new HashSet<>();
+        for (MetricWindow window : windows) {
+            if (window.name() == null || window.name().isBlank()) {
+                throw new IllegalArgumentException("Window name is required");
+            }
+            if (!names.add(window.name())) {
+                throw new IllegalArgumentException("Duplicate window name: " + window.name());
+            }
+            if (window.startDate() == null || window.endDate() == null) {
+                throw new IllegalArgumentException("Window " + window.name() + " must have start and end dates");
+            }
+            if (window.startDate().isAfter(window.endDate())) {
+                throw new IllegalArgumentException("Window " + window.name() + " starts after it ends");
+            }
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package com.omstu.weatherservice.service.impl;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.monitoring.UpstreamMetrics;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.strategy.MultiLocationRequestStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Объединяет загрузки архива по разным ячейкам в запросы со списком координат.
+ *
+ * Загрузки копятся не дольше batchWindow или до maxLocations штук, затем группируются по периоду:
+ * каждая группа уходит в Open-Meteo одним запросом MultiLocationRequestStrategy,
+ * ответ раскладывается обратно по ячейкам. Ошибка запроса достается всем загрузкам группы.
+ *
+ * Конвейер подписан один раз на все время работы сервиса, поэтому он не должен завершаться:
+ * буферизация учитывает запросы потребителя (fairBackpressure), а execute никогда не завершается ошибкой.
+ * Загрузка, не получившая ответа за fetchTimeout, завершается TimeoutException.
+ */
+@Slf4j
+class HistoricalRequestBatcher {
+
+    private final WebClient webClient;
+    private final int maxLocations;
+    private final Duration fetchTimeout;
+    private final UpstreamMetrics upstreamMetrics;
+    private final Sinks.Many<PendingFetch> queue = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable subscription;
+
+    HistoricalRequestBatcher(WebClient webClient, WeatherApiProperties.MultiLocation settings, int concurrency,
+                             UpstreamMetrics upstreamMetrics) {
+        this.webClient = webClient;
+        this.maxLocations = settings.getMaxLocations();
+        this.fetchTimeout = settings.getFetchTimeout();
+        this.upstreamMetrics = upstreamMetrics;
+        // Без fairBackpressure буфер, готовый при исчерпанном спросе (все запросы заняты медленным API),
+        // завершает поток OverflowException, и ожидающие загрузки зависают навсегда
+        this.subscription = queue.asFlux()
+                .bufferTimeout(maxLocations, settings.getBatchWindow(), true)
+                .concatMapIterable(HistoricalRequestBatcher::groupByPeriod)
+                .flatMap(this::execute, concurrency)
+                .subscribe(null, error -> log.error("Historical request batcher stopped", error));
+    }
+
+    /**
+     * Загружает дневные данные ячейки за период в составе ближайшего общего запроса
+     */
+    Mono<WeatherSeries> fetch(GridCell cell, LocalDate startDate, LocalDate endDate) {
+        return Mono.<WeatherSeries>create(sink -> {
+                    PendingFetch pending = new PendingFetch(cell, startDate, endDate, sink, new AtomicBoolean());
+                    sink.onCancel(() -> pending.cancelled().set(true));
+                    try {
+                        queue.emitNext(pending, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+                    } catch (Sinks.EmissionException e) {
+                        sink.error(new IllegalStateException("Historical request batcher is not accepting requests", e));
+                    }
+                })
+                .timeout(fetchTimeout);
+    }
+
+    void dispose() {
+        subscription.dispose();
+    }
+
+    private static List<List<PendingFetch>> groupByPeriod(List<PendingFetch> batch) {
+        Map<Period, List<PendingFetch>> groups = new LinkedHashMap<>();
+        for (PendingFetch pending : batch) {
+            groups.computeIfAbsent(new Period(pending.startDate(), pending.endDate()), key -> new ArrayList<>())
+                    .add(pending);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Выполняет запрос группы; любые ошибки, включая брошенные при подготовке запроса,
+     * достаются загрузкам группы и не доходят до конвейера
+     */
+    private Mono<Void> execute(List<PendingFetch> group) {
+        return Mono.defer(() -> request(group))
+                .onErrorResume(error -> {
+                    group.forEach(pending -> pending.sink().error(error));
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> request(List<PendingFetch> group) {
+        // Одна и та же ячейка могла попасть в группу дважды — запрашиваем ее один раз;
+        // загрузки, которые уже никто не ждет (отмена или fetchTimeout), не запрашиваем
+        Map<GridCell, List<PendingFetch>> byCell = new LinkedHashMap<>();
+        for (PendingFetch pending : group) {
+            if (!pending.cancelled().get()) {
+                byCell.computeIfAbsent(pending.cell(), key -> new ArrayList<>()).add(pending);
+            }
+        }
+        if (byCell.isEmpty()) {
+            return Mono.empty();
+        }
+        List<GridCell> cells = new ArrayList<>(byCell.keySet());
+        PendingFetch first = group.get(0);
+
+        log.info("Requesting historical data for period {} to {} at {} grid cells in one request (limit {})",
+                first.startDate(), first.endDate(), cells.size(), maxLocations);
+
+        MultiLocationRequestStrategy strategy = new MultiLocationRequestStrategy(
+                first.startDate().toString(), first.endDate().toString());
+
+        return upstreamMetrics.recordRequest(strategy.getType(), strategy.executeAll(webClient, cells))
+                .doOnNext(responses -> {
+                    for (int i = 0; i < cells.size(); i++) {
+                        for (PendingFetch pending : byCell.get(cells.get(i))) {
+                            pending.sink().success(responses.get(i));
+                        }
+                    }
+                })
+                // Через объединение идут только фоновые загрузки
+                .contextWrite(RequestPriority.BACKGROUND::writeTo)
+                .then();
+    }
+
+    private record Period(LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record PendingFetch(GridCell cell, LocalDate startDate, LocalDate endDate,
+                                MonoSink<WeatherSeries> sink, AtomicBoolean cancelled) {
+    }
+}
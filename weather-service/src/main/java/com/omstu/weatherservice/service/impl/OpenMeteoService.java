@@ -1,20 +1,36 @@
 package com.omstu.weatherservice.service.impl;
 
 import com.omstu.weatherservice.config.WeatherApiProperties;
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.MissingPeriod;
 import com.omstu.weatherservice.dto.WeatherRequestType;
-import com.omstu.weatherservice.mapper.OpenMeteoMapper;
+import com.omstu.weatherservice.series.WeatherSeries;
 import com.omstu.weatherservice.service.ExternalFieldService;
+import com.omstu.weatherservice.service.WeatherArchiveService;
+import com.omstu.weatherservice.service.cache.ForecastCache;
+import com.omstu.weatherservice.service.cache.ForecastCacheKey;
+import com.omstu.weatherservice.service.cache.InFlightRequestRegistry;
+import com.omstu.weatherservice.service.cache.WeatherRequestKey;
+import com.omstu.weatherservice.service.monitoring.UpstreamMetrics;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.ratelimit.UpstreamRateLimiter;
+import com.omstu.weatherservice.service.resilience.StalenessMarker;
+import com.omstu.weatherservice.service.resilience.UpstreamCircuitBreaker;
 import com.omstu.weatherservice.service.strategy.ForecastRequestStrategy;
 import com.omstu.weatherservice.service.strategy.HistoricalRequestStrategy;
 import com.omstu.weatherservice.service.strategy.WeatherRequestStrategy;
 import com.omstu.weatherservice.service.utils.DateUtils;
 import com.omstu.weatherservice.validation.DateValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -29,128 +45,259 @@ public class OpenMeteoService implements ExternalFieldService {
 
     private final WebClient forecastWebClient;
     private final WebClient historicalWebClient;
-    private final OpenMeteoMapper openMeteoMapper;
     private final DateValidator dateValidator;
     private final WeatherApiProperties properties;
+    private final WeatherArchiveService weatherArchiveService;
+    private final ForecastCache forecastCache;
+    private final InFlightRequestRegistry inFlightRequests;
+    private final UpstreamMetrics upstreamMetrics;
+    // null, если объединение запросов по ячейкам выключено
+    private final HistoricalRequestBatcher historicalBatcher;
 
     public OpenMeteoService(
             WebClient.Builder webClientBuilder,
-            OpenMeteoMapper openMeteoMapper,
             DateValidator dateValidator,
-            WeatherApiProperties properties
+            WeatherApiProperties properties,
+            WeatherArchiveService weatherArchiveService,
+            ForecastCache forecastCache,
+            InFlightRequestRegistry inFlightRequests,
+            UpstreamMetrics upstreamMetrics,
+            UpstreamRateLimiter rateLimiter,
+            MeterRegistry meterRegistry
     ) {
-        this.forecastWebClient = webClientBuilder
+        // У каждого хоста API свой автомат отключения; общий ограничитель частоты работает внутри него:
+        // при недоступном API запросы отклоняются сразу, не дожидаясь токена, а ожидание токена
+        // не входит в callTimeout и не считается ошибкой API
+        UpstreamCircuitBreaker forecastBreaker =
+                new UpstreamCircuitBreaker("forecast", properties.getCircuitBreaker(), meterRegistry);
+        UpstreamCircuitBreaker historicalBreaker =
+                new UpstreamCircuitBreaker("historical", properties.getCircuitBreaker(), meterRegistry);
+
+        this.forecastWebClient = webClientBuilder.clone()
+                .filter(forecastBreaker.filter(rateLimiter.filter()))
                 .baseUrl(properties.getForecastBaseUrl())
                 .build();
 
-        this.historicalWebClient = webClientBuilder
+        this.historicalWebClient = webClientBuilder.clone()
+                .filter(historicalBreaker.filter(rateLimiter.filter()))
                 .codecs(configurer ->
                         configurer.defaultCodecs().maxInMemorySize(properties.getMaxInMemorySize()))
                 .baseUrl(properties.getHistoricalBaseUrl())
                 .build();
 
-        this.openMeteoMapper = openMeteoMapper;
         this.dateValidator = dateValidator;
         this.properties = properties;
+        this.weatherArchiveService = weatherArchiveService;
+        this.forecastCache = forecastCache;
+        this.inFlightRequests = inFlightRequests;
+        this.upstreamMetrics = upstreamMetrics;
+
+        WeatherApiProperties.MultiLocation multiLocation = properties.getMultiLocation();
+        this.historicalBatcher = multiLocation.isEnabled()
+                ? new HistoricalRequestBatcher(historicalWebClient, multiLocation,
+                        properties.getChunkConcurrency(), upstreamMetrics)
+                : null;
 
         log.info("Weather service initialized with forecast URL: {} and historical URL: {}",
                 properties.getForecastBaseUrl(), properties.getHistoricalBaseUrl());
     }
 
+    /**
+     * Координаты сначала привязываются к узлу сетки модели: валидация, архив и запрос к API
+     * работают уже с узлом, а не с исходной точкой.
+     * Одновременные одинаковые запросы одной полосы ограничителя объединяются в один.
+     * Если ответ собран из устаревших данных, это отмечается в StalenessMarker запроса.
+     */
     @Override
-    public Mono<OpenMeteoResponse> getWeather(
+    public Mono<WeatherSeries> getWeather(
             Double lat, Double lon, WeatherRequestType type,
             Integer days, String startDate, String endDate
     ) {
-        dateValidator.validateCoordinates(lat, lon);
+        GridCell cell = GridCell.snap(lat, lon, properties.getGridResolutionDegrees());
+        dateValidator.validateCoordinates(cell.latitude(), cell.longitude());
+
+        log.debug("Coordinates lat={}, lon={} snapped to grid cell {}", lat, lon, cell);
 
         if (type == WeatherRequestType.FORECAST) {
-            return getForecastWeather(lat, lon, days);
+            dateValidator.validateForecastDays(days);
+            return StalenessMarker.report(Mono.deferContextual(context -> inFlightRequests.join(
+                    WeatherRequestKey.forecast(cell, days, context),
+                    () -> getForecastWeather(cell, days))));
         } else {
-            return getHistoricalWeather(lat, lon, startDate, endDate);
+            dateValidator.validateHistoricalPeriod(startDate, endDate);
+            return StalenessMarker.report(Mono.deferContextual(context -> inFlightRequests.join(
+                    WeatherRequestKey.historical(cell, startDate, endDate, context),
+                    () -> getHistoricalWeather(cell, startDate, endDate))));
         }
     }
 
     /**
-     * Получает прогноз погоды на указанное количество дней
+     * Получает прогноз погоды на указанное количество дней.
+     * Прогноз для узла сетки берется из кэша до публикации следующего прогона модели.
      */
-    private Mono<OpenMeteoResponse> getForecastWeather(Double lat, Double lon, Integer days) {
-        dateValidator.validateForecastDays(days);
+    private Mono<WeatherSeries> getForecastWeather(GridCell cell, Integer days) {
+        ForecastCacheKey key = new ForecastCacheKey(cell, days, ForecastRequestStrategy.VARIABLES);
 
-        log.info("Requesting {}-day weather forecast for location: lat={}, lon={}", days, lat, lon);
+        return forecastCache.getOrLoad(key, () -> {
+            log.info("Requesting {}-day weather forecast for grid cell: lat={}, lon={}",
+                    days, cell.latitude(), cell.longitude());
 
-        WeatherRequestStrategy strategy = new ForecastRequestStrategy(days);
-        return executeStrategy(strategy, forecastWebClient, lat, lon);
+            WeatherRequestStrategy strategy = new ForecastRequestStrategy(days);
+            return executeStrategy(strategy, forecastWebClient, cell.latitude(), cell.longitude())
+                    .map(response -> response.withGridCell(cell));
+        });
     }
 
     /**
-     * Получает исторические данные за указанный период
-     * Для длинных периодов автоматически разбивает на несколько запросов
+     * Получает исторические данные за указанный период.
+     * Дни, уже сохраненные в архиве, отдаются из БД, у API запрашиваются только недостающие интервалы.
      */
-    private Mono<OpenMeteoResponse> getHistoricalWeather(
-            Double lat, Double lon, String startDate, String endDate
+    private Mono<WeatherSeries> getHistoricalWeather(
+            GridCell cell, String startDate, String endDate
     ) {
-        dateValidator.validateHistoricalPeriod(startDate, endDate);
-
-        LocalDate start = LocalDate.parse(startDate);
-        LocalDate end = LocalDate.parse(endDate);
+        return weatherArchiveService.getDailyHistory(
+                cell, LocalDate.parse(startDate), LocalDate.parse(endDate),
+                (start, end) -> fetchHistoricalWeather(cell.latitude(), cell.longitude(), start, end));
+    }
 
+    /**
+     * Загружает исторические данные из Open-Meteo
+     * Для длинных периодов автоматически разбивает на несколько запросов
+     */
+    private Mono<WeatherSeries> fetchHistoricalWeather(
+            Double lat, Double lon, LocalDate start, LocalDate end
+    ) {
         if (DateUtils.isLongPeriod(start, end, properties.getLongPeriodThresholdMonths())) {
             log.info("Requesting historical data for long period {} to {} at location: lat={}, lon={}",
-                    startDate, endDate, lat, lon);
+                    start, end, lat, lon);
             return getHistoricalDataInChunks(lat, lon, start, end);
         }
 
         log.info("Requesting historical data for period {} to {} at location: lat={}, lon={}",
-                startDate, endDate, lat, lon);
+                start, end, lat, lon);
 
-        WeatherRequestStrategy strategy = new HistoricalRequestStrategy(startDate, endDate);
-        return executeStrategy(strategy, historicalWebClient, lat, lon);
+        return executeHistorical(lat, lon, start, end);
     }
 
     /**
      * Разбивает длинный период на несколько запросов по 3 месяца
      * Это оптимизирует размер ответа и снижает нагрузку на API
+     *
+     * Части загружаются параллельно (не более chunkConcurrency одновременно), у каждой свои повторы,
+     * но объединяются строго в порядке дат. Не загрузившиеся части попадают в missingPeriods ответа.
      */
-    private Mono<OpenMeteoResponse> getHistoricalDataInChunks(
+    private Mono<WeatherSeries> getHistoricalDataInChunks(
             Double lat, Double lon, LocalDate start, LocalDate end
     ) {
         List<DateUtils.DateRange> ranges = DateUtils.splitByThreeMonths(start, end);
+        upstreamMetrics.recordChunks(ranges.size());
 
-        log.info("Splitting period {} to {} into {} chunks of 3 months each",
-                start, end, ranges.size());
+        log.info("Splitting period {} to {} into {} chunks of 3 months each, concurrency {}",
+                start, end, ranges.size(), properties.getChunkConcurrency());
 
         return Flux.fromIterable(ranges)
-                .concatMap(range -> {
-                    WeatherRequestStrategy strategy = new HistoricalRequestStrategy(
-                            range.startDate().toString(),
-                            range.endDate().toString()
-                    );
-                    return executeStrategy(strategy, historicalWebClient, lat, lon)
-                            .onErrorResume(e -> {
-                                log.warn("Failed to fetch data for period {}: {}", range, e.getMessage());
-                                return Mono.empty();
-                            });
-                })
+                .flatMapSequential(range -> fetchChunk(lat, lon, range), properties.getChunkConcurrency())
                 .collectList()
-                .map(responses -> {
+                .map(chunks -> {
+                    List<WeatherSeries> responses = chunks.stream()
+                            .filter(chunk -> chunk.response() != null)
+                            .map(ChunkResult::response)
+                            .toList();
+                    List<MissingPeriod> missingPeriods = chunks.stream()
+                            .filter(chunk -> chunk.missingPeriod() != null)
+                            .map(ChunkResult::missingPeriod)
+                            .toList();
+
                     log.info("Combining {} responses into single result", responses.size());
-                    return openMeteoMapper.combineResponses(responses);
+                    WeatherSeries combined = WeatherSeries.concat(responses);
+
+                    if (!missingPeriods.isEmpty()) {
+                        log.warn("Historical data for lat={}, lon={} is incomplete, missing periods: {}",
+                                lat, lon, missingPeriods);
+                        return combined.withMissingPeriods(missingPeriods);
+                    }
+                    return combined;
                 })
                 .doOnSuccess(response ->
                         log.info("Successfully combined historical data from {} chunks for location: lat={}, lon={}",
                                 ranges.size(), lat, lon));
     }
 
+    /**
+     * Загружает одну часть длинного периода с повторами при временных ошибках
+     */
+    private Mono<ChunkResult> fetchChunk(Double lat, Double lon, DateUtils.DateRange range) {
+        return executeHistorical(lat, lon, range.startDate(), range.endDate())
+                .doOnError(upstreamMetrics::recordChunkError)
+                .retryWhen(Retry.backoff(properties.getChunkRetryAttempts(), properties.getChunkRetryBackoff())
+                        .filter(OpenMeteoService::isRetryable)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .map(ChunkResult::success)
+                .onErrorResume(e -> {
+                    log.warn("Failed to fetch data for period {}: {}", range, e.getMessage());
+                    upstreamMetrics.recordChunkDropped(e);
+                    return Mono.just(ChunkResult.failure(range, e));
+                });
+    }
+
+    /**
+     * Повторяем сетевые ошибки, 429 и 5xx; остальные ответы 4xx повторять бессмысленно
+     */
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError()
+                    || responseException.getStatusCode().value() == 429;
+        }
+        return error instanceof WebClientRequestException;
+    }
+
+    /**
+     * Загружает один период архива для узла сетки.
+     * Фоновые загрузки (пакетные запросы, ночная догрузка) при включенном объединении уходят вместе
+     * с одновременными загрузками того же периода по другим ячейкам; интерактивные — всегда отдельным
+     * запросом: окно объединения им только добавило бы задержку, а общие периоды у них редки.
+     */
+    private Mono<WeatherSeries> executeHistorical(Double lat, Double lon, LocalDate start, LocalDate end) {
+        return Mono.deferContextual(context -> {
+            if (historicalBatcher != null && RequestPriority.from(context) == RequestPriority.BACKGROUND) {
+                return historicalBatcher.fetch(new GridCell(lat, lon), start, end);
+            }
+            WeatherRequestStrategy strategy = new HistoricalRequestStrategy(start.toString(), end.toString());
+            return executeStrategy(strategy, historicalWebClient, lat, lon);
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (historicalBatcher != null) {
+            historicalBatcher.dispose();
+        }
+    }
+
     /**
      * Выполняет запрос с использованием стратегии
      */
-    private Mono<OpenMeteoResponse> executeStrategy(
+    private Mono<WeatherSeries> executeStrategy(
             WeatherRequestStrategy strategy, WebClient webClient, Double lat, Double lon
     ) {
-        return strategy.execute(webClient, lat, lon)
+        return upstreamMetrics.recordRequest(strategy.getType(), strategy.execute(webClient, lat, lon))
                 .doOnError(error ->
                         log.error("Failed to execute {} request for lat={}, lon={}: {}",
                                 strategy.getType(), lat, lon, error.getMessage(), error));
     }
+
+    /**
+     * Результат загрузки одной части: либо ответ, либо незагруженный интервал
+     */
+    private record ChunkResult(WeatherSeries response, MissingPeriod missingPeriod) {
+
+        static ChunkResult success(WeatherSeries response) {
+            return new ChunkResult(response, null);
+        }
+
+        static ChunkResult failure(DateUtils.DateRange range, Throwable error) {
+            return new ChunkResult(null,
+                    new MissingPeriod(range.startDate(), range.endDate(), error.getMessage()));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.omstu.weatherservice.service.impl;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.MissingPeriod;
+import com.omstu.weatherservice.mapper.DailyObservationMapper;
+import com.omstu.weatherservice.model.DailyObservation;
+import com.omstu.weatherservice.model.WeatherGridCell;
+import com.omstu.weatherservice.repository.DailyObservationRepository;
+import com.omstu.weatherservice.repository.WeatherGridCellRepository;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.WeatherArchiveService;
+import com.omstu.weatherservice.service.utils.DateUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация архива дневных наблюдений на PostGIS базе сервиса
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WeatherArchiveServiceImpl implements WeatherArchiveService {
+
+    private final WeatherGridCellRepository gridCellRepository;
+    private final DailyObservationRepository observationRepository;
+    private final DailyObservationMapper observationMapper;
+    private final WeatherApiProperties properties;
+
+    @Override
+    public Mono<WeatherSeries> getDailyHistory(
+            GridCell cell, LocalDate startDate, LocalDate endDate,
+            BiFunction<LocalDate, LocalDate, Mono<WeatherSeries>> upstreamFetcher
+    ) {
+        return Mono.deferContextual(context -> Mono.fromCallable(() ->
+                        loadArchived(cell, startDate, endDate, !context.hasKey(INGEST_CONTEXT_KEY))))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(archived -> {
+                    List<DateUtils.DateRange> missing = DateUtils.findMissingRanges(
+                            startDate, endDate, archived.dates(), properties.getArchiveGapMergeDays());
+
+                    if (missing.isEmpty()) {
+                        log.debug("Archive hit for cell {}: {} to {}", cell, startDate, endDate);
+                        return Mono.just(buildResponse(archived.cell(), archived.observations()).withGridCell(cell));
+                    }
+
+                    log.info("Archive has {} days for cell {} in {} to {}, fetching {} missing ranges: {}",
+                            archived.observations().size(), cell, startDate, endDate, missing.size(), missing);
+
+                    // Если API недоступен, а в архиве есть дни периода, отдаем их как устаревший ответ:
+                    // незагруженные интервалы попадают в missingPeriods и будут запрошены при следующем обращении
+                    return Flux.fromIterable(missing)
+                            .concatMap(range -> upstreamFetcher.apply(range.startDate(), range.endDate())
+                                    .onErrorResume(e -> archived.observations().isEmpty()
+                                            ? Mono.error(e)
+                                            : Mono.just(unavailable(range, e))))
+                            .collectList()
+                            .flatMap(responses -> Mono.fromCallable(() ->
+                                            storeAndMerge(cell, archived, responses, startDate, endDate))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .map(response -> response.withGridCell(cell));
+                });
+    }
+
+    private ArchivedPeriod loadArchived(
+            GridCell cell, LocalDate startDate, LocalDate endDate, boolean trackActivity
+    ) {
+        WeatherGridCell gridCell = gridCellRepository
+                .findByCellLatAndCellLon(cell.latitude(), cell.longitude())
+                .orElse(null);
+
+        if (gridCell == null) {
+            return new ArchivedPeriod(null, List.of());
+        }
+
+        // Активность отмечается не чаще раза в день: по ней плановая догрузка выбирает ячейки
+        LocalDate today = LocalDate.now();
+        if (trackActivity && !today.equals(gridCell.getLastRequestedOn())) {
+            gridCellRepository.markRequested(gridCell.getId(), today);
+            gridCell.setLastRequestedOn(today);
+        }
+
+        return new ArchivedPeriod(gridCell,
+                observationRepository.findByCellIdAndPeriod(gridCell.getId(), startDate, endDate));
+    }
+
+    private WeatherSeries storeAndMerge(
+            GridCell cell, ArchivedPeriod archived, List<WeatherSeries> responses,
+            LocalDate startDate, LocalDate endDate
+    ) {
+        WeatherGridCell gridCell = archived.cell() != null
+                ? archived.cell()
+                : findOrCreateCell(cell, responses.get(0));
+
+        Map<LocalDate, DailyObservation> byDate = new TreeMap<>();
+        archived.observations().forEach(o -> byDate.put(o.getObservationDate(), o));
+
+        List<DailyObservation> toStore = new ArrayList<>();
+        for (WeatherSeries response : responses) {
+            for (DailyObservation observation : observationMapper.toObservations(response.daily())) {
+                LocalDate date = observation.getObservationDate();
+                if (date.isBefore(startDate) || date.isAfter(endDate) || byDate.containsKey(date)) {
+                    continue;
+                }
+                byDate.put(date, observation);
+
+                // День без температуры еще не опубликован в архиве API — не сохраняем, чтобы догрузить позже
+                if (observation.getTemperatureMax() != null) {
+                    observation.setCell(gridCell);
+                    toStore.add(observation);
+                }
+            }
+        }
+
+        persist(gridCell, toStore);
+
+        // Незагруженные интервалы не сохраняются и будут запрошены снова при следующем обращении
+        List<MissingPeriod> missingPeriods = responses.stream()
+                .filter(response -> response.missingPeriods() != null)
+                .flatMap(response -> response.missingPeriods().stream())
+                .toList();
+
+        WeatherSeries merged = buildResponse(gridCell, new ArrayList<>(byDate.values()))
+                .withMissingPeriods(missingPeriods.isEmpty() ? null : missingPeriods);
+
+        if (responses.stream().anyMatch(WeatherSeries::stale)) {
+            log.warn("Serving archived data for cell {} without upstream ranges: {}", cell, missingPeriods);
+            return merged.asStale();
+        }
+        return merged;
+    }
+
+    /**
+     * Заглушка интервала, который API не отдал: только отметка о пропуске
+     */
+    private static WeatherSeries unavailable(DateUtils.DateRange range, Throwable error) {
+        return new WeatherSeries(
+                null, null, null, null, null, null,
+                List.of(new MissingPeriod(range.startDate(), range.endDate(), error.getMessage())),
+                true
+        );
+    }
+
+    private WeatherGridCell findOrCreateCell(GridCell cell, WeatherSeries response) {
+        WeatherGridCell gridCell = new WeatherGridCell();
+        gridCell.setCellLat(cell.latitude());
+        gridCell.setCellLon(cell.longitude());
+        gridCell.setLatitude(response.latitude());
+        gridCell.setLongitude(response.longitude());
+        gridCell.setElevation(response.elevation());
+        gridCell.setLastRequestedOn(LocalDate.now());
+
+        try {
+            return gridCellRepository.save(gridCell);
+        } catch (DataIntegrityViolationException e) {
+            // Ячейку уже создал параллельный запрос
+            return gridCellRepository.findByCellLatAndCellLon(cell.latitude(), cell.longitude())
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Дни, которые параллельный пересекающийся запрос уже сохранил, пропускаются по одному:
+     * остальные дни пакета сохраняются
+     */
+    private void persist(WeatherGridCell gridCell, List<DailyObservation> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        int inserted = observationRepository.insertIgnoringDuplicates(observations);
+        log.info("Archived {} daily observations for cell id={}", inserted, gridCell.getId());
+        if (inserted < observations.size()) {
+            log.debug("{} observations for cell id={} were archived concurrently",
+                    observations.size() - inserted, gridCell.getId());
+        }
+    }
+
+    private WeatherSeries buildResponse(WeatherGridCell gridCell, List<DailyObservation> observations) {
+        return new WeatherSeries(
+                gridCell.getLatitude(),
+                gridCell.getLongitude(),
+                gridCell.getElevation(),
+                null,
+                observationMapper.toDailySeries(observations),
+                null,
+                null,
+                false
+        );
+    }
+
+    private record ArchivedPeriod(WeatherGridCell cell, List<DailyObservation> observations) {
+        Set<LocalDate> dates() {
+            return observations.stream()
+                    .map(DailyObservation::getObservationDate)
+                    .collect(Collectors.toSet());
+        }
+    }
+}
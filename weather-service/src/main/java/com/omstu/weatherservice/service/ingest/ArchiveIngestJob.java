@@ -0,0 +1,127 @@
+package com.omstu.weatherservice.service.ingest;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.model.WeatherGridCell;
+import com.omstu.weatherservice.repository.DailyObservationRepository;
+import com.omstu.weatherservice.repository.WeatherGridCellRepository;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.ExternalFieldService;
+import com.omstu.weatherservice.service.WeatherArchiveService;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ночная догрузка архива: для каждой активной ячейки (запрошенной пользователями за последние activeDays дней)
+ * загружаются дни, опубликованные в архиве Open-Meteo после водяного знака ячейки.
+ *
+ * Загрузка идет через обычный путь getWeather: недостающие дни сохраняются архивом, одинаковые периоды
+ * разных ячеек объединяются в запросы со списком координат. Запросы идут в фоновой полосе ограничителя
+ * частоты и не продлевают активность ячеек. Водяной знак — последний сохраненный день ячейки,
+ * но не глубже backfillDays: ночной запрос ячейки не длиннее backfillDays дней.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "weather.api.ingest", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveIngestJob {
+
+    private final ExternalFieldService externalFieldService;
+    private final WeatherGridCellRepository gridCellRepository;
+    private final DailyObservationRepository observationRepository;
+    private final WeatherApiProperties properties;
+
+    private enum Outcome {
+        INGESTED, PARTIAL, UP_TO_DATE, FAILED
+    }
+
+    @Scheduled(cron = "${weather.api.ingest.cron:0 30 2 * * *}", zone = "UTC")
+    public void ingestNewDays() {
+        WeatherApiProperties.Ingest settings = properties.getIngest();
+        LocalDate through = properties.getMaxHistoricalDate();
+        List<WeatherGridCell> cells = gridCellRepository.findByLastRequestedOnGreaterThanEqual(
+                LocalDate.now().minusDays(settings.getActiveDays()));
+
+        if (cells.isEmpty()) {
+            log.info("Archive ingest: no active grid cells");
+            return;
+        }
+
+        log.info("Archive ingest started: {} active grid cells, archive published through {}", cells.size(), through);
+        long started = System.nanoTime();
+
+        Map<Outcome, Long> outcomes = Flux.fromIterable(cells)
+                .flatMap(cell -> ingestCell(cell, through, settings.getBackfillDays()), settings.getConcurrency())
+                .collect(Collectors.groupingBy(Function.identity(), () -> new EnumMap<>(Outcome.class),
+                        Collectors.counting()))
+                .contextWrite(context -> RequestPriority.BACKGROUND.writeTo(context)
+                        .put(WeatherArchiveService.INGEST_CONTEXT_KEY, true))
+                .block();
+
+        log.info("Archive ingest finished in {} s: {}",
+                Duration.ofNanos(System.nanoTime() - started).toSeconds(), outcomes);
+    }
+
+    private Mono<Outcome> ingestCell(WeatherGridCell cell, LocalDate through, int backfillDays) {
+        return Mono.fromCallable(() -> watermark(cell, through, backfillDays))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(watermark -> {
+                    LocalDate from = watermark.plusDays(1);
+                    if (from.isAfter(through)) {
+                        return Mono.just(Outcome.UP_TO_DATE);
+                    }
+                    return externalFieldService.getWeather(cell.getCellLat(), cell.getCellLon(),
+                                    WeatherRequestType.HISTORIC, null, from.toString(), through.toString())
+                            .flatMap(series -> Mono.fromCallable(() -> advanceWatermark(cell, series))
+                                    .subscribeOn(Schedulers.boundedElastic()));
+                })
+                .onErrorResume(e -> {
+                    log.warn("Archive ingest failed for cell id={} ({}, {}): {}",
+                            cell.getId(), cell.getCellLat(), cell.getCellLon(), e.getMessage());
+                    return Mono.just(Outcome.FAILED);
+                });
+    }
+
+    /**
+     * Последний сохраненный день ячейки, но не раньше чем за backfillDays до through.
+     * Более старые пропуски (ячейка без архива, долго не запрашивавшаяся ячейка) ночная догрузка
+     * не закрывает — их загрузит обычный запрос пользователя
+     */
+    private LocalDate watermark(WeatherGridCell cell, LocalDate through, int backfillDays) {
+        LocalDate depth = through.minusDays(backfillDays);
+        LocalDate watermark = cell.getArchivedThrough();
+        if (watermark == null) {
+            watermark = observationRepository.findLatestObservationDate(cell.getId());
+        }
+        if (watermark == null || watermark.isBefore(depth)) {
+            watermark = depth;
+        }
+        LocalDate floor = properties.getMinHistoricalDate().minusDays(1);
+        return watermark.isBefore(floor) ? floor : watermark;
+    }
+
+    private Outcome advanceWatermark(WeatherGridCell cell, WeatherSeries series) {
+        LocalDate latest = observationRepository.findLatestObservationDate(cell.getId());
+        if (latest != null && (cell.getArchivedThrough() == null || latest.isAfter(cell.getArchivedThrough()))) {
+            gridCellRepository.updateArchivedThrough(cell.getId(), latest);
+        }
+        boolean complete = !series.stale()
+                && (series.missingPeriods() == null || series.missingPeriods().isEmpty());
+        return complete ? Outcome.INGESTED : Outcome.PARTIAL;
+    }
+}
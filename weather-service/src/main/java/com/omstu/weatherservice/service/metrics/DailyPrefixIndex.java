@@ -0,0 +1,150 @@
+package com.omstu.weatherservice.service.metrics;
+
+import com.omstu.weatherservice.dto.WindowSums;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+
+import java.time.LocalDate;
+
+import static com.omstu.weatherservice.service.metrics.WindowMetricsEngine.ACTIVE_TEMP_THRESHOLD;
+import static com.omstu.weatherservice.service.metrics.WindowMetricsEngine.EXTREME_HEAT_THRESHOLD;
+import static com.omstu.weatherservice.service.metrics.WindowMetricsEngine.GTK_MULTIPLIER;
+import static com.omstu.weatherservice.service.metrics.WindowMetricsEngine.HEAT_STRESS_THRESHOLD;
+
+/**
+ * Префиксные суммы дневного ряда одной ячейки: суммы и счетчики ГТК за любой интервал за O(1).
+ *
+ * Массивы индексируются днем от начала покрываемого периода: prefix[k] — сумма за дни [first, first + k).
+ * Дни без данных (пропуски ряда или NaN температуры) ничего не добавляют.
+ * Индекс неизменяем и безопасен для совместного использования.
+ */
+public final class DailyPrefixIndex {
+
+    private static final int PREFIX_ARRAYS = 8;
+
+    private final int firstDay;
+    private final int lastDay;
+
+    private final int[] daysWithData;
+    private final double[] precipitation;
+    private final double[] activePrecipitation;
+    private final double[] effectiveTemp;
+    private final int[] heatStressDays;
+    private final int[] extremeHeatDays;
+    private final double[] meanTemp;
+    private final int[] meanTempDays;
+
+    private DailyPrefixIndex(int firstDay, int lastDay) {
+        int length = lastDay - firstDay + 2;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.daysWithData = new int[length];
+        this.precipitation = new double[length];
+        this.activePrecipitation = new double[length];
+        this.effectiveTemp = new double[length];
+        this.heatStressDays = new int[length];
+        this.extremeHeatDays = new int[length];
+        this.meanTemp = new double[length];
+        this.meanTempDays = new int[length];
+    }
+
+    /**
+     * Строит индекс за период [firstDate, lastDate]; дни ряда вне периода игнорируются
+     */
+    public static DailyPrefixIndex build(DailySeries daily, LocalDate firstDate, LocalDate lastDate) {
+        DailyPrefixIndex index = new DailyPrefixIndex((int) firstDate.toEpochDay(), (int) lastDate.toEpochDay());
+        index.fill(daily);
+        return index;
+    }
+
+    private void fill(DailySeries daily) {
+        double[] temperatures = daily != null ? daily.column(DailyVariable.TEMPERATURE_MAX) : null;
+        double[] precipitations = daily != null ? daily.column(DailyVariable.PRECIPITATION_SUM) : null;
+        double[] means = daily != null ? daily.column(DailyVariable.TEMPERATURE_MEAN) : null;
+
+        int position = temperatures != null ? daily.lowerBound(firstDay) : 0;
+        int end = temperatures != null ? daily.upperBound(lastDay) : 0;
+
+        for (int k = 0; k <= lastDay - firstDay; k++) {
+            int day = firstDay + k;
+            daysWithData[k + 1] = daysWithData[k];
+            precipitation[k + 1] = precipitation[k];
+            activePrecipitation[k + 1] = activePrecipitation[k];
+            effectiveTemp[k + 1] = effectiveTemp[k];
+            heatStressDays[k + 1] = heatStressDays[k];
+            extremeHeatDays[k + 1] = extremeHeatDays[k];
+            meanTemp[k + 1] = meanTemp[k];
+            meanTempDays[k + 1] = meanTempDays[k];
+
+            while (position < end && daily.timeAt(position) < day) {
+                position++;
+            }
+            if (position >= end || daily.timeAt(position) != day) {
+                continue;
+            }
+            int i = position++;
+
+            double temp = temperatures[i];
+            if (Double.isNaN(temp)) {
+                continue;
+            }
+            double rain = precipitations != null && !Double.isNaN(precipitations[i]) ? precipitations[i] : 0.0;
+
+            daysWithData[k + 1]++;
+            precipitation[k + 1] += rain;
+            if (temp > ACTIVE_TEMP_THRESHOLD) {
+                activePrecipitation[k + 1] += rain;
+                effectiveTemp[k + 1] += temp;
+            }
+            if (temp > HEAT_STRESS_THRESHOLD) heatStressDays[k + 1]++;
+            if (temp > EXTREME_HEAT_THRESHOLD) extremeHeatDays[k + 1]++;
+            if (means != null && !Double.isNaN(means[i])) {
+                meanTemp[k + 1] += means[i];
+                meanTempDays[k + 1]++;
+            }
+        }
+    }
+
+    public LocalDate firstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    public LocalDate lastDate() {
+        return LocalDate.ofEpochDay(lastDay);
+    }
+
+    /**
+     * Суммы за интервал [start, end]; часть интервала вне периода индекса считается днями без данных
+     */
+    public WindowSums sums(LocalDate start, LocalDate end) {
+        int from = (int) Math.max(start.toEpochDay(), firstDay) - firstDay;
+        int to = (int) Math.min(end.toEpochDay(), lastDay) - firstDay + 1;
+        if (to < from) {
+            to = from = 0;
+        }
+
+        double active = activePrecipitation[to] - activePrecipitation[from];
+        double effective = effectiveTemp[to] - effectiveTemp[from];
+        int meanDays = meanTempDays[to] - meanTempDays[from];
+
+        return new WindowSums(
+                start,
+                end,
+                daysWithData[to] - daysWithData[from],
+                precipitation[to] - precipitation[from],
+                active,
+                effective,
+                effective > 0 ? (active * GTK_MULTIPLIER) / effective : 0.0,
+                heatStressDays[to] - heatStressDays[from],
+                extremeHeatDays[to] - extremeHeatDays[from],
+                meanDays > 0 ? (meanTemp[to] - meanTemp[from]) / meanDays : 0.0
+        );
+    }
+
+    /**
+     * Число хранимых значений — вес записи в кэше
+     */
+    public int weight() {
+        return daysWithData.length * PREFIX_ARRAYS;
+    }
+}
@@ -0,0 +1,92 @@
+package com.omstu.weatherservice.service.metrics;
+
+import com.omstu.weatherservice.dto.ForecastWindowResponse;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.HourlySeries;
+import com.omstu.weatherservice.series.HourlyVariable;
+
+/**
+ * Сводка почасового прогноза по окнам 7 и 14 дней за один проход по примитивным колонкам.
+ *
+ * Окна отсчитываются от первого часа прогноза. Пропуски (NaN) не учитываются ни в суммах,
+ * ни в числе значений для средних.
+ */
+public final class ForecastWindowAggregator {
+
+    public static final int SHORT_WINDOW_DAYS = 7;
+    public static final int LONG_WINDOW_DAYS = 14;
+
+    static final int SHORT_WINDOW_HOURS = SHORT_WINDOW_DAYS * 24;
+    static final int LONG_WINDOW_HOURS = LONG_WINDOW_DAYS * 24;
+
+    private ForecastWindowAggregator() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static ForecastWindowResponse aggregate(HourlySeries hourly, GridCell cell) {
+        if (hourly == null || hourly.isEmpty()) {
+            return new ForecastWindowResponse(null, null, null, null, null, null, null, cell);
+        }
+
+        double[] temperature = hourly.column(HourlyVariable.TEMPERATURE);
+        double[] humidity = hourly.column(HourlyVariable.RELATIVE_HUMIDITY);
+        double[] precipitation = hourly.column(HourlyVariable.PRECIPITATION);
+        double[] windSpeed = hourly.column(HourlyVariable.WIND_SPEED);
+
+        double tempSum = 0.0;
+        int tempCount = 0;
+        double tempMax = Double.NEGATIVE_INFINITY;
+        double tempMin = Double.POSITIVE_INFINITY;
+        double humiditySum = 0.0;
+        int humidityCount = 0;
+        double windSum = 0.0;
+        int windCount = 0;
+        double precipShort = 0.0;
+        double precipLong = 0.0;
+        int precipCount = 0;
+
+        int origin = hourly.timeAt(0);
+        int end = hourly.lowerBound(origin + LONG_WINDOW_HOURS);
+        int shortEnd = hourly.lowerBound(origin + SHORT_WINDOW_HOURS);
+
+        for (int i = 0; i < end; i++) {
+            boolean inShort = i < shortEnd;
+
+            if (precipitation != null && !Double.isNaN(precipitation[i])) {
+                precipLong += precipitation[i];
+                precipCount++;
+                if (inShort) precipShort += precipitation[i];
+            }
+            if (!inShort) {
+                continue;
+            }
+
+            if (temperature != null && !Double.isNaN(temperature[i])) {
+                double t = temperature[i];
+                tempSum += t;
+                tempCount++;
+                if (t > tempMax) tempMax = t;
+                if (t < tempMin) tempMin = t;
+            }
+            if (humidity != null && !Double.isNaN(humidity[i])) {
+                humiditySum += humidity[i];
+                humidityCount++;
+            }
+            if (windSpeed != null && !Double.isNaN(windSpeed[i])) {
+                windSum += windSpeed[i];
+                windCount++;
+            }
+        }
+
+        return new ForecastWindowResponse(
+                tempCount > 0 ? tempSum / tempCount : null,
+                tempCount > 0 ? tempMax : null,
+                tempCount > 0 ? tempMin : null,
+                humidityCount > 0 ? humiditySum / humidityCount : null,
+                precipCount > 0 ? precipShort : null,
+                precipCount > 0 ? precipLong : null,
+                windCount > 0 ? windSum / windCount : null,
+                cell
+        );
+    }
+}
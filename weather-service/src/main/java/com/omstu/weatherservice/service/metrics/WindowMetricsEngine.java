@@ -0,0 +1,185 @@
+package com.omstu.weatherservice.service.metrics;
+
+import com.omstu.weatherservice.dto.AgrometricalData;
+import com.omstu.weatherservice.dto.MetricWindow;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Расчет агрометрик сразу по нескольким интервалам за один проход по дневному ряду.
+ *
+ * Границы интервалов переводятся в позиции ряда двоичным поиском, затем каждый день
+ * читается один раз и добавляется в накопители всех интервалов, которые его покрывают.
+ * Интервалы могут пересекаться и идти в любом порядке.
+ */
+public final class WindowMetricsEngine {
+
+    static final double ACTIVE_TEMP_THRESHOLD = 10.0;
+    static final double HEAT_STRESS_THRESHOLD = 30.0;
+    static final double EXTREME_HEAT_THRESHOLD = 35.0;
+    static final double GTK_MULTIPLIER = 10.0;
+    static final double DRY_DAY_THRESHOLD = 1.0;
+
+    private WindowMetricsEngine() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Метрики по каждому интервалу
+     *
+     * @param daily   дневной ряд, покрывающий интервалы
+     * @param windows интервалы с уникальными названиями
+     * @return метрики в порядке интервалов, ключ — название интервала
+     */
+    public static Map<String, AgrometricalData> compute(DailySeries daily, List<MetricWindow> windows) {
+        int[] from = new int[windows.size()];
+        int[] to = new int[windows.size()];
+        for (int w = 0; w < windows.size(); w++) {
+            MetricWindow window = windows.get(w);
+            if (daily != null) {
+                from[w] = daily.indexFrom(window.startDate());
+                to[w] = daily.indexTo(window.endDate());
+            }
+        }
+
+        Accumulator[] accumulators = run(daily, from, to);
+
+        Map<String, AgrometricalData> result = new LinkedHashMap<>();
+        for (int w = 0; w < windows.size(); w++) {
+            result.put(windows.get(w).name(), accumulators[w].toMetrics());
+        }
+        return result;
+    }
+
+    /**
+     * Метрики по всему ряду
+     */
+    public static AgrometricalData computeAll(DailySeries daily) {
+        if (daily == null || daily.isEmpty()) {
+            return emptyMetrics();
+        }
+        return run(daily, new int[]{0}, new int[]{daily.size()})[0].toMetrics();
+    }
+
+    /**
+     * Интерпретация значения ГТК (гидротермического коэффициента Селянинова)
+     */
+    public static String interpretGtk(double gtk) {
+        if (gtk == 0.0) return "Нет данных (T < 10°C)";
+        if (gtk < 0.6) return "Очень сильная засуха";
+        if (gtk < 1.0) return "Засушливо";
+        if (gtk < 1.3) return "Оптимальное увлажнение";
+        if (gtk < 1.6) return "Избыточное увлажнение";
+        return "Переувлажнение / Риск гниения";
+    }
+
+    public static AgrometricalData emptyMetrics() {
+        return new AgrometricalData(0.0, 0.0, 0.0, 0, 0.0, "Нет данных", 0.0, 0, 0, null);
+    }
+
+    private static Accumulator[] run(DailySeries daily, int[] from, int[] to) {
+        Accumulator[] accumulators = new Accumulator[from.length];
+        boolean hasData = daily != null && daily.has(DailyVariable.TEMPERATURE_MAX);
+        for (int w = 0; w < accumulators.length; w++) {
+            accumulators[w] = new Accumulator(hasData);
+        }
+        if (!hasData) {
+            return accumulators;
+        }
+
+        int start = Integer.MAX_VALUE;
+        int end = 0;
+        for (int w = 0; w < from.length; w++) {
+            start = Math.min(start, from[w]);
+            end = Math.max(end, to[w]);
+        }
+
+        double[] temperatures = daily.column(DailyVariable.TEMPERATURE_MAX);
+        double[] precipitations = daily.column(DailyVariable.PRECIPITATION_SUM);
+        double[] tempMean = daily.column(DailyVariable.TEMPERATURE_MEAN);
+
+        for (int i = start; i < end; i++) {
+            double temp = temperatures[i];
+            // Дни без максимальной температуры пропускаются, отсутствующие осадки считаются нулевыми
+            if (Double.isNaN(temp)) continue;
+
+            double rain = precipitations != null && !Double.isNaN(precipitations[i]) ? precipitations[i] : 0.0;
+            double mean = tempMean != null ? tempMean[i] : Double.NaN;
+
+            for (int w = 0; w < accumulators.length; w++) {
+                if (i >= from[w] && i < to[w]) {
+                    accumulators[w].add(temp, rain, mean);
+                }
+            }
+        }
+        return accumulators;
+    }
+
+    /**
+     * Накопители одного интервала
+     */
+    private static final class Accumulator {
+
+        private final boolean hasData;
+
+        private double sumEffectiveTemp;
+        private double sumPrecipitation;
+        private double sumAllPrecip;
+        private int heatStressDays;
+        private int extremeHeatDays;
+        private double minTemp = Double.MAX_VALUE;
+        private double sumMeanTemp;
+        private int meanTempCount;
+
+        private int currentDryStreak;
+        private int longestDryPeriod;
+
+        Accumulator(boolean hasData) {
+            this.hasData = hasData;
+        }
+
+        void add(double temp, double rain, double mean) {
+            sumAllPrecip += rain;
+
+            if (temp < minTemp) minTemp = temp;
+            if (temp > HEAT_STRESS_THRESHOLD) heatStressDays++;
+            if (temp > EXTREME_HEAT_THRESHOLD) extremeHeatDays++;
+
+            if (temp > ACTIVE_TEMP_THRESHOLD) {
+                sumEffectiveTemp += temp;
+                sumPrecipitation += rain;
+            }
+
+            if (!Double.isNaN(mean)) {
+                sumMeanTemp += mean;
+                meanTempCount++;
+            }
+
+            if (rain < DRY_DAY_THRESHOLD) {
+                currentDryStreak++;
+                if (currentDryStreak > longestDryPeriod) longestDryPeriod = currentDryStreak;
+            } else {
+                currentDryStreak = 0;
+            }
+        }
+
+        AgrometricalData toMetrics() {
+            if (!hasData) {
+                return emptyMetrics();
+            }
+
+            double gtk = sumEffectiveTemp > 0 ? (sumPrecipitation * GTK_MULTIPLIER) / sumEffectiveTemp : 0.0;
+            double avgTemp = meanTempCount > 0 ? sumMeanTemp / meanTempCount : 0.0;
+
+            return new AgrometricalData(
+                    gtk, sumAllPrecip, sumEffectiveTemp,
+                    heatStressDays, minTemp == Double.MAX_VALUE ? 0.0 : minTemp, interpretGtk(gtk),
+                    avgTemp, extremeHeatDays, longestDryPeriod, null
+            );
+        }
+    }
+}
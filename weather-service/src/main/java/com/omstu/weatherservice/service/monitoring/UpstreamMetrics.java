@@ -0,0 +1,112 @@
+package com.omstu.weatherservice.service.monitoring;
+
+import com.omstu.weatherservice.series.DecodeStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики запросов к Open-Meteo (Micrometer, /actuator/metrics и /actuator/prometheus):
+ *
+ * - weather.upstream.request — длительность запроса по стратегии и исходу (success, error, cancelled)
+ * - weather.upstream.response.bytes — размер тела ответа
+ * - weather.upstream.decode / weather.upstream.network — время разбора ответа и ожидания сети
+ * - weather.upstream.chunks — число частей в одном запросе длинного периода
+ * - weather.upstream.chunk.errors / weather.upstream.chunk.dropped — неудачные попытки загрузки части
+ *   и части, так и не загруженные после повторов (попадают в missingPeriods)
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamMetrics {
+
+    private static final String STRATEGY_TAG = "strategy";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Оборачивает запрос стратегии: замер длительности и статистика разбора ответа
+     *
+     * @param strategy тип стратегии (тег метрик)
+     * @param request  запрос, разбирающий ответ через OpenMeteoSeriesDecoder
+     */
+    public <T> Mono<T> recordRequest(String strategy, Mono<T> request) {
+        return Mono.defer(() -> {
+                    Timer.Sample sample = Timer.start(registry);
+                    return request.doFinally(signal -> sample.stop(Timer.builder("weather.upstream.request")
+                            .description("Open-Meteo request latency")
+                            .tag(STRATEGY_TAG, strategy)
+                            .tag("outcome", outcome(signal))
+                            .register(registry)));
+                })
+                .contextWrite(context -> context.put(DecodeStats.Listener.class, decodeListener(strategy)));
+    }
+
+    /**
+     * Число частей, на которые разбит запрос длинного периода
+     */
+    public void recordChunks(int chunks) {
+        DistributionSummary.builder("weather.upstream.chunks")
+                .description("Chunks per long-period historical request")
+                .register(registry)
+                .record(chunks);
+    }
+
+    /**
+     * Неудачная попытка загрузки части (в том числе перед повтором)
+     */
+    public void recordChunkError(Throwable error) {
+        Counter.builder("weather.upstream.chunk.errors")
+                .description("Failed chunk fetch attempts")
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Часть, не загруженная после всех повторов
+     */
+    public void recordChunkDropped(Throwable error) {
+        Counter.builder("weather.upstream.chunk.dropped")
+                .description("Chunks dropped after retries and reported as missing periods")
+                .tag("exception", error.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    private DecodeStats.Listener decodeListener(String strategy) {
+        DistributionSummary bytes = DistributionSummary.builder("weather.upstream.response.bytes")
+                .description("Open-Meteo response body size")
+                .baseUnit("bytes")
+                .tag(STRATEGY_TAG, strategy)
+                .register(registry);
+        Timer decode = Timer.builder("weather.upstream.decode")
+                .description("Time spent parsing Open-Meteo response body")
+                .tag(STRATEGY_TAG, strategy)
+                .register(registry);
+        Timer network = Timer.builder("weather.upstream.network")
+                .description("Time spent waiting for Open-Meteo response bytes")
+                .tag(STRATEGY_TAG, strategy)
+                .register(registry);
+
+        return stats -> {
+            bytes.record(stats.bytes());
+            decode.record(stats.decodeNanos(), TimeUnit.NANOSECONDS);
+            network.record(stats.networkNanos(), TimeUnit.NANOSECONDS);
+        };
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+}
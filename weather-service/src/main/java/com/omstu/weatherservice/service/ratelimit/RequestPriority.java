@@ -0,0 +1,28 @@
+package com.omstu.weatherservice.service.ratelimit;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Полоса ограничителя запросов к Open-Meteo.
+ * Передается через контекст Reactor; запросы без явной полосы считаются интерактивными.
+ */
+public enum RequestPriority {
+
+    // Запросы пользователей, ждущих ответа
+    INTERACTIVE,
+
+    // Пакетные и фоновые загрузки
+    BACKGROUND;
+
+    public static RequestPriority from(ContextView context) {
+        return context.getOrDefault(RequestPriority.class, INTERACTIVE);
+    }
+
+    /**
+     * Для contextWrite: {@code mono.contextWrite(RequestPriority.BACKGROUND::writeTo)}
+     */
+    public Context writeTo(Context context) {
+        return context.put(RequestPriority.class, this);
+    }
+}
@@ -0,0 +1,20 @@
+package com.omstu.weatherservice.service.ratelimit;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Запрос к Open-Meteo не отправлен: очередь полосы ограничителя частоты переполнена.
+ * Перегружен сам сервис, а не клиент и не API; retryAfter — за сколько полная очередь разбирается
+ */
+@Getter
+public class UpstreamOverloadedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public UpstreamOverloadedException(RequestPriority priority, Duration retryAfter) {
+        super("Upstream rate limiter queue is full for " + priority + " requests");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,208 @@
+package com.omstu.weatherservice.service.ratelimit;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты запросов к Open-Meteo (token bucket) с двумя полосами ожидания.
+ *
+ * - токены пополняются с постоянной скоростью до размера корзины (допустимый всплеск)
+ * - ожидающие обслуживаются в порядке очереди внутри своей полосы
+ * - интерактивная полоса приоритетнее, но при ожидающих фоновых запросах фоновый получает
+ *   токен не реже чем через interactiveWeight интерактивных, поэтому фон не голодает
+ * - при переполнении полосы запрос сразу завершается UpstreamOverloadedException
+ *
+ * Метрики: weather.upstream.ratelimit.wait (ожидание токена), .queued (длина полос),
+ * .tokens (доступные токены), .rejected (отказы при переполнении).
+ */
+@Component
+@Slf4j
+public class UpstreamRateLimiter {
+
+    private static final String LANE_TAG = "lane";
+
+    private final boolean enabled;
+    private final double tokensPerNano;
+    private final double capacity;
+    private final int maxQueued;
+    private final int interactiveWeight;
+    // За сколько разбирается полная очередь полосы (Retry-After отказа)
+    private final Duration queueDrainTime;
+
+    private final Map<RequestPriority, Deque<Waiter>> lanes = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Timer> waitTimers = new EnumMap<>(RequestPriority.class);
+    private final Map<RequestPriority, Counter> rejections = new EnumMap<>(RequestPriority.class);
+
+    private double tokens;
+    private long lastRefill;
+    private int interactiveStreak;
+    private boolean drainScheduled;
+
+    public UpstreamRateLimiter(WeatherApiProperties properties, MeterRegistry meterRegistry) {
+        WeatherApiProperties.RateLimit settings = properties.getRateLimit();
+        if (settings.isEnabled() && settings.getRequestsPerSecond() <= 0) {
+            throw new IllegalArgumentException("weather.api.rate-limit.requests-per-second must be positive");
+        }
+        this.enabled = settings.isEnabled();
+        this.tokensPerNano = settings.getRequestsPerSecond() / 1_000_000_000.0;
+        this.capacity = Math.max(1, settings.getBurst());
+        this.maxQueued = settings.getMaxQueued();
+        this.interactiveWeight = Math.max(1, settings.getInteractiveWeight());
+        this.queueDrainTime = enabled
+                ? Duration.ofNanos(Math.round(Math.max(1, maxQueued) / tokensPerNano))
+                : Duration.ZERO;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+
+        for (RequestPriority priority : RequestPriority.values()) {
+            lanes.put(priority, new ArrayDeque<>());
+            waitTimers.put(priority, Timer.builder("weather.upstream.ratelimit.wait")
+                    .description("Time spent waiting for an upstream request token")
+                    .tag(LANE_TAG, priority.name())
+                    .register(meterRegistry));
+            rejections.put(priority, Counter.builder("weather.upstream.ratelimit.rejected")
+                    .description("Upstream requests rejected because the lane queue was full")
+                    .tag(LANE_TAG, priority.name())
+                    .register(meterRegistry));
+            Gauge.builder("weather.upstream.ratelimit.queued", this, limiter -> limiter.queued(priority))
+                    .description("Upstream requests waiting for a token")
+                    .tag(LANE_TAG, priority.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("weather.upstream.ratelimit.tokens", this, UpstreamRateLimiter::availableTokens)
+                .description("Tokens currently available")
+                .register(meterRegistry);
+
+        log.info("Upstream rate limiter {}: {} req/s, burst {}, max queued {} per lane, interactive weight {}",
+                enabled ? "enabled" : "disabled", settings.getRequestsPerSecond(), settings.getBurst(),
+                maxQueued, interactiveWeight);
+    }
+
+    /**
+     * Фильтр WebClient: каждый запрос ждет токен в полосе из контекста Reactor
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.deferContextual(context ->
+                acquire(RequestPriority.from(context)).then(next.exchange(request)));
+    }
+
+    /**
+     * Ждет токен в указанной полосе
+     *
+     * @param priority полоса
+     * @return завершается, когда запрос можно отправлять
+     */
+    public Mono<Void> acquire(RequestPriority priority) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(priority, sink, System.nanoTime());
+            boolean accepted;
+            synchronized (this) {
+                Deque<Waiter> lane = lanes.get(priority);
+                accepted = lane.size() < maxQueued;
+                if (accepted) {
+                    lane.addLast(waiter);
+                }
+            }
+            if (!accepted) {
+                rejections.get(priority).increment();
+                sink.error(new UpstreamOverloadedException(priority, queueDrainTime));
+                return;
+            }
+            sink.onCancel(() -> {
+                synchronized (this) {
+                    lanes.get(priority).remove(waiter);
+                }
+            });
+            drain();
+        });
+    }
+
+    /**
+     * Выдает доступные токены ожидающим и, если очередь не пуста, планирует следующую выдачу
+     */
+    private void drain() {
+        List<Waiter> granted = new ArrayList<>();
+        long delayNanos = -1;
+        synchronized (this) {
+            refill();
+            while (tokens >= 1 && hasWaiters()) {
+                tokens -= 1;
+                granted.add(nextWaiter());
+            }
+            if (hasWaiters() && !drainScheduled) {
+                drainScheduled = true;
+                delayNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+        }
+
+        long now = System.nanoTime();
+        for (Waiter waiter : granted) {
+            waitTimers.get(waiter.priority()).record(now - waiter.enqueuedAt(), TimeUnit.NANOSECONDS);
+            waiter.sink().success();
+        }
+
+        if (delayNanos >= 0) {
+            Schedulers.parallel().schedule(() -> {
+                synchronized (this) {
+                    drainScheduled = false;
+                }
+                drain();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+    private boolean hasWaiters() {
+        return !lanes.get(RequestPriority.INTERACTIVE).isEmpty()
+                || !lanes.get(RequestPriority.BACKGROUND).isEmpty();
+    }
+
+    private Waiter nextWaiter() {
+        Deque<Waiter> interactive = lanes.get(RequestPriority.INTERACTIVE);
+        Deque<Waiter> background = lanes.get(RequestPriority.BACKGROUND);
+        if (!interactive.isEmpty() && (background.isEmpty() || interactiveStreak < interactiveWeight)) {
+            interactiveStreak++;
+            return interactive.pollFirst();
+        }
+        interactiveStreak = 0;
+        return background.pollFirst();
+    }
+
+    private synchronized int queued(RequestPriority priority) {
+        return lanes.get(priority).size();
+    }
+
+    private synchronized double availableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private record Waiter(RequestPriority priority, MonoSink<Void> sink, long enqueuedAt) {
+    }
+}
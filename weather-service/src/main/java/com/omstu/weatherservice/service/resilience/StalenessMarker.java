@@ -0,0 +1,42 @@
+package com.omstu.weatherservice.service.resilience;
+
+import com.omstu.weatherservice.series.WeatherSeries;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Отметка «ответ собран из устаревших данных» для одного HTTP-запроса.
+ *
+ * Контроллер кладет отметку в контекст Reactor; OpenMeteoService помечает ее, когда отдает
+ * устаревший ряд (последний прогноз из кэша или архив без недогруженных дней). Так признак доходит
+ * до ответа независимо от того, какие метрики рассчитаны из ряда.
+ */
+public final class StalenessMarker {
+
+    private volatile boolean stale;
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public Context writeTo(Context context) {
+        return context.put(StalenessMarker.class, this);
+    }
+
+    /**
+     * Помечает отметку запроса из контекста, если ряд устаревший
+     */
+    public static Mono<WeatherSeries> report(Mono<WeatherSeries> series) {
+        return series.transformDeferredContextual((mono, context) -> mono.doOnNext(response -> {
+            if (response.stale()) {
+                mark(context);
+            }
+        }));
+    }
+
+    private static void mark(ContextView context) {
+        context.<StalenessMarker>getOrEmpty(StalenessMarker.class)
+                .ifPresent(marker -> marker.stale = true);
+    }
+}
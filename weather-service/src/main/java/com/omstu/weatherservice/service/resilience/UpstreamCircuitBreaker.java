@@ -0,0 +1,218 @@
+package com.omstu.weatherservice.service.resilience;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Автомат отключения (circuit breaker) запросов к одному хосту Open-Meteo.
+ *
+ * - CLOSED: запросы идут, исходы последних slidingWindowSize запросов копятся в кольцевом окне;
+ *   при доле ошибок не меньше failureRateThreshold (и не менее minimumCalls исходов) автомат размыкается
+ * - OPEN: запросы сразу завершаются UpstreamUnavailableException, не занимая токены ограничителя частоты
+ * - HALF_OPEN: через openDuration пропускается один пробный запрос; успех замыкает автомат, ошибка — снова размыкает
+ *
+ * Ошибкой считаются сетевые ошибки, ожидание заголовков дольше callTimeout (от получения токена
+ * ограничителя), ответы 5xx и 429. Отказы и ожидание самого ограничителя исходами не считаются.
+ *
+ * Метрики: weather.upstream.circuit.state (0 — CLOSED, 1 — OPEN, 2 — HALF_OPEN),
+ * weather.upstream.circuit.rejected (отклоненные запросы), weather.upstream.circuit.opened (размыкания).
+ */
+@Slf4j
+public class UpstreamCircuitBreaker {
+
+    private static final String UPSTREAM_TAG = "upstream";
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private enum Permit {
+        DENIED, CALL, PROBE
+    }
+
+    private final String upstream;
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final Duration callTimeout;
+
+    private final Counter rejected;
+    private final Counter opened;
+
+    // Кольцевое окно исходов: true — ошибка
+    private final boolean[] outcomes;
+    private int recorded;
+    private int position;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public UpstreamCircuitBreaker(String upstream, WeatherApiProperties.CircuitBreaker settings,
+                                  MeterRegistry meterRegistry) {
+        if (settings.getSlidingWindowSize() <= 0) {
+            throw new IllegalArgumentException("weather.api.circuit-breaker.sliding-window-size must be positive");
+        }
+        this.upstream = upstream;
+        this.enabled = settings.isEnabled();
+        this.outcomes = new boolean[settings.getSlidingWindowSize()];
+        this.minimumCalls = Math.max(1, Math.min(settings.getMinimumCalls(), outcomes.length));
+        this.failureRateThreshold = settings.getFailureRateThreshold();
+        this.openNanos = settings.getOpenDuration().toNanos();
+        this.callTimeout = settings.getCallTimeout();
+
+        this.rejected = Counter.builder("weather.upstream.circuit.rejected")
+                .description("Upstream requests rejected while the circuit was open")
+                .tag(UPSTREAM_TAG, upstream)
+                .register(meterRegistry);
+        this.opened = Counter.builder("weather.upstream.circuit.opened")
+                .description("Times the upstream circuit opened")
+                .tag(UPSTREAM_TAG, upstream)
+                .register(meterRegistry);
+        Gauge.builder("weather.upstream.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("Upstream circuit state: 0 closed, 1 open, 2 half-open")
+                .tag(UPSTREAM_TAG, upstream)
+                .register(meterRegistry);
+
+        log.info("Circuit breaker for {} upstream {}: window {}, minimum calls {}, threshold {}%, open for {}",
+                upstream, enabled ? "enabled" : "disabled", outcomes.length, minimumCalls,
+                failureRateThreshold, settings.getOpenDuration());
+    }
+
+    /**
+     * Фильтр WebClient: при разомкнутом автомате запрос не отправляется и не ждет токен ограничителя,
+     * иначе проходит через throttle (ограничитель частоты), и учитывается исход самого вызова.
+     *
+     * Ожидание callTimeout начинается после того, как throttle пропустил запрос: время в очереди
+     * ограничителя к API не относится. Отказ ограничителя (переполнение очереди) и отмена до отправки
+     * исходом вызова не считаются — разрешение (в том числе пробное) просто освобождается.
+     *
+     * @param throttle фильтр, через который запрос проходит после проверки автомата
+     */
+    public ExchangeFilterFunction filter(ExchangeFilterFunction throttle) {
+        return (request, next) -> {
+            if (!enabled) {
+                return throttle.filter(request, next);
+            }
+            return Mono.defer(() -> {
+                Permit permit = acquire();
+                if (permit == Permit.DENIED) {
+                    rejected.increment();
+                    return Mono.error(new UpstreamUnavailableException(upstream));
+                }
+                // Исход учитывается один раз: ответ или ошибка самого вызова;
+                // все остальное (отказ ограничителя, отмена) только освобождает разрешение
+                AtomicBoolean finished = new AtomicBoolean();
+                return throttle.filter(request, admitted -> next.exchange(admitted)
+                                .timeout(callTimeout)
+                                .doOnNext(response -> {
+                                    if (finished.compareAndSet(false, true)) {
+                                        record(permit, isFailure(response.statusCode()));
+                                    }
+                                })
+                                .doOnError(error -> {
+                                    if (finished.compareAndSet(false, true)) {
+                                        record(permit, true);
+                                    }
+                                }))
+                        .doFinally(signal -> {
+                            if (finished.compareAndSet(false, true)) {
+                                release(permit);
+                            }
+                        });
+            });
+        };
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private synchronized Permit acquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            log.info("Circuit for {} upstream is half-open, sending a probe request", upstream);
+        }
+        return switch (state) {
+            case CLOSED -> Permit.CALL;
+            case OPEN -> Permit.DENIED;
+            case HALF_OPEN -> {
+                if (probeInFlight) {
+                    yield Permit.DENIED;
+                }
+                probeInFlight = true;
+                yield Permit.PROBE;
+            }
+        };
+    }
+
+    private synchronized void record(Permit permit, boolean failure) {
+        if (permit == Permit.PROBE) {
+            probeInFlight = false;
+            if (failure) {
+                failures = 1;
+                recorded = 1;
+                open();
+            } else {
+                log.info("Circuit for {} upstream is closed again", upstream);
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        // Исходы запросов, начатых до размыкания, окно уже не меняют
+        if (state != State.CLOSED) {
+            return;
+        }
+
+        if (recorded == outcomes.length && outcomes[position]) {
+            failures--;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+        recorded = Math.min(recorded + 1, outcomes.length);
+
+        if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    private synchronized void release(Permit permit) {
+        if (permit == Permit.PROBE) {
+            probeInFlight = false;
+        }
+    }
+
+    private void open() {
+        log.warn("Circuit for {} upstream is open after {} failures in {} requests, next probe in {} ms",
+                upstream, failures, recorded, Duration.ofNanos(openNanos).toMillis());
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        opened.increment();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        position = 0;
+        failures = 0;
+    }
+
+    private static boolean isFailure(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429;
+    }
+}
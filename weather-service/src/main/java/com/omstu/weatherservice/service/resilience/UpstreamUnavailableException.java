@@ -0,0 +1,11 @@
+package com.omstu.weatherservice.service.resilience;
+
+/**
+ * Запрос к Open-Meteo не отправлен: автомат отключения разомкнут после серии ошибок API
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String upstream) {
+        super("Open-Meteo " + upstream + " API is temporarily unavailable");
+    }
+}
@@ -1,8 +1,10 @@
 package com.omstu.weatherservice.service.strategy;
 
 import com.omstu.weatherservice.config.WeatherParameters;
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.series.OpenMeteoSeriesDecoder;
+import com.omstu.weatherservice.series.WeatherSeries;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
@@ -12,6 +14,11 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class ForecastRequestStrategy implements WeatherRequestStrategy {
 
+    /**
+     * Набор запрашиваемых переменных (входит в ключ кэша прогнозов)
+     */
+    public static final String VARIABLES = WeatherParameters.HOURLY_PARAMS + ";" + WeatherParameters.DAILY_PARAMS;
+
     private final Integer forecastDays;
 
     public ForecastRequestStrategy(Integer forecastDays) {
@@ -19,7 +26,7 @@ public class ForecastRequestStrategy implements WeatherRequestStrategy {
     }
 
     @Override
-    public Mono<OpenMeteoResponse> execute(WebClient webClient, Double lat, Double lon) {
+    public Mono<WeatherSeries> execute(WebClient webClient, Double lat, Double lon) {
         log.debug("Requesting {} days forecast for coordinates: lat={}, lon={}", forecastDays, lat, lon);
 
         return webClient.get()
@@ -33,7 +40,8 @@ public class ForecastRequestStrategy implements WeatherRequestStrategy {
                         .queryParam("timezone", "auto")
                         .build())
                 .retrieve()
-                .bodyToMono(OpenMeteoResponse.class)
+                .bodyToFlux(DataBuffer.class)
+                .as(OpenMeteoSeriesDecoder::decode)
                 .doOnSuccess(response ->
                         log.info("Successfully received {} days forecast for coordinates: lat={}, lon={}",
                                 forecastDays, lat, lon))
@@ -1,8 +1,10 @@
 package com.omstu.weatherservice.service.strategy;
 
 import com.omstu.weatherservice.config.WeatherParameters;
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.series.OpenMeteoSeriesDecoder;
+import com.omstu.weatherservice.series.WeatherSeries;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
@@ -21,7 +23,7 @@ public class HistoricalRequestStrategy implements WeatherRequestStrategy {
     }
 
     @Override
-    public Mono<OpenMeteoResponse> execute(WebClient webClient, Double lat, Double lon) {
+    public Mono<WeatherSeries> execute(WebClient webClient, Double lat, Double lon) {
         log.debug("Requesting historical data for period {} to {} at coordinates: lat={}, lon={}",
                 startDate, endDate, lat, lon);
 
@@ -36,7 +38,8 @@ public class HistoricalRequestStrategy implements WeatherRequestStrategy {
                         .queryParam("timezone", "auto")
                         .build())
                 .retrieve()
-                .bodyToMono(OpenMeteoResponse.class)
+                .bodyToFlux(DataBuffer.class)
+                .as(OpenMeteoSeriesDecoder::decode)
                 .doOnSuccess(response ->
                         log.info("Successfully received historical data for period {} to {} at lat={}, lon={}",
                                 startDate, endDate, lat, lon))
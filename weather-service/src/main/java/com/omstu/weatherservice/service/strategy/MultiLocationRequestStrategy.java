@@ -0,0 +1,90 @@
+package com.omstu.weatherservice.service.strategy;
+
+import com.omstu.weatherservice.config.WeatherParameters;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.OpenMeteoSeriesDecoder;
+import com.omstu.weatherservice.series.WeatherSeries;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Стратегия для получения исторических данных сразу по нескольким узлам сетки.
+ * Open-Meteo принимает списки широт и долгот через запятую и отвечает массивом
+ * ответов в том же порядке, поэтому несколько ячеек за один период укладываются в один запрос.
+ */
+@Slf4j
+public class MultiLocationRequestStrategy implements WeatherRequestStrategy {
+
+    private final String startDate;
+    private final String endDate;
+
+    public MultiLocationRequestStrategy(String startDate, String endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    @Override
+    public Mono<WeatherSeries> execute(WebClient webClient, Double lat, Double lon) {
+        return executeAll(webClient, List.of(new GridCell(lat, lon)))
+                .map(responses -> responses.get(0));
+    }
+
+    /**
+     * Выполняет один запрос по всем узлам
+     *
+     * @param webClient веб-клиент архива
+     * @param cells     различные узлы сетки
+     * @return ряды в порядке узлов, у каждого проставлен свой узел сетки
+     */
+    public Mono<List<WeatherSeries>> executeAll(WebClient webClient, List<GridCell> cells) {
+        log.debug("Requesting historical data for period {} to {} at {} locations", startDate, endDate, cells.size());
+
+        String latitudes = cells.stream()
+                .map(cell -> String.valueOf(cell.latitude()))
+                .collect(Collectors.joining(","));
+        String longitudes = cells.stream()
+                .map(cell -> String.valueOf(cell.longitude()))
+                .collect(Collectors.joining(","));
+
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/archive")
+                        .queryParam("latitude", latitudes)
+                        .queryParam("longitude", longitudes)
+                        .queryParam("daily", WeatherParameters.DAILY_PARAMS)
+                        .queryParam("start_date", startDate)
+                        .queryParam("end_date", endDate)
+                        .queryParam("timezone", "auto")
+                        .build())
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(OpenMeteoSeriesDecoder::decodeAll)
+                .map(responses -> {
+                    if (responses.size() != cells.size()) {
+                        throw new DecodingException("Expected " + cells.size()
+                                + " locations in Open-Meteo response, got " + responses.size());
+                    }
+                    return IntStream.range(0, cells.size())
+                            .mapToObj(i -> responses.get(i).withGridCell(cells.get(i)))
+                            .toList();
+                })
+                .doOnSuccess(responses ->
+                        log.info("Successfully received historical data for period {} to {} at {} locations",
+                                startDate, endDate, cells.size()))
+                .doOnError(error ->
+                        log.error("Failed to fetch historical data for period {} to {} at {} locations: {}",
+                                startDate, endDate, cells.size(), error.getMessage()));
+    }
+
+    @Override
+    public String getType() {
+        return "HISTORICAL_MULTI_LOCATION";
+    }
+}
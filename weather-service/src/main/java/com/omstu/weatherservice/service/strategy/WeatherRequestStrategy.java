@@ -1,6 +1,6 @@
 package com.omstu.weatherservice.service.strategy;
 
-import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.series.WeatherSeries;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
@@ -15,9 +15,9 @@ public interface WeatherRequestStrategy {
      * @param webClient веб-клиент для запроса
      * @param lat       широта
      * @param lon       долгота
-     * @return ответ от API
+     * @return ответ от API, разобранный в колоночные ряды
      */
-    Mono<OpenMeteoResponse> execute(WebClient webClient, Double lat, Double lon);
+    Mono<WeatherSeries> execute(WebClient webClient, Double lat, Double lon);
 
     /**
      * Возвращает тип стратегии
@@ -1,10 +1,13 @@
 package com.omstu.weatherservice.service.utils;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Утилита для работы с датами и периодами
@@ -78,6 +81,99 @@ public final class DateUtils {
         return ranges;
     }
 
+    /**
+     * Разбивает период на календарные недели (понедельник — воскресенье),
+     * крайние недели обрезаются границами периода
+     *
+     * @param startDate начальная дата
+     * @param endDate конечная дата
+     * @return список интервалов
+     */
+    public static List<DateRange> splitByWeeks(LocalDate startDate, LocalDate endDate) {
+        List<DateRange> ranges = new ArrayList<>();
+
+        LocalDate current = startDate;
+
+        while (!current.isAfter(endDate)) {
+            LocalDate sunday = current.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+            LocalDate rangeEnd = sunday.isBefore(endDate) ? sunday : endDate;
+
+            ranges.add(new DateRange(current, rangeEnd));
+
+            current = rangeEnd.plusDays(1);
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Разбивает период на декады (1–10, 11–20, 21–конец месяца),
+     * крайние декады обрезаются границами периода
+     *
+     * @param startDate начальная дата
+     * @param endDate конечная дата
+     * @return список интервалов
+     */
+    public static List<DateRange> splitByDekads(LocalDate startDate, LocalDate endDate) {
+        List<DateRange> ranges = new ArrayList<>();
+
+        LocalDate current = startDate;
+
+        while (!current.isAfter(endDate)) {
+            LocalDate dekadEnd = current.getDayOfMonth() <= 10 ? current.withDayOfMonth(10)
+                    : current.getDayOfMonth() <= 20 ? current.withDayOfMonth(20)
+                    : YearMonth.from(current).atEndOfMonth();
+            LocalDate rangeEnd = dekadEnd.isBefore(endDate) ? dekadEnd : endDate;
+
+            ranges.add(new DateRange(current, rangeEnd));
+
+            current = rangeEnd.plusDays(1);
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Находит интервалы внутри периода, для которых нет данных.
+     * Пропуски, разделенные не более чем mergeGapDays днями, объединяются в один интервал,
+     * чтобы не делать много мелких запросов к API.
+     *
+     * @param startDate начальная дата
+     * @param endDate конечная дата
+     * @param presentDates даты, для которых данные уже есть
+     * @param mergeGapDays максимальное расстояние между пропусками для объединения
+     * @return список интервалов без данных
+     */
+    public static List<DateRange> findMissingRanges(
+            LocalDate startDate, LocalDate endDate, Set<LocalDate> presentDates, int mergeGapDays
+    ) {
+        List<DateRange> ranges = new ArrayList<>();
+
+        LocalDate gapStart = null;
+        LocalDate gapEnd = null;
+
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (presentDates.contains(date)) {
+                continue;
+            }
+            if (gapStart != null && ChronoUnit.DAYS.between(gapEnd, date) <= mergeGapDays + 1) {
+                gapEnd = date;
+                continue;
+            }
+            if (gapStart != null) {
+                ranges.add(new DateRange(gapStart, gapEnd));
+            }
+            gapStart = date;
+            gapEnd = date;
+        }
+
+        if (gapStart != null) {
+            ranges.add(new DateRange(gapStart, gapEnd));
+        }
+
+        return ranges;
+    }
+
     /**
      * Представляет временной интервал
      */
@@ -0,0 +1,32 @@
+-- Ячейки сетки Open-Meteo, для которых хранится архив наблюдений
+CREATE TABLE IF NOT EXISTS weather_grid_cells (
+    id         BIGSERIAL PRIMARY KEY,
+    cell_lat   DOUBLE PRECISION NOT NULL,
+    cell_lon   DOUBLE PRECISION NOT NULL,
+    latitude   DOUBLE PRECISION, -- Координаты узла, которые вернул Open-Meteo
+    longitude  DOUBLE PRECISION,
+    elevation  DOUBLE PRECISION,
+    UNIQUE (cell_lat, cell_lon)
+);
+
+-- Шаг 50 совпадает с allocationSize в DailyObservation (пакетная вставка)
+CREATE SEQUENCE IF NOT EXISTS weather_daily_observations_id_seq INCREMENT BY 50;
+
+-- Архив дневных наблюдений: прошедшие дни не меняются, поэтому запрашиваем их один раз
+CREATE TABLE IF NOT EXISTS weather_daily_observations (
+    id                           BIGINT PRIMARY KEY DEFAULT nextval('weather_daily_observations_id_seq'),
+    cell_id                      BIGINT NOT NULL REFERENCES weather_grid_cells(id),
+    obs_date                     DATE NOT NULL,
+    temperature_max              DOUBLE PRECISION,
+    temperature_min              DOUBLE PRECISION,
+    temperature_mean             DOUBLE PRECISION,
+    relative_humidity_mean       DOUBLE PRECISION,
+    relative_humidity_min        DOUBLE PRECISION,
+    precipitation_sum            DOUBLE PRECISION,
+    reference_evapotranspiration DOUBLE PRECISION,
+    wind_speed_max               DOUBLE PRECISION,
+    wind_gusts_max               DOUBLE PRECISION,
+    shortwave_radiation_sum      DOUBLE PRECISION,
+    sunshine_duration            INTEGER,
+    UNIQUE (cell_id, obs_date)
+);
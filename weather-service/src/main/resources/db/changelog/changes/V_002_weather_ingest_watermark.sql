@@ -0,0 +1,7 @@
+-- Дата последнего пользовательского запроса к ячейке: по ней плановая догрузка выбирает активные ячейки
+ALTER TABLE weather_grid_cells ADD COLUMN IF NOT EXISTS last_requested_on DATE;
+
+-- Водяной знак плановой догрузки: последний день, сохраненный в архиве
+ALTER TABLE weather_grid_cells ADD COLUMN IF NOT EXISTS archived_through DATE;
+
+CREATE INDEX IF NOT EXISTS idx_weather_grid_cells_last_requested_on ON weather_grid_cells (last_requested_on);
@@ -0,0 +1,61 @@
+package com.omstu.weatherservice.controller;
+
+import com.omstu.weatherservice.dto.OpenMeteoResponse;
+import com.omstu.weatherservice.mapper.WeatherSeriesMapper;
+import com.omstu.weatherservice.service.impl.OpenMeteoService;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.ratelimit.UpstreamOverloadedException;
+import com.omstu.weatherservice.service.resilience.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OpenMeteoControllerTest {
+
+    private final OpenMeteoService openMeteoService = mock(OpenMeteoService.class);
+    private final OpenMeteoController controller =
+            new OpenMeteoController(openMeteoService, mock(WeatherSeriesMapper.class));
+
+    @Test
+    void fullRateLimiterQueueIsServiceUnavailableWithRetryAfter() {
+        failWith(new UpstreamOverloadedException(RequestPriority.INTERACTIVE, Duration.ofMillis(62_500)));
+
+        ResponseEntity<OpenMeteoResponse> response = forecast();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("63");
+    }
+
+    @Test
+    void openCircuitIsServiceUnavailable() {
+        failWith(new UpstreamUnavailableException("forecast"));
+
+        assertThat(forecast().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void otherErrorsAreBadRequest() {
+        failWith(new IllegalArgumentException("Forecast days cannot exceed 16"));
+
+        assertThat(forecast().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private void failWith(Throwable error) {
+        when(openMeteoService.getWeather(anyDouble(), anyDouble(), any(), any(), any(), any()))
+                .thenReturn(Mono.error(error));
+    }
+
+    private ResponseEntity<OpenMeteoResponse> forecast() {
+        return controller.getForecast(55.0, 73.4, 7).block(Duration.ofSeconds(5));
+    }
+}
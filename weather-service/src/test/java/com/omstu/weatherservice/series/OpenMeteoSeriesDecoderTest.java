@@ -0,0 +1,207 @@
+package com.omstu.weatherservice.series;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OpenMeteoSeriesDecoderTest {
+
+    private static final int[] CHUNK_SIZES = {1, 2, 3, 5, 7, 13, 64, 1024};
+
+    @Test
+    void decodesForecastWithHourlyAndDailySections() {
+        WeatherSeries series = decodeSingle(resource("forecast.json"), Integer.MAX_VALUE);
+
+        assertThat(series.latitude()).isEqualTo(55.0);
+        assertThat(series.longitude()).isEqualTo(73.4);
+        assertThat(series.elevation()).isEqualTo(91.0);
+
+        HourlySeries hourly = series.hourly();
+        assertThat(hourly.times()).containsExactly(
+                epochHour("2025-05-01", 0), epochHour("2025-05-01", 1),
+                epochHour("2025-05-02", 0), epochHour("2025-05-02", 1));
+        assertThat(hourly.column(HourlyVariable.TEMPERATURE)).containsExactly(4.1, 3.8, Double.NaN, 5.0);
+        assertThat(hourly.column(HourlyVariable.PRECIPITATION)).containsExactly(0.0, 0.2, 0.0, Double.NaN);
+        assertThat(hourly.has(HourlyVariable.WIND_SPEED)).isFalse();
+
+        DailySeries daily = series.daily();
+        assertThat(daily.times()).containsExactly(epochDay("2025-05-01"), epochDay("2025-05-02"));
+        assertThat(daily.column(DailyVariable.TEMPERATURE_MAX)).containsExactly(12.5, Double.NaN);
+        assertThat(daily.column(DailyVariable.TEMPERATURE_MIN)).containsExactly(1.2, -0.4);
+        assertThat(daily.column(DailyVariable.PRECIPITATION_SUM)).containsExactly(0.2, 0.0);
+        assertThat(daily.has(DailyVariable.TEMPERATURE_MEAN)).isFalse();
+
+        // Суточное среднее почвы считается по почасовым значениям; день без значений — NaN
+        assertThat(daily.column(DailyVariable.SOIL_TEMPERATURE_0CM_MEAN)).containsExactly(3.0, Double.NaN);
+        assertThat(daily.has(DailyVariable.SOIL_MOISTURE_0_TO_1CM_MEAN)).isFalse();
+    }
+
+    @Test
+    void decodesArchiveSkippingUnknownVariables() {
+        WeatherSeries series = decodeSingle(resource("archive.json"), Integer.MAX_VALUE);
+
+        assertThat(series.latitude()).isEqualTo(54.9);
+        assertThat(series.elevation()).isEqualTo(88.0);
+        assertThat(series.hourly()).isNull();
+
+        DailySeries daily = series.daily();
+        assertThat(daily.times()).containsExactly(
+                epochDay("2019-06-01"), epochDay("2019-06-02"), epochDay("2019-06-03"));
+        assertThat(daily.column(DailyVariable.TEMPERATURE_MEAN)).containsExactly(15.3, Double.NaN, 17.25);
+        assertThat(daily.column(DailyVariable.PRECIPITATION_SUM)).containsExactly(0.0, 3.4, Double.NaN);
+        assertThat(daily.column(DailyVariable.REFERENCE_EVAPOTRANSPIRATION)).containsExactly(3.1, 2.0, 4.2);
+        assertThat(daily.has(DailyVariable.TEMPERATURE_MAX)).isFalse();
+    }
+
+    @Test
+    void decodesMultiLocationResponseInRequestOrder() {
+        List<WeatherSeries> responses = decodeAll(resource("multi-location.json"), Integer.MAX_VALUE);
+
+        assertThat(responses).hasSize(2);
+        assertThat(responses.get(0).latitude()).isEqualTo(55.0);
+        assertThat(responses.get(0).daily().column(DailyVariable.TEMPERATURE_MAX)).containsExactly(-15.1, -17.8);
+        assertThat(responses.get(0).daily().column(DailyVariable.PRECIPITATION_SUM)).containsExactly(0.4, Double.NaN);
+
+        assertThat(responses.get(1).latitude()).isEqualTo(55.1);
+        assertThat(responses.get(1).elevation()).isEqualTo(95.0);
+        assertThat(responses.get(1).daily().times())
+                .containsExactly(epochDay("2020-01-01"), epochDay("2020-01-02"));
+        assertThat(responses.get(1).daily().column(DailyVariable.TEMPERATURE_MAX)).containsExactly(Double.NaN, -18.2);
+        assertThat(responses.get(1).daily().column(DailyVariable.PRECIPITATION_SUM)).containsExactly(0.0, 1.1);
+    }
+
+    @Test
+    void resultDoesNotDependOnBufferBoundaries() {
+        for (String name : List.of("forecast.json", "archive.json", "multi-location.json")) {
+            byte[] payload = resource(name);
+            List<WeatherSeries> expected = decodeAll(payload, Integer.MAX_VALUE);
+
+            for (int chunkSize : CHUNK_SIZES) {
+                assertSameSeries(name + " by " + chunkSize + " bytes", decodeAll(payload, chunkSize), expected);
+            }
+            // Случайные границы, в том числе внутри чисел, дат и многобайтовых символов
+            Random random = new Random(name.hashCode());
+            for (int attempt = 0; attempt < 20; attempt++) {
+                List<WeatherSeries> decoded = OpenMeteoSeriesDecoder
+                        .decodeAll(Flux.fromIterable(randomChunks(payload, random)))
+                        .block();
+                assertSameSeries(name + " random split #" + attempt, decoded, expected);
+            }
+        }
+    }
+
+    @Test
+    void truncatedInputFailsWithDecodingException() {
+        for (String name : List.of("forecast.json", "archive.json", "multi-location.json")) {
+            byte[] payload = resource(name);
+            int complete = new String(payload, StandardCharsets.UTF_8).stripTrailing()
+                    .getBytes(StandardCharsets.UTF_8).length;
+
+            for (int length = 0; length < complete; length++) {
+                byte[] truncated = Arrays.copyOf(payload, length);
+                int cut = length;
+                assertThatThrownBy(() -> decodeAll(truncated, 7))
+                        .as("%s truncated to %d bytes", name, cut)
+                        .isInstanceOf(DecodingException.class);
+            }
+        }
+    }
+
+    @Test
+    void singleResponseDecodingRejectsMultiLocationPayload() {
+        assertThatThrownBy(() -> decodeSingle(resource("multi-location.json"), 64))
+                .isInstanceOf(DecodingException.class)
+                .hasMessageContaining("got 2");
+    }
+
+    private static WeatherSeries decodeSingle(byte[] payload, int chunkSize) {
+        return OpenMeteoSeriesDecoder.decode(Flux.fromIterable(chunks(payload, chunkSize))).block();
+    }
+
+    private static List<WeatherSeries> decodeAll(byte[] payload, int chunkSize) {
+        return OpenMeteoSeriesDecoder.decodeAll(Flux.fromIterable(chunks(payload, chunkSize))).block();
+    }
+
+    private static List<DataBuffer> chunks(byte[] payload, int chunkSize) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int from = 0; from < payload.length; from += chunkSize) {
+            buffers.add(wrap(payload, from, (int) Math.min((long) from + chunkSize, payload.length)));
+        }
+        return buffers;
+    }
+
+    private static List<DataBuffer> randomChunks(byte[] payload, Random random) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        int from = 0;
+        while (from < payload.length) {
+            int to = Math.min(payload.length, from + 1 + random.nextInt(40));
+            buffers.add(wrap(payload, from, to));
+            from = to;
+        }
+        return buffers;
+    }
+
+    private static DataBuffer wrap(byte[] payload, int from, int to) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(payload, from, to));
+    }
+
+    private static void assertSameSeries(String description, List<WeatherSeries> actual, List<WeatherSeries> expected) {
+        assertThat(actual).as(description).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            WeatherSeries a = actual.get(i);
+            WeatherSeries e = expected.get(i);
+            assertThat(a.latitude()).as(description).isEqualTo(e.latitude());
+            assertThat(a.longitude()).as(description).isEqualTo(e.longitude());
+            assertThat(a.elevation()).as(description).isEqualTo(e.elevation());
+            assertSameColumns(description + " hourly", a.hourly(), e.hourly(), HourlyVariable.values());
+            assertSameColumns(description + " daily", a.daily(), e.daily(), DailyVariable.values());
+        }
+    }
+
+    private static <V extends Enum<V>> void assertSameColumns(
+            String description, ColumnarSeries<V, ?> actual, ColumnarSeries<V, ?> expected, V[] variables
+    ) {
+        if (expected == null) {
+            assertThat(actual).as(description).isNull();
+            return;
+        }
+        assertThat(actual.times()).as(description).containsExactly(expected.times());
+        // Arrays.equals сравнивает double побитово, поэтому NaN в одних и тех же позициях совпадают
+        for (V variable : variables) {
+            assertThat(Arrays.equals(actual.column(variable), expected.column(variable)))
+                    .as("%s %s", description, variable)
+                    .isTrue();
+        }
+    }
+
+    private static byte[] resource(String name) {
+        try (InputStream in = OpenMeteoSeriesDecoderTest.class.getResourceAsStream("/open-meteo/" + name)) {
+            assertThat(in).as(name).isNotNull();
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int epochDay(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    private static int epochHour(String date, int hour) {
+        return epochDay(date) * 24 + hour;
+    }
+}
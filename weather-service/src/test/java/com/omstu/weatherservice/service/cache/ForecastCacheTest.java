@@ -0,0 +1,187 @@
+package com.omstu.weatherservice.service.cache;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import com.omstu.weatherservice.series.HourlySeries;
+import com.omstu.weatherservice.series.HourlyVariable;
+import com.omstu.weatherservice.series.WeatherSeries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ForecastCacheTest {
+
+    private static final GridCell CELL = new GridCell(55.0, 73.4);
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void nextPublicationFollowsModelRunSchedule() {
+        // Прогоны в 0, 6, 12 и 18 UTC публикуются через 4 часа
+        ForecastCache cache = cache(List.of(18, 0, 12, 6), Duration.ofHours(4));
+
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T03:59:59Z")))
+                .isEqualTo(instant("2024-05-10T04:00:00Z"));
+        // Ровно в момент публикации запись уже относится к ней — ждем следующую
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T04:00:00Z")))
+                .isEqualTo(instant("2024-05-10T10:00:00Z"));
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T21:59:00Z")))
+                .isEqualTo(instant("2024-05-10T22:00:00Z"));
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T22:30:00Z")))
+                .isEqualTo(instant("2024-05-11T04:00:00Z"));
+        assertThat(cache.nextPublicationAfter(instant("2024-12-31T23:00:00Z")))
+                .isEqualTo(instant("2025-01-01T04:00:00Z"));
+    }
+
+    @Test
+    void nextPublicationOfPreviousDayRunIsNotSkipped() {
+        // Вечерний прогон публикуется уже после полуночи следующего дня
+        ForecastCache cache = cache(List.of(18), Duration.ofHours(8));
+
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T01:00:00Z")))
+                .isEqualTo(instant("2024-05-10T02:00:00Z"));
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T02:00:00Z")))
+                .isEqualTo(instant("2024-05-11T02:00:00Z"));
+    }
+
+    @Test
+    void emptyScheduleKeepsEntriesForOneDay() {
+        ForecastCache cache = cache(List.of(), Duration.ofHours(4));
+
+        assertThat(cache.nextPublicationAfter(instant("2024-05-10T12:00:00Z")))
+                .isEqualTo(instant("2024-05-11T12:00:00Z"));
+    }
+
+    @Test
+    void entryIsServedUntilNextPublication() throws InterruptedException {
+        ForecastCache cache = expiringIn(Duration.ofMillis(300));
+        ForecastCacheKey key = key(7);
+
+        assertThat(cache.getOrLoad(key, () -> load(forecast(7))).block(TIMEOUT).stale()).isFalse();
+        assertThat(cache.getOrLoad(key, () -> load(forecast(7))).block(TIMEOUT)).isNotNull();
+        assertThat(loads).hasValue(1);
+
+        Thread.sleep(500);
+        cache.getOrLoad(key, () -> load(forecast(7))).block(TIMEOUT);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shorterHorizonIsServedFromLongerForecast() {
+        ForecastCache cache = cache(List.of(0, 6, 12, 18), Duration.ofHours(4));
+        cache.getOrLoad(key(7), () -> load(forecast(7))).block(TIMEOUT);
+
+        WeatherSeries shorter = cache.getOrLoad(key(3), () -> load(forecast(3))).block(TIMEOUT);
+
+        assertThat(loads).hasValue(1);
+        assertThat(shorter.daily().size()).isEqualTo(3);
+        assertThat(shorter.hourly().size()).isEqualTo(3 * 24);
+        assertThat(shorter.daily().dateAt(0)).isEqualTo(LocalDate.of(2024, 5, 10));
+
+        // Другой набор переменных и больший горизонт загружаются отдельно
+        cache.getOrLoad(new ForecastCacheKey(CELL, 3, "other"), () -> load(forecast(3))).block(TIMEOUT);
+        cache.getOrLoad(key(10), () -> load(forecast(10))).block(TIMEOUT);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void staleCopyIsServedWhenApiIsSlowerThanStaleServeAfter() throws InterruptedException {
+        ForecastCache cache = expiringIn(Duration.ofMillis(300));
+        ForecastCacheKey key = key(7);
+        cache.getOrLoad(key, () -> load(forecast(7))).block(TIMEOUT);
+        Thread.sleep(500);
+
+        long start = System.nanoTime();
+        WeatherSeries stale = cache.getOrLoad(key, () -> load(forecast(7)).delayElement(Duration.ofMillis(600)))
+                .block(TIMEOUT);
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertThat(stale.stale()).isTrue();
+        assertThat(elapsedMillis).isBetween(100L, 500L);
+
+        // Загрузка завершается в фоне и обновляет кэш
+        Thread.sleep(800);
+        WeatherSeries refreshed = cache.getOrLoad(key, () -> Mono.error(new IllegalStateException("no calls")))
+                .block(TIMEOUT);
+        assertThat(refreshed.stale()).isFalse();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void staleCopyIsServedWhenApiFails() throws InterruptedException {
+        ForecastCache cache = expiringIn(Duration.ofMillis(300));
+        cache.getOrLoad(key(7), () -> load(forecast(7))).block(TIMEOUT);
+        Thread.sleep(500);
+
+        WeatherSeries stale = cache.getOrLoad(key(7), () -> Mono.error(new IllegalStateException("API is down")))
+                .block(TIMEOUT);
+        assertThat(stale.stale()).isTrue();
+
+        // Без устаревшей копии ошибка доходит до вызывающего
+        assertThatThrownBy(() -> cache.getOrLoad(key(5), () -> Mono.error(new IllegalStateException("API is down")))
+                .block(TIMEOUT)).hasMessageContaining("API is down");
+    }
+
+    private ForecastCache cache(List<Integer> modelRunHoursUtc, Duration publicationDelay) {
+        WeatherApiProperties properties = new WeatherApiProperties();
+        properties.getForecastCache().setModelRunHoursUtc(modelRunHoursUtc);
+        properties.getForecastCache().setPublicationDelay(publicationDelay);
+        properties.getForecastCache().setStaleServeAfter(Duration.ofMillis(150));
+        return new ForecastCache(properties, registry);
+    }
+
+    /**
+     * Кэш с прогонами каждый час, ближайшая публикация которых наступает через ttl
+     */
+    private ForecastCache expiringIn(Duration ttl) {
+        Instant publication = Instant.now().plus(ttl);
+        Duration delay = Duration.between(publication.truncatedTo(ChronoUnit.HOURS), publication);
+        return cache(IntStream.range(0, 24).boxed().toList(), delay);
+    }
+
+    private Mono<WeatherSeries> load(WeatherSeries series) {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return series;
+        });
+    }
+
+    private static ForecastCacheKey key(int days) {
+        return new ForecastCacheKey(CELL, days, "forecast");
+    }
+
+    private static WeatherSeries forecast(int days) {
+        int firstDay = (int) LocalDate.of(2024, 5, 10).toEpochDay();
+
+        int[] epochDays = IntStream.range(0, days).map(i -> firstDay + i).toArray();
+        double[][] dailyColumns = new double[DailySeries.VARIABLE_COUNT][];
+        dailyColumns[DailyVariable.TEMPERATURE_MAX.ordinal()] = new double[days];
+
+        int[] epochHours = IntStream.range(0, days * 24).map(i -> firstDay * 24 + i).toArray();
+        double[][] hourlyColumns = new double[HourlySeries.VARIABLE_COUNT][];
+        hourlyColumns[HourlyVariable.TEMPERATURE.ordinal()] = new double[days * 24];
+
+        return new WeatherSeries(55.02, 73.38, 91.0,
+                new HourlySeries(epochHours, hourlyColumns), new DailySeries(epochDays, dailyColumns),
+                null, null, false);
+    }
+
+    private static Instant instant(String value) {
+        return Instant.parse(value);
+    }
+}
@@ -0,0 +1,106 @@
+package com.omstu.weatherservice.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InFlightRequestRegistryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InFlightRequestRegistry inFlight = new InFlightRequestRegistry(registry);
+
+    // Число запусков загрузки и ответ текущей загрузки
+    private final AtomicInteger loads = new AtomicInteger();
+    private Sinks.One<String> response = Sinks.one();
+
+    @Test
+    void concurrentJoinsShareOneLoad() {
+        List<String> results = new CopyOnWriteArrayList<>();
+        inFlight.join("cell", this::load).subscribe(results::add);
+        inFlight.join("cell", this::load).subscribe(results::add);
+        inFlight.join("other", () -> Mono.just("other")).subscribe(results::add);
+
+        assertThat(loads).hasValue(1);
+        assertThat(inFlightCount()).isEqualTo(1);
+
+        response.tryEmitValue("forecast");
+        assertThat(results).containsExactlyInAnyOrder("other", "forecast", "forecast");
+        assertThat(singleFlight("leader")).isEqualTo(2);
+        assertThat(singleFlight("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void entryIsRemovedOnSuccessAndNextCallLoadsAgain() {
+        Mono<String> first = inFlight.join("cell", this::load);
+        Disposable subscription = first.subscribe();
+        response.tryEmitValue("first");
+        subscription.dispose();
+        assertThat(inFlightCount()).isZero();
+
+        // Результат не кэшируется: следующий вызов запускает новую загрузку
+        response = Sinks.one();
+        response.tryEmitValue("second");
+        assertThat(inFlight.join("cell", this::load).block(TIMEOUT)).isEqualTo("second");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void entryIsRemovedOnError() {
+        Mono<String> failed = inFlight.join("cell", this::load);
+        response.tryEmitError(new IllegalStateException("upstream failed"));
+
+        assertThatThrownBy(() -> failed.block(TIMEOUT)).hasMessageContaining("upstream failed");
+        assertThat(inFlightCount()).isZero();
+
+        response = Sinks.one();
+        response.tryEmitValue("retry");
+        assertThat(inFlight.join("cell", this::load).block(TIMEOUT)).isEqualTo("retry");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadIsCancelledOnlyWhenEveryCallerCancels() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Disposable first = inFlight.join("cell", () -> load().doOnCancel(() -> cancelled.set(true))).subscribe();
+        Disposable second = inFlight.join("cell", this::load).subscribe();
+
+        first.dispose();
+        assertThat(cancelled).isFalse();
+        assertThat(inFlightCount()).isEqualTo(1);
+
+        second.dispose();
+        assertThat(cancelled).isTrue();
+        assertThat(inFlightCount()).isZero();
+
+        response = Sinks.one();
+        response.tryEmitValue("after cancel");
+        assertThat(inFlight.join("cell", this::load).block(TIMEOUT)).isEqualTo("after cancel");
+        assertThat(loads).hasValue(2);
+    }
+
+    private Mono<String> load() {
+        loads.incrementAndGet();
+        return response.asMono();
+    }
+
+    private double inFlightCount() {
+        return registry.get("weather.requests.inflight").gauge().value();
+    }
+
+    private double singleFlight(String result) {
+        return registry.get("weather.requests.singleflight").tag("result", result).counter().count();
+    }
+}
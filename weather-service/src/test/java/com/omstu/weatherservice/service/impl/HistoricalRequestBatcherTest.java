@@ -0,0 +1,128 @@
+package com.omstu.weatherservice.service.impl;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.monitoring.UpstreamMetrics;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistoricalRequestBatcherTest {
+
+    private static final Duration UPSTREAM_DELAY = Duration.ofMillis(200);
+
+    private HttpServer server;
+    private final AtomicInteger upstreamRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/archive", exchange -> {
+            upstreamRequests.incrementAndGet();
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            int locations = query.replaceAll(".*latitude=([^&]*).*", "$1").split(",").length;
+            try {
+                Thread.sleep(UPSTREAM_DELAY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < locations; i++) {
+                body.append(i > 0 ? "," : "")
+                        .append("{\"latitude\":55.0,\"longitude\":73.0,")
+                        .append("\"daily\":{\"time\":[\"2020-01-01\"],\"temperature_2m_max\":[1.5]}}");
+            }
+            byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopUpstream() {
+        server.stop(0);
+    }
+
+    @Test
+    void groupsFetchesOfOnePeriodIntoOneRequest() {
+        HistoricalRequestBatcher batcher = batcher(Duration.ofMillis(50), Duration.ofSeconds(10));
+        try {
+            LocalDate day = LocalDate.of(2020, 1, 1);
+            List<WeatherSeries> fetches = Flux.range(0, 10)
+                    .flatMap(i -> batcher.fetch(new GridCell(55.0 + i * 0.1, 73.0), day, day))
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            assertThat(fetches).hasSize(10);
+            assertThat(upstreamRequests).hasValue(1);
+        } finally {
+            batcher.dispose();
+        }
+    }
+
+    @Test
+    void keepsServingAfterSlowUpstreamExhaustsDemand() throws InterruptedException {
+        // Окно короче ответа API, запросы по одному: буферы готовы намного чаще, чем их забирают
+        HistoricalRequestBatcher batcher = batcher(Duration.ofMillis(5), Duration.ofSeconds(1));
+        try {
+            int fetches = 400;
+            CountDownLatch done = new CountDownLatch(fetches);
+            ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < fetches; i++) {
+                LocalDate day = LocalDate.of(2020, 1, 1).plusDays(i);
+                batcher.fetch(new GridCell(55.0, 73.0), day, day)
+                        .subscribe(series -> done.countDown(), error -> {
+                            errors.add(error);
+                            done.countDown();
+                        });
+                Thread.sleep(1);
+            }
+
+            // Каждая загрузка завершается ответом или fetchTimeout, конвейер не останавливается
+            assertThat(done.await(15, TimeUnit.SECONDS)).isTrue();
+            assertThat(errors).allMatch(TimeoutException.class::isInstance);
+            // Просроченные загрузки в Open-Meteo не отправляются
+            assertThat(upstreamRequests.get()).isLessThan(fetches);
+
+            LocalDate later = LocalDate.of(2021, 1, 1);
+            WeatherSeries series = batcher.fetch(new GridCell(55.0, 73.0), later, later).block(Duration.ofSeconds(5));
+            assertThat(series).isNotNull();
+        } finally {
+            batcher.dispose();
+        }
+    }
+
+    private HistoricalRequestBatcher batcher(Duration batchWindow, Duration fetchTimeout) {
+        WeatherApiProperties.MultiLocation settings = new WeatherApiProperties.MultiLocation();
+        settings.setBatchWindow(batchWindow);
+        settings.setFetchTimeout(fetchTimeout);
+        return new HistoricalRequestBatcher(
+                WebClient.create("http://localhost:" + server.getAddress().getPort()),
+                settings, 1, new UpstreamMetrics(new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.omstu.weatherservice.service.impl;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.WeatherRequestType;
+import com.omstu.weatherservice.series.WeatherSeries;
+import com.omstu.weatherservice.service.WeatherArchiveService;
+import com.omstu.weatherservice.service.cache.ForecastCache;
+import com.omstu.weatherservice.service.cache.InFlightRequestRegistry;
+import com.omstu.weatherservice.service.monitoring.UpstreamMetrics;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.ratelimit.UpstreamRateLimiter;
+import com.omstu.weatherservice.validation.DateValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpenMeteoServiceTest {
+
+    private static final WeatherSeries SERIES = new WeatherSeries(55.0, 73.0, 91.0, null, null, null, null, false);
+
+    // Контекст, в котором выполнялась каждая загрузка архива
+    private final ConcurrentLinkedQueue<Load> loads = new ConcurrentLinkedQueue<>();
+
+    private final WeatherArchiveService archive = (cell, startDate, endDate, upstreamFetcher) ->
+            Mono.deferContextual(context -> {
+                loads.add(new Load(RequestPriority.from(context),
+                        context.hasKey(WeatherArchiveService.INGEST_CONTEXT_KEY)));
+                return Mono.delay(Duration.ofMillis(200)).thenReturn(SERIES);
+            });
+
+    private final OpenMeteoService service = service();
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void interactiveCallDoesNotJoinInFlightIngestLoad() {
+        Mono<WeatherSeries> ingest = historical().contextWrite(context -> RequestPriority.BACKGROUND.writeTo(context)
+                .put(WeatherArchiveService.INGEST_CONTEXT_KEY, true));
+        Mono<WeatherSeries> interactive = Mono.delay(Duration.ofMillis(50)).then(historical());
+
+        Mono.zip(ingest, interactive).block(Duration.ofSeconds(5));
+
+        // Интерактивный вызов выполняется в своей полосе и отмечает активность ячейки
+        assertThat(loads).containsExactly(
+                new Load(RequestPriority.BACKGROUND, true),
+                new Load(RequestPriority.INTERACTIVE, false));
+    }
+
+    @Test
+    void backgroundCallDoesNotJoinInFlightInteractiveLoad() {
+        Mono<WeatherSeries> interactive = historical();
+        Mono<WeatherSeries> background = Mono.delay(Duration.ofMillis(50)).then(historical())
+                .contextWrite(RequestPriority.BACKGROUND::writeTo);
+
+        Mono.zip(interactive, background).block(Duration.ofSeconds(5));
+
+        assertThat(loads).containsExactly(
+                new Load(RequestPriority.INTERACTIVE, false),
+                new Load(RequestPriority.BACKGROUND, false));
+    }
+
+    @Test
+    void callsOfOneLaneShareOneLoad() {
+        List<Mono<WeatherSeries>> calls = List.of(
+                historical(), historical(),
+                historical().contextWrite(RequestPriority.BACKGROUND::writeTo),
+                historical().contextWrite(RequestPriority.BACKGROUND::writeTo));
+
+        Mono.zip(calls, results -> results).block(Duration.ofSeconds(5));
+
+        assertThat(loads).containsExactlyInAnyOrder(
+                new Load(RequestPriority.INTERACTIVE, false),
+                new Load(RequestPriority.BACKGROUND, false));
+    }
+
+    private Mono<WeatherSeries> historical() {
+        return service.getWeather(55.01, 73.02, WeatherRequestType.HISTORIC, null, "2020-01-01", "2020-01-31");
+    }
+
+    private OpenMeteoService service() {
+        WeatherApiProperties properties = new WeatherApiProperties();
+        properties.setForecastBaseUrl("http://localhost:1");
+        properties.setHistoricalBaseUrl("http://localhost:1");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new OpenMeteoService(WebClient.builder(), new DateValidator(properties), properties, archive,
+                new ForecastCache(properties, registry), new InFlightRequestRegistry(registry),
+                new UpstreamMetrics(registry), new UpstreamRateLimiter(properties, registry), registry);
+    }
+
+    private record Load(RequestPriority priority, boolean ingest) {
+    }
+}
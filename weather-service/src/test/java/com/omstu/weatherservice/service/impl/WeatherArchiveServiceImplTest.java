@@ -0,0 +1,185 @@
+package com.omstu.weatherservice.service.impl;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.dto.GridCell;
+import com.omstu.weatherservice.dto.MissingPeriod;
+import com.omstu.weatherservice.mapper.DailyObservationMapperImpl;
+import com.omstu.weatherservice.model.DailyObservation;
+import com.omstu.weatherservice.model.WeatherGridCell;
+import com.omstu.weatherservice.repository.DailyObservationRepository;
+import com.omstu.weatherservice.repository.WeatherGridCellRepository;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import com.omstu.weatherservice.series.WeatherSeries;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WeatherArchiveServiceImplTest {
+
+    private static final GridCell CELL = new GridCell(55.0, 73.4);
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final WeatherGridCellRepository gridCellRepository = mock(WeatherGridCellRepository.class);
+    private final DailyObservationRepository observationRepository = mock(DailyObservationRepository.class);
+    private final WeatherApiProperties properties = new WeatherApiProperties();
+    private final WeatherArchiveServiceImpl archive = new WeatherArchiveServiceImpl(
+            gridCellRepository, observationRepository, new DailyObservationMapperImpl(), properties);
+
+    // Запрошенные у API интервалы
+    private final List<String> fetched = new ArrayList<>();
+
+    @Test
+    void fullArchiveIsServedWithoutUpstream() {
+        archived(observations("2024-01-01", 1.0, 2.0, 3.0));
+
+        WeatherSeries response = archive.getDailyHistory(CELL, date("2024-01-01"), date("2024-01-03"),
+                upstream(Mono.error(new IllegalStateException("must not be called")))).block(TIMEOUT);
+
+        assertThat(fetched).isEmpty();
+        assertThat(dates(response)).containsExactly(date("2024-01-01"), date("2024-01-02"), date("2024-01-03"));
+        assertThat(response.gridCell()).isEqualTo(CELL);
+        assertThat(response.stale()).isFalse();
+    }
+
+    @Test
+    void storesOnlyPublishedDaysInsideRequestedRange() {
+        archived(observations("2024-01-01", 1.0, 2.0, 3.0));
+        // API отдает более широкий период: 3 января уже в архиве, 11–12 января вне запроса,
+        // а 9–10 января еще не опубликованы (нет температуры)
+        WeatherSeries upstream = series("2024-01-03",
+                30.0, 4.0, 5.0, 6.0, 7.0, 8.0, Double.NaN, Double.NaN, 11.0, 12.0);
+
+        WeatherSeries response = archive.getDailyHistory(CELL, date("2024-01-01"), date("2024-01-10"),
+                upstream(Mono.just(upstream))).block(TIMEOUT);
+
+        assertThat(fetched).containsExactly("2024-01-04..2024-01-10");
+        assertThat(storedDates()).containsExactly(
+                date("2024-01-04"), date("2024-01-05"), date("2024-01-06"), date("2024-01-07"), date("2024-01-08"));
+
+        // Неопубликованные дни возвращаются без значений, но в архив не попадают
+        assertThat(dates(response)).hasSize(10)
+                .startsWith(date("2024-01-01")).endsWith(date("2024-01-10"));
+        assertThat(response.daily().column(DailyVariable.TEMPERATURE_MAX))
+                .containsExactly(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, Double.NaN, Double.NaN);
+        assertThat(response.missingPeriods()).isNull();
+        assertThat(response.stale()).isFalse();
+    }
+
+    @Test
+    void partialArchiveIsServedStaleWhenUpstreamFails() {
+        archived(observations("2024-01-01", 1.0, 2.0, 3.0));
+
+        WeatherSeries response = archive.getDailyHistory(CELL, date("2024-01-01"), date("2024-01-05"),
+                upstream(Mono.error(new IllegalStateException("Open-Meteo is down")))).block(TIMEOUT);
+
+        assertThat(response.stale()).isTrue();
+        assertThat(response.gridCell()).isEqualTo(CELL);
+        assertThat(dates(response)).containsExactly(date("2024-01-01"), date("2024-01-02"), date("2024-01-03"));
+        assertThat(response.missingPeriods()).containsExactly(
+                new MissingPeriod(date("2024-01-04"), date("2024-01-05"), "Open-Meteo is down"));
+        verify(observationRepository, never()).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    void emptyArchivePropagatesUpstreamFailure() {
+        when(gridCellRepository.findByCellLatAndCellLon(CELL.latitude(), CELL.longitude()))
+                .thenReturn(Optional.empty());
+
+        Mono<WeatherSeries> response = archive.getDailyHistory(CELL, date("2024-01-01"), date("2024-01-05"),
+                upstream(Mono.error(new IllegalStateException("Open-Meteo is down"))));
+
+        assertThatThrownBy(() -> response.block(TIMEOUT)).hasMessageContaining("Open-Meteo is down");
+        verify(gridCellRepository, never()).save(any());
+    }
+
+    @Test
+    void newCellIsCreatedFromFirstResponse() {
+        when(gridCellRepository.findByCellLatAndCellLon(CELL.latitude(), CELL.longitude()))
+                .thenReturn(Optional.empty());
+        when(gridCellRepository.save(any())).thenAnswer(invocation -> {
+            WeatherGridCell saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        WeatherSeries response = archive.getDailyHistory(CELL, date("2024-01-01"), date("2024-01-02"),
+                upstream(Mono.just(series("2024-01-01", 1.0, 2.0)))).block(TIMEOUT);
+
+        ArgumentCaptor<WeatherGridCell> created = ArgumentCaptor.forClass(WeatherGridCell.class);
+        verify(gridCellRepository).save(created.capture());
+        assertThat(created.getValue().getCellLat()).isEqualTo(CELL.latitude());
+        assertThat(created.getValue().getLatitude()).isEqualTo(55.02);
+        assertThat(storedDates()).containsExactly(date("2024-01-01"), date("2024-01-02"));
+        assertThat(response.latitude()).isEqualTo(55.02);
+    }
+
+    private void archived(List<DailyObservation> observations) {
+        WeatherGridCell gridCell = new WeatherGridCell();
+        gridCell.setId(1L);
+        gridCell.setCellLat(CELL.latitude());
+        gridCell.setCellLon(CELL.longitude());
+        gridCell.setLatitude(55.02);
+        gridCell.setLongitude(73.38);
+        gridCell.setLastRequestedOn(LocalDate.now());
+        when(gridCellRepository.findByCellLatAndCellLon(CELL.latitude(), CELL.longitude()))
+                .thenReturn(Optional.of(gridCell));
+        when(observationRepository.findByCellIdAndPeriod(any(), any(), any())).thenReturn(observations);
+    }
+
+    private BiFunction<LocalDate, LocalDate, Mono<WeatherSeries>> upstream(Mono<WeatherSeries> response) {
+        return (start, end) -> {
+            fetched.add(start + ".." + end);
+            return response;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LocalDate> storedDates() {
+        ArgumentCaptor<List<DailyObservation>> stored = ArgumentCaptor.forClass(List.class);
+        verify(observationRepository).insertIgnoringDuplicates(stored.capture());
+        return stored.getValue().stream().map(DailyObservation::getObservationDate).toList();
+    }
+
+    private static List<DailyObservation> observations(String start, double... temperatures) {
+        return new DailyObservationMapperImpl().toObservations(series(start, temperatures).daily());
+    }
+
+    /**
+     * Дневной ряд с максимальной температурой и осадками; NaN — день без данных
+     */
+    private static WeatherSeries series(String start, double... temperatures) {
+        int startDay = (int) date(start).toEpochDay();
+        int[] epochDays = IntStream.range(0, temperatures.length).map(i -> startDay + i).toArray();
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.TEMPERATURE_MAX.ordinal()] = temperatures.clone();
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = new double[temperatures.length];
+        return new WeatherSeries(55.02, 73.38, 91.0, null, new DailySeries(epochDays, columns), null, null, false);
+    }
+
+    private static List<LocalDate> dates(WeatherSeries response) {
+        DailySeries daily = response.daily();
+        return IntStream.range(0, daily.size()).mapToObj(daily::dateAt).toList();
+    }
+
+    private static LocalDate date(String value) {
+        return LocalDate.parse(value);
+    }
+}
@@ -0,0 +1,184 @@
+package com.omstu.weatherservice.service.metrics;
+
+import com.omstu.weatherservice.dto.AgrometricalData;
+import com.omstu.weatherservice.dto.MetricWindow;
+import com.omstu.weatherservice.dto.WindowSums;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DailyPrefixIndexTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    @Test
+    void sumsMatchDirectSumAcrossYearEdges() {
+        // Ряд декабрь 2023 — январь 2025 с пропущенными днями и NaN, индекс за 2024 високосный год
+        DailySeries daily = randomSeries(LocalDate.of(2023, 12, 1), LocalDate.of(2025, 1, 31), new Random(42));
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        LocalDate last = LocalDate.of(2024, 12, 31);
+        DailyPrefixIndex index = DailyPrefixIndex.build(daily, first, last);
+
+        List<LocalDate[]> windows = new ArrayList<>();
+        // Интервалы у краев периода индекса, в том числе частично и целиком вне его
+        LocalDate[] edges = {
+                LocalDate.of(2023, 12, 25), LocalDate.of(2023, 12, 31), first, first.plusDays(1),
+                LocalDate.of(2024, 2, 28), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1),
+                last.minusDays(1), last, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 10)
+        };
+        for (LocalDate start : edges) {
+            for (LocalDate end : edges) {
+                windows.add(new LocalDate[]{start, end});
+            }
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            LocalDate start = LocalDate.of(2023, 12, 1).plusDays(random.nextInt(425));
+            windows.add(new LocalDate[]{start, start.plusDays(random.nextInt(120))});
+        }
+
+        for (LocalDate[] window : windows) {
+            assertMatchesDirectSum(index, daily, first, last, window[0], window[1]);
+        }
+    }
+
+    @Test
+    void gtkAndCountersAgreeWithWindowMetricsEngine() {
+        DailySeries daily = randomSeries(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 10, 31), new Random(3));
+        DailyPrefixIndex index = DailyPrefixIndex.build(daily, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 10, 31));
+
+        LocalDate start = LocalDate.of(2024, 4, 1);
+        LocalDate end = LocalDate.of(2024, 9, 30);
+        WindowSums sums = index.sums(start, end);
+        AgrometricalData metrics = WindowMetricsEngine.compute(daily, List.of(new MetricWindow("season", start, end)))
+                .get("season");
+
+        assertThat(sums.gtk()).isCloseTo(metrics.gtk(), within(TOLERANCE));
+        assertThat(sums.sumPrecipitation()).isCloseTo(metrics.sumPrecipitation(), within(TOLERANCE));
+        assertThat(sums.sumEffectiveTemp()).isCloseTo(metrics.sumEffectiveTemp(), within(TOLERANCE));
+        assertThat(sums.heatStressDays()).isEqualTo(metrics.heatStressDays());
+        assertThat(sums.extremeHeatDays()).isEqualTo(metrics.extremeHeatDays());
+        assertThat(sums.avgTemp()).isCloseTo(metrics.avgTemp(), within(TOLERANCE));
+    }
+
+    @Test
+    void emptyAndOutsideWindowsGiveZeroSums() {
+        DailySeries daily = randomSeries(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), new Random(1));
+        DailyPrefixIndex index = DailyPrefixIndex.build(daily, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+
+        for (WindowSums sums : List.of(
+                index.sums(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 1, 10)),
+                index.sums(LocalDate.of(2023, 12, 1), LocalDate.of(2023, 12, 31)),
+                index.sums(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)))) {
+            assertThat(sums.daysWithData()).isZero();
+            assertThat(sums.sumPrecipitation()).isZero();
+            assertThat(sums.sumEffectiveTemp()).isZero();
+            assertThat(sums.gtk()).isZero();
+            assertThat(sums.avgTemp()).isZero();
+        }
+    }
+
+    @Test
+    void indexWithoutTemperatureHasNoDaysWithData() {
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = new double[]{1.0, 2.0};
+        DailySeries daily = new DailySeries(new int[]{
+                (int) LocalDate.of(2024, 5, 1).toEpochDay(), (int) LocalDate.of(2024, 5, 2).toEpochDay()}, columns);
+
+        WindowSums sums = DailyPrefixIndex.build(daily, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 2))
+                .sums(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 2));
+
+        assertThat(sums.daysWithData()).isZero();
+        assertThat(sums.sumPrecipitation()).isZero();
+        assertThat(DailyPrefixIndex.build(null, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 2))
+                .sums(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 2)).daysWithData()).isZero();
+    }
+
+    /**
+     * Сверяет суммы индекса с прямым проходом по дням ряда, попадающим в интервал и период индекса
+     */
+    private static void assertMatchesDirectSum(DailyPrefixIndex index, DailySeries daily,
+                                               LocalDate first, LocalDate last, LocalDate start, LocalDate end) {
+        double[] tempMax = daily.column(DailyVariable.TEMPERATURE_MAX);
+        double[] precipitation = daily.column(DailyVariable.PRECIPITATION_SUM);
+        double[] tempMean = daily.column(DailyVariable.TEMPERATURE_MEAN);
+
+        int days = 0;
+        int heat = 0;
+        int extreme = 0;
+        int meanDays = 0;
+        double rainSum = 0;
+        double activeRain = 0;
+        double effective = 0;
+        double meanSum = 0;
+        for (int i = 0; i < daily.size(); i++) {
+            LocalDate date = daily.dateAt(i);
+            if (date.isBefore(start) || date.isAfter(end) || date.isBefore(first) || date.isAfter(last)
+                    || Double.isNaN(tempMax[i])) {
+                continue;
+            }
+            double rain = Double.isNaN(precipitation[i]) ? 0.0 : precipitation[i];
+            days++;
+            rainSum += rain;
+            if (tempMax[i] > 10.0) {
+                activeRain += rain;
+                effective += tempMax[i];
+            }
+            if (tempMax[i] > 30.0) heat++;
+            if (tempMax[i] > 35.0) extreme++;
+            if (!Double.isNaN(tempMean[i])) {
+                meanSum += tempMean[i];
+                meanDays++;
+            }
+        }
+
+        WindowSums sums = index.sums(start, end);
+        String window = start + " to " + end;
+        assertThat(sums.startDate()).isEqualTo(start);
+        assertThat(sums.endDate()).isEqualTo(end);
+        assertThat(sums.daysWithData()).as(window).isEqualTo(days);
+        assertThat(sums.sumPrecipitation()).as(window).isCloseTo(rainSum, within(TOLERANCE));
+        assertThat(sums.sumActivePrecipitation()).as(window).isCloseTo(activeRain, within(TOLERANCE));
+        assertThat(sums.sumEffectiveTemp()).as(window).isCloseTo(effective, within(TOLERANCE));
+        assertThat(sums.gtk()).as(window)
+                .isCloseTo(effective > 0 ? activeRain * 10.0 / effective : 0.0, within(TOLERANCE));
+        assertThat(sums.heatStressDays()).as(window).isEqualTo(heat);
+        assertThat(sums.extremeHeatDays()).as(window).isEqualTo(extreme);
+        assertThat(sums.avgTemp()).as(window).isCloseTo(meanDays > 0 ? meanSum / meanDays : 0.0, within(TOLERANCE));
+    }
+
+    /**
+     * Случайный дневной ряд: около 5% дней отсутствует, по 10% значений каждой колонки — NaN
+     */
+    private static DailySeries randomSeries(LocalDate from, LocalDate to, Random random) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (random.nextInt(20) != 0) {
+                dates.add(date);
+            }
+        }
+        int[] time = new int[dates.size()];
+        double[] tempMax = new double[dates.size()];
+        double[] precipitation = new double[dates.size()];
+        double[] tempMean = new double[dates.size()];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = (int) dates.get(i).toEpochDay();
+            tempMax[i] = random.nextInt(10) == 0 ? Double.NaN : -20 + random.nextDouble() * 60;
+            precipitation[i] = random.nextInt(10) == 0 ? Double.NaN : random.nextDouble() * 12;
+            tempMean[i] = random.nextInt(10) == 0 ? Double.NaN : tempMax[i] - 6;
+        }
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.TEMPERATURE_MAX.ordinal()] = tempMax;
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = precipitation;
+        columns[DailyVariable.TEMPERATURE_MEAN.ordinal()] = tempMean;
+        return new DailySeries(time, columns);
+    }
+}
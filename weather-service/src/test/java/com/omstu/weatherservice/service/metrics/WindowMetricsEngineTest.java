@@ -0,0 +1,137 @@
+package com.omstu.weatherservice.service.metrics;
+
+import com.omstu.weatherservice.dto.AgrometricalData;
+import com.omstu.weatherservice.dto.MetricWindow;
+import com.omstu.weatherservice.series.DailySeries;
+import com.omstu.weatherservice.series.DailyVariable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WindowMetricsEngineTest {
+
+    private static final double NaN = Double.NaN;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 6, 1);
+
+    /*
+     * 1–10 июня: максимальная температура, осадки, средняя температура.
+     * 3 июня осадков нет (NaN → 0), 5 июня нет максимума (день пропускается целиком,
+     * включая его 10 мм), 6 июня нет средней температуры.
+     */
+    private static final double[] TEMP_MAX = {12.0, 31.0, 36.0, 9.0, NaN, 20.0, 25.0, 8.0, -1.5, 11.0};
+    private static final double[] PRECIPITATION = {0.0, 0.5, NaN, 5.0, 10.0, 0.2, 0.0, 2.0, 0.0, 3.0};
+    private static final double[] TEMP_MEAN = {8.0, 22.0, 27.0, 5.0, 6.0, NaN, 18.0, 4.0, -3.0, 7.0};
+
+    // Пересекающиеся интервалы не по порядку, один выходит за конец ряда, один целиком вне ряда
+    private static final List<MetricWindow> WINDOWS = List.of(
+            window("late", 6, 10),
+            window("all", 1, 10),
+            window("early", 1, 4),
+            window("mid", 3, 7),
+            new MetricWindow("tail", LocalDate.of(2024, 6, 9), LocalDate.of(2024, 6, 20)),
+            new MetricWindow("outside", LocalDate.of(2024, 7, 1), LocalDate.of(2024, 7, 5))
+    );
+
+    @Test
+    void computesEveryWindowAgainstHandComputedValues() {
+        Map<String, AgrometricalData> metrics = WindowMetricsEngine.compute(series(), WINDOWS);
+
+        assertThat(metrics.keySet()).containsExactly("late", "all", "early", "mid", "tail", "outside");
+
+        // Активные дни 12, 31, 36: ГТК = 10 * 0.5 / 79; сухие дни 1–3 июня подряд
+        assertMetrics(metrics.get("early"), 10 * 0.5 / 79, 5.5, 79.0, 2, 9.0, 62.0 / 4, 1, 3);
+        assertThat(metrics.get("early").stressLevel()).isEqualTo("Очень сильная засуха");
+
+        // Активные дни 20, 25, 11; средняя без 6 июня; сухие серии 6–7 и 9 июня
+        assertMetrics(metrics.get("late"), 10 * 3.2 / 56, 5.2, 56.0, 0, -1.5, 26.0 / 4, 0, 2);
+
+        // 5 июня пропущено: его 10 мм и средняя 6.0 в метрики не входят
+        assertMetrics(metrics.get("mid"), 10 * 0.2 / 81, 5.2, 81.0, 1, 9.0, 50.0 / 3, 1, 2);
+
+        assertMetrics(metrics.get("all"), 10 * 3.7 / 135, 10.7, 135.0, 2, -1.5, 88.0 / 8, 1, 3);
+
+        // Интервал обрезается концом ряда: 9 и 10 июня
+        assertMetrics(metrics.get("tail"), 10 * 3.0 / 11, 3.0, 11.0, 0, -1.5, 2.0, 0, 1);
+        assertThat(metrics.get("tail").stressLevel()).isEqualTo("Переувлажнение / Риск гниения");
+
+        // Нет ни одного дня: нулевые метрики, минимум 0
+        assertMetrics(metrics.get("outside"), 0.0, 0.0, 0.0, 0, 0.0, 0.0, 0, 0);
+        assertThat(metrics.get("outside").stressLevel()).isEqualTo("Нет данных (T < 10°C)");
+    }
+
+    @Test
+    void windowResultDoesNotDependOnOtherWindows() {
+        DailySeries daily = series();
+        Map<String, AgrometricalData> together = WindowMetricsEngine.compute(daily, WINDOWS);
+
+        for (MetricWindow window : WINDOWS) {
+            AgrometricalData alone = WindowMetricsEngine.compute(daily, List.of(window)).get(window.name());
+            assertThat(together.get(window.name())).as(window.name()).isEqualTo(alone);
+        }
+        assertThat(WindowMetricsEngine.computeAll(daily)).isEqualTo(together.get("all"));
+    }
+
+    @Test
+    void seriesWithoutMaxTemperatureGivesEmptyMetrics() {
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = PRECIPITATION.clone();
+        DailySeries daily = new DailySeries(epochDays(), columns);
+
+        Map<String, AgrometricalData> metrics = WindowMetricsEngine.compute(daily, WINDOWS);
+
+        assertThat(metrics.values()).containsOnly(WindowMetricsEngine.emptyMetrics());
+        assertThat(WindowMetricsEngine.compute(null, WINDOWS).values())
+                .containsOnly(WindowMetricsEngine.emptyMetrics());
+        assertThat(WindowMetricsEngine.computeAll(null)).isEqualTo(WindowMetricsEngine.emptyMetrics());
+    }
+
+    @Test
+    void interpretsGtkAtClassBoundaries() {
+        assertThat(WindowMetricsEngine.interpretGtk(0.0)).isEqualTo("Нет данных (T < 10°C)");
+        assertThat(WindowMetricsEngine.interpretGtk(0.59)).isEqualTo("Очень сильная засуха");
+        assertThat(WindowMetricsEngine.interpretGtk(0.6)).isEqualTo("Засушливо");
+        assertThat(WindowMetricsEngine.interpretGtk(1.0)).isEqualTo("Оптимальное увлажнение");
+        assertThat(WindowMetricsEngine.interpretGtk(1.3)).isEqualTo("Избыточное увлажнение");
+        assertThat(WindowMetricsEngine.interpretGtk(1.6)).isEqualTo("Переувлажнение / Риск гниения");
+    }
+
+    private static void assertMetrics(
+            AgrometricalData metrics, double gtk, double sumPrecipitation, double sumEffectiveTemp,
+            int heatStressDays, double minTemp, double avgTemp, int extremeHeatDays, int longestDryPeriod
+    ) {
+        assertThat(metrics.gtk()).isCloseTo(gtk, within(1e-9));
+        assertThat(metrics.sumPrecipitation()).isCloseTo(sumPrecipitation, within(1e-9));
+        assertThat(metrics.sumEffectiveTemp()).isCloseTo(sumEffectiveTemp, within(1e-9));
+        assertThat(metrics.heatStressDays()).isEqualTo(heatStressDays);
+        assertThat(metrics.minTempRecord()).isEqualTo(minTemp);
+        assertThat(metrics.avgTemp()).isCloseTo(avgTemp, within(1e-9));
+        assertThat(metrics.extremeHeatDays()).isEqualTo(extremeHeatDays);
+        assertThat(metrics.longestDryPeriod()).isEqualTo(longestDryPeriod);
+        assertThat(metrics.stressLevel()).isEqualTo(WindowMetricsEngine.interpretGtk(metrics.gtk()));
+    }
+
+    private static DailySeries series() {
+        double[][] columns = new double[DailySeries.VARIABLE_COUNT][];
+        columns[DailyVariable.TEMPERATURE_MAX.ordinal()] = TEMP_MAX.clone();
+        columns[DailyVariable.PRECIPITATION_SUM.ordinal()] = PRECIPITATION.clone();
+        columns[DailyVariable.TEMPERATURE_MEAN.ordinal()] = TEMP_MEAN.clone();
+        return new DailySeries(epochDays(), columns);
+    }
+
+    private static int[] epochDays() {
+        int[] days = new int[TEMP_MAX.length];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = (int) FIRST_DAY.plusDays(i).toEpochDay();
+        }
+        return days;
+    }
+
+    private static MetricWindow window(String name, int fromDay, int toDay) {
+        return new MetricWindow(name, FIRST_DAY.withDayOfMonth(fromDay), FIRST_DAY.withDayOfMonth(toDay));
+    }
+}
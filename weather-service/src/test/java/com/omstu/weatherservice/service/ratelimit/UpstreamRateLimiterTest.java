@@ -0,0 +1,185 @@
+package com.omstu.weatherservice.service.ratelimit;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.omstu.weatherservice.service.ratelimit.RequestPriority.BACKGROUND;
+import static com.omstu.weatherservice.service.ratelimit.RequestPriority.INTERACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void grantsBurstImmediatelyThenRefillsAtConfiguredRate() {
+        // 4 запроса в секунду — токен каждые 250 мс
+        UpstreamRateLimiter limiter = limiter(4, 3, 100, 4);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(grantedImmediately(limiter, INTERACTIVE)).as("burst token %d", i).isTrue();
+        }
+
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            limiter.acquire(INTERACTIVE).block(Duration.ofSeconds(2));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertThat(elapsedMillis).as("refill %d", i).isBetween(150L, 500L);
+        }
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToBurst() throws InterruptedException {
+        UpstreamRateLimiter limiter = limiter(10, 2, 100, 4);
+        limiter.acquire(INTERACTIVE).block(Duration.ofSeconds(1));
+        limiter.acquire(INTERACTIVE).block(Duration.ofSeconds(1));
+
+        // За 500 мс накопилось бы 5 токенов, но корзина вмещает только 2
+        Thread.sleep(500);
+
+        assertThat(registry.get("weather.upstream.ratelimit.tokens").gauge().value()).isEqualTo(2.0);
+        assertThat(grantedImmediately(limiter, BACKGROUND)).isTrue();
+        assertThat(grantedImmediately(limiter, BACKGROUND)).isTrue();
+        assertThat(grantedImmediately(limiter, BACKGROUND)).isFalse();
+    }
+
+    @Test
+    void backgroundGetsEveryTokenAfterInteractiveWeightGrants() throws InterruptedException {
+        UpstreamRateLimiter limiter = limiter(10, 1, 100, 2);
+        // Фоновый запрос забирает единственный токен и не меняет счетчик интерактивной серии
+        limiter.acquire(BACKGROUND).block(Duration.ofSeconds(1));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch granted = new CountDownLatch(9);
+        for (int i = 0; i < 6; i++) {
+            limiter.acquire(INTERACTIVE).subscribe(null, null, () -> {
+                order.add("I");
+                granted.countDown();
+            });
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(BACKGROUND).subscribe(null, null, () -> {
+                order.add("B");
+                granted.countDown();
+            });
+        }
+
+        assertThat(granted.await(3, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("I", "I", "B", "I", "I", "B", "I", "I", "B");
+        assertThat(registry.get("weather.upstream.ratelimit.wait").tag("lane", "BACKGROUND").timer().count())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void interactiveLaneDrainsFirstWhenBackgroundIsEmpty() throws InterruptedException {
+        UpstreamRateLimiter limiter = limiter(50, 1, 100, 1);
+        limiter.acquire(BACKGROUND).block(Duration.ofSeconds(1));
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch granted = new CountDownLatch(4);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(INTERACTIVE).subscribe(null, null, () -> {
+                order.add("I");
+                granted.countDown();
+            });
+        }
+
+        assertThat(granted.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(order).containsExactly("I", "I", "I");
+        limiter.acquire(BACKGROUND).subscribe(null, null, granted::countDown);
+        assertThat(granted.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void rejectsWhenLaneQueueIsFull() {
+        UpstreamRateLimiter limiter = limiter(1, 1, 2, 4);
+        limiter.acquire(INTERACTIVE).block(Duration.ofSeconds(1));
+
+        List<Disposable> waiting = List.of(
+                limiter.acquire(INTERACTIVE).subscribe(),
+                limiter.acquire(INTERACTIVE).subscribe());
+        assertThat(queued(INTERACTIVE)).isEqualTo(2);
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        limiter.acquire(INTERACTIVE).subscribe(null, error::set);
+        assertThat(error.get())
+                .isInstanceOf(UpstreamOverloadedException.class)
+                .hasMessageContaining("queue is full");
+        // Две ожидающие заявки при 1 запросе в секунду разбираются за 2 с
+        assertThat(((UpstreamOverloadedException) error.get()).getRetryAfter()).isEqualTo(Duration.ofSeconds(2));
+        assertThat(registry.get("weather.upstream.ratelimit.rejected").tag("lane", "INTERACTIVE").counter().count())
+                .isEqualTo(1);
+
+        // У фоновой полосы своя очередь
+        AtomicReference<Throwable> backgroundError = new AtomicReference<>();
+        Disposable background = limiter.acquire(BACKGROUND).subscribe(null, backgroundError::set);
+        assertThat(backgroundError.get()).isNull();
+        assertThat(queued(BACKGROUND)).isEqualTo(1);
+
+        waiting.forEach(Disposable::dispose);
+        background.dispose();
+    }
+
+    @Test
+    void cancelledWaiterLeavesQueueAndDoesNotTakeToken() throws InterruptedException {
+        UpstreamRateLimiter limiter = limiter(4, 1, 100, 4);
+        limiter.acquire(INTERACTIVE).block(Duration.ofSeconds(1));
+
+        AtomicBoolean cancelledGranted = new AtomicBoolean();
+        Disposable cancelled = limiter.acquire(INTERACTIVE).subscribe(null, null, () -> cancelledGranted.set(true));
+        CountDownLatch next = new CountDownLatch(1);
+        limiter.acquire(INTERACTIVE).subscribe(null, null, next::countDown);
+        assertThat(queued(INTERACTIVE)).isEqualTo(2);
+
+        cancelled.dispose();
+        assertThat(queued(INTERACTIVE)).isEqualTo(1);
+
+        // Следующий токен (через ~250 мс) достается оставшемуся запросу, а не отмененному
+        assertThat(next.await(400, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(cancelledGranted).isFalse();
+        assertThat(queued(INTERACTIVE)).isZero();
+    }
+
+    @Test
+    void disabledLimiterNeverWaits() {
+        WeatherApiProperties properties = new WeatherApiProperties();
+        properties.getRateLimit().setEnabled(false);
+        properties.getRateLimit().setRequestsPerSecond(0);
+        UpstreamRateLimiter limiter = new UpstreamRateLimiter(properties, registry);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(grantedImmediately(limiter, INTERACTIVE)).isTrue();
+        }
+    }
+
+    private UpstreamRateLimiter limiter(double requestsPerSecond, int burst, int maxQueued, int interactiveWeight) {
+        WeatherApiProperties properties = new WeatherApiProperties();
+        WeatherApiProperties.RateLimit settings = properties.getRateLimit();
+        settings.setRequestsPerSecond(requestsPerSecond);
+        settings.setBurst(burst);
+        settings.setMaxQueued(maxQueued);
+        settings.setInteractiveWeight(interactiveWeight);
+        return new UpstreamRateLimiter(properties, registry);
+    }
+
+    private static boolean grantedImmediately(UpstreamRateLimiter limiter, RequestPriority priority) {
+        AtomicBoolean granted = new AtomicBoolean();
+        limiter.acquire(priority).subscribe(null, null, () -> granted.set(true));
+        return granted.get();
+    }
+
+    private double queued(RequestPriority priority) {
+        return registry.get("weather.upstream.ratelimit.queued").tag("lane", priority.name()).gauge().value();
+    }
+}
@@ -0,0 +1,216 @@
+package com.omstu.weatherservice.service.resilience;
+
+import com.omstu.weatherservice.config.WeatherApiProperties;
+import com.omstu.weatherservice.service.ratelimit.RequestPriority;
+import com.omstu.weatherservice.service.ratelimit.UpstreamOverloadedException;
+import com.omstu.weatherservice.service.resilience.UpstreamCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamCircuitBreakerTest {
+
+    private static final ClientRequest REQUEST =
+            ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/archive")).build();
+    private static final ExchangeFilterFunction PASS_THROUGH = (request, next) -> next.exchange(request);
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger exchanges = new AtomicInteger();
+
+    @Test
+    void opensOnlyAfterMinimumCallsAndFailureThreshold() {
+        UpstreamCircuitBreaker breaker = breaker(10, 4, 50, Duration.ofSeconds(1));
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+
+        call(filter, respond(HttpStatus.OK));
+        call(filter, respond(HttpStatus.OK));
+        call(filter, respond(HttpStatus.SERVICE_UNAVAILABLE));
+        // 1 из 3 — меньше minimumCalls, автомат не оценивает долю ошибок
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        call(filter, respond(HttpStatus.TOO_MANY_REQUESTS));
+        // 2 из 4 = 50% — порог достигнут
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(registry.get("weather.upstream.circuit.opened").counter().count()).isEqualTo(1);
+        assertThat(registry.get("weather.upstream.circuit.state").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsAreNotFailures() {
+        UpstreamCircuitBreaker breaker = breaker(4, 1, 50, Duration.ofSeconds(1));
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+
+        for (int i = 0; i < 10; i++) {
+            call(filter, respond(HttpStatus.BAD_REQUEST));
+        }
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void openCircuitRejectsWithoutReachingThrottleOrUpstream() {
+        UpstreamCircuitBreaker breaker = breaker(2, 1, 50, Duration.ofSeconds(1));
+        AtomicInteger throttled = new AtomicInteger();
+        ExchangeFilterFunction filter = breaker.filter((request, next) -> {
+            throttled.incrementAndGet();
+            return next.exchange(request);
+        });
+
+        call(filter, respond(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        throttled.set(0);
+        exchanges.set(0);
+
+        assertThatThrownBy(() -> call(filter, respond(HttpStatus.OK)))
+                .isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(throttled).hasValue(0);
+        assertThat(exchanges).hasValue(0);
+        assertThat(registry.get("weather.upstream.circuit.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpenLetsSingleProbeThroughAndClosesOnSuccess() throws InterruptedException {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        Sinks.One<ClientResponse> probeResponse = Sinks.one();
+        Disposable probe = filter.filter(REQUEST, request -> probeResponse.asMono()).subscribe();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+        // Пока пробный запрос не завершился, остальные отклоняются
+        assertThatThrownBy(() -> call(filter, respond(HttpStatus.OK)))
+                .isInstanceOf(UpstreamUnavailableException.class);
+
+        probeResponse.tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        call(filter, respond(HttpStatus.OK));
+        probe.dispose();
+    }
+
+    @Test
+    void failedProbeOpensCircuitAgain() throws InterruptedException {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        call(filter, respond(HttpStatus.BAD_GATEWAY));
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(registry.get("weather.upstream.circuit.opened").counter().count()).isEqualTo(2);
+        assertThatThrownBy(() -> call(filter, respond(HttpStatus.OK)))
+                .isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void cancelledProbeReleasesPermitForNextProbe() throws InterruptedException {
+        UpstreamCircuitBreaker breaker = openBreaker();
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        Disposable probe = filter.filter(REQUEST, request -> Mono.never()).subscribe();
+        probe.dispose();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+        // Отмена исходом не считается: следующий запрос становится новым пробным
+        call(filter, respond(HttpStatus.OK));
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void callTimeoutStartsAfterThrottleAdmitsRequest() {
+        UpstreamCircuitBreaker breaker = breaker(4, 1, 50, Duration.ofMillis(100));
+        // Ограничитель держит запрос втрое дольше callTimeout
+        ExchangeFilterFunction slowThrottle = (request, next) ->
+                Mono.delay(Duration.ofMillis(300)).then(next.exchange(request));
+        ExchangeFilterFunction filter = breaker.filter(slowThrottle);
+
+        assertThat(call(filter, respond(HttpStatus.OK)).statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        // Сам вызов дольше callTimeout — это ошибка API
+        assertThatThrownBy(() -> call(filter, request -> Mono.never()))
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void throttleRejectionsAreNotCountedAndReleaseProbe() throws InterruptedException {
+        ExchangeFilterFunction rejectingThrottle = (request, next) ->
+                Mono.error(new UpstreamOverloadedException(RequestPriority.INTERACTIVE, Duration.ofSeconds(1)));
+
+        UpstreamCircuitBreaker closed = breaker(4, 1, 50, Duration.ofSeconds(1));
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> call(closed.filter(rejectingThrottle), respond(HttpStatus.OK)))
+                    .isInstanceOf(UpstreamOverloadedException.class);
+        }
+        assertThat(closed.state()).isEqualTo(State.CLOSED);
+
+        UpstreamCircuitBreaker halfOpen = openBreaker();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThatThrownBy(() -> call(halfOpen.filter(rejectingThrottle), respond(HttpStatus.OK)))
+                .isInstanceOf(UpstreamOverloadedException.class);
+        assertThat(halfOpen.state()).isEqualTo(State.HALF_OPEN);
+
+        call(halfOpen.filter(PASS_THROUGH), respond(HttpStatus.OK));
+        assertThat(halfOpen.state()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void disabledBreakerOnlyDelegatesToThrottle() {
+        WeatherApiProperties.CircuitBreaker settings = new WeatherApiProperties.CircuitBreaker();
+        settings.setEnabled(false);
+        UpstreamCircuitBreaker breaker = new UpstreamCircuitBreaker("forecast", settings, registry);
+        ExchangeFilterFunction filter = breaker.filter(PASS_THROUGH);
+
+        for (int i = 0; i < 50; i++) {
+            call(filter, respond(HttpStatus.SERVICE_UNAVAILABLE));
+        }
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(exchanges).hasValue(50);
+    }
+
+    private UpstreamCircuitBreaker openBreaker() {
+        UpstreamCircuitBreaker breaker = breaker(2, 1, 50, Duration.ofSeconds(1));
+        call(breaker.filter(PASS_THROUGH), respond(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        return breaker;
+    }
+
+    private UpstreamCircuitBreaker breaker(int window, int minimumCalls, int threshold, Duration callTimeout) {
+        WeatherApiProperties.CircuitBreaker settings = new WeatherApiProperties.CircuitBreaker();
+        settings.setSlidingWindowSize(window);
+        settings.setMinimumCalls(minimumCalls);
+        settings.setFailureRateThreshold(threshold);
+        settings.setOpenDuration(OPEN_DURATION);
+        settings.setCallTimeout(callTimeout);
+        return new UpstreamCircuitBreaker("historical", settings, registry);
+    }
+
+    private ExchangeFunction respond(HttpStatus status) {
+        return request -> {
+            exchanges.incrementAndGet();
+            return Mono.just(ClientResponse.create(status).build());
+        };
+    }
+
+    private static ClientResponse call(ExchangeFilterFunction filter, ExchangeFunction upstream) {
+        return filter.filter(REQUEST, upstream).block(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,159 @@
+package com.omstu.weatherservice.service.utils;
+
+import com.omstu.weatherservice.service.utils.DateUtils.DateRange;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DateUtilsTest {
+
+    @Test
+    void lastDekadEndsOnLastDayOfMonth() {
+        assertThat(DateUtils.splitByDekads(date("2024-02-01"), date("2024-04-30"))).containsExactly(
+                range("2024-02-01", "2024-02-10"), range("2024-02-11", "2024-02-20"),
+                range("2024-02-21", "2024-02-29"),
+                range("2024-03-01", "2024-03-10"), range("2024-03-11", "2024-03-20"),
+                range("2024-03-21", "2024-03-31"),
+                range("2024-04-01", "2024-04-10"), range("2024-04-11", "2024-04-20"),
+                range("2024-04-21", "2024-04-30"));
+
+        assertThat(DateUtils.splitByDekads(date("2023-02-21"), date("2023-03-01"))).containsExactly(
+                range("2023-02-21", "2023-02-28"), range("2023-03-01", "2023-03-01"));
+        assertThat(DateUtils.splitByDekads(date("2100-02-21"), date("2100-02-28"))).containsExactly(
+                range("2100-02-21", "2100-02-28"));
+        assertThat(DateUtils.splitByDekads(date("2000-02-25"), date("2000-03-02"))).containsExactly(
+                range("2000-02-25", "2000-02-29"), range("2000-03-01", "2000-03-02"));
+    }
+
+    @Test
+    void dekadsAreClippedToPeriodAndCrossYearEdge() {
+        assertThat(DateUtils.splitByDekads(date("2023-12-15"), date("2024-01-15"))).containsExactly(
+                range("2023-12-15", "2023-12-20"), range("2023-12-21", "2023-12-31"),
+                range("2024-01-01", "2024-01-10"), range("2024-01-11", "2024-01-15"));
+        assertThat(DateUtils.splitByDekads(date("2024-05-10"), date("2024-05-11"))).containsExactly(
+                range("2024-05-10", "2024-05-10"), range("2024-05-11", "2024-05-11"));
+    }
+
+    @Test
+    void monthsEndOnLastDayOfMonth() {
+        assertThat(DateUtils.splitByMonths(date("2024-01-15"), date("2024-03-10"))).containsExactly(
+                range("2024-01-15", "2024-01-31"), range("2024-02-01", "2024-02-29"),
+                range("2024-03-01", "2024-03-10"));
+        assertThat(DateUtils.splitByMonths(date("2023-02-01"), date("2023-02-28"))).containsExactly(
+                range("2023-02-01", "2023-02-28"));
+        assertThat(DateUtils.splitByMonths(date("2023-12-31"), date("2024-01-01"))).containsExactly(
+                range("2023-12-31", "2023-12-31"), range("2024-01-01", "2024-01-01"));
+    }
+
+    @Test
+    void weeksRunMondayToSunday() {
+        // 25.12.2024 — среда, 08.01.2025 — среда
+        assertThat(DateUtils.splitByWeeks(date("2024-12-25"), date("2025-01-08"))).containsExactly(
+                range("2024-12-25", "2024-12-29"), range("2024-12-30", "2025-01-05"),
+                range("2025-01-06", "2025-01-08"));
+        assertThat(DateUtils.splitByWeeks(date("2024-12-29"), date("2024-12-29"))).containsExactly(
+                range("2024-12-29", "2024-12-29"));
+    }
+
+    @Test
+    void splitsCoverPeriodWithoutGapsOrOverlaps() {
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            LocalDate start = date("2019-11-01").plusDays(random.nextInt(2500));
+            LocalDate end = start.plusDays(random.nextInt(400));
+
+            assertCovers(DateUtils::splitByMonths, start, end);
+            assertCovers(DateUtils::splitByDekads, start, end);
+            assertCovers(DateUtils::splitByWeeks, start, end);
+            assertCovers(DateUtils::splitByThreeMonths, start, end);
+
+            for (DateRange dekad : DateUtils.splitByDekads(start, end)) {
+                int lastDay = dekad.endDate().getDayOfMonth();
+                assertThat(dekad.endDate().equals(end) || lastDay == 10 || lastDay == 20
+                        || lastDay == YearMonth.from(dekad.endDate()).lengthOfMonth())
+                        .as("dekad %s", dekad).isTrue();
+                assertThat(YearMonth.from(dekad.startDate())).isEqualTo(YearMonth.from(dekad.endDate()));
+            }
+            for (DateRange week : DateUtils.splitByWeeks(start, end)) {
+                assertThat(week.endDate().equals(end) || week.endDate().getDayOfWeek() == DayOfWeek.SUNDAY)
+                        .as("week %s", week).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void missingRangesCoverWholePeriodWhenNothingIsArchived() {
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-03-31"), Set.of(), 31))
+                .containsExactly(range("2024-01-01", "2024-03-31"));
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-03"),
+                days("2024-01-01", "2024-01-03"), 31)).isEmpty();
+    }
+
+    @Test
+    void missingRangesIgnoreArchivedDaysOutsidePeriod() {
+        Set<LocalDate> present = days("2023-12-01", "2024-01-10");
+        present.addAll(days("2024-01-21", "2024-02-29"));
+
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-31"), present, 0))
+                .containsExactly(range("2024-01-11", "2024-01-20"));
+    }
+
+    @Test
+    void gapsSeparatedByAtMostMergeDaysAreFetchedTogether() {
+        // Пропуски 1–5 и 9–10 января разделены тремя архивными днями (6–8 января)
+        Set<LocalDate> present = days("2024-01-06", "2024-01-08");
+        present.addAll(days("2024-01-11", "2024-01-31"));
+
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-31"), present, 3))
+                .containsExactly(range("2024-01-01", "2024-01-10"));
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-31"), present, 2))
+                .containsExactly(range("2024-01-01", "2024-01-05"), range("2024-01-09", "2024-01-10"));
+    }
+
+    @Test
+    void zeroMergeDaysSplitsOnEveryArchivedDay() {
+        Set<LocalDate> present = new HashSet<>(Set.of(date("2024-01-03"), date("2024-01-05")));
+
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-07"), present, 0))
+                .containsExactly(range("2024-01-01", "2024-01-02"), range("2024-01-04", "2024-01-04"),
+                        range("2024-01-06", "2024-01-07"));
+        assertThat(DateUtils.findMissingRanges(date("2024-01-01"), date("2024-01-07"), present, 1))
+                .containsExactly(range("2024-01-01", "2024-01-07"));
+    }
+
+    private static void assertCovers(BiFunction<LocalDate, LocalDate, List<DateRange>> split,
+                                     LocalDate start, LocalDate end) {
+        List<DateRange> ranges = split.apply(start, end);
+        assertThat(ranges).isNotEmpty();
+        assertThat(ranges.get(0).startDate()).isEqualTo(start);
+        assertThat(ranges.get(ranges.size() - 1).endDate()).isEqualTo(end);
+        for (int i = 0; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).endDate()).isAfterOrEqualTo(ranges.get(i).startDate());
+            if (i > 0) {
+                assertThat(ranges.get(i).startDate()).isEqualTo(ranges.get(i - 1).endDate().plusDays(1));
+            }
+        }
+    }
+
+    private static LocalDate date(String value) {
+        return LocalDate.parse(value);
+    }
+
+    private static Set<LocalDate> days(String start, String end) {
+        return date(start).datesUntil(date(end).plusDays(1)).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static DateRange range(String start, String end) {
+        return new DateRange(date(start), date(end));
+    }
+}